@@ -8,14 +8,17 @@ import it.unive.lisa.analysis.lattices.FunctionalLattice;
 import it.unive.lisa.analysis.value.TypeDomain;
 import it.unive.lisa.analysis.value.ValueDomain;
 import java.util.Collection;
-import java.util.Collections;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import org.apache.commons.lang3.tuple.Pair;
 
 /**
  * A {@link FunctionalLattice} from {@link ContextSensitivityToken}s to
  * {@link CFGWithAnalysisResults}s. This class is meant to store fixpoint
- * results on each token generated during the interprocedural analysis.
+ * results on each token generated during the interprocedural analysis. The
+ * underlying function is a single {@link ConcurrentHashMap}, created with the
+ * object and never replaced, so that results can be queried while other threads
+ * are storing new ones.
  * 
  * @author <a href="mailto:luca.negrini@unive.it">Luca Negrini</a>
  * 
@@ -34,6 +37,12 @@ public class CFGResults<A extends AbstractState<A, H, V, T>,
 		T extends TypeDomain<T>>
 		extends FunctionalLattice<CFGResults<A, H, V, T>, ContextSensitivityToken, CFGWithAnalysisResults<A, H, V, T>> {
 
+	/**
+	 * The result of each context. This is also the function of this lattice,
+	 * and all accesses go through this field.
+	 */
+	private final Map<ContextSensitivityToken, CFGWithAnalysisResults<A, H, V, T>> results;
+
 	/**
 	 * Builds a new result.
 	 * 
@@ -41,12 +50,14 @@ public class CFGResults<A extends AbstractState<A, H, V, T>,
 	 *                    values
 	 */
 	public CFGResults(CFGWithAnalysisResults<A, H, V, T> lattice) {
-		super(lattice);
+		this(lattice, null);
 	}
 
 	private CFGResults(CFGWithAnalysisResults<A, H, V, T> lattice,
 			Map<ContextSensitivityToken, CFGWithAnalysisResults<A, H, V, T>> function) {
 		super(lattice, function);
+		this.results = mkNewFunction(function, false);
+		this.function = results;
 	}
 
 	/**
@@ -79,17 +90,10 @@ public class CFGResults<A extends AbstractState<A, H, V, T>,
 	public Pair<Boolean, CFGWithAnalysisResults<A, H, V, T>> putResult(ContextSensitivityToken token,
 			CFGWithAnalysisResults<A, H, V, T> result)
 			throws SemanticException {
-		if (function == null) {
-			// no previous result
-			function = mkNewFunction(null, false);
-			function.put(token, result);
-			return Pair.of(false, result);
-		}
-
-		CFGWithAnalysisResults<A, H, V, T> previousResult = function.get(token);
+		CFGWithAnalysisResults<A, H, V, T> previousResult = results.get(token);
 		if (previousResult == null) {
 			// no previous result
-			function.put(token, result);
+			results.put(token, result);
 			return Pair.of(false, result);
 		} else if (previousResult.lessOrEqual(result)) {
 			// previous is smaller than result
@@ -98,7 +102,7 @@ public class CFGResults<A extends AbstractState<A, H, V, T>,
 				return Pair.of(false, previousResult);
 			else {
 				// result is bigger, store that instead
-				function.put(token, result);
+				results.put(token, result);
 				return Pair.of(true, result);
 			}
 		} else if (result.lessOrEqual(previousResult)) {
@@ -107,7 +111,7 @@ public class CFGResults<A extends AbstractState<A, H, V, T>,
 		} else {
 			// result and previous are not comparable
 			CFGWithAnalysisResults<A, H, V, T> lub = previousResult.lub(result);
-			function.put(token, lub);
+			results.put(token, lub);
 			return Pair.of(true, lub);
 		}
 	}
@@ -121,7 +125,25 @@ public class CFGResults<A extends AbstractState<A, H, V, T>,
 	 * @return {@code true} if that condition holds
 	 */
 	public boolean contains(ContextSensitivityToken token) {
-		return function != null && function.containsKey(token);
+		return results.containsKey(token);
+	}
+
+	@Override
+	public CFGWithAnalysisResults<A, H, V, T> getState(ContextSensitivityToken token) {
+		CFGWithAnalysisResults<A, H, V, T> res = results.get(token);
+		if (res != null)
+			return res;
+		return isTop() ? lattice.top() : lattice.bottom();
+	}
+
+	@Override
+	public boolean isTop() {
+		return lattice.isTop() && results.isEmpty();
+	}
+
+	@Override
+	public boolean isBottom() {
+		return lattice.isBottom() && results.isEmpty();
 	}
 
 	/**
@@ -131,7 +153,16 @@ public class CFGResults<A extends AbstractState<A, H, V, T>,
 	 * @return the results
 	 */
 	public Collection<CFGWithAnalysisResults<A, H, V, T>> getAll() {
-		return function == null ? Collections.emptySet() : function.values();
+		return results.values();
+	}
+
+	@Override
+	public Map<ContextSensitivityToken, CFGWithAnalysisResults<A, H, V, T>> mkNewFunction(
+			Map<ContextSensitivityToken, CFGWithAnalysisResults<A, H, V, T>> other,
+			boolean preserveNull) {
+		if (other == null)
+			return preserveNull ? null : new ConcurrentHashMap<>();
+		return new ConcurrentHashMap<>(other);
 	}
 
 	@Override
@@ -3,7 +3,7 @@ package it.unive.lisa.interprocedural;
 import it.unive.lisa.AnalysisExecutionException;
 import it.unive.lisa.AnalysisSetupException;
 import it.unive.lisa.DefaultParameters;
-import it.unive.lisa.LiSAConfiguration.DescendingPhaseType;
+import it.unive.lisa.FixpointConfiguration;
 import it.unive.lisa.analysis.AbstractState;
 import it.unive.lisa.analysis.AnalysisState;
 import it.unive.lisa.analysis.CFGWithAnalysisResults;
@@ -14,6 +14,9 @@ import it.unive.lisa.analysis.heap.HeapDomain;
 import it.unive.lisa.analysis.lattices.ExpressionSet;
 import it.unive.lisa.analysis.value.TypeDomain;
 import it.unive.lisa.analysis.value.ValueDomain;
+import it.unive.lisa.interprocedural.callgraph.CallGraphConstructionException;
+import it.unive.lisa.interprocedural.callgraph.FrozenCallGraph;
+import it.unive.lisa.logging.Counter;
 import it.unive.lisa.logging.IterationLogger;
 import it.unive.lisa.logging.TimerLogger;
 import it.unive.lisa.program.cfg.CFG;
@@ -23,22 +26,58 @@ import it.unive.lisa.program.cfg.statement.call.CFGCall;
 import it.unive.lisa.program.language.parameterassignment.ParameterAssigningStrategy;
 import it.unive.lisa.symbolic.SymbolicExpression;
 import it.unive.lisa.symbolic.value.Identifier;
-import it.unive.lisa.util.collections.workset.FIFOWorkingSet;
-import it.unive.lisa.util.collections.workset.VisitOnceWorkingSet;
 import it.unive.lisa.util.collections.workset.WorkingSet;
 import it.unive.lisa.util.datastructures.graph.algorithms.FixpointException;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashSet;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
 import org.apache.commons.lang3.tuple.Pair;
+import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 /**
  * A context sensitive interprocedural analysis. The context sensitivity is
- * tuned by the kind of {@link ContextSensitivityToken} used.
+ * tuned by the kind of {@link ContextSensitivityToken} used.<br>
+ * <br>
+ * The analysis starts by analyzing all entrypoints, computing the results of
+ * the called cfgs on-demand. While doing so, it records which cfg, in which
+ * context, read the result of each call. Whenever the result of a cfg in a
+ * given context grows, only the cfgs and contexts that read it are analyzed
+ * again (starting from the entry state they were analyzed with), and this
+ * process is repeated until no result changes.<br>
+ * <br>
+ * Whenever {@link FixpointConfiguration#parallelism} is greater than {@code 1},
+ * the entrypoints and the cfgs to analyze again at each iteration are processed
+ * in parallel, each one tracking its own context. Results computed by different
+ * tasks for the same cfg and context are merged through
+ * {@link FixpointResults#putResult(CFG, ContextSensitivityToken, CFGWithAnalysisResults)},
+ * and iterations continue until no result changes, exactly as in sequential
+ * runs.<br>
+ * <br>
+ * Whenever {@link FixpointConfiguration#summaryCacheSize} is positive, the exit
+ * states of the computed fixpoints are also stored in a {@link SummaryCache},
+ * indexed by cfg and entry state. Calls that reach a cfg with an entry state
+ * that has already been analyzed in a different context reuse the cached exit
+ * state instead of computing a new fixpoint. Note that, in this case, no result
+ * is stored for the context of the call. Each time a result changes, only the
+ * summaries computed by the cfgs and contexts that read it are discarded.<br>
+ * <br>
+ * Whenever {@link FixpointConfiguration#precomputeCallGraph} is set, a
+ * {@link FrozenCallGraph} of the whole program is built before the analysis
+ * starts, and the cfgs to analyze again at each iteration are processed
+ * following the reverse topological order of its strongly connected components,
+ * so that callees are analyzed before their callers.
  * 
  * @param <A> the abstract state of the analysis
  * @param <H> the heap domain
@@ -61,17 +100,46 @@ public class ContextBasedAnalysis<A extends AbstractState<A, H, V, T>,
 	 */
 	private FixpointResults<A, H, V, T> results;
 
-	private ContextSensitivityToken token;
+	/**
+	 * The context of the cfg being analyzed, kept on a per-thread basis since
+	 * entrypoints might be analyzed in parallel.
+	 */
+	private final ThreadLocal<ContextSensitivityToken> token;
+
+	/**
+	 * The empty token that all the tokens used by this analysis derive from. A
+	 * fresh one is created at each fixpoint, so that the tokens interned during
+	 * previous ones can be garbage collected.
+	 */
+	private ContextSensitivityToken empty;
+
+	/**
+	 * For each cfg analyzed in a given context, the cfgs and contexts whose
+	 * analysis read its result.
+	 */
+	private final Map<Pair<CFG, ContextSensitivityToken>, Set<Pair<CFG, ContextSensitivityToken>>> dependencies;
 
-	private final Collection<CFG> fixpointTriggers;
+	/**
+	 * The cfgs and contexts that need to be analyzed again, since a result they
+	 * read has changed.
+	 */
+	private final Set<Pair<CFG, ContextSensitivityToken>> pending;
 
 	private Class<? extends WorkingSet<Statement>> fixpointWorkingSet;
 
-	private int wideningThreshold;
+	private FixpointConfiguration conf;
 
-	private DescendingPhaseType descendingPhase;
+	/**
+	 * The cache of the summaries of the called cfgs, or {@code null} if
+	 * {@link FixpointConfiguration#summaryCacheSize} is not positive.
+	 */
+	private SummaryCache<A, H, V, T> summaries;
 
-	private int descendingGlbThreshold;
+	/**
+	 * The call graph built before the analysis, or {@code null} if
+	 * {@link FixpointConfiguration#precomputeCallGraph} is not set.
+	 */
+	private FrozenCallGraph frozen;
 
 	/**
 	 * Builds the analysis, using {@link SingleScopeToken}s.
@@ -87,30 +155,68 @@ public class ContextBasedAnalysis<A extends AbstractState<A, H, V, T>,
 	 *                  context sensitivity
 	 */
 	public ContextBasedAnalysis(ContextSensitivityToken token) {
-		this.token = token.empty();
-		fixpointTriggers = new HashSet<>();
+		this.empty = token.empty();
+		this.token = ThreadLocal.withInitial(() -> empty);
+		dependencies = new ConcurrentHashMap<>();
+		pending = ConcurrentHashMap.newKeySet();
 	}
 
 	@Override
 	public void fixpoint(
 			AnalysisState<A, H, V, T> entryState,
 			Class<? extends WorkingSet<Statement>> fixpointWorkingSet,
-			int wideningThreshold,
-			DescendingPhaseType descendingPhase,
-			int descendingGlbThreshold)
+			FixpointConfiguration conf)
 			throws FixpointException {
 		this.results = null;
 		this.fixpointWorkingSet = fixpointWorkingSet;
-		this.wideningThreshold = wideningThreshold;
-		this.descendingPhase = descendingPhase;
-		this.descendingGlbThreshold = descendingGlbThreshold;
+		this.conf = conf;
+		this.summaries = conf.summaryCacheSize > 0 ? new SummaryCache<>(conf.summaryCacheSize) : null;
 
 		if (app.getEntryPoints().isEmpty())
 			throw new NoEntryPointException();
 
+		this.frozen = null;
+		if (conf.precomputeCallGraph) {
+			this.frozen = TimerLogger.execSupplier(LOG, "Building the static call graph", this::buildCallGraph);
+			LOG.info("Static call graph: {} strongly connected components",
+					frozen.getStronglyConnectedComponents().size());
+		}
+
 		TimerLogger.execAction(LOG, "Computing fixpoint over the whole program",
-				() -> this.fixpointAux(entryState, fixpointWorkingSet, wideningThreshold,
-						descendingPhase, descendingGlbThreshold));
+				() -> this.fixpointAux(entryState, fixpointWorkingSet, conf));
+
+		if (summaries != null)
+			LOG.info("Summary cache: {}", summaries);
+	}
+
+	/**
+	 * Yields the cache of the summaries of the called cfgs used during the last
+	 * fixpoint computation, if any.
+	 *
+	 * @return the cache, or {@code null} if
+	 *             {@link FixpointConfiguration#summaryCacheSize} was not
+	 *             positive
+	 */
+	public SummaryCache<A, H, V, T> getSummaryCache() {
+		return summaries;
+	}
+
+	/**
+	 * Yields the call graph built before the last fixpoint computation, if any.
+	 *
+	 * @return the call graph, or {@code null} if
+	 *             {@link FixpointConfiguration#precomputeCallGraph} was not set
+	 */
+	public FrozenCallGraph getFrozenCallGraph() {
+		return frozen;
+	}
+
+	private FrozenCallGraph buildCallGraph() {
+		try {
+			return FrozenCallGraph.build(app, conf.parallelism);
+		} catch (CallGraphConstructionException e) {
+			throw new AnalysisExecutionException("Unable to build the static call graph", e);
+		}
 	}
 
 	private static String ordinal(int i) {
@@ -129,43 +235,129 @@ public class ContextBasedAnalysis<A extends AbstractState<A, H, V, T>,
 
 	private void fixpointAux(AnalysisState<A, H, V, T> entryState,
 			Class<? extends WorkingSet<Statement>> fixpointWorkingSet,
-			int wideningThreshold,
-			DescendingPhaseType descendingPhase,
-			int descendingGlbThreshold)
+			FixpointConfiguration conf)
 			throws AnalysisExecutionException {
-		int iter = 0;
-		do {
+		CFG first = app.getEntryPoints().iterator().next();
+		CFGResults<A, H, V, T> value = new CFGResults<>(new CFGWithAnalysisResults<>(first, entryState));
+		this.results = new FixpointResults<>(value.top());
+		this.empty = empty.empty();
+		token.remove();
+		dependencies.clear();
+		pending.clear();
+
+		LOG.info("Performing {} fixpoint iteration", ordinal(1));
+		process(app.getEntryPoints(), "Processing entrypoints", "entries",
+				cfg -> processEntryPoint(cfg, entryState), conf);
+
+		int iter = 1;
+		while (!pending.isEmpty()) {
+			if (conf.isPastDeadline())
+				// cfg fixpoints will go to top as soon as they join states, so
+				// the remaining iterations will quickly stabilize
+				LOG.warn("Analysis deadline passed: results of the {} iteration will be over-approximated",
+						ordinal(iter + 1));
+
+			// pairs that get invalidated while processing this iteration will
+			// be processed in the next one
+			List<Pair<CFG, ContextSensitivityToken>> current = new ArrayList<>(pending);
+			pending.removeAll(current);
+			if (frozen != null)
+				// callees first, so that callers read their updated results
+				current.sort(Comparator.comparingInt(pair -> frozen.getRank(pair.getLeft())));
+
 			LOG.info("Performing {} fixpoint iteration", ordinal(iter + 1));
-			fixpointTriggers.clear();
-			for (CFG cfg : IterationLogger.iterate(LOG, app.getEntryPoints(), "Processing entrypoints", "entries"))
-				try {
-					CFGResults<A, H, V, T> value = new CFGResults<>(new CFGWithAnalysisResults<>(cfg, entryState));
-					AnalysisState<A, H, V, T> entryStateCFG = prepareEntryStateOfEntryPoint(entryState, cfg);
-					if (results == null)
-						this.results = new FixpointResults<>(value.top());
-					results.putResult(cfg, token.empty(),
-							cfg.fixpoint(entryStateCFG, this, WorkingSet.of(fixpointWorkingSet), wideningThreshold,
-									descendingPhase, descendingGlbThreshold));
-				} catch (SemanticException | AnalysisSetupException e) {
-					throw new AnalysisExecutionException("Error while creating the entrystate for " + cfg, e);
-				} catch (FixpointException e) {
-					throw new AnalysisExecutionException("Error while computing fixpoint for entrypoint " + cfg, e);
-				}
+			process(current, "Processing invalidated results", "results", this::processAgain, conf);
+			iter++;
+		}
+	}
 
-			// starting from the callers of the cfgs that needed a lub,
-			// find out the complete set of cfgs that might need to be
-			// processed again
-			VisitOnceWorkingSet<CFG> ws = VisitOnceWorkingSet.mk(FIFOWorkingSet.mk());
-			fixpointTriggers.forEach(cfg -> callgraph.getCallers(cfg).stream().filter(CFG.class::isInstance)
-					.map(CFG.class::cast).forEach(ws::push));
-			while (!ws.isEmpty())
-				callgraph.getCallers(ws.pop()).stream().filter(CFG.class::isInstance).map(CFG.class::cast)
-						.forEach(ws::push);
+	private <E> void process(Collection<E> elements, String message, String objects, Consumer<E> action,
+			FixpointConfiguration conf)
+			throws AnalysisExecutionException {
+		if (conf.parallelism <= 1) {
+			for (E element : IterationLogger.iterate(LOG, elements, message, objects))
+				action.accept(element);
+			return;
+		}
 
-			ws.getSeen().forEach(results::forget);
+		Counter counter = new Counter(LOG, Level.INFO, message, objects, elements.size(), 0.025);
+		ForkJoinPool pool = new ForkJoinPool(conf.parallelism);
+		try {
+			counter.on();
+			List<Future<?>> tasks = new ArrayList<>(elements.size());
+			for (E element : elements)
+				tasks.add(pool.submit(() -> {
+					action.accept(element);
+					counter.count();
+				}));
+
+			for (Future<?> task : tasks)
+				task.get();
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof AnalysisExecutionException)
+				throw (AnalysisExecutionException) e.getCause();
+			throw new AnalysisExecutionException("Error while processing " + objects + " in parallel", e.getCause());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new AnalysisExecutionException("Interrupted while processing " + objects + " in parallel", e);
+		} finally {
+			pool.shutdownNow();
+			counter.off();
+		}
+	}
 
-			iter++;
-		} while (!fixpointTriggers.isEmpty());
+	private void processEntryPoint(CFG cfg, AnalysisState<A, H, V, T> entryState)
+			throws AnalysisExecutionException {
+		try {
+			AnalysisState<A, H, V, T> entryStateCFG = prepareEntryStateOfEntryPoint(entryState, cfg);
+			token.set(empty);
+			store(cfg, empty, cfg.fixpoint(entryStateCFG, this, WorkingSet.of(fixpointWorkingSet), conf));
+		} catch (SemanticException | AnalysisSetupException e) {
+			throw new AnalysisExecutionException("Error while creating the entrystate for " + cfg, e);
+		} catch (FixpointException e) {
+			throw new AnalysisExecutionException("Error while computing fixpoint for entrypoint " + cfg, e);
+		}
+	}
+
+	private void processAgain(Pair<CFG, ContextSensitivityToken> invalidated)
+			throws AnalysisExecutionException {
+		CFG cfg = invalidated.getLeft();
+		ContextSensitivityToken context = invalidated.getRight();
+		if (!results.contains(cfg) || !results.getState(cfg).contains(context))
+			// the result has never been completely computed
+			return;
+
+		CFGWithAnalysisResults<A, H, V, T> previous = results.getState(cfg).getState(context);
+		try {
+			token.set(context);
+			CFGWithAnalysisResults<A, H, V, T> fixpointResult = cfg.fixpoint(previous.getEntryState(), this,
+					WorkingSet.of(fixpointWorkingSet), conf);
+			fixpointResult.setId(previous.getId());
+			store(cfg, context, fixpointResult);
+		} catch (SemanticException | AnalysisSetupException e) {
+			throw new AnalysisExecutionException("Error while creating the entrystate for " + cfg, e);
+		} catch (FixpointException e) {
+			throw new AnalysisExecutionException("Error while computing fixpoint for " + cfg + " in context "
+					+ context, e);
+		}
+	}
+
+	private CFGWithAnalysisResults<A, H, V, T> store(CFG cfg, ContextSensitivityToken context,
+			CFGWithAnalysisResults<A, H, V, T> fixpointResult)
+			throws SemanticException {
+		Pair<Boolean, CFGWithAnalysisResults<A, H, V, T>> res = results.putResult(cfg, context, fixpointResult);
+		if (Boolean.TRUE.equals(res.getLeft())) {
+			// the result grew: whoever read it has to be analyzed again
+			Set<Pair<CFG, ContextSensitivityToken>> readers = dependencies.get(Pair.of(cfg, context));
+			if (readers != null) {
+				pending.addAll(readers);
+				if (summaries != null)
+					// their summaries might depend on the old result
+					for (Pair<CFG, ContextSensitivityToken> reader : readers)
+						summaries.invalidate(reader.getLeft(), reader.getRight());
+			}
+		}
+		return res.getRight();
 	}
 
 	@Override
@@ -181,9 +373,10 @@ public class ContextBasedAnalysis<A extends AbstractState<A, H, V, T>,
 		if (!results.contains(cfg))
 			return null;
 		CFGResults<A, H, V, T> cfgresult = results.getState(cfg);
-		if (!cfgresult.contains(token))
+		ContextSensitivityToken current = token.get();
+		if (!cfgresult.contains(current))
 			return null;
-		CFGWithAnalysisResults<A, H, V, T> analysisresult = cfgresult.getState(token);
+		CFGWithAnalysisResults<A, H, V, T> analysisresult = cfgresult.getState(current);
 		return Pair.of(analysisresult.getEntryState(), analysisresult.getExitState());
 	}
 
@@ -195,10 +388,13 @@ public class ContextBasedAnalysis<A extends AbstractState<A, H, V, T>,
 			StatementStore<A, H, V, T> expressions)
 			throws SemanticException {
 		ScopeToken scope = new ScopeToken(call);
-		token = token.pushToken(scope);
+		Pair<CFG, ContextSensitivityToken> caller = Pair.of(call.getCFG(), token.get());
+		ContextSensitivityToken current = token.get().pushToken(scope);
+		token.set(current);
 		AnalysisState<A, H, V, T> result = entryState.bottom();
 
 		for (CFG cfg : call.getTargetedCFGs()) {
+			dependencies.computeIfAbsent(Pair.of(cfg, current), k -> ConcurrentHashMap.newKeySet()).add(caller);
 			Pair<AnalysisState<A, H, V, T>, AnalysisState<A, H, V, T>> states = getEntryAndExit(cfg);
 
 			// prepare the state for the call: hide the visible variables
@@ -217,15 +413,22 @@ public class ContextBasedAnalysis<A extends AbstractState<A, H, V, T>,
 							this, expressions, formals, actuals);
 
 			AnalysisState<A, H, V, T> exitState;
+			Pair<ContextSensitivityToken, AnalysisState<A, H, V, T>> summary;
 			if (states != null && prepared.getLeft().lessOrEqual(states.getLeft()))
 				// no need to compute the fixpoint: we already have an
 				// approximation
 				exitState = states.getRight();
-			else {
+			else if (summaries != null && (summary = summaries.get(cfg, prepared.getLeft())) != null) {
+				// the same entry state has been analyzed in another context:
+				// the caller now depends on that result
+				dependencies.computeIfAbsent(Pair.of(cfg, summary.getLeft()), k -> ConcurrentHashMap.newKeySet())
+						.add(caller);
+				exitState = summary.getRight();
+			} else {
 				// compute the result
 				CFGWithAnalysisResults<A, H, V, T> fixpointResult = null;
 				try {
-					fixpointResult = computeFixpoint(cfg, token, prepared.getLeft());
+					fixpointResult = computeFixpoint(cfg, current, prepared.getLeft());
 				} catch (FixpointException | AnalysisSetupException e) {
 					throw new SemanticException("Exception during the interprocedural analysis", e);
 				}
@@ -243,7 +446,7 @@ public class ContextBasedAnalysis<A extends AbstractState<A, H, V, T>,
 			result = result.lub(tmp.popScope(scope));
 		}
 
-		token = token.popToken();
+		token.set(current.popToken());
 
 		callgraph.registerCall(call);
 
@@ -253,12 +456,13 @@ public class ContextBasedAnalysis<A extends AbstractState<A, H, V, T>,
 	private CFGWithAnalysisResults<A, H, V, T> computeFixpoint(CFG cfg, ContextSensitivityToken localToken,
 			AnalysisState<A, H, V, T> computedEntryState)
 			throws FixpointException, SemanticException, AnalysisSetupException {
+		long generation = summaries == null ? 0 : summaries.getGeneration(cfg, localToken);
 		CFGWithAnalysisResults<A, H, V, T> fixpointResult = cfg.fixpoint(computedEntryState, this,
-				WorkingSet.of(fixpointWorkingSet), wideningThreshold, descendingPhase, descendingGlbThreshold);
+				WorkingSet.of(fixpointWorkingSet), conf);
 		fixpointResult.setId(localToken.toString());
-		Pair<Boolean, CFGWithAnalysisResults<A, H, V, T>> res = results.putResult(cfg, localToken, fixpointResult);
-		if (Boolean.TRUE.equals(res.getLeft()))
-			fixpointTriggers.add(cfg);
-		return res.getRight();
+		CFGWithAnalysisResults<A, H, V, T> stored = store(cfg, localToken, fixpointResult);
+		if (summaries != null)
+			summaries.put(cfg, computedEntryState, localToken, fixpointResult.getExitState(), generation);
+		return stored;
 	}
 }
@@ -9,12 +9,17 @@ import it.unive.lisa.analysis.value.TypeDomain;
 import it.unive.lisa.analysis.value.ValueDomain;
 import it.unive.lisa.program.cfg.CFG;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import org.apache.commons.lang3.tuple.Pair;
 
 /**
  * A {@link FunctionalLattice} from {@link CFG}s to {@link CFGResults}s. This
  * class is meant to store all fixpoint results on all token generated during
- * the interprocedural analysis for each cfg under analysis.
+ * the interprocedural analysis for each cfg under analysis. Results can be
+ * stored concurrently: the underlying function is a single
+ * {@link ConcurrentHashMap}, created with the object and never replaced, and
+ * updates on the results of the same cfg are serialized, so that each one is
+ * merged with the ones that preceded it.
  * 
  * @author <a href="mailto:luca.negrini@unive.it">Luca Negrini</a>
  * 
@@ -33,6 +38,12 @@ public class FixpointResults<A extends AbstractState<A, H, V, T>,
 		T extends TypeDomain<T>>
 		extends FunctionalLattice<FixpointResults<A, H, V, T>, CFG, CFGResults<A, H, V, T>> {
 
+	/**
+	 * The results of each cfg. This is also the function of this lattice, and
+	 * all accesses go through this field.
+	 */
+	private final Map<CFG, CFGResults<A, H, V, T>> results;
+
 	/**
 	 * Builds a new result.
 	 * 
@@ -40,11 +51,13 @@ public class FixpointResults<A extends AbstractState<A, H, V, T>,
 	 *                    values
 	 */
 	public FixpointResults(CFGResults<A, H, V, T> lattice) {
-		super(lattice);
+		this(lattice, null);
 	}
 
 	private FixpointResults(CFGResults<A, H, V, T> lattice, Map<CFG, CFGResults<A, H, V, T>> function) {
 		super(lattice, function);
+		this.results = mkNewFunction(function, false);
+		this.function = results;
 	}
 
 	/**
@@ -66,10 +79,10 @@ public class FixpointResults<A extends AbstractState<A, H, V, T>,
 	public Pair<Boolean, CFGWithAnalysisResults<A, H, V, T>> putResult(CFG cfg, ContextSensitivityToken token,
 			CFGWithAnalysisResults<A, H, V, T> result)
 			throws SemanticException {
-		if (function == null)
-			function = mkNewFunction(null, false);
-		CFGResults<A, H, V, T> res = function.computeIfAbsent(cfg, c -> new CFGResults<>(result.top()));
-		return res.putResult(token, result);
+		CFGResults<A, H, V, T> res = results.computeIfAbsent(cfg, c -> new CFGResults<>(result.top()));
+		synchronized (res) {
+			return res.putResult(token, result);
+		}
 	}
 
 	/**
@@ -80,7 +93,33 @@ public class FixpointResults<A extends AbstractState<A, H, V, T>,
 	 * @return {@code true} if that condition holds
 	 */
 	public boolean contains(CFG cfg) {
-		return function != null && function.containsKey(cfg);
+		return results.containsKey(cfg);
+	}
+
+	@Override
+	public CFGResults<A, H, V, T> getState(CFG cfg) {
+		CFGResults<A, H, V, T> res = results.get(cfg);
+		if (res != null)
+			return res;
+		return isTop() ? lattice.top() : lattice.bottom();
+	}
+
+	@Override
+	public boolean isTop() {
+		return lattice.isTop() && results.isEmpty();
+	}
+
+	@Override
+	public boolean isBottom() {
+		return lattice.isBottom() && results.isEmpty();
+	}
+
+	@Override
+	public Map<CFG, CFGResults<A, H, V, T>> mkNewFunction(Map<CFG, CFGResults<A, H, V, T>> other,
+			boolean preserveNull) {
+		if (other == null)
+			return preserveNull ? null : new ConcurrentHashMap<>();
+		return new ConcurrentHashMap<>(other);
 	}
 
 	@Override
@@ -99,11 +138,7 @@ public class FixpointResults<A extends AbstractState<A, H, V, T>,
 	 * @param cfg the cfg to forget
 	 */
 	public void forget(CFG cfg) {
-		if (function == null)
-			return;
-		function.remove(cfg);
-		if (function.isEmpty())
-			function = null;
+		results.remove(cfg);
 	}
 
 	@Override
@@ -0,0 +1,137 @@
+package it.unive.lisa.interprocedural;
+
+import it.unive.lisa.analysis.ScopeToken;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A context sensitive token representing the last {@code k} calls of the call
+ * chain (also known as k-limited call strings). Two tokens are equal if their
+ * last {@code k} {@link ScopeToken}s are equal, regardless of the calls that
+ * precede them.<br>
+ * <br>
+ * Tokens are persistent: each one only stores the last {@link ScopeToken} of
+ * the chain and a pointer to the token it has been pushed onto, making
+ * {@link #pushToken(ScopeToken)} and {@link #popToken()} constant-time
+ * operations that restore the whole call chain. Moreover, tokens are
+ * hash-consed: pushing the same {@link ScopeToken} onto the same token always
+ * yields the same instance. Hash codes are computed once, at creation time.
+ */
+public class KDepthToken implements ContextSensitivityToken {
+
+	/**
+	 * The maximum number of calls that this token tracks.
+	 */
+	private final int k;
+
+	/**
+	 * The token this one has been pushed onto, {@code null} for empty tokens.
+	 */
+	private final KDepthToken parent;
+
+	/**
+	 * The last element of the call chain, {@code null} for empty tokens.
+	 */
+	private final ScopeToken token;
+
+	private final int hash;
+
+	/**
+	 * The tokens obtained by pushing a {@link ScopeToken} onto this one, used
+	 * for hash-consing.
+	 */
+	private final Map<ScopeToken, KDepthToken> children;
+
+	private KDepthToken(int k, KDepthToken parent, ScopeToken token) {
+		this.k = k;
+		this.parent = parent;
+		this.token = token;
+		this.children = new ConcurrentHashMap<>();
+		this.hash = computeHash();
+	}
+
+	private int computeHash() {
+		// same as the hash code of the list of the last k scope tokens
+		int h = 0, power = 1, i = 0;
+		for (KDepthToken t = this; t.parent != null && i < k; t = t.parent, i++) {
+			h += power * Objects.hashCode(t.token);
+			power *= 31;
+		}
+		return h + power;
+	}
+
+	@Override
+	public ContextSensitivityToken empty() {
+		return new KDepthToken(k, null, null);
+	}
+
+	@Override
+	public ContextSensitivityToken pushToken(ScopeToken c) {
+		KDepthToken child = children.get(c);
+		if (child != null)
+			return child;
+
+		child = new KDepthToken(k, this, c);
+		KDepthToken previous = children.putIfAbsent(c, child);
+		return previous == null ? child : previous;
+	}
+
+	@Override
+	public ContextSensitivityToken popToken() {
+		return parent == null ? this : parent;
+	}
+
+	/**
+	 * Yields an empty token that tracks the last {@code k} calls.
+	 *
+	 * @param k the maximum number of calls to track, non-negative
+	 *
+	 * @return an empty token
+	 *
+	 * @throws IllegalArgumentException if {@code k} is negative
+	 */
+	public static KDepthToken getSingleton(int k) {
+		if (k < 0)
+			throw new IllegalArgumentException("The number of calls to track cannot be negative: " + k);
+		return new KDepthToken(k, null, null);
+	}
+
+	@Override
+	public String toString() {
+		LinkedList<ScopeToken> tokens = new LinkedList<>();
+		int i = 0;
+		for (KDepthToken t = this; t.parent != null && i < k; t = t.parent, i++)
+			tokens.addFirst(t.token);
+		return String.valueOf(tokens);
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o)
+			return true;
+		if (o == null || getClass() != o.getClass())
+			return false;
+		KDepthToken that = (KDepthToken) o;
+		if (k != that.k)
+			return false;
+
+		KDepthToken t1 = this, t2 = that;
+		for (int i = 0; i < k && t1 != t2; i++) {
+			if (t1.parent == null || t2.parent == null)
+				// equal only if both chains end here
+				return t1.parent == t2.parent;
+			if (!Objects.equals(t1.token, t2.token))
+				return false;
+			t1 = t1.parent;
+			t2 = t2.parent;
+		}
+		return true;
+	}
+
+	@Override
+	public int hashCode() {
+		return hash;
+	}
+}
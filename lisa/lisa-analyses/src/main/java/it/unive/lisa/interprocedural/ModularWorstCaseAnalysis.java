@@ -2,7 +2,7 @@ package it.unive.lisa.interprocedural;
 
 import it.unive.lisa.AnalysisSetupException;
 import it.unive.lisa.FallbackImplementation;
-import it.unive.lisa.LiSAConfiguration.DescendingPhaseType;
+import it.unive.lisa.FixpointConfiguration;
 import it.unive.lisa.analysis.AbstractState;
 import it.unive.lisa.analysis.AnalysisState;
 import it.unive.lisa.analysis.CFGWithAnalysisResults;
@@ -15,6 +15,7 @@ import it.unive.lisa.analysis.value.TypeDomain;
 import it.unive.lisa.analysis.value.ValueDomain;
 import it.unive.lisa.interprocedural.callgraph.CallGraph;
 import it.unive.lisa.interprocedural.callgraph.CallResolutionException;
+import it.unive.lisa.logging.Counter;
 import it.unive.lisa.logging.IterationLogger;
 import it.unive.lisa.program.Application;
 import it.unive.lisa.program.cfg.CFG;
@@ -30,12 +31,18 @@ import it.unive.lisa.symbolic.value.Variable;
 import it.unive.lisa.type.Type;
 import it.unive.lisa.util.collections.workset.WorkingSet;
 import it.unive.lisa.util.datastructures.graph.algorithms.FixpointException;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -80,31 +87,76 @@ public class ModularWorstCaseAnalysis<A extends AbstractState<A, H, V, T>,
 		this.results = new ConcurrentHashMap<>();
 	}
 
+	/**
+	 * {@inheritDoc}<br>
+	 * <br>
+	 * Since this analysis processes each cfg independently, fixpoints are
+	 * computed in parallel whenever {@link FixpointConfiguration#parallelism}
+	 * is greater than {@code 1}, using a {@link ForkJoinPool} with that
+	 * parallelism level. Tasks never modify the call graph, since all calls are
+	 * resolved to {@link OpenCall}s without querying it.
+	 */
 	@Override
 	public void fixpoint(AnalysisState<A, H, V, T> entryState,
 			Class<? extends WorkingSet<Statement>> fixpointWorkingSet,
-			int wideningThreshold,
-			DescendingPhaseType descendingPhase,
-			int descendingGlbThreshold)
+			FixpointConfiguration conf)
 			throws FixpointException {
-		for (CFG cfg : IterationLogger.iterate(LOG, app.getAllCFGs(), "Computing fixpoint over the whole program",
-				"cfgs"))
-			try {
-				AnalysisState<A, H, V, T> prepared = entryState;
-
-				for (Parameter arg : cfg.getDescriptor().getFormals()) {
-					Variable id = new Variable(arg.getStaticType(), arg.getName(), arg.getAnnotations(),
-							arg.getLocation());
-					prepared = prepared.assign(id, new PushAny(arg.getStaticType(), arg.getLocation()),
-							cfg.getGenericProgramPoint());
-				}
-
-				results.put(cfg, Optional
-						.of(cfg.fixpoint(prepared, this, WorkingSet.of(fixpointWorkingSet),
-								wideningThreshold, descendingPhase, descendingGlbThreshold)));
-			} catch (SemanticException | AnalysisSetupException e) {
-				throw new FixpointException("Error while creating the entrystate for " + cfg, e);
+		if (conf.parallelism <= 1) {
+			for (CFG cfg : IterationLogger.iterate(LOG, app.getAllCFGs(), "Computing fixpoint over the whole program",
+					"cfgs"))
+				analyze(cfg, entryState, fixpointWorkingSet, conf);
+			return;
+		}
+
+		Collection<CFG> cfgs = app.getAllCFGs();
+		Counter counter = new Counter(LOG, Level.INFO, "Computing fixpoint over the whole program", "cfgs",
+				cfgs.size(), 0.025);
+		ForkJoinPool pool = new ForkJoinPool(conf.parallelism);
+		try {
+			counter.on();
+			List<Future<Void>> tasks = new ArrayList<>(cfgs.size());
+			for (CFG cfg : cfgs)
+				tasks.add(pool.submit(() -> {
+					analyze(cfg, entryState, fixpointWorkingSet, conf);
+					counter.count();
+					return null;
+				}));
+
+			for (Future<Void> task : tasks)
+				task.get();
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof FixpointException)
+				throw (FixpointException) e.getCause();
+			throw new FixpointException("Error while computing fixpoints in parallel", e.getCause());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new FixpointException("Interrupted while computing fixpoints in parallel", e);
+		} finally {
+			pool.shutdownNow();
+			counter.off();
+		}
+	}
+
+	private void analyze(CFG cfg,
+			AnalysisState<A, H, V, T> entryState,
+			Class<? extends WorkingSet<Statement>> fixpointWorkingSet,
+			FixpointConfiguration conf)
+			throws FixpointException {
+		try {
+			AnalysisState<A, H, V, T> prepared = entryState;
+
+			for (Parameter arg : cfg.getDescriptor().getFormals()) {
+				Variable id = new Variable(arg.getStaticType(), arg.getName(), arg.getAnnotations(),
+						arg.getLocation());
+				prepared = prepared.assign(id, new PushAny(arg.getStaticType(), arg.getLocation()),
+						cfg.getGenericProgramPoint());
 			}
+
+			results.put(cfg, Optional
+					.of(cfg.fixpoint(prepared, this, WorkingSet.of(fixpointWorkingSet), conf)));
+		} catch (SemanticException | AnalysisSetupException e) {
+			throw new FixpointException("Error while creating the entrystate for " + cfg, e);
+		}
 	}
 
 	@Override
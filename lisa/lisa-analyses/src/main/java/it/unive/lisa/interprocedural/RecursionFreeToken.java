@@ -1,54 +1,95 @@
 package it.unive.lisa.interprocedural;
 
 import it.unive.lisa.analysis.ScopeToken;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
+import java.util.LinkedList;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * A context sensitive token representing an entire call chain up until a
- * recursion.
+ * recursion.<br>
+ * <br>
+ * Tokens are persistent: each one only stores the last {@link ScopeToken} of
+ * the chain and a pointer to the token it has been pushed onto, making
+ * {@link #pushToken(ScopeToken)} and {@link #popToken()} constant-time
+ * operations. Moreover, tokens are hash-consed: pushing the same
+ * {@link ScopeToken} onto the same token always yields the same instance, so
+ * that all tokens built from the same {@link #empty()} token can be compared by
+ * identity. Hash codes are computed once, at creation time.
  */
 public class RecursionFreeToken implements ContextSensitivityToken {
 
-	private static final RecursionFreeToken singleton = new RecursionFreeToken(null);
+	private static final RecursionFreeToken singleton = new RecursionFreeToken(null, null);
 
-	private final List<ScopeToken> tokens;
+	/**
+	 * The token this one has been pushed onto, {@code null} for empty tokens.
+	 */
+	private final RecursionFreeToken parent;
+
+	/**
+	 * The last element of the call chain, {@code null} for empty tokens.
+	 */
+	private final ScopeToken token;
+
+	private final int hash;
 
-	private RecursionFreeToken(ScopeToken newToken) {
-		this(Collections.emptyList(), newToken);
+	/**
+	 * The tokens obtained by pushing a {@link ScopeToken} onto this one, used
+	 * for hash-consing.
+	 */
+	private final Map<ScopeToken, RecursionFreeToken> children;
+
+	private RecursionFreeToken(RecursionFreeToken parent, ScopeToken token) {
+		this.parent = parent;
+		this.token = token;
+		this.children = new ConcurrentHashMap<>();
+		this.hash = computeHash();
 	}
 
-	private RecursionFreeToken(List<ScopeToken> tokens, ScopeToken newToken) {
-		this.tokens = new ArrayList<>(tokens.size() + (newToken == null ? 0 : 1));
-		this.tokens.addAll(tokens);
-		if (newToken != null)
-			this.tokens.add(newToken);
+	private int computeHash() {
+		// same as Objects.hash(tokens), where tokens is the list of scope
+		// tokens in the chain
+		return parent == null ? 32 : 31 * (parent.hash - 31) + Objects.hashCode(token) + 31;
 	}
 
+	/**
+	 * {@inheritDoc}<br>
+	 * <br>
+	 * Each call to this method yields a fresh token, that is the root of a new
+	 * set of hash-consed tokens.
+	 */
 	@Override
 	public ContextSensitivityToken empty() {
-		return new RecursionFreeToken(null);
+		return new RecursionFreeToken(null, null);
 	}
 
 	@Override
 	public ContextSensitivityToken pushToken(ScopeToken c) {
-		if (tokens.contains(c))
-			return this;
-		return new RecursionFreeToken(tokens, c);
+		RecursionFreeToken child = children.get(c);
+		if (child != null)
+			return child;
+
+		child = contains(c) ? this : new RecursionFreeToken(this, c);
+		RecursionFreeToken previous = children.putIfAbsent(c, child);
+		return previous == null ? child : previous;
+	}
+
+	private boolean contains(ScopeToken c) {
+		for (RecursionFreeToken t = this; t.parent != null; t = t.parent)
+			if (t.token.equals(c))
+				return true;
+		return false;
 	}
 
 	@Override
 	public ContextSensitivityToken popToken() {
-		List<ScopeToken> toks = new ArrayList<>(tokens);
-		toks.remove(tokens.size() - 1);
-		return new RecursionFreeToken(toks, null);
+		return parent == null ? this : parent;
 	}
 
 	/**
 	 * Return an empty token.
-	 * 
+	 *
 	 * @return an empty token
 	 */
 	public static RecursionFreeToken getSingleton() {
@@ -57,6 +98,9 @@ public class RecursionFreeToken implements ContextSensitivityToken {
 
 	@Override
 	public String toString() {
+		LinkedList<ScopeToken> tokens = new LinkedList<>();
+		for (RecursionFreeToken t = this; t.parent != null; t = t.parent)
+			tokens.addFirst(t.token);
 		return String.valueOf(tokens);
 	}
 
@@ -66,13 +110,24 @@ public class RecursionFreeToken implements ContextSensitivityToken {
 			return true;
 		if (o == null || getClass() != o.getClass())
 			return false;
+		// tokens built from different empty tokens are not hash-consed
+		// together: fall back to a structural comparison
 		RecursionFreeToken that = (RecursionFreeToken) o;
-		return Objects.equals(tokens, that.tokens);
+		RecursionFreeToken t1 = this, t2 = that;
+		while (t1 != t2) {
+			if (t1.parent == null || t2.parent == null)
+				// equal only if both are empty
+				return t1.parent == t2.parent && Objects.equals(t1.token, t2.token);
+			if (!Objects.equals(t1.token, t2.token))
+				return false;
+			t1 = t1.parent;
+			t2 = t2.parent;
+		}
+		return true;
 	}
 
 	@Override
 	public int hashCode() {
-		return Objects.hash(tokens);
+		return hash;
 	}
-
 }
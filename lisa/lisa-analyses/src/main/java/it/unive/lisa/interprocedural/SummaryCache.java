@@ -0,0 +1,225 @@
+package it.unive.lisa.interprocedural;
+
+import it.unive.lisa.analysis.AbstractState;
+import it.unive.lisa.analysis.AnalysisState;
+import it.unive.lisa.analysis.heap.HeapDomain;
+import it.unive.lisa.analysis.value.TypeDomain;
+import it.unive.lisa.analysis.value.ValueDomain;
+import it.unive.lisa.program.cfg.CFG;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import org.apache.commons.lang3.tuple.Pair;
+
+/**
+ * A bounded cache of callee summaries, mapping a {@link CFG} and the entry
+ * state it has been analyzed with to the resulting exit state, together with
+ * the {@link ContextSensitivityToken} of the analysis that computed it. When
+ * the cache is full, the least recently used summary is evicted.<br>
+ * <br>
+ * Summaries are only valid as long as the results of the calls they depend on
+ * do not change: {@link #invalidate(CFG, ContextSensitivityToken)} discards the
+ * ones computed for a cfg in a given context, and summaries of that cfg and
+ * context whose computation started before the invalidation are not stored.
+ * Instances can be used concurrently.
+ *
+ * @author <a href="mailto:luca.negrini@unive.it">Luca Negrini</a>
+ *
+ * @param <A> the type of {@link AbstractState} contained into the analysis
+ *                state
+ * @param <H> the type of {@link HeapDomain} contained into the computed
+ *                abstract state
+ * @param <V> the type of {@link ValueDomain} contained into the computed
+ *                abstract state
+ * @param <T> the type of {@link TypeDomain} contained into the computed
+ *                abstract state
+ */
+public class SummaryCache<A extends AbstractState<A, H, V, T>,
+		H extends HeapDomain<H>,
+		V extends ValueDomain<V>,
+		T extends TypeDomain<T>> {
+
+	private final Map<Pair<CFG, AnalysisState<A, H, V, T>>,
+			Pair<ContextSensitivityToken, AnalysisState<A, H, V, T>>> summaries;
+
+	/**
+	 * The keys of {@link #summaries}, grouped by the cfg and context where each
+	 * summary has been computed.
+	 */
+	private final Map<Pair<CFG, ContextSensitivityToken>, Set<Pair<CFG, AnalysisState<A, H, V, T>>>> computedIn;
+
+	/**
+	 * The number of times the summaries of each cfg and context have been
+	 * invalidated.
+	 */
+	private final Map<Pair<CFG, ContextSensitivityToken>, Long> generations;
+
+	private long invalidations;
+
+	private long hits;
+
+	private long misses;
+
+	private long evictions;
+
+	/**
+	 * Builds the cache.
+	 *
+	 * @param capacity the maximum number of summaries to store, positive
+	 *
+	 * @throws IllegalArgumentException if {@code capacity} is not positive
+	 */
+	public SummaryCache(int capacity) {
+		if (capacity <= 0)
+			throw new IllegalArgumentException("The capacity of the cache must be positive: " + capacity);
+		this.computedIn = new HashMap<>();
+		this.generations = new HashMap<>();
+		this.summaries = new LinkedHashMap<>(16, 0.75f, true) {
+
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(
+					Map.Entry<Pair<CFG, AnalysisState<A, H, V, T>>,
+							Pair<ContextSensitivityToken, AnalysisState<A, H, V, T>>> eldest) {
+				if (size() <= capacity)
+					return false;
+				evictions++;
+				forget(eldest.getKey(), eldest.getValue().getLeft());
+				return true;
+			}
+		};
+	}
+
+	/**
+	 * Yields the summary of {@code cfg} computed starting from
+	 * {@code entryState}, if any. Hits and misses are counted.
+	 *
+	 * @param cfg        the cfg
+	 * @param entryState the entry state
+	 *
+	 * @return a pair containing the token of the context where the summary has
+	 *             been computed and the exit state, or {@code null} if no
+	 *             summary is available
+	 */
+	public synchronized Pair<ContextSensitivityToken, AnalysisState<A, H, V, T>> get(CFG cfg,
+			AnalysisState<A, H, V, T> entryState) {
+		Pair<ContextSensitivityToken, AnalysisState<A, H, V, T>> summary = summaries.get(Pair.of(cfg, entryState));
+		if (summary == null)
+			misses++;
+		else
+			hits++;
+		return summary;
+	}
+
+	/**
+	 * Yields the current generation of the summaries of {@code cfg} computed in
+	 * the context identified by {@code token}, that is, the number of times
+	 * they have been invalidated. This should be read before starting the
+	 * computation of a summary, and passed to
+	 * {@link #put(CFG, AnalysisState, ContextSensitivityToken, AnalysisState, long)}.
+	 *
+	 * @param cfg   the cfg
+	 * @param token the token of the context
+	 *
+	 * @return the current generation
+	 */
+	public synchronized long getGeneration(CFG cfg, ContextSensitivityToken token) {
+		return generations.getOrDefault(Pair.of(cfg, token), 0L);
+	}
+
+	/**
+	 * Stores the summary of {@code cfg} computed starting from
+	 * {@code entryState}. The summary is discarded if the summaries of
+	 * {@code cfg} in the context identified by {@code token} have been
+	 * invalidated after {@code generation} was read. If a summary for the same
+	 * cfg and entry state was already stored, it is replaced.
+	 *
+	 * @param cfg        the cfg
+	 * @param entryState the entry state
+	 * @param token      the token of the context where the summary has been
+	 *                       computed
+	 * @param exitState  the exit state
+	 * @param generation the generation of the summaries of {@code cfg} in the
+	 *                       context identified by {@code token} when the
+	 *                       computation of the summary started
+	 */
+	public synchronized void put(CFG cfg, AnalysisState<A, H, V, T> entryState, ContextSensitivityToken token,
+			AnalysisState<A, H, V, T> exitState, long generation) {
+		if (generation != getGeneration(cfg, token))
+			return;
+		Pair<CFG, AnalysisState<A, H, V, T>> key = Pair.of(cfg, entryState);
+		Pair<ContextSensitivityToken, AnalysisState<A, H, V, T>> previous = summaries.put(key,
+				Pair.of(token, exitState));
+		if (previous != null)
+			forget(key, previous.getLeft());
+		computedIn.computeIfAbsent(Pair.of(cfg, token), k -> new HashSet<>()).add(key);
+	}
+
+	private void forget(Pair<CFG, AnalysisState<A, H, V, T>> key, ContextSensitivityToken token) {
+		Pair<CFG, ContextSensitivityToken> context = Pair.of(key.getLeft(), token);
+		Set<Pair<CFG, AnalysisState<A, H, V, T>>> keys = computedIn.get(context);
+		if (keys != null && keys.remove(key) && keys.isEmpty())
+			computedIn.remove(context);
+	}
+
+	/**
+	 * Discards the summaries of {@code cfg} computed in the context identified
+	 * by {@code token}, leaving all other summaries untouched.
+	 *
+	 * @param cfg   the cfg
+	 * @param token the token of the context
+	 */
+	public synchronized void invalidate(CFG cfg, ContextSensitivityToken token) {
+		Pair<CFG, ContextSensitivityToken> context = Pair.of(cfg, token);
+		generations.merge(context, 1L, Long::sum);
+		invalidations++;
+		Set<Pair<CFG, AnalysisState<A, H, V, T>>> keys = computedIn.remove(context);
+		if (keys != null)
+			keys.forEach(summaries::remove);
+	}
+
+	/**
+	 * Yields the number of summaries currently stored in this cache.
+	 *
+	 * @return the number of summaries
+	 */
+	public synchronized int size() {
+		return summaries.size();
+	}
+
+	/**
+	 * Yields the number of lookups that found a summary.
+	 *
+	 * @return the number of hits
+	 */
+	public synchronized long getHits() {
+		return hits;
+	}
+
+	/**
+	 * Yields the number of lookups that did not find a summary.
+	 *
+	 * @return the number of misses
+	 */
+	public synchronized long getMisses() {
+		return misses;
+	}
+
+	/**
+	 * Yields the number of summaries that have been evicted to make room for
+	 * new ones.
+	 *
+	 * @return the number of evictions
+	 */
+	public synchronized long getEvictions() {
+		return evictions;
+	}
+
+	@Override
+	public synchronized String toString() {
+		return hits + " hits, " + misses + " misses, " + evictions + " evictions, " + invalidations + " invalidations";
+	}
+}
@@ -20,8 +20,11 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.Set;
 
 public abstract class AnalysisTestExecutor {
 
@@ -178,7 +181,7 @@ public abstract class AnalysisTestExecutor {
 			actualPath = Paths.get(actualPath.toString(), subfolder);
 		}
 
-		Program program = readProgram(target);
+		Program program = readProgram(target, true);
 
 		setupWorkdir(configuration, actualPath);
 
@@ -258,10 +261,88 @@ public abstract class AnalysisTestExecutor {
 		}
 	}
 
-	private Program readProgram(Path target) {
+	/**
+	 * Performs a test, running two analyses on the same program and comparing
+	 * their results instead of checking them against a baseline. All the code
+	 * members of the program are considered as entrypoints. This is meant for
+	 * checking that two different configurations (e.g., a sequential and a
+	 * parallel one) of the same analysis produce the same results. The test
+	 * will fail if:
+	 * <ul>
+	 * <li>The imp file cannot be parsed (i.e. a {@link ParsingException} is
+	 * thrown)</li>
+	 * <li>The previous working directories using for the test execution cannot
+	 * be deleted</li>
+	 * <li>One of the analysis runs terminates with an
+	 * {@link AnalysisException}</li>
+	 * <li>One of the json reports cannot be found or cannot be opened</li>
+	 * <li>The two json reports are different, excluding the configuration keys
+	 * {@code workdir} and the ones in {@code ignoredKeys}</li>
+	 * <li>The external files mentioned in the reports are different</li>
+	 * </ul>
+	 * 
+	 * @param folder        the name of the sub-folder; this is used for
+	 *                          searching the source and as a working directory
+	 *                          for executing tests in the test execution folder
+	 * @param subfolder     an additional folder that is appended to
+	 *                          {@code folder} when computing the working
+	 *                          directories, but <b>not</b> for searching the
+	 *                          source IMP program
+	 * @param source        the name of the imp source file to be searched in
+	 *                          {@code folder}
+	 * @param reference     the configuration of the analysis whose results are
+	 *                          used as baseline (note that the workdir present
+	 *                          into the configuration will be ignored, as it
+	 *                          will be overwritten by the computed workdir)
+	 * @param configuration the configuration of the analysis to test (note that
+	 *                          the workdir present into the configuration will
+	 *                          be ignored, as it will be overwritten by the
+	 *                          computed workdir)
+	 * @param ignoredKeys   the configuration keys whose values are expected to
+	 *                          differ
+	 */
+	protected void performEquivalence(String folder, String subfolder, String source,
+			LiSAConfiguration reference, LiSAConfiguration configuration, String... ignoredKeys) {
+		System.out.println("Testing " + getCaller());
+		Path target = Paths.get(EXPECTED_RESULTS_DIR, folder, source);
+		Path referencePath = Paths.get(ACTUAL_RESULTS_DIR, folder, subfolder, "reference");
+		Path actualPath = Paths.get(ACTUAL_RESULTS_DIR, folder, subfolder, "actual");
+
+		// save disk space!
+		System.clearProperty("lisa.json.indent");
+
+		// the program is parsed twice since analyses can modify it
+		setupWorkdir(reference, referencePath);
+		reference.jsonOutput = true;
+		run(reference, readProgram(target, false));
+		setupWorkdir(configuration, actualPath);
+		configuration.jsonOutput = true;
+		run(configuration, readProgram(target, false));
+
+		File refFile = Paths.get(referencePath.toString(), "report.json").toFile();
+		File actFile = Paths.get(actualPath.toString(), "report.json").toFile();
+		Set<String> ignored = new HashSet<>(Arrays.asList(ignoredKeys));
+		ignored.add("workdir");
+		try (FileReader l = new FileReader(refFile); FileReader r = new FileReader(actFile)) {
+			JsonReport expected = JsonReport.read(l);
+			JsonReport actual = JsonReport.read(r);
+			Collection<String> diffs = new ArrayList<>();
+			JsonReportComparer.compare(expected, actual, referencePath.toFile(), actualPath.toFile(),
+					new DiffCollector(ignored, diffs));
+			assertTrue("Results are different: " + diffs, diffs.isEmpty());
+		} catch (FileNotFoundException e) {
+			e.printStackTrace(System.err);
+			fail("File not found: " + e.getMessage());
+		} catch (IOException e) {
+			e.printStackTrace(System.err);
+			fail("Unable to compare reports: " + e.getMessage());
+		}
+	}
+
+	private Program readProgram(Path target, boolean onlyMain) {
 		Program program = null;
 		try {
-			program = IMPFrontend.processFile(target.toString(), true);
+			program = IMPFrontend.processFile(target.toString(), onlyMain);
 		} catch (ParsingException e) {
 			e.printStackTrace(System.err);
 			fail("Exception while parsing '" + target + "': " + e.getMessage());
@@ -368,6 +449,39 @@ public abstract class AnalysisTestExecutor {
 		}
 	}
 
+	private static class DiffCollector implements DiffReporter {
+
+		private final Set<String> ignored;
+		private final Collection<String> diffs;
+
+		private DiffCollector(Set<String> ignored, Collection<String> diffs) {
+			this.ignored = ignored;
+			this.diffs = diffs;
+		}
+
+		@Override
+		public void report(REPORTED_COMPONENT component, REPORT_TYPE type, Collection<?> reported) {
+			if (type != REPORT_TYPE.COMMON && !reported.isEmpty())
+				diffs.add(component + " " + type + ": " + reported);
+		}
+
+		@Override
+		public void fileDiff(String first, String second, String message) {
+			diffs.add(first + " vs " + second + ": " + message);
+		}
+
+		@Override
+		public void infoDiff(String key, String first, String second) {
+			diffs.add("info " + key + ": " + first + " vs " + second);
+		}
+
+		@Override
+		public void configurationDiff(String key, String first, String second) {
+			if (!ignored.contains(key))
+				diffs.add("configuration " + key + ": " + first + " vs " + second);
+		}
+	}
+
 	private String getCaller() {
 		StackTraceElement[] trace = Thread.getAllStackTraces().get(Thread.currentThread());
 		// 0: java.lang.Thread.dumpThreads()
@@ -29,6 +29,8 @@ import it.unive.lisa.interprocedural.CFGResults;
 import it.unive.lisa.interprocedural.ContextInsensitiveToken;
 import it.unive.lisa.interprocedural.ContextSensitivityToken;
 import it.unive.lisa.interprocedural.FixpointResults;
+import it.unive.lisa.interprocedural.KDepthToken;
+import it.unive.lisa.interprocedural.RecursionFreeToken;
 import it.unive.lisa.interprocedural.callgraph.CallGraphEdge;
 import it.unive.lisa.interprocedural.callgraph.CallGraphNode;
 import it.unive.lisa.outputs.json.JsonReport;
@@ -85,12 +87,16 @@ import it.unive.lisa.util.collections.workset.ConcurrentFIFOWorkingSet;
 import it.unive.lisa.util.collections.workset.ConcurrentLIFOWorkingSet;
 import it.unive.lisa.util.collections.workset.FIFOWorkingSet;
 import it.unive.lisa.util.collections.workset.LIFOWorkingSet;
+import it.unive.lisa.util.collections.workset.ReversePostorderWorkingSet;
 import it.unive.lisa.util.collections.workset.VisitOnceWorkingSet;
 import it.unive.lisa.util.datastructures.automaton.Automaton;
 import it.unive.lisa.util.datastructures.automaton.State;
 import it.unive.lisa.util.datastructures.automaton.Transition;
 import it.unive.lisa.util.datastructures.graph.AdjacencyMatrix;
 import it.unive.lisa.util.datastructures.graph.AdjacencyMatrix.NodeEdges;
+import it.unive.lisa.util.datastructures.graph.CompactGraph;
+import it.unive.lisa.util.datastructures.graph.algorithms.BasicBlocks;
+import it.unive.lisa.util.datastructures.graph.algorithms.WeakTopologicalOrder;
 import it.unive.lisa.util.datastructures.graph.code.NodeList;
 import it.unive.lisa.util.datastructures.regex.Atom;
 import it.unive.lisa.util.datastructures.regex.Comp;
@@ -147,6 +153,14 @@ public class EqualityContractVerificationTest {
 	private static final AbstractCodeMember signCfg2 = new AbstractCodeMember(signDescr2);
 	private static final NodeList<CFG, Statement, Edge> adj1 = new NodeList<>(new SequentialEdge());
 	private static final NodeList<CFG, Statement, Edge> adj2 = new NodeList<>(new SequentialEdge());
+	private static final WeakTopologicalOrder<CFG, Statement, Edge> wto1 = new WeakTopologicalOrder<>(cfg1,
+			cfg1.getEntrypoints());
+	private static final WeakTopologicalOrder<CFG, Statement, Edge> wto2 = new WeakTopologicalOrder<>(cfg2,
+			cfg2.getEntrypoints());
+	private static final BasicBlocks<CFG, Statement, Edge> blocks1 = new BasicBlocks<>(cfg1, cfg1.getEntrypoints());
+	private static final BasicBlocks<CFG, Statement, Edge> blocks2 = new BasicBlocks<>(cfg2, cfg2.getEntrypoints());
+	private static final CompactGraph<CFG, Statement, Edge> compact1 = new CompactGraph<>(cfg1);
+	private static final CompactGraph<CFG, Statement, Edge> compact2 = new CompactGraph<>(cfg2);
 
 	private static final RegularExpression re1 = new Atom("a");
 	private static final RegularExpression re2 = new Atom("b");
@@ -238,6 +252,9 @@ public class EqualityContractVerificationTest {
 				.withPrefabValues(InterfaceUnit.class, interface1, interface2)
 				.withPrefabValues(InterfaceUnit.class, interface1, interface2)
 				.withPrefabValues(NodeList.class, adj1, adj2)
+				.withPrefabValues(WeakTopologicalOrder.class, wto1, wto2)
+				.withPrefabValues(BasicBlocks.class, blocks1, blocks2)
+				.withPrefabValues(CompactGraph.class, compact1, compact2)
 				.withPrefabValues(DomainRepresentation.class, dr1, dr2)
 				.withPrefabValues(RegularExpression.class, re1, re2)
 				.withPrefabValues(Pair.class, Pair.of(1, 2), Pair.of(3, 4))
@@ -260,6 +277,7 @@ public class EqualityContractVerificationTest {
 	@Test
 	public void testConfiguration() {
 		verify(LiSAConfiguration.class, Warning.NONFINAL_FIELDS);
+		verify(FixpointConfiguration.class);
 		verify(ConfigurableComponent.class);
 	}
 
@@ -279,8 +297,10 @@ public class EqualityContractVerificationTest {
 
 		verify(AdjacencyMatrix.class);
 		verify(NodeEdges.class);
+		// positions and adjacency are caches derived from the other fields
 		verify(NodeList.class,
-				verifier -> verifier.withIgnoredFields("nextOffset", "sequentialSingleton", "computeOffsets"));
+				verifier -> verifier.withIgnoredFields("nextOffset", "sequentialSingleton", "computeOffsets",
+						"positions", "followers", "predecessors"));
 		verify(it.unive.lisa.util.datastructures.graph.code.NodeList.NodeEdges.class);
 
 		verify(ConcurrentFIFOWorkingSet.class);
@@ -288,6 +308,8 @@ public class EqualityContractVerificationTest {
 		verify(FIFOWorkingSet.class);
 		verify(LIFOWorkingSet.class);
 		verify(VisitOnceWorkingSet.class);
+		// the counter of unordered elements is mutable
+		verify(ReversePostorderWorkingSet.class, Warning.NONFINAL_FIELDS);
 	}
 
 	@Test
@@ -420,6 +442,9 @@ public class EqualityContractVerificationTest {
 			if (subject.getName().contains("Test"))
 				// some testing domain that we do not care about end up here
 				continue;
+			else if (subject == CFGResults.class || subject == FixpointResults.class)
+				// we test the results separately
+				continue;
 			else if (FunctionalLattice.class.isAssignableFrom(subject)
 					|| SetLattice.class.isAssignableFrom(subject)
 					|| InverseSetLattice.class.isAssignableFrom(subject))
@@ -457,13 +482,34 @@ public class EqualityContractVerificationTest {
 	public void testInterproceduralObjects() {
 		verify(CallGraphEdge.class);
 		verify(CallGraphNode.class, verifier -> verifier.withIgnoredFields("graph"));
-		verify(CFGResults.class, Warning.NONFINAL_FIELDS);
-		verify(FixpointResults.class, Warning.NONFINAL_FIELDS);
+		// results is the same map as the function
+		verify(CFGResults.class, verifier -> verifier.withIgnoredFields("results"), Warning.NONFINAL_FIELDS);
+		verify(FixpointResults.class, verifier -> verifier.withIgnoredFields("results"), Warning.NONFINAL_FIELDS);
 		Reflections scanner = mkReflections();
 		for (Class<? extends ContextSensitivityToken> token : scanner.getSubTypesOf(ContextSensitivityToken.class))
 			if (token == ContextInsensitiveToken.class)
 				verify(token, Warning.INHERITED_DIRECTLY_FROM_OBJECT);
-			else
+			else if (token == RecursionFreeToken.class) {
+				// tokens are linked to their parent, the hash code is cached
+				// and children are only used for hash-consing
+				RecursionFreeToken red = (RecursionFreeToken) RecursionFreeToken.getSingleton()
+						.pushToken(new ScopeToken(uc1));
+				RecursionFreeToken blue = (RecursionFreeToken) RecursionFreeToken.getSingleton()
+						.pushToken(new ScopeToken(uc2));
+				verify(RecursionFreeToken.class, verifier -> verifier
+						.withPrefabValues(RecursionFreeToken.class, red, blue)
+						.withCachedHashCode("hash", "computeHash", red)
+						.withIgnoredFields("children"));
+			} else if (token == KDepthToken.class) {
+				// as above, but the parent is not used for equality when the
+				// last k calls are the same
+				KDepthToken red = (KDepthToken) KDepthToken.getSingleton(1).pushToken(new ScopeToken(uc1));
+				KDepthToken blue = (KDepthToken) KDepthToken.getSingleton(2).pushToken(new ScopeToken(uc2));
+				verify(KDepthToken.class, verifier -> verifier
+						.withPrefabValues(KDepthToken.class, red, blue)
+						.withCachedHashCode("hash", "computeHash", red),
+						Warning.ALL_FIELDS_SHOULD_BE_USED);
+			} else
 				verify(token);
 	}
 
@@ -70,6 +70,28 @@ public class ContextSensitiveAnalysisTest extends AnalysisTestExecutor {
 		perform("interprocedural", "RTAContextSensitive4", "programContextSensitive3.imp", conf);
 	}
 
+	@Test
+	public void testRTAContextSensitive4Parallel() throws AnalysisSetupException {
+		// all code members are entrypoints, and they share callees
+		LiSAConfiguration sequential = mkRTAContextSensitive4();
+		LiSAConfiguration parallel = mkRTAContextSensitive4();
+		parallel.fixpointParallelism = 4;
+		performEquivalence("interprocedural", "RTAContextSensitive4Parallel", "programContextSensitive3.imp",
+				sequential, parallel, "fixpointParallelism");
+	}
+
+	private static LiSAConfiguration mkRTAContextSensitive4() throws AnalysisSetupException {
+		LiSAConfiguration conf = new LiSAConfiguration();
+		conf.serializeResults = true;
+		conf.abstractState = getDefaultFor(AbstractState.class,
+				getDefaultFor(HeapDomain.class),
+				new Sign(),
+				getDefaultFor(TypeDomain.class));
+		conf.interproceduralAnalysis = new ContextBasedAnalysis<>(RecursionFreeToken.getSingleton());
+		conf.callGraph = new RTACallGraph();
+		return conf;
+	}
+
 	@Test
 	public void testRTAContextSensitive5() throws AnalysisSetupException {
 		LiSAConfiguration conf = new LiSAConfiguration();
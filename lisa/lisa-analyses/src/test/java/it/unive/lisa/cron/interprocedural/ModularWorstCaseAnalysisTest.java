@@ -41,4 +41,26 @@ public class ModularWorstCaseAnalysisTest extends AnalysisTestExecutor {
 		conf.callGraph = new RTACallGraph();
 		perform("interprocedural", "RTA", "program.imp", conf);
 	}
+
+	@Test
+	public void testRTACallGraphParallel() throws AnalysisSetupException {
+		// all code members are entrypoints
+		LiSAConfiguration sequential = mkRTA();
+		LiSAConfiguration parallel = mkRTA();
+		parallel.fixpointParallelism = 4;
+		performEquivalence("interprocedural", "RTAParallel", "program.imp", sequential, parallel,
+				"fixpointParallelism");
+	}
+
+	private static LiSAConfiguration mkRTA() throws AnalysisSetupException {
+		LiSAConfiguration conf = new LiSAConfiguration();
+		conf.serializeResults = true;
+		conf.abstractState = getDefaultFor(AbstractState.class,
+				getDefaultFor(HeapDomain.class),
+				new Sign(),
+				getDefaultFor(TypeDomain.class));
+		conf.interproceduralAnalysis = new ModularWorstCaseAnalysis<>();
+		conf.callGraph = new RTACallGraph();
+		return conf;
+	}
 }
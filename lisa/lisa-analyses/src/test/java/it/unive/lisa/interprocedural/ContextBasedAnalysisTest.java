@@ -0,0 +1,272 @@
+package it.unive.lisa.interprocedural;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import it.unive.lisa.FixpointConfiguration;
+import it.unive.lisa.LiSAConfiguration;
+import it.unive.lisa.analysis.AbstractState;
+import it.unive.lisa.analysis.AnalysisState;
+import it.unive.lisa.analysis.CFGWithAnalysisResults;
+import it.unive.lisa.analysis.SemanticException;
+import it.unive.lisa.analysis.SimpleAbstractState;
+import it.unive.lisa.analysis.heap.HeapDomain;
+import it.unive.lisa.analysis.heap.MonolithicHeap;
+import it.unive.lisa.analysis.lattices.ExpressionSet;
+import it.unive.lisa.analysis.nonrelational.value.TypeEnvironment;
+import it.unive.lisa.analysis.nonrelational.value.ValueEnvironment;
+import it.unive.lisa.analysis.numeric.Interval;
+import it.unive.lisa.analysis.symbols.SymbolAliasing;
+import it.unive.lisa.analysis.types.InferredTypes;
+import it.unive.lisa.analysis.value.TypeDomain;
+import it.unive.lisa.analysis.value.ValueDomain;
+import it.unive.lisa.imp.IMPFeatures;
+import it.unive.lisa.imp.types.IMPTypeSystem;
+import it.unive.lisa.interprocedural.callgraph.RTACallGraph;
+import it.unive.lisa.program.Application;
+import it.unive.lisa.program.Program;
+import it.unive.lisa.program.SourceCodeLocation;
+import it.unive.lisa.program.cfg.CFG;
+import it.unive.lisa.program.cfg.CodeMemberDescriptor;
+import it.unive.lisa.program.cfg.Parameter;
+import it.unive.lisa.program.cfg.edge.SequentialEdge;
+import it.unive.lisa.program.cfg.statement.Assignment;
+import it.unive.lisa.program.cfg.statement.Return;
+import it.unive.lisa.program.cfg.statement.Statement;
+import it.unive.lisa.program.cfg.statement.VariableRef;
+import it.unive.lisa.program.cfg.statement.call.Call.CallType;
+import it.unive.lisa.program.cfg.statement.call.UnresolvedCall;
+import it.unive.lisa.program.cfg.statement.literal.Int32Literal;
+import it.unive.lisa.program.cfg.statement.numeric.Addition;
+import it.unive.lisa.symbolic.value.Variable;
+import it.unive.lisa.type.Untyped;
+import it.unive.lisa.util.collections.workset.WorkingSet;
+import it.unive.lisa.util.datastructures.graph.algorithms.FixpointException;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+
+public class ContextBasedAnalysisTest {
+
+	private static final SourceCodeLocation UNKNOWN = new SourceCodeLocation("unknown", 0, 0);
+
+	private static class CountingCFG extends CFG {
+
+		private final AtomicInteger fixpoints = new AtomicInteger();
+
+		private CountingCFG(CodeMemberDescriptor descriptor) {
+			super(descriptor);
+		}
+
+		@Override
+		public <A extends AbstractState<A, H, V, T>,
+				H extends HeapDomain<H>,
+				V extends ValueDomain<V>,
+				T extends TypeDomain<T>> CFGWithAnalysisResults<A, H, V, T> fixpoint(
+						AnalysisState<A, H, V, T> entryState,
+						InterproceduralAnalysis<A, H, V, T> interprocedural,
+						WorkingSet<Statement> ws,
+						FixpointConfiguration conf) throws FixpointException {
+			fixpoints.incrementAndGet();
+			return super.fixpoint(entryState, interprocedural, ws, conf);
+		}
+	}
+
+	private int line;
+
+	private SourceCodeLocation loc() {
+		return new SourceCodeLocation("fake", ++line, 0);
+	}
+
+	private CountingCFG function(Program program, String name, String callee, int k) {
+		// function(x) { [y = callee(x);] return (y|x) + k; }
+		CountingCFG cfg = new CountingCFG(
+				new CodeMemberDescriptor(loc(), program, false, name, new Parameter(loc(), "x")));
+		String returned = "x";
+		Statement first = null;
+		if (callee != null) {
+			returned = "y";
+			first = new Assignment(cfg, loc(), new VariableRef(cfg, loc(), "y"),
+					new UnresolvedCall(cfg, loc(), CallType.STATIC, "", callee, new VariableRef(cfg, loc(), "x")));
+			cfg.addNode(first, true);
+		}
+		Return ret = new Return(cfg, loc(), new Addition(cfg, loc(), new VariableRef(cfg, loc(), returned),
+				new Int32Literal(cfg, loc(), k)));
+		cfg.addNode(ret, first == null);
+		if (first != null)
+			cfg.addEdge(new SequentialEdge(first, ret));
+		program.addCodeMember(cfg);
+		return cfg;
+	}
+
+	private CountingCFG entrypoint(Program program, String name, String var, String callee, int arg) {
+		// entrypoint() { var = callee(arg); return var; }
+		CountingCFG cfg = new CountingCFG(new CodeMemberDescriptor(loc(), program, false, name));
+		Assignment assign = new Assignment(cfg, loc(), new VariableRef(cfg, loc(), var),
+				new UnresolvedCall(cfg, loc(), CallType.STATIC, "", callee, new Int32Literal(cfg, loc(), arg)));
+		Return ret = new Return(cfg, loc(), new VariableRef(cfg, loc(), var));
+		cfg.addNode(assign, true);
+		cfg.addNode(ret);
+		cfg.addEdge(new SequentialEdge(assign, ret));
+		program.addCodeMember(cfg);
+		program.addEntryPoint(cfg);
+		return cfg;
+	}
+
+	private CountingCFG caller(Program program, String name, String var, String[] callees, int[] args) {
+		// caller() { callees[0](args[0]); ... var = callees[n](args[n]); return
+		// var; }
+		// so that no variable is visible at each call
+		CountingCFG cfg = new CountingCFG(new CodeMemberDescriptor(loc(), program, false, name));
+		Statement prev = null;
+		for (int i = 0; i < args.length; i++) {
+			Statement st = new UnresolvedCall(cfg, loc(), CallType.STATIC, "", callees[i],
+					new Int32Literal(cfg, loc(), args[i]));
+			if (i == args.length - 1)
+				st = new Assignment(cfg, loc(), new VariableRef(cfg, loc(), var), (UnresolvedCall) st);
+			cfg.addNode(st, prev == null);
+			if (prev != null)
+				cfg.addEdge(new SequentialEdge(prev, st));
+			prev = st;
+		}
+		Return ret = new Return(cfg, loc(), new VariableRef(cfg, loc(), var));
+		cfg.addNode(ret);
+		cfg.addEdge(new SequentialEdge(prev, ret));
+		program.addCodeMember(cfg);
+		program.addEntryPoint(cfg);
+		return cfg;
+	}
+
+	private static Interval valueOf(Collection<? extends CFGWithAnalysisResults<?, ?, ?, ?>> results, String var)
+			throws SemanticException {
+		assertEquals(1, results.size());
+		return valuesOf(results, var).iterator().next();
+	}
+
+	private static Set<Interval> valuesOf(Collection<? extends CFGWithAnalysisResults<?, ?, ?, ?>> results,
+			String var) throws SemanticException {
+		Set<Interval> values = new HashSet<>();
+		for (CFGWithAnalysisResults<?, ?, ?, ?> result : results) {
+			SimpleAbstractState<?, ?, ?> state = (SimpleAbstractState<?, ?, ?>) result.getExitState().getState();
+			values.add((Interval) ((ValueEnvironment<?>) state.getValueState())
+					.getState(new Variable(Untyped.INSTANCE, var, UNKNOWN)));
+		}
+		return values;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static ContextBasedAnalysis<?, ?, ?, ?> analyze(Application app, ContextSensitivityToken token,
+			LiSAConfiguration conf) throws Exception {
+		ContextBasedAnalysis<
+				SimpleAbstractState<MonolithicHeap, ValueEnvironment<Interval>, TypeEnvironment<InferredTypes>>,
+				MonolithicHeap,
+				ValueEnvironment<Interval>,
+				TypeEnvironment<InferredTypes>> analysis = new ContextBasedAnalysis<>(token);
+		RTACallGraph callgraph = new RTACallGraph();
+		callgraph.init(app);
+		analysis.init(app, callgraph, WorstCasePolicy.INSTANCE);
+		AnalysisState<
+				SimpleAbstractState<MonolithicHeap, ValueEnvironment<Interval>, TypeEnvironment<InferredTypes>>,
+				MonolithicHeap,
+				ValueEnvironment<Interval>,
+				TypeEnvironment<InferredTypes>> state = new AnalysisState<>(
+						new SimpleAbstractState<>(new MonolithicHeap(), new ValueEnvironment<>(new Interval()),
+								new TypeEnvironment<>(new InferredTypes())),
+						new ExpressionSet<>(), new SymbolAliasing());
+		analysis.fixpoint(state.withTopHeap().withTopValue(),
+				(Class<? extends WorkingSet<Statement>>) conf.fixpointWorkingSet,
+				new FixpointConfiguration(conf));
+		return analysis;
+	}
+
+	private void testDependencies(int parallelism) throws Exception {
+		Program program = new Program(new IMPFeatures(), new IMPTypeSystem());
+		CountingCFG inc = function(program, "inc", null, 1);
+		CountingCFG mid = function(program, "mid", "inc", 10);
+		CountingCFG other = function(program, "other", null, 2);
+		CountingCFG e1 = entrypoint(program, "e1", "a", "mid", 1);
+		CountingCFG e2 = entrypoint(program, "e2", "b", "inc", 5);
+		CountingCFG e3 = entrypoint(program, "e3", "c", "other", 0);
+		Application app = new Application(program);
+
+		// a single context: the result of inc grows when it is called
+		// both with 1 and 5, and whoever read the smaller result has to be
+		// analyzed again
+		LiSAConfiguration conf = new LiSAConfiguration();
+		conf.fixpointParallelism = parallelism;
+		ContextBasedAnalysis<?, ?, ?, ?> analysis = analyze(app, ContextInsensitiveToken.getSingleton(), conf);
+
+		// the results computed by analyzing the whole program again until
+		// nothing changes
+		assertEquals(new Interval(12, 16), valueOf(analysis.getAnalysisResultsOf(e1), "a"));
+		assertEquals(new Interval(2, 6), valueOf(analysis.getAnalysisResultsOf(e2), "b"));
+		assertEquals(new Interval(2, 2), valueOf(analysis.getAnalysisResultsOf(e3), "c"));
+		assertEquals(new Interval(2, 6), valueOf(analysis.getAnalysisResultsOf(mid), "y"));
+
+		// inc is analyzed once per entry state, while its readers are
+		// analyzed again once it changes
+		assertEquals(2, inc.fixpoints.get());
+		assertEquals(2, mid.fixpoints.get());
+		assertEquals(2, e2.fixpoints.get());
+		// e1 reads the result of mid only if mid changed after e1 has been
+		// analyzed, depending on the order of entrypoints
+		assertTrue(e1.fixpoints.get() == 1 || e1.fixpoints.get() == 2);
+		// nothing that e3 and other read ever changes
+		assertEquals(1, other.fixpoints.get());
+		assertEquals(1, e3.fixpoints.get());
+	}
+
+	@Test
+	public void testOnlyDependentsAreProcessedAgain() throws Exception {
+		testDependencies(1);
+	}
+
+	@Test
+	public void testOnlyDependentsAreProcessedAgainInParallel() throws Exception {
+		testDependencies(4);
+	}
+
+	private void testSummaries(int parallelism) throws Exception {
+		Program program = new Program(new IMPFeatures(), new IMPTypeSystem());
+		CountingCFG inc = function(program, "inc", null, 1);
+		CountingCFG mid = function(program, "mid", "inc", 10);
+		// inc(7) is called twice with the same entry state, while the result
+		// of inc in the context of the call inside mid grows in between
+		CountingCFG main = caller(program, "main", "f", new String[] { "inc", "mid", "mid", "inc" },
+				new int[] { 7, 1, 5, 7 });
+		Application app = new Application(program);
+
+		LiSAConfiguration conf = new LiSAConfiguration();
+		conf.fixpointParallelism = parallelism;
+		ContextBasedAnalysis<?, ?, ?, ?> analysis = analyze(app, KDepthToken.getSingleton(1), conf);
+		Interval f = valueOf(analysis.getAnalysisResultsOf(main), "f");
+		// mid is analyzed once for each of its call sites
+		assertEquals(2, analysis.getAnalysisResultsOf(mid).size());
+		Set<Interval> y = valuesOf(analysis.getAnalysisResultsOf(mid), "y");
+		int incFixpoints = inc.fixpoints.getAndSet(0);
+		assertEquals(4, incFixpoints);
+
+		conf.summaryCacheSize = 100;
+		analysis = analyze(app, KDepthToken.getSingleton(1), conf);
+		assertEquals(f, valueOf(analysis.getAnalysisResultsOf(main), "f"));
+		assertEquals(y, valuesOf(analysis.getAnalysisResultsOf(mid), "y"));
+		// the second call to inc(7) reuses the summary of the first one, both
+		// when main is first analyzed and when it is analyzed again after the
+		// result of mid changed: the growth of the result of inc only
+		// discards the summaries of mid, that read it
+		assertEquals(2, analysis.getSummaryCache().getHits());
+		assertEquals(incFixpoints - 1, inc.fixpoints.get());
+	}
+
+	@Test
+	public void testSummariesAreReused() throws Exception {
+		testSummaries(1);
+	}
+
+	@Test
+	public void testSummariesAreReusedInParallel() throws Exception {
+		testSummaries(4);
+	}
+}
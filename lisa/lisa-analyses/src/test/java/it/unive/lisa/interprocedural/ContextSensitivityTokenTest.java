@@ -0,0 +1,66 @@
+package it.unive.lisa.interprocedural;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+
+import it.unive.lisa.analysis.ScopeToken;
+import it.unive.lisa.imp.IMPFeatures;
+import it.unive.lisa.imp.types.IMPTypeSystem;
+import it.unive.lisa.program.Program;
+import it.unive.lisa.program.SourceCodeLocation;
+import it.unive.lisa.program.cfg.CFG;
+import it.unive.lisa.program.cfg.CodeMemberDescriptor;
+import it.unive.lisa.program.cfg.statement.NoOp;
+import java.util.Arrays;
+import java.util.Objects;
+import org.junit.Test;
+
+public class ContextSensitivityTokenTest {
+
+	private static final CFG cfg = new CFG(new CodeMemberDescriptor(new SourceCodeLocation("fake", 1, 0),
+			new Program(new IMPFeatures(), new IMPTypeSystem()), false, "cfg"));
+
+	private static ScopeToken scope(int line) {
+		return new ScopeToken(new NoOp(cfg, new SourceCodeLocation("fake", line, 0)));
+	}
+
+	@Test
+	public void testRecursionFree() {
+		ScopeToken a = scope(2), b = scope(3);
+		ContextSensitivityToken empty = RecursionFreeToken.getSingleton().empty();
+
+		ContextSensitivityToken ab = empty.pushToken(a).pushToken(b);
+		assertSame("Tokens are not hash-consed", ab, empty.pushToken(scope(2)).pushToken(scope(3)));
+		assertSame("Recursive call changed the token", ab, ab.pushToken(scope(2)));
+		assertSame("Pop did not restore the token", empty.pushToken(a), ab.popToken());
+		assertSame("Pop did not restore the token", empty, ab.popToken().popToken());
+		assertEquals("Wrong string", Arrays.asList(a, b).toString(), ab.toString());
+		assertEquals("Wrong hash", Objects.hash(Arrays.asList(a, b)), ab.hashCode());
+
+		// tokens coming from different empty tokens are not hash-consed
+		ContextSensitivityToken other = RecursionFreeToken.getSingleton().empty().pushToken(a).pushToken(b);
+		assertEquals("Equal tokens are different", ab, other);
+		assertEquals("Empty tokens are different", empty, RecursionFreeToken.getSingleton().empty());
+		assertNotEquals("Different tokens are equal", ab, other.popToken());
+		assertNotEquals("Different tokens are equal", ab, empty.pushToken(b).pushToken(a));
+	}
+
+	@Test
+	public void testKDepth() {
+		ScopeToken a = scope(2), b = scope(3), c = scope(4);
+		ContextSensitivityToken empty = KDepthToken.getSingleton(2);
+
+		ContextSensitivityToken abc = empty.pushToken(a).pushToken(b).pushToken(c);
+		ContextSensitivityToken bc = empty.pushToken(b).pushToken(c);
+		assertSame("Tokens are not hash-consed", abc, empty.pushToken(a).pushToken(b).pushToken(c));
+		assertEquals("Tokens with the same last calls are different", bc, abc);
+		assertEquals("Tokens with the same last calls have different hashes", bc.hashCode(), abc.hashCode());
+		assertEquals("Wrong string", Arrays.asList(b, c).toString(), abc.toString());
+		assertNotEquals("Different tokens are equal", bc.popToken(), abc.popToken());
+		assertSame("Pop did not restore the token", empty.pushToken(a), abc.popToken().popToken());
+
+		ContextSensitivityToken insensitive = KDepthToken.getSingleton(0);
+		assertEquals("0-depth tokens are different", insensitive, insensitive.pushToken(a).pushToken(b));
+	}
+}
@@ -0,0 +1,100 @@
+package it.unive.lisa.interprocedural;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import it.unive.lisa.analysis.AnalysisState;
+import it.unive.lisa.analysis.SimpleAbstractState;
+import it.unive.lisa.analysis.heap.MonolithicHeap;
+import it.unive.lisa.analysis.lattices.ExpressionSet;
+import it.unive.lisa.analysis.nonrelational.value.TypeEnvironment;
+import it.unive.lisa.analysis.nonrelational.value.ValueEnvironment;
+import it.unive.lisa.analysis.numeric.Interval;
+import it.unive.lisa.analysis.symbols.SymbolAliasing;
+import it.unive.lisa.analysis.types.InferredTypes;
+import it.unive.lisa.imp.IMPFeatures;
+import it.unive.lisa.imp.types.IMPTypeSystem;
+import it.unive.lisa.program.Program;
+import it.unive.lisa.program.SourceCodeLocation;
+import it.unive.lisa.program.cfg.CFG;
+import it.unive.lisa.program.cfg.CodeMemberDescriptor;
+import org.junit.Test;
+
+public class SummaryCacheTest {
+
+	private static final Program program = new Program(new IMPFeatures(), new IMPTypeSystem());
+
+	private static final AnalysisState<
+			SimpleAbstractState<MonolithicHeap, ValueEnvironment<Interval>, TypeEnvironment<InferredTypes>>,
+			MonolithicHeap,
+			ValueEnvironment<Interval>,
+			TypeEnvironment<InferredTypes>> state = new AnalysisState<>(
+					new SimpleAbstractState<>(new MonolithicHeap(), new ValueEnvironment<>(new Interval()),
+							new TypeEnvironment<>(new InferredTypes())),
+					new ExpressionSet<>(), new SymbolAliasing());
+
+	private static CFG mkCFG(String name) {
+		return new CFG(new CodeMemberDescriptor(new SourceCodeLocation("fake", 1, 0), program, false, name));
+	}
+
+	@Test
+	public void testLRU() {
+		CFG first = mkCFG("first"), second = mkCFG("second"), third = mkCFG("third");
+		ContextSensitivityToken token = ContextInsensitiveToken.getSingleton();
+		SummaryCache<SimpleAbstractState<MonolithicHeap, ValueEnvironment<Interval>, TypeEnvironment<InferredTypes>>,
+				MonolithicHeap,
+				ValueEnvironment<Interval>,
+				TypeEnvironment<InferredTypes>> cache = new SummaryCache<>(2);
+
+		cache.put(first, state.top(), token, state.bottom(), cache.getGeneration(first, token));
+		cache.put(second, state.top(), token, state.top(), cache.getGeneration(second, token));
+		// first becomes the most recently used
+		assertEquals("Wrong summary", state.bottom(), cache.get(first, state.top()).getRight());
+		cache.put(third, state.top(), token, state.top(), cache.getGeneration(third, token));
+
+		assertEquals("Wrong size", 2, cache.size());
+		assertEquals("Wrong evictions", 1, cache.getEvictions());
+		assertNull("Evicted summary found", cache.get(second, state.top()));
+		assertNull("Summary with different entry found", cache.get(first, state.bottom()));
+		assertSame("Wrong token", token, cache.get(third, state.top()).getLeft());
+		assertEquals("Wrong hits", 2, cache.getHits());
+		assertEquals("Wrong misses", 2, cache.getMisses());
+	}
+
+	@Test
+	public void testInvalidation() {
+		CFG cfg = mkCFG("cfg"), other = mkCFG("other");
+		ContextSensitivityToken token = ContextInsensitiveToken.getSingleton();
+		ContextSensitivityToken otherToken = KDepthToken.getSingleton(1);
+		SummaryCache<SimpleAbstractState<MonolithicHeap, ValueEnvironment<Interval>, TypeEnvironment<InferredTypes>>,
+				MonolithicHeap,
+				ValueEnvironment<Interval>,
+				TypeEnvironment<InferredTypes>> cache = new SummaryCache<>(10);
+
+		long generation = cache.getGeneration(cfg, token);
+		cache.put(cfg, state.top(), token, state.top(), generation);
+		cache.put(cfg, state.bottom(), otherToken, state.bottom(), cache.getGeneration(cfg, otherToken));
+		cache.put(other, state.top(), token, state.top(), cache.getGeneration(other, token));
+		cache.invalidate(cfg, token);
+		assertNull("Summary not discarded", cache.get(cfg, state.top()));
+		// summaries computed in other contexts or by other cfgs survive
+		assertEquals("Summary of another context discarded", 2, cache.size());
+		assertSame("Wrong token", otherToken, cache.get(cfg, state.bottom()).getLeft());
+		assertSame("Wrong token", token, cache.get(other, state.top()).getLeft());
+
+		// computed before the invalidation
+		cache.put(cfg, state.top(), token, state.top(), generation);
+		assertEquals("Stale summary stored", 2, cache.size());
+		cache.put(cfg, state.top(), token, state.top(), cache.getGeneration(cfg, token));
+		assertEquals("Summary not stored", 3, cache.size());
+
+		// a summary replaced by one computed in another context is no longer
+		// discarded with the first one
+		cache.put(cfg, state.top(), otherToken, state.top(), cache.getGeneration(cfg, otherToken));
+		cache.invalidate(cfg, token);
+		assertEquals("Replaced summary discarded", 3, cache.size());
+		cache.invalidate(cfg, otherToken);
+		assertEquals("Summaries not discarded", 1, cache.size());
+	}
+}
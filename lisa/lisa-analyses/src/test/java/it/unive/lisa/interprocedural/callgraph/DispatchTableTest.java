@@ -0,0 +1,242 @@
+package it.unive.lisa.interprocedural.callgraph;
+
+import static org.junit.Assert.assertEquals;
+
+import it.unive.lisa.analysis.symbols.NameSymbol;
+import it.unive.lisa.analysis.symbols.QualifiedNameSymbol;
+import it.unive.lisa.analysis.symbols.QualifierSymbol;
+import it.unive.lisa.analysis.symbols.SymbolAliasing;
+import it.unive.lisa.imp.IMPFeatures;
+import it.unive.lisa.imp.types.ClassType;
+import it.unive.lisa.imp.types.IMPTypeSystem;
+import it.unive.lisa.imp.types.InterfaceType;
+import it.unive.lisa.program.Application;
+import it.unive.lisa.program.ClassUnit;
+import it.unive.lisa.program.CompilationUnit;
+import it.unive.lisa.program.InterfaceUnit;
+import it.unive.lisa.program.Program;
+import it.unive.lisa.program.SourceCodeLocation;
+import it.unive.lisa.program.cfg.AbstractCodeMember;
+import it.unive.lisa.program.cfg.CFG;
+import it.unive.lisa.program.cfg.CodeMember;
+import it.unive.lisa.program.cfg.CodeMemberDescriptor;
+import it.unive.lisa.program.cfg.NativeCFG;
+import it.unive.lisa.program.cfg.Parameter;
+import it.unive.lisa.program.cfg.statement.Ret;
+import it.unive.lisa.program.cfg.statement.VariableRef;
+import it.unive.lisa.program.cfg.statement.call.Call.CallType;
+import it.unive.lisa.program.cfg.statement.call.UnresolvedCall;
+import it.unive.lisa.program.language.hierarchytraversal.HierarcyTraversalStrategy;
+import it.unive.lisa.type.Type;
+import it.unive.lisa.type.Untyped;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.Set;
+import org.junit.Before;
+import org.junit.Test;
+
+public class DispatchTableTest {
+
+	private static final String PREFIX = DispatchTableTest.class.getSimpleName();
+
+	private int line;
+
+	private Program program;
+
+	private InterfaceUnit i;
+
+	private ClassUnit a, b, c, d;
+
+	private CodeMember iFoo, aFoo, aBar, bFoo, dFoo, dBaz, cQux;
+
+	private CFG main;
+
+	private RTACallGraph cg;
+
+	private SourceCodeLocation loc() {
+		return new SourceCodeLocation(PREFIX, line++, 0);
+	}
+
+	/**
+	 * IMP follows a single superclass of each unit, chosen by the iteration
+	 * order of its ancestors: these features traverse all of them instead, so
+	 * that the members visible from C do not depend on that order.
+	 */
+	private static class MultipleInheritanceFeatures extends IMPFeatures {
+
+		@Override
+		public HierarcyTraversalStrategy getTraversalStrategy() {
+			return (st, start) -> {
+				Set<CompilationUnit> seen = new LinkedHashSet<>();
+				Deque<CompilationUnit> ws = new LinkedList<>();
+				ws.add(start);
+				while (!ws.isEmpty()) {
+					CompilationUnit cu = ws.pop();
+					if (seen.add(cu))
+						ws.addAll(cu.getImmediateAncestors());
+				}
+				return seen;
+			};
+		}
+	}
+
+	private static Type typeOf(CompilationUnit unit) {
+		if (unit instanceof InterfaceUnit)
+			return InterfaceType.lookup(unit.getName(), (InterfaceUnit) unit);
+		return ClassType.lookup(unit.getName(), unit);
+	}
+
+	private CodeMember member(CompilationUnit unit, String name, boolean isAbstract) {
+		CodeMemberDescriptor descr = new CodeMemberDescriptor(loc(), unit, true, name,
+				new Parameter(loc(), "this", typeOf(unit)));
+		CodeMember cm;
+		if (isAbstract)
+			cm = new AbstractCodeMember(descr);
+		else {
+			CFG cfg = new CFG(descr);
+			cfg.addNode(new Ret(cfg, loc()), true);
+			cm = cfg;
+		}
+		unit.addInstanceCodeMember(cm);
+		return cm;
+	}
+
+	private <T extends CompilationUnit> T unit(T unit) {
+		program.addUnit(unit);
+		typeOf(unit);
+		return unit;
+	}
+
+	@Before
+	public void setup() throws CallGraphConstructionException {
+		// types are cached by name
+		ClassType.clearAll();
+		InterfaceType.clearAll();
+		program = new Program(new MultipleInheritanceFeatures(), new IMPTypeSystem());
+		// interface I { foo(); }
+		// class A implements I { foo(); bar(); }
+		// class B extends A { foo(); }
+		// class D { foo(); baz(); }
+		// class C extends B, D { qux(); }
+		i = unit(new InterfaceUnit(loc(), program, PREFIX + "I", false));
+		a = unit(new ClassUnit(loc(), program, PREFIX + "A", false));
+		b = unit(new ClassUnit(loc(), program, PREFIX + "B", false));
+		d = unit(new ClassUnit(loc(), program, PREFIX + "D", false));
+		c = unit(new ClassUnit(loc(), program, PREFIX + "C", false));
+		a.addAncestor(i);
+		b.addAncestor(a);
+		c.addAncestor(b);
+		c.addAncestor(d);
+
+		iFoo = member(i, "foo", true);
+		aFoo = member(a, "foo", false);
+		aBar = member(a, "bar", false);
+		bFoo = member(b, "foo", false);
+		dFoo = member(d, "foo", false);
+		dBaz = member(d, "baz", false);
+		cQux = member(c, "qux", false);
+
+		main = new CFG(new CodeMemberDescriptor(loc(), program, false, "main"));
+		main.addNode(new Ret(main, loc()), true);
+		program.addCodeMember(main);
+
+		cg = new RTACallGraph();
+		cg.init(new Application(program));
+	}
+
+	@SuppressWarnings("unchecked")
+	private Set<CodeMember> resolve(String qualifier, String name, SymbolAliasing aliasing,
+			CompilationUnit... receivers) throws CallResolutionException {
+		Set<Type> types = new HashSet<>();
+		for (CompilationUnit receiver : receivers)
+			types.add(typeOf(receiver));
+		UnresolvedCall call = new UnresolvedCall(main, loc(), CallType.INSTANCE, qualifier, name,
+				new VariableRef(main, loc(), "x", Untyped.INSTANCE));
+
+		Collection<CFG> targets = new HashSet<>();
+		Collection<NativeCFG> natives = new HashSet<>();
+		cg.resolveInstance(call, new Set[] { types }, targets, natives, aliasing);
+		Set<CodeMember> result = new HashSet<>(targets);
+		result.addAll(natives);
+
+		// the hierarchy walk that the dispatch tables replace
+		Collection<CFG> expected = new HashSet<>();
+		Collection<NativeCFG> expectedNatives = new HashSet<>();
+		for (CompilationUnit receiver : receivers) {
+			Set<CompilationUnit> seen = new HashSet<>();
+			for (CompilationUnit cu : program.getFeatures().getTraversalStrategy().traverse(call, receiver))
+				if (seen.add(cu))
+					for (CodeMember cm : cu.getInstanceCodeMembers(false))
+						cg.checkMember(call, new Set[] { types }, expected, expectedNatives, aliasing, cm, true);
+		}
+		assertEquals(expected, targets);
+		assertEquals(expectedNatives, natives);
+		return result;
+	}
+
+	private Set<CodeMember> resolve(String name, CompilationUnit... receivers) throws CallResolutionException {
+		return resolve(null, name, new SymbolAliasing(), receivers);
+	}
+
+	@Test
+	public void testOverrides() throws CallResolutionException {
+		assertEquals(Set.of(aFoo), resolve("foo", a));
+		assertEquals(Set.of(aFoo, bFoo), resolve("foo", b));
+		assertEquals(Set.of(aFoo, bFoo), resolve("foo", a, b));
+		assertEquals(Set.of(aBar), resolve("bar", b));
+		assertEquals(Set.of(bFoo), resolve(b.getName(), "foo", new SymbolAliasing(), b));
+		assertEquals(Set.of(), resolve("nope", b));
+	}
+
+	@Test
+	public void testInterfaceUnits() throws CallResolutionException {
+		// abstract members are never targets
+		assertEquals(Set.of(), resolve("foo", i));
+		assertEquals(Set.of(aFoo), resolve("foo", a));
+		assertEquals(Set.of(), resolve(i.getName(), "foo", new SymbolAliasing(), a));
+		assertEquals(Set.of(iFoo), Set.copyOf(i.getInstanceCodeMembers(false)));
+	}
+
+	@Test
+	public void testMultipleInheritance() throws CallResolutionException {
+		assertEquals(Set.of(aFoo, bFoo, dFoo), resolve("foo", c));
+		assertEquals(Set.of(dBaz), resolve("baz", c));
+		assertEquals(Set.of(aBar), resolve("bar", c));
+		assertEquals(Set.of(cQux), resolve("qux", c));
+		assertEquals(Set.of(dFoo), resolve("foo", d));
+		assertEquals(Set.of(dFoo), resolve(d.getName(), "foo", new SymbolAliasing(), c));
+	}
+
+	@Test
+	public void testAliasing() throws CallResolutionException {
+		// a call to baz also targets members named foo
+		SymbolAliasing names = new SymbolAliasing().putState(new NameSymbol("foo"), new NameSymbol("baz"));
+		assertEquals(Set.of(aFoo, bFoo, dFoo, dBaz), resolve(null, "baz", names, c));
+		assertEquals(Set.of(aFoo, bFoo), resolve(null, "baz", names, b));
+
+		// a call to D::qux also targets C::qux
+		SymbolAliasing qualified = new SymbolAliasing().putState(new QualifiedNameSymbol(c.getName(), "qux"),
+				new QualifiedNameSymbol(d.getName(), "qux"));
+		assertEquals(Set.of(cQux), resolve(d.getName(), "qux", qualified, c));
+
+		// a call to D::foo also targets members of B named foo
+		SymbolAliasing qualifiers = new SymbolAliasing().putState(new QualifierSymbol(b.getName()),
+				new QualifierSymbol(d.getName()));
+		assertEquals(Set.of(bFoo, dFoo), resolve(d.getName(), "foo", qualifiers, c));
+	}
+
+	@Test
+	public void testUnitsOutsideApplication() throws CallResolutionException {
+		// units not known when the call graph was initialized still have
+		// their dispatch table
+		ClassUnit e = new ClassUnit(loc(), program, PREFIX + "E", false);
+		typeOf(e);
+		e.addAncestor(d);
+		CodeMember eBaz = member(e, "baz", false);
+		assertEquals(Set.of(dBaz, eBaz), resolve("baz", e));
+		assertEquals(Set.of(dFoo), resolve("foo", e));
+	}
+}
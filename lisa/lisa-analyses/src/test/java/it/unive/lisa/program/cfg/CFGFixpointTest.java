@@ -1,18 +1,27 @@
 package it.unive.lisa.program.cfg;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import it.unive.lisa.FixpointConfiguration;
+import it.unive.lisa.LiSAConfiguration;
+import it.unive.lisa.LiSAConfiguration.DescendingPhaseType;
+import it.unive.lisa.LiSAConfiguration.FixpointStrategy;
 import it.unive.lisa.analysis.AnalysisState;
 import it.unive.lisa.analysis.CFGWithAnalysisResults;
+import it.unive.lisa.analysis.SemanticException;
 import it.unive.lisa.analysis.SimpleAbstractState;
 import it.unive.lisa.analysis.heap.MonolithicHeap;
 import it.unive.lisa.analysis.lattices.ExpressionSet;
 import it.unive.lisa.analysis.nonrelational.value.TypeEnvironment;
 import it.unive.lisa.analysis.nonrelational.value.ValueEnvironment;
+import it.unive.lisa.analysis.numeric.Interval;
 import it.unive.lisa.analysis.numeric.Sign;
 import it.unive.lisa.analysis.symbols.SymbolAliasing;
 import it.unive.lisa.analysis.types.InferredTypes;
+import it.unive.lisa.analysis.value.ValueDomain;
 import it.unive.lisa.imp.IMPFeatures;
 import it.unive.lisa.imp.IMPFrontend;
 import it.unive.lisa.imp.ParsingException;
@@ -22,27 +31,52 @@ import it.unive.lisa.interprocedural.ModularWorstCaseAnalysis;
 import it.unive.lisa.interprocedural.WorstCasePolicy;
 import it.unive.lisa.interprocedural.callgraph.CallGraphConstructionException;
 import it.unive.lisa.interprocedural.callgraph.RTACallGraph;
+import it.unive.lisa.logging.FixpointProfile.Operation;
+import it.unive.lisa.logging.FixpointProfile.StatementProfile;
 import it.unive.lisa.program.Application;
 import it.unive.lisa.program.Program;
+import it.unive.lisa.program.SourceCodeLocation;
 import it.unive.lisa.program.SyntheticLocation;
+import it.unive.lisa.program.cfg.edge.Edge;
+import it.unive.lisa.program.cfg.edge.FalseEdge;
+import it.unive.lisa.program.cfg.edge.SequentialEdge;
+import it.unive.lisa.program.cfg.edge.TrueEdge;
+import it.unive.lisa.program.cfg.statement.Assignment;
+import it.unive.lisa.program.cfg.statement.Return;
+import it.unive.lisa.program.cfg.statement.Statement;
+import it.unive.lisa.program.cfg.statement.VariableRef;
 import it.unive.lisa.program.cfg.statement.call.Call.CallType;
 import it.unive.lisa.program.cfg.statement.call.OpenCall;
+import it.unive.lisa.program.cfg.statement.comparison.LessThan;
+import it.unive.lisa.program.cfg.statement.literal.Int32Literal;
+import it.unive.lisa.program.cfg.statement.numeric.Addition;
+import it.unive.lisa.symbolic.value.Identifier;
+import it.unive.lisa.symbolic.value.Variable;
+import it.unive.lisa.type.Untyped;
 import it.unive.lisa.util.collections.workset.FIFOWorkingSet;
+import it.unive.lisa.util.datastructures.graph.GraphVisitor;
 import it.unive.lisa.util.datastructures.graph.algorithms.FixpointException;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
 import org.junit.Test;
 
 public class CFGFixpointTest {
 
-	private ModularWorstCaseAnalysis<
-			SimpleAbstractState<MonolithicHeap, ValueEnvironment<Sign>, TypeEnvironment<InferredTypes>>,
+	private static final String LOOP = "class loop { foo() { def x = 0; def y = 1; while (x < 100) "
+			+ "{ y = y + 1; y = y * 2; if (x < 50) x = x + 2; else x = x + 10; } def z = x - 1; return z; } }";
+
+	private <V extends ValueDomain<V>> ModularWorstCaseAnalysis<
+			SimpleAbstractState<MonolithicHeap, V, TypeEnvironment<InferredTypes>>,
 			MonolithicHeap,
-			ValueEnvironment<Sign>,
+			V,
 			TypeEnvironment<InferredTypes>> mkAnalysis(Program p)
 					throws InterproceduralAnalysisException, CallGraphConstructionException {
 		ModularWorstCaseAnalysis<
-				SimpleAbstractState<MonolithicHeap, ValueEnvironment<Sign>, TypeEnvironment<InferredTypes>>,
+				SimpleAbstractState<MonolithicHeap, V, TypeEnvironment<InferredTypes>>,
 				MonolithicHeap,
-				ValueEnvironment<Sign>,
+				V,
 				TypeEnvironment<InferredTypes>> analysis = new ModularWorstCaseAnalysis<>();
 		RTACallGraph callgraph = new RTACallGraph();
 		Application app = new Application(p);
@@ -64,6 +98,28 @@ public class CFGFixpointTest {
 				new ExpressionSet<>(), new SymbolAliasing());
 	}
 
+	private static CFG parseLoop() throws ParsingException {
+		return IMPFrontend.processText(LOOP).getAllCFGs().iterator().next();
+	}
+
+	private CFGWithAnalysisResults<
+			SimpleAbstractState<MonolithicHeap, ValueEnvironment<Sign>, TypeEnvironment<InferredTypes>>,
+			MonolithicHeap,
+			ValueEnvironment<Sign>,
+			TypeEnvironment<InferredTypes>> signs(CFG cfg, FixpointConfiguration conf)
+					throws InterproceduralAnalysisException, CallGraphConstructionException, FixpointException {
+		return cfg.fixpoint(mkState(), mkAnalysis(cfg.getDescriptor().getUnit().getProgram()), FIFOWorkingSet.mk(),
+				conf);
+	}
+
+	private static void assertSameResults(Collection<Statement> statements, CFGWithAnalysisResults<?, ?, ?, ?> expected,
+			CFGWithAnalysisResults<?, ?, ?, ?> actual) throws SemanticException {
+		for (Statement st : statements)
+			assertEquals("Wrong result for " + st, expected.getAnalysisStateAfter(st),
+					actual.getAnalysisStateAfter(st));
+		assertEquals("Wrong exit state", expected.getExitState(), actual.getExitState());
+	}
+
 	@Test
 	public void testEmptyCFG()
 			throws InterproceduralAnalysisException, CallGraphConstructionException, ParsingException {
@@ -125,4 +181,307 @@ public class CFGFixpointTest {
 
 		assertTrue(result.getAnalysisStateAfter(call).getState().getValueState().getKeys().isEmpty());
 	}
+
+	@Test
+	public void testSparseResults()
+			throws ParsingException, InterproceduralAnalysisException, CallGraphConstructionException,
+			FixpointException, SemanticException {
+		CFG cfg = parseLoop();
+		LiSAConfiguration conf = new LiSAConfiguration();
+		CFGWithAnalysisResults<?, ?, ?, ?> dense = signs(cfg, new FixpointConfiguration(conf));
+		conf.sparseResults = true;
+		CFGWithAnalysisResults<?, ?, ?, ?> sparse = signs(cfg, new FixpointConfiguration(conf));
+		assertSameResults(cfg.getNodes(), dense, sparse);
+	}
+
+	private int line;
+
+	private SourceCodeLocation loc() {
+		return new SourceCodeLocation("fake", ++line, 0);
+	}
+
+	private static class ExpressionCollector implements GraphVisitor<CFG, Statement, Edge, Collection<Statement>> {
+
+		@Override
+		public boolean visit(Collection<Statement> tool, CFG graph) {
+			return true;
+		}
+
+		@Override
+		public boolean visit(Collection<Statement> tool, CFG graph, Statement node) {
+			tool.add(node);
+			return true;
+		}
+
+		@Override
+		public boolean visit(Collection<Statement> tool, CFG graph, Edge edge) {
+			return true;
+		}
+	}
+
+	@Test
+	public void testSparseResultsAtJoinPoints()
+			throws InterproceduralAnalysisException, CallGraphConstructionException, FixpointException,
+			SemanticException {
+		Program program = new Program(new IMPFeatures(), new IMPTypeSystem());
+		CFG cfg = new CFG(new CodeMemberDescriptor(SyntheticLocation.INSTANCE, program, false, "cfg"));
+		// x = 1; (x = 0 | x = x + 2); y = x + 3; return y;
+		Assignment first = new Assignment(cfg, loc(), new VariableRef(cfg, loc(), "x"),
+				new Int32Literal(cfg, loc(), 1));
+		Assignment left = new Assignment(cfg, loc(), new VariableRef(cfg, loc(), "x"),
+				new Int32Literal(cfg, loc(), 0));
+		Assignment right = new Assignment(cfg, loc(), new VariableRef(cfg, loc(), "x"),
+				new Addition(cfg, loc(), new VariableRef(cfg, loc(), "x"), new Int32Literal(cfg, loc(), 2)));
+		Assignment join = new Assignment(cfg, loc(), new VariableRef(cfg, loc(), "y"),
+				new Addition(cfg, loc(), new VariableRef(cfg, loc(), "x"), new Int32Literal(cfg, loc(), 3)));
+		Return ret = new Return(cfg, loc(), new VariableRef(cfg, loc(), "y"));
+		cfg.addNode(first, true);
+		cfg.addNode(left);
+		cfg.addNode(right);
+		cfg.addNode(join);
+		cfg.addNode(ret);
+		cfg.addEdge(new SequentialEdge(first, left));
+		cfg.addEdge(new SequentialEdge(first, right));
+		cfg.addEdge(new SequentialEdge(left, join));
+		cfg.addEdge(new SequentialEdge(right, join));
+		cfg.addEdge(new SequentialEdge(join, ret));
+		program.addCodeMember(cfg);
+
+		LiSAConfiguration conf = new LiSAConfiguration();
+		CFGWithAnalysisResults<?, ?, ?, ?> dense = signs(cfg, new FixpointConfiguration(conf));
+		conf.sparseResults = true;
+		CFGWithAnalysisResults<?, ?, ?, ?> sparse = signs(cfg, new FixpointConfiguration(conf));
+
+		// the inner expressions of the join point are computed from the lub
+		// of the states of both branches
+		Collection<Statement> all = new HashSet<>();
+		for (Statement st : cfg.getNodes())
+			st.accept(new ExpressionCollector(), all);
+		assertSameResults(all, dense, sparse);
+	}
+
+	@Test
+	public void testScopesFollowTheGraph()
+			throws InterproceduralAnalysisException, CallGraphConstructionException, FixpointException,
+			SemanticException {
+		Program program = new Program(new IMPFeatures(), new IMPTypeSystem());
+		CFG cfg = new CFG(new CodeMemberDescriptor(SyntheticLocation.INSTANCE, program, false, "cfg"));
+		// y = 1; x = y; with y going out of scope after y = 1
+		Assignment first = new Assignment(cfg, loc(), new VariableRef(cfg, loc(), "y"),
+				new Int32Literal(cfg, loc(), 1));
+		Assignment second = new Assignment(cfg, loc(), new VariableRef(cfg, loc(), "x"),
+				new VariableRef(cfg, loc(), "y"));
+		cfg.addNode(first, true);
+		cfg.addNode(second);
+		cfg.addEdge(new SequentialEdge(first, second));
+		VariableTableEntry y = new VariableTableEntry(loc(), 0, first, first, "y");
+		cfg.getDescriptor().addVariable(y);
+		program.addCodeMember(cfg);
+
+		Variable var = new Variable(Untyped.INSTANCE, "y", SyntheticLocation.INSTANCE);
+		LiSAConfiguration conf = new LiSAConfiguration();
+		assertFalse(variables(signs(cfg, new FixpointConfiguration(conf)).getAnalysisStateAfter(second))
+				.contains(var));
+
+		// as frontends do when closing a cfg, the scope is moved to a new
+		// statement without adding variables
+		Return ret = new Return(cfg, loc(), new VariableRef(cfg, loc(), "x"));
+		cfg.addNode(ret);
+		cfg.addEdge(new SequentialEdge(second, ret));
+		y.setScopeEnd(second);
+
+		CFGWithAnalysisResults<?, ?, ?, ?> result = signs(cfg, new FixpointConfiguration(conf));
+		assertTrue(variables(result.getAnalysisStateAfter(second)).contains(var));
+		assertFalse(variables(result.getAnalysisStateAfter(ret)).contains(var));
+	}
+
+	@Test
+	public void testBasicBlocks()
+			throws ParsingException, InterproceduralAnalysisException, CallGraphConstructionException,
+			FixpointException, SemanticException {
+		CFG cfg = parseLoop();
+		LiSAConfiguration conf = new LiSAConfiguration();
+		CFGWithAnalysisResults<?, ?, ?, ?> worklist = signs(cfg, new FixpointConfiguration(conf));
+		conf.fixpointStrategy = FixpointStrategy.BASIC_BLOCKS;
+		CFGWithAnalysisResults<?, ?, ?, ?> blocks = signs(cfg, new FixpointConfiguration(conf));
+		assertSameResults(cfg.getNodes(), worklist, blocks);
+	}
+
+	private void assertOverBudget(CFG cfg,
+			CFGWithAnalysisResults<
+					SimpleAbstractState<MonolithicHeap, ValueEnvironment<Sign>, TypeEnvironment<InferredTypes>>,
+					MonolithicHeap,
+					ValueEnvironment<Sign>,
+					TypeEnvironment<InferredTypes>> precise,
+			FixpointConfiguration conf)
+			throws InterproceduralAnalysisException, CallGraphConstructionException, FixpointException,
+			SemanticException {
+		CFGWithAnalysisResults<
+				SimpleAbstractState<MonolithicHeap, ValueEnvironment<Sign>, TypeEnvironment<InferredTypes>>,
+				MonolithicHeap,
+				ValueEnvironment<Sign>,
+				TypeEnvironment<InferredTypes>> result = signs(cfg, conf);
+		assertTrue("Budget not exceeded", result.isOverBudget());
+		for (Statement st : cfg.getNodes())
+			assertTrue("Unsound result for " + st,
+					precise.getAnalysisStateAfter(st).lessOrEqual(result.getAnalysisStateAfter(st)));
+	}
+
+	@Test
+	public void testBudgets()
+			throws ParsingException, InterproceduralAnalysisException, CallGraphConstructionException,
+			FixpointException, SemanticException {
+		CFG cfg = parseLoop();
+		LiSAConfiguration conf = new LiSAConfiguration();
+		CFGWithAnalysisResults<
+				SimpleAbstractState<MonolithicHeap, ValueEnvironment<Sign>, TypeEnvironment<InferredTypes>>,
+				MonolithicHeap,
+				ValueEnvironment<Sign>,
+				TypeEnvironment<InferredTypes>> precise = signs(cfg, new FixpointConfiguration(conf));
+		assertFalse("Budget exceeded", precise.isOverBudget());
+
+		conf.cfgIterationBudget = 1;
+		assertOverBudget(cfg, precise, new FixpointConfiguration(conf));
+
+		conf.cfgIterationBudget = 0;
+		conf.analysisTimeBudget = 1;
+		FixpointConfiguration deadline = new FixpointConfiguration(conf);
+		// the deadline passes before the fixpoint starts, so that every join
+		// happens after it regardless of how long the analysis takes
+		while (!deadline.isPastDeadline())
+			Thread.onSpinWait();
+		assertOverBudget(cfg, precise, deadline);
+	}
+
+	@Test
+	public void testProfiling()
+			throws ParsingException, InterproceduralAnalysisException, CallGraphConstructionException,
+			FixpointException, SemanticException {
+		CFG cfg = parseLoop();
+		LiSAConfiguration conf = new LiSAConfiguration();
+		conf.fixpointProfiling = true;
+		FixpointConfiguration fixconf = new FixpointConfiguration(conf);
+		signs(cfg, fixconf);
+
+		Map<Statement, StatementProfile> profiles = fixconf.profile.getProfiles(cfg);
+		assertEquals("Wrong profiled statements", new HashSet<>(cfg.getNodes()), profiles.keySet());
+		long visits = 0;
+		for (StatementProfile profile : profiles.values()) {
+			assertTrue("Statement never evaluated", profile.getVisits() > 0);
+			visits += profile.getVisits();
+		}
+		assertEquals("Wrong total visits", visits, fixconf.profile.getVisits());
+		assertTrue("Semantics not profiled", fixconf.profile.getTime(Operation.SEMANTICS) > 0);
+		assertTrue("Loop not profiled", fixconf.profile.getTime(Operation.LUB) > 0);
+		assertTrue("Comparisons not profiled", fixconf.profile.getTime(Operation.LESS_OR_EQUAL) > 0);
+	}
+
+	private CFG loop(Program program, int prefix) {
+		CFG cfg = new CFG(new CodeMemberDescriptor(SyntheticLocation.INSTANCE, program, false, "cfg"));
+		// a0 = 0; a1 = a0; ...; x = 0; while (x < 10) x = x + 1; return x;
+		Statement prev = null;
+		for (int i = 0; i <= prefix; i++) {
+			Statement st = new Assignment(cfg, loc(), new VariableRef(cfg, loc(), i == prefix ? "x" : "a" + i),
+					i == 0 || i == prefix ? new Int32Literal(cfg, loc(), 0)
+							: new VariableRef(cfg, loc(), "a" + (i - 1)));
+			cfg.addNode(st, prev == null);
+			if (prev != null)
+				cfg.addEdge(new SequentialEdge(prev, st));
+			prev = st;
+		}
+		LessThan condition = new LessThan(cfg, loc(), new VariableRef(cfg, loc(), "x"),
+				new Int32Literal(cfg, loc(), 10));
+		Assignment body = new Assignment(cfg, loc(), new VariableRef(cfg, loc(), "x"),
+				new Addition(cfg, loc(), new VariableRef(cfg, loc(), "x"), new Int32Literal(cfg, loc(), 1)));
+		Return ret = new Return(cfg, loc(), new VariableRef(cfg, loc(), "x"));
+		cfg.addNode(condition);
+		cfg.addNode(body);
+		cfg.addNode(ret);
+		cfg.addEdge(new SequentialEdge(prev, condition));
+		cfg.addEdge(new TrueEdge(condition, body));
+		cfg.addEdge(new SequentialEdge(body, condition));
+		cfg.addEdge(new FalseEdge(condition, ret));
+		program.addCodeMember(cfg);
+		return cfg;
+	}
+
+	private CFGWithAnalysisResults<
+			SimpleAbstractState<MonolithicHeap, ValueEnvironment<Interval>, TypeEnvironment<InferredTypes>>,
+			MonolithicHeap,
+			ValueEnvironment<Interval>,
+			TypeEnvironment<InferredTypes>> intervals(CFG cfg, FixpointConfiguration conf)
+					throws InterproceduralAnalysisException, CallGraphConstructionException, FixpointException {
+		AnalysisState<
+				SimpleAbstractState<MonolithicHeap, ValueEnvironment<Interval>, TypeEnvironment<InferredTypes>>,
+				MonolithicHeap,
+				ValueEnvironment<Interval>,
+				TypeEnvironment<InferredTypes>> state = new AnalysisState<>(
+						new SimpleAbstractState<>(
+								new MonolithicHeap(),
+								new ValueEnvironment<>(new Interval()),
+								new TypeEnvironment<>(new InferredTypes())),
+						new ExpressionSet<>(), new SymbolAliasing());
+		return cfg.fixpoint(state, mkAnalysis(cfg.getDescriptor().getUnit().getProgram()), FIFOWorkingSet.mk(), conf);
+	}
+
+	private static Set<Identifier> variables(AnalysisState<?, ?, ?, ?> state) {
+		return ((ValueEnvironment<?>) ((SimpleAbstractState<?, ?, ?>) state.getState()).getValueState()).getKeys();
+	}
+
+	private static Interval exitValue(CFGWithAnalysisResults<?, ?, ?, ?> result) throws SemanticException {
+		return (Interval) ((ValueEnvironment<?>) ((SimpleAbstractState<?, ?, ?>) result.getExitState().getState())
+				.getValueState()).getState(new Variable(Untyped.INSTANCE, "x", SyntheticLocation.INSTANCE));
+	}
+
+	@Test
+	public void testDescendingPhaseFromWideningPoints()
+			throws InterproceduralAnalysisException, CallGraphConstructionException, FixpointException,
+			SemanticException {
+		Program program = new Program(new IMPFeatures(), new IMPTypeSystem());
+		CFG cfg = loop(program, 3);
+		LiSAConfiguration conf = new LiSAConfiguration();
+		conf.fixpointProfiling = true;
+		assertEquals("Widening not applied", new Interval(10, 10).widening(new Interval(11, 11)),
+				exitValue(intervals(cfg, new FixpointConfiguration(conf))));
+
+		for (DescendingPhaseType type : new DescendingPhaseType[] { DescendingPhaseType.GLB,
+				DescendingPhaseType.NARROWING }) {
+			conf.descendingPhaseType = type;
+			FixpointConfiguration fixconf = new FixpointConfiguration(conf);
+			assertEquals("Results not refined with " + type, new Interval(10, 10),
+					exitValue(intervals(cfg, fixconf)));
+
+			// the statements before the loop are not affected by widening:
+			// the descending phase only visits the starting point again
+			Map<Statement, StatementProfile> profiles = fixconf.profile.getProfiles(cfg);
+			for (Statement st : cfg.getNodes())
+				if (st instanceof Assignment && !cfg.getEntrypoints().contains(st)
+						&& ((Assignment) st).getLeft().toString().startsWith("a"))
+					assertEquals("Statement before the loop visited again with " + type, 1,
+							profiles.get(st).getVisits());
+		}
+	}
+
+	@Test
+	public void testDescendingPhaseWithoutWidening()
+			throws InterproceduralAnalysisException, CallGraphConstructionException, FixpointException,
+			SemanticException {
+		Program program = new Program(new IMPFeatures(), new IMPTypeSystem());
+		CFG cfg = loop(program, 3);
+		LiSAConfiguration conf = new LiSAConfiguration();
+		conf.fixpointProfiling = true;
+		// the loop stabilizes before widening is ever applied
+		conf.wideningThreshold = 100;
+		FixpointConfiguration ascending = new FixpointConfiguration(conf);
+		CFGWithAnalysisResults<?, ?, ?, ?> expected = intervals(cfg, ascending);
+		assertEquals("Wrong result", new Interval(10, 10), exitValue(expected));
+
+		conf.descendingPhaseType = DescendingPhaseType.NARROWING;
+		FixpointConfiguration descending = new FixpointConfiguration(conf);
+		CFGWithAnalysisResults<?, ?, ?, ?> result = intervals(cfg, descending);
+
+		// nothing to refine: the descending phase does not run at all
+		assertSameResults(cfg.getNodes(), expected, result);
+		assertEquals("Descending phase executed", ascending.profile.getVisits(), descending.profile.getVisits());
+	}
 }
@@ -1,18 +1,23 @@
 package it.unive.lisa.imp;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 
+import it.unive.lisa.imp.types.IMPTypeSystem;
 import it.unive.lisa.program.ClassUnit;
 import it.unive.lisa.program.CompilationUnit;
 import it.unive.lisa.program.InterfaceUnit;
 import it.unive.lisa.program.Program;
 import it.unive.lisa.program.ProgramValidationException;
+import it.unive.lisa.program.SourceCodeLocation;
 import it.unive.lisa.program.Unit;
 import it.unive.lisa.program.cfg.AbstractCodeMember;
 import it.unive.lisa.program.cfg.CFG;
 import it.unive.lisa.program.cfg.CodeMember;
+import it.unive.lisa.program.cfg.CodeMemberDescriptor;
+import java.util.Set;
 import org.junit.Test;
 
 public class HierarchyComputationTest {
@@ -397,4 +402,32 @@ public class HierarchyComputationTest {
 		notInstance(third, first);
 		notInstance(second, first);
 	}
+
+	@Test
+	public void testHierarchyChangesAfterFinalization() throws ProgramValidationException {
+		Program prog = new Program(new IMPFeatures(), new IMPTypeSystem());
+		ClassUnit first = new ClassUnit(new SourceCodeLocation("fake", 0, 0), prog, "first", false);
+		ClassUnit second = new ClassUnit(new SourceCodeLocation("fake", 1, 0), prog, "second", false);
+		ClassUnit third = new ClassUnit(new SourceCodeLocation("fake", 2, 0), prog, "third", false);
+		prog.addUnit(first);
+		prog.addUnit(second);
+		prog.addUnit(third);
+		second.addAncestor(first);
+		CFG a = new CFG(new CodeMemberDescriptor(new SourceCodeLocation("fake", 3, 0), first, true, "a"));
+		first.addInstanceCodeMember(a);
+		prog.getFeatures().getProgramValidationLogic().validateAndFinalize(prog);
+
+		assertTrue(second.isInstanceOf(first));
+		assertFalse(third.isInstanceOf(second));
+		assertEquals(Set.of(a), Set.copyOf(second.getInstanceCodeMembers(true)));
+		assertTrue(third.getInstanceCodeMembers(true).isEmpty());
+
+		// changes after the finalization must be visible as well
+		third.addAncestor(second);
+		CFG b = new CFG(new CodeMemberDescriptor(new SourceCodeLocation("fake", 4, 0), first, true, "b"));
+		first.addInstanceCodeMember(b);
+		assertTrue(third.isInstanceOf(first));
+		assertEquals(Set.of(a, b), Set.copyOf(second.getInstanceCodeMembers(true)));
+		assertEquals(Set.of(a, b), Set.copyOf(third.getInstanceCodeMembers(true)));
+	}
 }
@@ -0,0 +1,227 @@
+package it.unive.lisa;
+
+import it.unive.lisa.LiSAConfiguration.DescendingPhaseType;
+import it.unive.lisa.LiSAConfiguration.FixpointStrategy;
+import it.unive.lisa.analysis.Lattice;
+import it.unive.lisa.logging.FixpointProfile;
+import it.unive.lisa.program.cfg.CFG;
+
+/**
+ * An immutable view of the parameters of a {@link LiSAConfiguration} that drive
+ * the fixpoint computations over {@link CFG}s. If requested, instances also
+ * carry a {@link #profile} collecting information about the executed fixpoint
+ * computations: this is the only mutable portion of this class, and it is safe
+ * to be updated concurrently.
+ *
+ * @author <a href="mailto:luca.negrini@unive.it">Luca Negrini</a>
+ */
+public class FixpointConfiguration {
+
+	/**
+	 * Holder of {@link LiSAConfiguration#wideningThreshold}.
+	 */
+	public final int wideningThreshold;
+
+	/**
+	 * Holder of {@link LiSAConfiguration#descendingGlbThreshold}.
+	 */
+	public final int glbThreshold;
+
+	/**
+	 * Holder of {@link LiSAConfiguration#descendingPhaseType}.
+	 */
+	public final DescendingPhaseType descendingPhaseType;
+
+	/**
+	 * Holder of {@link LiSAConfiguration#fixpointStrategy}.
+	 */
+	public final FixpointStrategy fixpointStrategy;
+
+	/**
+	 * Holder of {@link LiSAConfiguration#sparseResults}.
+	 */
+	public final boolean sparseResults;
+
+	/**
+	 * Holder of {@link LiSAConfiguration#cfgIterationBudget}.
+	 */
+	public final int iterationBudget;
+
+	/**
+	 * Holder of {@link LiSAConfiguration#cfgTimeBudget}.
+	 */
+	public final long timeBudget;
+
+	/**
+	 * The instant, in milliseconds since the epoch, after which all fixpoint
+	 * computations must behave as if their {@link #timeBudget} was exhausted,
+	 * or {@link Long#MAX_VALUE} if there is no such deadline. This is computed
+	 * from {@link LiSAConfiguration#analysisTimeBudget} when this object is
+	 * created.
+	 */
+	public final long deadline;
+
+	/**
+	 * Holder of {@link LiSAConfiguration#fixpointParallelism}, where
+	 * non-positive values have been replaced with the number of available
+	 * processors.
+	 */
+	public final int parallelism;
+
+	/**
+	 * Holder of {@link LiSAConfiguration#summaryCacheSize}.
+	 */
+	public final int summaryCacheSize;
+
+	/**
+	 * Holder of {@link LiSAConfiguration#precomputeCallGraph}.
+	 */
+	public final boolean precomputeCallGraph;
+
+	/**
+	 * The {@link FixpointProfile} collecting profiling information about
+	 * fixpoint computations, or {@code null} if
+	 * {@link LiSAConfiguration#fixpointProfiling} is not set. Since it collects
+	 * information about a specific analysis, two configurations are equal only
+	 * if they share the same profile.
+	 */
+	public final FixpointProfile profile;
+
+	/**
+	 * Builds the configuration. The deadline for the whole analysis, if any,
+	 * starts from the moment this constructor is invoked.
+	 *
+	 * @param parent the {@link LiSAConfiguration} to copy the parameters from
+	 */
+	public FixpointConfiguration(LiSAConfiguration parent) {
+		this.wideningThreshold = parent.wideningThreshold;
+		this.glbThreshold = parent.descendingGlbThreshold;
+		this.descendingPhaseType = parent.descendingPhaseType;
+		this.fixpointStrategy = parent.fixpointStrategy;
+		this.sparseResults = parent.sparseResults;
+		this.iterationBudget = parent.cfgIterationBudget;
+		this.timeBudget = parent.cfgTimeBudget;
+		this.deadline = parent.analysisTimeBudget > 0 ? System.currentTimeMillis() + parent.analysisTimeBudget
+				: Long.MAX_VALUE;
+		this.parallelism = parent.fixpointParallelism > 0 ? parent.fixpointParallelism
+				: Runtime.getRuntime().availableProcessors();
+		this.summaryCacheSize = parent.summaryCacheSize;
+		this.precomputeCallGraph = parent.precomputeCallGraph;
+		this.profile = parent.fixpointProfiling ? new FixpointProfile() : null;
+	}
+
+	/**
+	 * Builds the configuration.
+	 *
+	 * @param wideningThreshold   the number of fixpoint iteration on a given
+	 *                                node after which calls to
+	 *                                {@link Lattice#lub(Lattice)} gets replaced
+	 *                                with {@link Lattice#widening(Lattice)}
+	 * @param descendingPhaseType the type of descending phase algorithm that
+	 *                                will be used during fixpoint calculation
+	 * @param glbThreshold        the number of fixpoint iteration on a given
+	 *                                node during descending phase after which
+	 *                                calls to {@link Lattice#glb(Lattice)} does
+	 *                                not do anything
+	 * @param fixpointStrategy    the strategy used to iterate over the nodes of
+	 *                                a {@link CFG}
+	 */
+	public FixpointConfiguration(int wideningThreshold, DescendingPhaseType descendingPhaseType, int glbThreshold,
+			FixpointStrategy fixpointStrategy) {
+		this.wideningThreshold = wideningThreshold;
+		this.glbThreshold = glbThreshold;
+		this.descendingPhaseType = descendingPhaseType;
+		this.fixpointStrategy = fixpointStrategy;
+		this.sparseResults = false;
+		this.iterationBudget = 0;
+		this.timeBudget = 0;
+		this.deadline = Long.MAX_VALUE;
+		this.parallelism = 1;
+		this.summaryCacheSize = 0;
+		this.precomputeCallGraph = false;
+		this.profile = null;
+	}
+
+	/**
+	 * Yields whether or not the deadline for the whole analysis has passed.
+	 *
+	 * @return {@code true} if that condition holds
+	 */
+	public boolean isPastDeadline() {
+		return deadline != Long.MAX_VALUE && System.currentTimeMillis() > deadline;
+	}
+
+	@Override
+	public int hashCode() {
+		final int prime = 31;
+		int result = 1;
+		result = prime * result + ((descendingPhaseType == null) ? 0 : descendingPhaseType.hashCode());
+		result = prime * result + ((fixpointStrategy == null) ? 0 : fixpointStrategy.hashCode());
+		result = prime * result + glbThreshold;
+		result = prime * result + wideningThreshold;
+		result = prime * result + (sparseResults ? 1231 : 1237);
+		result = prime * result + iterationBudget;
+		result = prime * result + (int) (timeBudget ^ (timeBudget >>> 32));
+		result = prime * result + (int) (deadline ^ (deadline >>> 32));
+		result = prime * result + parallelism;
+		result = prime * result + summaryCacheSize;
+		result = prime * result + (precomputeCallGraph ? 1231 : 1237);
+		result = prime * result + ((profile == null) ? 0 : profile.hashCode());
+		return result;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null)
+			return false;
+		if (getClass() != obj.getClass())
+			return false;
+		FixpointConfiguration other = (FixpointConfiguration) obj;
+		if (descendingPhaseType != other.descendingPhaseType)
+			return false;
+		if (fixpointStrategy != other.fixpointStrategy)
+			return false;
+		if (glbThreshold != other.glbThreshold)
+			return false;
+		if (wideningThreshold != other.wideningThreshold)
+			return false;
+		if (sparseResults != other.sparseResults)
+			return false;
+		if (iterationBudget != other.iterationBudget)
+			return false;
+		if (timeBudget != other.timeBudget)
+			return false;
+		if (deadline != other.deadline)
+			return false;
+		if (parallelism != other.parallelism)
+			return false;
+		if (summaryCacheSize != other.summaryCacheSize)
+			return false;
+		if (precomputeCallGraph != other.precomputeCallGraph)
+			return false;
+		if (profile == null) {
+			if (other.profile != null)
+				return false;
+		} else if (!profile.equals(other.profile))
+			// profiles collect information about specific analyses, and
+			// they do not redefine equality
+			return false;
+		return true;
+	}
+
+	@Override
+	public String toString() {
+		return "widening after " + wideningThreshold
+				+ ", " + fixpointStrategy + " strategy"
+				+ ", " + descendingPhaseType + " descending phase (glb threshold " + glbThreshold + ")"
+				+ (sparseResults ? ", sparse results" : "")
+				+ (iterationBudget > 0 ? ", " + iterationBudget + " iterations per cfg" : "")
+				+ (timeBudget > 0 ? ", " + timeBudget + "ms per cfg" : "")
+				+ (parallelism > 1 ? ", " + parallelism + " threads" : "")
+				+ (summaryCacheSize > 0 ? ", " + summaryCacheSize + " cached summaries" : "")
+				+ (precomputeCallGraph ? ", precomputed call graph" : "")
+				+ (profile != null ? ", profiled" : "");
+	}
+}
@@ -95,7 +95,8 @@ public class LiSA {
 			throw new AnalysisException("LiSA has encountered an exception while executing the analysis", e);
 		}
 
-		LiSARunInfo stats = new LiSARunInfo(warnings, fileManager.createdFiles(), app, start, new DateTime());
+		LiSARunInfo stats = new LiSARunInfo(warnings, fileManager.createdFiles(), app, runner.getCFGsOverBudget(),
+				runner.getFixpointProfile(), start, new DateTime());
 		LOG.info("LiSA statistics:\n" + stats);
 
 		LiSAReport report = new LiSAReport(conf, stats, warnings, fileManager.createdFiles());
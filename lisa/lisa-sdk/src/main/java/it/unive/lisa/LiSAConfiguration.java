@@ -9,10 +9,12 @@ import it.unive.lisa.interprocedural.InterproceduralAnalysis;
 import it.unive.lisa.interprocedural.OpenCallPolicy;
 import it.unive.lisa.interprocedural.WorstCasePolicy;
 import it.unive.lisa.interprocedural.callgraph.CallGraph;
+import it.unive.lisa.interprocedural.callgraph.FrozenCallGraph;
 import it.unive.lisa.program.cfg.CFG;
 import it.unive.lisa.program.cfg.statement.Statement;
 import it.unive.lisa.program.cfg.statement.call.OpenCall;
 import it.unive.lisa.util.collections.workset.FIFOWorkingSet;
+import it.unive.lisa.util.collections.workset.ReversePostorderWorkingSet;
 import it.unive.lisa.util.collections.workset.WorkingSet;
 import it.unive.lisa.util.file.FileManager;
 import java.lang.reflect.Field;
@@ -85,7 +87,9 @@ public class LiSAConfiguration {
 	}
 
 	/**
-	 * The type of descending fixpoint phase algorithms that can be used.
+	 * The type of descending fixpoint phase algorithms that can be used. The
+	 * descending phase refines the results of the ascending one starting from
+	 * the nodes where {@link Lattice#widening(Lattice)} has been applied.
 	 * 
 	 * @author <a href="mailto:luca.negrini@unive.it">Luca Negrini</a>
 	 */
@@ -107,6 +111,48 @@ public class LiSAConfiguration {
 		NARROWING;
 	}
 
+	/**
+	 * The strategies that can be used to iterate over the nodes of a
+	 * {@link CFG} during fixpoint computations.
+	 * 
+	 * @author <a href="mailto:luca.negrini@unive.it">Luca Negrini</a>
+	 */
+	public static enum FixpointStrategy {
+
+		/**
+		 * Nodes are processed in the order imposed by the {@link WorkingSet}
+		 * specified through {@link LiSAConfiguration#fixpointWorkingSet}. The
+		 * results of older iterations are joined with the new ones on every
+		 * node, switching to {@link Lattice#widening(Lattice)} after
+		 * {@link LiSAConfiguration#wideningThreshold} times the number of
+		 * predecessors of the node.
+		 */
+		WORKLIST,
+
+		/**
+		 * Nodes are processed following Bourdoncle's recursive iteration
+		 * strategy over the weak topological order of the {@link CFG},
+		 * stabilizing inner loops before outer ones. Results are joined only at
+		 * the heads of loops, switching to {@link Lattice#widening(Lattice)}
+		 * after {@link LiSAConfiguration#wideningThreshold} iterations of the
+		 * loop. {@link LiSAConfiguration#fixpointWorkingSet} is used only
+		 * during the descending phase, if any.
+		 */
+		WTO,
+
+		/**
+		 * Nodes are grouped in basic blocks, that is, maximal sequences of
+		 * nodes with a single entry and a single exit, and the
+		 * {@link WorkingSet} specified through
+		 * {@link LiSAConfiguration#fixpointWorkingSet} contains the first node
+		 * of each block to process. A whole block is processed in one step:
+		 * results of older iterations are joined with the new ones only on the
+		 * first node of the block, as in {@link #WORKLIST}, while the results
+		 * of all other nodes are overwritten.
+		 */
+		BASIC_BLOCKS;
+	}
+
 	/**
 	 * The default number of fixpoint iteration on a given node after which
 	 * calls to {@link Lattice#lub(Lattice)} gets replaced with
@@ -240,10 +286,103 @@ public class LiSAConfiguration {
 
 	/**
 	 * The concrete class of {@link WorkingSet} to be used in fixpoints.
-	 * Defaults to {@link FIFOWorkingSet}.
+	 * Defaults to {@link FIFOWorkingSet}. Using
+	 * {@link ReversePostorderWorkingSet} processes statements following the
+	 * reverse postorder of each {@link CFG}, avoiding most re-evaluations of
+	 * statements whose predecessors are not yet stable.
 	 */
 	public Class<?> fixpointWorkingSet = FIFOWorkingSet.class;
 
+	/**
+	 * The {@link FixpointStrategy} used to iterate over the nodes of each
+	 * {@link CFG} during fixpoint computations. Defaults to
+	 * {@link FixpointStrategy#WORKLIST}.
+	 */
+	public FixpointStrategy fixpointStrategy = FixpointStrategy.WORKLIST;
+
+	/**
+	 * Whether or not the results of fixpoint computations should be stored
+	 * sparsely. If this is set, the results of each {@link CFG} are stored only
+	 * for entrypoints, join points, loop heads, exitpoints, and statements
+	 * containing calls, while all others are recomputed on demand when queried
+	 * by replaying the semantics of the statements preceding them. This trades
+	 * time for memory when results are read. Defaults to {@code false}.
+	 */
+	public boolean sparseResults;
+
+	/**
+	 * The maximum number of statement evaluations that a single fixpoint
+	 * computation over a {@link CFG} can perform. After this budget is
+	 * exhausted, {@link Lattice#widening(Lattice)} is used at every subsequent
+	 * join, regardless of {@link #wideningThreshold}, and the descending phase
+	 * (if any) is skipped. Non-positive values disable the budget. Defaults to
+	 * {@code 0}.
+	 */
+	public int cfgIterationBudget;
+
+	/**
+	 * The maximum wall-clock time, in milliseconds, that a single fixpoint
+	 * computation over a {@link CFG} can take. After this budget is exhausted,
+	 * the results of all statements that are joined with previous ones are
+	 * widened and their heap and value information is set to top, thus reaching
+	 * a sound over-approximation in few iterations, and the descending phase
+	 * (if any) is skipped. Non-positive values disable the budget. Defaults to
+	 * {@code 0}.
+	 */
+	public long cfgTimeBudget;
+
+	/**
+	 * The maximum wall-clock time, in milliseconds, that the fixpoint over the
+	 * whole program can take. After this deadline has passed, all fixpoint
+	 * computations over {@link CFG}s behave as if their {@link #cfgTimeBudget}
+	 * was exhausted. Non-positive values disable the deadline. Defaults to
+	 * {@code 0}.
+	 */
+	public long analysisTimeBudget;
+
+	/**
+	 * Whether or not fixpoint computations should be profiled. If this is set,
+	 * the number of evaluations of each {@link Statement} and the time spent
+	 * computing semantics, traversing edges, and applying lattice operators on
+	 * its states are recorded. Aggregated results are reported in the
+	 * {@link LiSARunInfo} of the analysis, while the ones of each statement are
+	 * added to its description in the graphs dumped through
+	 * {@link #analysisGraphs} and {@link #serializeResults}. Defaults to
+	 * {@code false}.
+	 */
+	public boolean fixpointProfiling;
+
+	/**
+	 * The number of threads that {@link InterproceduralAnalysis}es supporting
+	 * it can use to compute fixpoints over different {@link CFG}s in parallel.
+	 * A value of {@code 1} makes all computations sequential, while
+	 * non-positive values use one thread for each available processor. Note
+	 * that parallel computations require the {@link #abstractState} and the
+	 * {@link #openCallPolicy} to be thread-safe. Defaults to {@code 1}.
+	 */
+	public int fixpointParallelism = 1;
+
+	/**
+	 * The maximum number of callee summaries that
+	 * {@link InterproceduralAnalysis}es supporting it can cache, where a
+	 * summary maps the entry state of a {@link CFG} to the exit state computed
+	 * from it, regardless of the context where it has been computed. When the
+	 * cache is full, the least recently used summary is evicted. A non-positive
+	 * value disables the cache. Defaults to {@code 0}.
+	 */
+	public int summaryCacheSize;
+
+	/**
+	 * Whether or not {@link InterproceduralAnalysis}es supporting it should
+	 * build a {@link FrozenCallGraph} of the whole program before starting the
+	 * analysis, resolving all calls using only static type information (with
+	 * {@link #fixpointParallelism} threads), and use its strongly connected
+	 * components to analyze callees before their callers. This does not replace
+	 * the {@link #callGraph}, that is still used to resolve calls during the
+	 * analysis. Defaults to {@code false}.
+	 */
+	public boolean precomputeCallGraph;
+
 	/**
 	 * The {@link OpenCallPolicy} to be used for computing the result of
 	 * {@link OpenCall}s. Defaults to {@link WorstCasePolicy}.
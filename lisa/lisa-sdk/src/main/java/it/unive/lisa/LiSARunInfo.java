@@ -3,6 +3,7 @@ package it.unive.lisa;
 import it.unive.lisa.checks.semantic.SemanticCheck;
 import it.unive.lisa.checks.syntactic.SyntacticCheck;
 import it.unive.lisa.checks.warnings.Warning;
+import it.unive.lisa.logging.FixpointProfile;
 import it.unive.lisa.program.Application;
 import it.unive.lisa.program.Global;
 import it.unive.lisa.program.Program;
@@ -17,6 +18,7 @@ import it.unive.lisa.util.file.FileManager;
 import java.lang.reflect.Field;
 import java.lang.reflect.Modifier;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Map;
 import java.util.Objects;
 import java.util.TreeMap;
@@ -133,6 +135,30 @@ public class LiSARunInfo {
 	 */
 	public final int programs;
 
+	/**
+	 * The number of {@link CFG}s whose fixpoint computations exceeded their
+	 * iteration or time budget (see
+	 * {@link LiSAConfiguration#cfgIterationBudget},
+	 * {@link LiSAConfiguration#cfgTimeBudget}, and
+	 * {@link LiSAConfiguration#analysisTimeBudget}), and whose results have
+	 * thus been over-approximated.
+	 */
+	public final int cfgsOverBudget;
+
+	/**
+	 * The overall number of statement evaluations performed by fixpoint
+	 * computations, if {@link LiSAConfiguration#fixpointProfiling} was set
+	 * ({@code 0} otherwise).
+	 */
+	public final long fixpointVisits;
+
+	/**
+	 * The overall time spent in each operation of fixpoint computations (see
+	 * {@link FixpointProfile#getTimesSummary()}), if
+	 * {@link LiSAConfiguration#fixpointProfiling} was set (empty otherwise).
+	 */
+	public final String fixpointTimes;
+
 	/**
 	 * The timestamp of the analysis start, formatted through
 	 * {@link #PERIOD_FORMAT}.
@@ -161,6 +187,25 @@ public class LiSARunInfo {
 	 */
 	public LiSARunInfo(Collection<Warning> warnings, Collection<String> files, Application app, DateTime start,
 			DateTime end) {
+		this(warnings, files, app, Collections.emptySet(), null, start, end);
+	}
+
+	/**
+	 * Builds the run info.
+	 * 
+	 * @param warnings   the warnings generated by the analysis
+	 * @param files      the files generated by the analysis
+	 * @param app        the {@link Application} under analysis
+	 * @param overBudget the {@link CFG}s whose fixpoint computations exceeded
+	 *                       their budget
+	 * @param profile    the {@link FixpointProfile} collected during the
+	 *                       analysis (might be {@code null} if profiling was
+	 *                       not enabled)
+	 * @param start      the start time
+	 * @param end        the end time
+	 */
+	public LiSARunInfo(Collection<Warning> warnings, Collection<String> files, Application app,
+			Collection<CFG> overBudget, FixpointProfile profile, DateTime start, DateTime end) {
 		this.version = VersionInfo.VERSION;
 		this.warnings = warnings.size();
 		this.files = files.size();
@@ -174,6 +219,9 @@ public class LiSARunInfo {
 		this.globals = globals;
 		this.members = app.getAllCodeCodeMembers().size();
 		this.cfgs = app.getAllCFGs().size();
+		this.cfgsOverBudget = overBudget.size();
+		this.fixpointVisits = profile == null ? 0 : profile.getVisits();
+		this.fixpointTimes = profile == null ? "" : profile.getTimesSummary();
 		this.start = start.toString();
 		this.end = end.toString();
 		this.duration = PERIOD_FORMAT.print(new Period(start, end)).trim();
@@ -225,7 +273,8 @@ public class LiSARunInfo {
 	 * Checks whether the given run information match this one in terms of
 	 * analyzed code and analysis results. This corresponds to calling
 	 * {@link #equals(Object)}, but ignoring {@link #version},
-	 * {@link #duration}, {@link #end}, and {@link #start}.
+	 * {@link #duration}, {@link #end}, {@link #start}, and the profiling
+	 * information ({@link #fixpointVisits} and {@link #fixpointTimes}).
 	 * 
 	 * @param other the other run info
 	 * 
@@ -255,6 +304,8 @@ public class LiSARunInfo {
 			return false;
 		if (programs != other.programs)
 			return false;
+		if (cfgsOverBudget != other.cfgsOverBudget)
+			return false;
 		return true;
 	}
 
@@ -267,6 +318,9 @@ public class LiSARunInfo {
 				"\nGlobals: " + globals +
 				"\nCode Members: " + members +
 				"\nCFGs: " + cfgs +
+				"\nCFGs over budget: " + cfgsOverBudget +
+				(fixpointVisits != 0 ? "\nFixpoint visits: " + fixpointVisits : "") +
+				(!fixpointTimes.isEmpty() ? "\nFixpoint times: " + fixpointTimes : "") +
 				"\nStatements: " + statements +
 				"\nExpressions: " + expressions +
 				"\nGenerated Warnings: " + warnings +
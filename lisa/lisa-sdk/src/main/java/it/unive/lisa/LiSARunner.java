@@ -17,9 +17,13 @@ import it.unive.lisa.interprocedural.InterproceduralAnalysis;
 import it.unive.lisa.interprocedural.InterproceduralAnalysisException;
 import it.unive.lisa.interprocedural.callgraph.CallGraph;
 import it.unive.lisa.interprocedural.callgraph.CallGraphConstructionException;
+import it.unive.lisa.logging.FixpointProfile;
+import it.unive.lisa.logging.FixpointProfile.StatementProfile;
 import it.unive.lisa.logging.IterationLogger;
 import it.unive.lisa.logging.TimerLogger;
 import it.unive.lisa.outputs.serializableGraph.SerializableGraph;
+import it.unive.lisa.outputs.serializableGraph.SerializableObject;
+import it.unive.lisa.outputs.serializableGraph.SerializableValue;
 import it.unive.lisa.program.Application;
 import it.unive.lisa.program.Program;
 import it.unive.lisa.program.ProgramValidationException;
@@ -35,8 +39,12 @@ import it.unive.lisa.util.datastructures.graph.algorithms.FixpointException;
 import it.unive.lisa.util.file.FileManager;
 import java.io.IOException;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.IdentityHashMap;
 import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
 import java.util.concurrent.atomic.AtomicBoolean;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -72,6 +80,10 @@ public class LiSARunner<A extends AbstractState<A, H, V, T>,
 
 	private final A state;
 
+	private FixpointConfiguration fixpointConf;
+
+	private final Collection<CFG> overBudget = new HashSet<>();
+
 	/**
 	 * Builds the runner.
 	 * 
@@ -97,6 +109,7 @@ public class LiSARunner<A extends AbstractState<A, H, V, T>,
 	 */
 	Collection<Warning> run(Application app, FileManager fileManager) {
 		finalizeApp(app);
+		overBudget.clear();
 
 		Collection<CFG> allCFGs = app.getAllCFGs();
 
@@ -141,8 +154,12 @@ public class LiSARunner<A extends AbstractState<A, H, V, T>,
 		if (state != null) {
 			analyze(allCFGs, fileManager, htmlViewer, subnodes);
 			Map<CFG, Collection<CFGWithAnalysisResults<A, H, V, T>>> results = new IdentityHashMap<>(allCFGs.size());
-			for (CFG cfg : allCFGs)
-				results.put(cfg, interproc.getAnalysisResultsOf(cfg));
+			for (CFG cfg : allCFGs) {
+				Collection<CFGWithAnalysisResults<A, H, V, T>> res = interproc.getAnalysisResultsOf(cfg);
+				results.put(cfg, res);
+				if (res.stream().anyMatch(CFGWithAnalysisResults::isOverBudget))
+					overBudget.add(cfg);
+			}
 
 			@SuppressWarnings({ "rawtypes", "unchecked" })
 			Collection<SemanticCheck<A, H, V, T>> semanticChecks = (Collection) conf.semanticChecks;
@@ -161,17 +178,41 @@ public class LiSARunner<A extends AbstractState<A, H, V, T>,
 		return tool.getWarnings();
 	}
 
+	/**
+	 * Yields the {@link CFG}s whose fixpoint computations exceeded their
+	 * iteration or time budget during the last execution of
+	 * {@link #run(Application, FileManager)}, that is, the ones having at least
+	 * one {@link CFGWithAnalysisResults#isOverBudget() over-budget} result.
+	 * 
+	 * @return the cfgs (empty if no analysis was executed)
+	 */
+	Collection<CFG> getCFGsOverBudget() {
+		return Collections.unmodifiableCollection(overBudget);
+	}
+
+	/**
+	 * Yields the {@link FixpointProfile} collected during the last execution of
+	 * {@link #run(Application, FileManager)}.
+	 * 
+	 * @return the profile, or {@code null} if no analysis was executed or if
+	 *             profiling was not enabled
+	 */
+	FixpointProfile getFixpointProfile() {
+		return fixpointConf == null ? null : fixpointConf.profile;
+	}
+
 	@SuppressWarnings("unchecked")
 	private void analyze(Collection<CFG> allCFGs, FileManager fileManager, AtomicBoolean htmlViewer,
 			AtomicBoolean subnodes) {
 		A state = this.state.top();
+		fixpointConf = new FixpointConfiguration(conf);
 		TimerLogger.execAction(LOG, "Computing fixpoint over the whole program",
 				() -> {
 					try {
 						interproc.fixpoint(
 								new AnalysisState<>(state, new Skip(SyntheticLocation.INSTANCE), new SymbolAliasing()),
 								(Class<? extends WorkingSet<Statement>>) conf.fixpointWorkingSet,
-								conf.wideningThreshold, conf.descendingPhaseType, conf.descendingGlbThreshold);
+								fixpointConf);
 					} catch (FixpointException e) {
 						LOG.fatal(FIXPOINT_EXCEPTION_MESSAGE, e);
 						throw new AnalysisExecutionException(FIXPOINT_EXCEPTION_MESSAGE, e);
@@ -184,8 +225,7 @@ public class LiSARunner<A extends AbstractState<A, H, V, T>,
 
 			for (CFG cfg : IterationLogger.iterate(LOG, allCFGs, "Dumping analysis results", "cfgs"))
 				for (CFGWithAnalysisResults<A, H, V, T> result : interproc.getAnalysisResultsOf(cfg)) {
-					SerializableGraph graph = result.toSerializableGraph(
-							st -> result.getAnalysisStateAfter(st).representation().toSerializableValue());
+					SerializableGraph graph = result.toSerializableGraph(st -> describe(cfg, result, st));
 					String filename = cfg.getDescriptor().getFullSignatureWithParNames();
 					if (result.getId() != null)
 						filename += "_" + result.getId().hashCode();
@@ -214,6 +254,19 @@ public class LiSARunner<A extends AbstractState<A, H, V, T>,
 		}
 	}
 
+	private SerializableValue describe(CFG cfg, CFGWithAnalysisResults<A, H, V, T> result, Statement st) {
+		SerializableValue state = result.getAnalysisStateAfter(st).representation().toSerializableValue();
+		StatementProfile profile = fixpointConf.profile == null ? null
+				: fixpointConf.profile.getProfiles(cfg).get(st);
+		if (profile == null)
+			return state;
+
+		SortedMap<String, SerializableValue> fields = new TreeMap<>();
+		fields.put("state", state);
+		fields.put("profile", profile.toSerializableValue());
+		return new SerializableObject(new TreeMap<>(), fields);
+	}
+
 	private static void dump(FileManager fileManager, String filename, GraphType type, SerializableGraph graph,
 			AtomicBoolean htmlViewer, AtomicBoolean subnodes) throws IOException {
 		switch (type) {
@@ -262,5 +315,9 @@ public class LiSARunner<A extends AbstractState<A, H, V, T>,
 				}
 			});
 		}
+
+		// programs will not change anymore: the collections built on top of
+		// them can be computed once, before being accessed concurrently
+		app.computeIndexes();
 	}
 }
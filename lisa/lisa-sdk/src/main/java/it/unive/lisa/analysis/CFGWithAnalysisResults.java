@@ -1,21 +1,42 @@
 package it.unive.lisa.analysis;
 
+import it.unive.lisa.AnalysisExecutionException;
 import it.unive.lisa.analysis.heap.HeapDomain;
 import it.unive.lisa.analysis.value.TypeDomain;
 import it.unive.lisa.analysis.value.ValueDomain;
+import it.unive.lisa.interprocedural.InterproceduralAnalysis;
 import it.unive.lisa.program.cfg.CFG;
 import it.unive.lisa.program.cfg.edge.Edge;
 import it.unive.lisa.program.cfg.statement.Expression;
 import it.unive.lisa.program.cfg.statement.Statement;
+import it.unive.lisa.program.cfg.statement.StatementMap;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedList;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * A control flow graph, that has {@link Statement}s as nodes and {@link Edge}s
  * as edges. It also maps each statement (and its inner expressions) to the
  * result of a fixpoint computation, in the form of an {@link AnalysisState}
- * instance.
+ * instance.<br>
+ * <br>
+ * Instances do not copy the original cfg: they are views of it (see
+ * {@link CFG#CFG(CFG)}), sharing its statements, edges and the structures
+ * lazily computed from them. The results produced by lattice operations are
+ * views of the same cfg as well, so that the memory needed by an analysis grows
+ * with the number of abstract states computed, and not with the number of
+ * results times the size of the graph.<br>
+ * <br>
+ * Since the stored results never change, the {@link #getEntryState() entry} and
+ * {@link #getExitState() exit} states, as well as the states computed
+ * {@link #getAnalysisStateBefore(Statement) before} each statement, are
+ * computed once and cached. As they also depend on the structure of the cfg,
+ * that is shared with the original one, they are discarded whenever the latter
+ * changes (see {@link CFG#getModificationCount()}).
  * 
  * @author <a href="mailto:luca.negrini@unive.it">Luca Negrini</a>
  * 
@@ -56,6 +77,24 @@ public class CFGWithAnalysisResults<A extends AbstractState<A, H, V, T>,
 	 */
 	private String id;
 
+	/**
+	 * Whether or not the fixpoint computation producing these results exceeded
+	 * its budget, thus over-approximating them
+	 */
+	private boolean overBudget;
+
+	/**
+	 * The interprocedural analysis used to recompute the results that are not
+	 * contained in {@link #results}, or {@code null} if all results are stored
+	 */
+	private final InterproceduralAnalysis<A, H, V, T> interprocedural;
+
+	/**
+	 * The states lazily computed from the results and the structure of the cfg,
+	 * discarded whenever the latter changes
+	 */
+	private volatile DerivedStates derived;
+
 	/**
 	 * Builds the control flow graph, storing the given mapping between nodes
 	 * and fixpoint computation results.
@@ -83,11 +122,39 @@ public class CFGWithAnalysisResults<A extends AbstractState<A, H, V, T>,
 	public CFGWithAnalysisResults(CFG cfg, AnalysisState<A, H, V, T> singleton,
 			Map<Statement, AnalysisState<A, H, V, T>> entryStates,
 			Map<Statement, AnalysisState<A, H, V, T>> results) {
+		this(cfg, singleton, entryStates, results, null);
+	}
+
+	/**
+	 * Builds the control flow graph, storing the given mapping between nodes
+	 * and fixpoint computation results. If {@code interprocedural} is not
+	 * {@code null}, {@code results} is assumed to be sparse: the results of the
+	 * statements that it does not contain will be recomputed when queried
+	 * through {@link #getAnalysisStateAfter(Statement)}, by replaying the
+	 * semantics of the statements preceding them, starting from the closest
+	 * stored result.
+	 * 
+	 * @param cfg             the original control flow graph
+	 * @param singleton       an instance of the {@link AnalysisState}
+	 *                            containing the abstract state of the analysis
+	 *                            that was executed, used to retrieve top and
+	 *                            bottom values
+	 * @param entryStates     the entry state for each entry point of the cfg
+	 * @param results         the results of the fixpoint computation
+	 * @param interprocedural the interprocedural analysis used to recompute
+	 *                            missing results (might be {@code null})
+	 */
+	public CFGWithAnalysisResults(CFG cfg, AnalysisState<A, H, V, T> singleton,
+			Map<Statement, AnalysisState<A, H, V, T>> entryStates,
+			Map<Statement, AnalysisState<A, H, V, T>> results,
+			InterproceduralAnalysis<A, H, V, T> interprocedural) {
 		super(cfg);
-		this.results = new StatementStore<>(singleton);
-		results.forEach(this.results::put);
+		// results hold information about all statements: they can be
+		// indexed by offset
+		this.results = new StatementStore<>(singleton, new StatementMap<>(results));
 		this.entryStates = new StatementStore<>(singleton);
 		entryStates.forEach(this.entryStates::put);
+		this.interprocedural = interprocedural;
 	}
 
 	/**
@@ -100,9 +167,15 @@ public class CFGWithAnalysisResults<A extends AbstractState<A, H, V, T>,
 	 */
 	public CFGWithAnalysisResults(CFG cfg, StatementStore<A, H, V, T> entryStates,
 			StatementStore<A, H, V, T> results) {
+		this(cfg, entryStates, results, null);
+	}
+
+	private CFGWithAnalysisResults(CFG cfg, StatementStore<A, H, V, T> entryStates,
+			StatementStore<A, H, V, T> results, InterproceduralAnalysis<A, H, V, T> interprocedural) {
 		super(cfg);
 		this.results = results;
 		this.entryStates = entryStates;
+		this.interprocedural = interprocedural;
 	}
 
 	/**
@@ -125,6 +198,27 @@ public class CFGWithAnalysisResults<A extends AbstractState<A, H, V, T>,
 		this.id = id;
 	}
 
+	/**
+	 * Yields whether or not the fixpoint computation that produced these
+	 * results (or one of the results they have been joined with) exceeded its
+	 * iteration or time budget, thus over-approximating them.
+	 * 
+	 * @return {@code true} if that condition holds
+	 */
+	public boolean isOverBudget() {
+		return overBudget;
+	}
+
+	/**
+	 * Sets whether or not the fixpoint computation that produced these results
+	 * exceeded its iteration or time budget.
+	 * 
+	 * @param overBudget {@code true} if that condition holds
+	 */
+	public void setOverBudget(boolean overBudget) {
+		this.overBudget = overBudget;
+	}
+
 	/**
 	 * Yields the computed result before a given statement (entry state).
 	 *
@@ -143,18 +237,103 @@ public class CFGWithAnalysisResults<A extends AbstractState<A, H, V, T>,
 		if (getEntrypoints().contains(target))
 			return entryStates.getState(target);
 
-		return lub(predecessorsOf(target), false);
+		DerivedStates current = derivedStates();
+		AnalysisState<A, H, V, T> state = current.predecessorStates.get(target);
+		if (state == null) {
+			state = lub(predecessorsOf(target), false);
+			current.predecessorStates.put(target, state);
+		}
+		return state;
+	}
+
+	private DerivedStates derivedStates() {
+		int modifications = getModificationCount();
+		DerivedStates current = derived;
+		if (current == null || current.modifications != modifications)
+			derived = current = new DerivedStates(modifications);
+		return current;
 	}
 
 	/**
-	 * Yields the computed result at a given statement (exit state).
+	 * Yields the computed result at a given statement (exit state). If this
+	 * result stores results sparsely and the one of {@code st} is not stored,
+	 * it is recomputed by replaying the semantics of the statements that
+	 * precede it.
 	 *
 	 * @param st the statement
 	 *
 	 * @return the result computed at the given statement
+	 * 
+	 * @throws AnalysisExecutionException if the result needs to be recomputed
+	 *                                        and an error happens while doing
+	 *                                        so
 	 */
 	public AnalysisState<A, H, V, T> getAnalysisStateAfter(Statement st) {
-		return results.getState(st);
+		if (interprocedural == null || results.isTop() || results.isBottom() || results.getKeys().contains(st))
+			return results.getState(st);
+
+		DerivedStates current = derivedStates();
+		StatementStore<A, H, V, T> replayed = current.lastReplay;
+		if (replayed != null && replayed.getKeys().contains(st))
+			return replayed.getState(st);
+
+		Statement root = st instanceof Expression ? ((Expression) st).getRootStatement() : st;
+		try {
+			replayed = replay(root);
+		} catch (SemanticException e) {
+			throw new AnalysisExecutionException("Exception while recomputing the analysis state after " + st, e);
+		}
+		current.lastReplay = replayed;
+		return replayed.getState(st);
+	}
+
+	/**
+	 * Recomputes the results of {@code root} and of its inner expressions. All
+	 * statements that are not stored between {@code root} and the closest
+	 * stored result are recomputed as well.
+	 */
+	private StatementStore<A, H, V, T> replay(Statement root) throws SemanticException {
+		StatementStore<A, H, V, T> replayed = new StatementStore<>(results.lattice.bottom());
+		if (isSparseAnchor(root) && !results.getKeys().contains(root))
+			// not reached by the fixpoint
+			return replayed;
+
+		// the statements whose entry state is the lub of several ones always
+		// have the results of their inner expressions stored, and are never
+		// replayed: all statements replayed here are either entrypoints
+		// without predecessors or have exactly one predecessor
+		LinkedList<Statement> chain = new LinkedList<>();
+		Set<Statement> seen = new HashSet<>();
+		Statement current = root;
+		AnalysisState<A, H, V, T> entry = null;
+		while (entry == null) {
+			chain.addFirst(current);
+			seen.add(current);
+			if (getEntrypoints().contains(current))
+				entry = entryStates.getState(current);
+			else {
+				Statement pred = predecessorsOf(current).iterator().next();
+				if (results.getKeys().contains(pred))
+					entry = traverse(getEdgeConnecting(pred, current), results.getState(pred));
+				else if (isSparseAnchor(pred) || seen.contains(pred))
+					// not reached by the fixpoint
+					return replayed;
+				else
+					current = pred;
+			}
+		}
+
+		AnalysisState<A, H, V, T> state = entry;
+		Statement previous = null;
+		for (Statement st : chain) {
+			if (previous != null)
+				state = traverse(getEdgeConnecting(previous, st), state);
+			state = semanticsOf(st, state, interprocedural, replayed);
+			replayed.put(st, state);
+			previous = st;
+		}
+
+		return replayed;
 	}
 
 	/**
@@ -165,7 +344,11 @@ public class CFGWithAnalysisResults<A extends AbstractState<A, H, V, T>,
 	 * @throws SemanticException if the lub operator fails
 	 */
 	public AnalysisState<A, H, V, T> getEntryState() throws SemanticException {
-		return lub(this.getEntrypoints(), true);
+		DerivedStates current = derivedStates();
+		AnalysisState<A, H, V, T> state = current.entryState;
+		if (state == null)
+			current.entryState = state = lub(this.getEntrypoints(), true);
+		return state;
 	}
 
 	/**
@@ -176,7 +359,11 @@ public class CFGWithAnalysisResults<A extends AbstractState<A, H, V, T>,
 	 * @throws SemanticException if the lub operator fails
 	 */
 	public AnalysisState<A, H, V, T> getExitState() throws SemanticException {
-		return lub(this.getNormalExitpoints(), false);
+		DerivedStates current = derivedStates();
+		AnalysisState<A, H, V, T> state = current.exitState;
+		if (state == null)
+			current.exitState = state = lub(this.getNormalExitpoints(), false);
+		return state;
 	}
 
 	private AnalysisState<A, H, V, T> lub(Collection<Statement> statements, boolean entry) throws SemanticException {
@@ -201,8 +388,10 @@ public class CFGWithAnalysisResults<A extends AbstractState<A, H, V, T>,
 		if (!getDescriptor().equals(other.getDescriptor()))
 			throw new SemanticException(CANNOT_LUB_ERROR);
 
-		return new CFGWithAnalysisResults<>(this, entryStates.lub(other.entryStates),
-				results.lub(other.results));
+		CFGWithAnalysisResults<A, H, V, T> join = new CFGWithAnalysisResults<>(this,
+				entryStates.lub(other.entryStates), results.lub(other.results), replayer(other));
+		join.overBudget = overBudget || other.overBudget;
+		return join;
 	}
 
 	@Override
@@ -211,8 +400,9 @@ public class CFGWithAnalysisResults<A extends AbstractState<A, H, V, T>,
 			throw new SemanticException(CANNOT_LUB_ERROR);
 
 		CFGWithAnalysisResults<A, H, V, T> lub = new CFGWithAnalysisResults<>(this, entryStates.lub(other.entryStates),
-				results.lub(other.results));
+				results.lub(other.results), replayer(other));
 		lub.setId(joinIDs(other));
+		lub.overBudget = overBudget || other.overBudget;
 		return lub;
 	}
 
@@ -222,8 +412,9 @@ public class CFGWithAnalysisResults<A extends AbstractState<A, H, V, T>,
 			throw new SemanticException(CANNOT_GLB_ERROR);
 
 		CFGWithAnalysisResults<A, H, V, T> glb = new CFGWithAnalysisResults<>(this, entryStates.glb(other.entryStates),
-				results.glb(other.results));
+				results.glb(other.results), replayer(other));
 		glb.setId(joinIDs(other));
+		glb.overBudget = overBudget || other.overBudget;
 		return glb;
 	}
 
@@ -236,11 +427,17 @@ public class CFGWithAnalysisResults<A extends AbstractState<A, H, V, T>,
 		CFGWithAnalysisResults<A, H, V, T> widen = new CFGWithAnalysisResults<>(
 				this,
 				entryStates.widening(other.entryStates),
-				results.widening(other.results));
+				results.widening(other.results),
+				replayer(other));
 		widen.setId(joinIDs(other));
+		widen.overBudget = overBudget || other.overBudget;
 		return widen;
 	}
 
+	private InterproceduralAnalysis<A, H, V, T> replayer(CFGWithAnalysisResults<A, H, V, T> other) {
+		return interprocedural != null ? interprocedural : other.interprocedural;
+	}
+
 	private String joinIDs(CFGWithAnalysisResults<A, H, V, T> other) throws SemanticException {
 		// we accept merging only if the ids are the same
 		if (id == null) {
@@ -269,7 +466,7 @@ public class CFGWithAnalysisResults<A extends AbstractState<A, H, V, T>,
 
 	@Override
 	public CFGWithAnalysisResults<A, H, V, T> top() {
-		return new CFGWithAnalysisResults<>(this, entryStates.top(), results.top());
+		return new CFGWithAnalysisResults<>(this, entryStates.top(), results.top(), interprocedural);
 	}
 
 	@Override
@@ -279,7 +476,7 @@ public class CFGWithAnalysisResults<A extends AbstractState<A, H, V, T>,
 
 	@Override
 	public CFGWithAnalysisResults<A, H, V, T> bottom() {
-		return new CFGWithAnalysisResults<>(this, entryStates.bottom(), results.bottom());
+		return new CFGWithAnalysisResults<>(this, entryStates.bottom(), results.bottom(), interprocedural);
 	}
 
 	@Override
@@ -323,4 +520,48 @@ public class CFGWithAnalysisResults<A extends AbstractState<A, H, V, T>,
 			return false;
 		return true;
 	}
+
+	/**
+	 * The states computed from the results for a given structure of the cfg,
+	 * identified by its {@link CFG#getModificationCount() modification count}.
+	 * A new instance replaces this one as soon as the structure changes, so
+	 * that states computed concurrently with the change end up in an instance
+	 * that is no longer used.
+	 * 
+	 * @author <a href="mailto:luca.negrini@unive.it">Luca Negrini</a>
+	 */
+	private class DerivedStates {
+
+		/**
+		 * The modification count of the cfg when this instance was created
+		 */
+		private final int modifications;
+
+		/**
+		 * The lub of the results of the predecessors of each statement that is
+		 * not an entrypoint
+		 */
+		private final Map<Statement, AnalysisState<A, H, V, T>> predecessorStates = new ConcurrentHashMap<>();
+
+		/**
+		 * The entry state, or {@code null} if it has not been computed yet
+		 */
+		private volatile AnalysisState<A, H, V, T> entryState;
+
+		/**
+		 * The exit state, or {@code null} if it has not been computed yet
+		 */
+		private volatile AnalysisState<A, H, V, T> exitState;
+
+		/**
+		 * The results computed by the most recent replay, kept to avoid
+		 * replaying the same statements when their results are queried in
+		 * sequence
+		 */
+		private volatile StatementStore<A, H, V, T> lastReplay;
+
+		private DerivedStates(int modifications) {
+			this.modifications = modifications;
+		}
+	}
 }
@@ -5,6 +5,7 @@ import it.unive.lisa.analysis.lattices.FunctionalLattice;
 import it.unive.lisa.analysis.value.TypeDomain;
 import it.unive.lisa.analysis.value.ValueDomain;
 import it.unive.lisa.program.cfg.statement.Statement;
+import it.unive.lisa.program.cfg.statement.StatementMap;
 import java.util.Map;
 
 /**
@@ -34,7 +35,15 @@ public class StatementStore<A extends AbstractState<A, H, V, T>,
 		super(state);
 	}
 
-	private StatementStore(AnalysisState<A, H, V, T> state, Map<Statement, AnalysisState<A, H, V, T>> function) {
+	/**
+	 * Builds the store, using the given function without copying it. If
+	 * {@code function} is a {@link StatementMap}, all stores produced by
+	 * lattice operations on this one will use {@link StatementMap}s as well.
+	 * 
+	 * @param state    an instance of the underlying lattice
+	 * @param function the function to use
+	 */
+	StatementStore(AnalysisState<A, H, V, T> state, Map<Statement, AnalysisState<A, H, V, T>> function) {
 		super(state, function);
 	}
 
@@ -67,6 +76,27 @@ public class StatementStore<A extends AbstractState<A, H, V, T>,
 			function = null;
 	}
 
+	/**
+	 * {@inheritDoc}<br>
+	 * <br>
+	 * If either this store or {@code other} use a {@link StatementMap}, the new
+	 * function is a {@link StatementMap} too, indexing states by the offsets of
+	 * statements instead of hashing them. This only happens for stores holding
+	 * the states of all the statements of a cfg (see
+	 * {@link CFGWithAnalysisResults}), while stores holding few states (e.g.,
+	 * the ones of the inner expressions of a single statement) use the default
+	 * function implementation.
+	 */
+	@Override
+	public Map<Statement, AnalysisState<A, H, V, T>> mkNewFunction(Map<Statement, AnalysisState<A, H, V, T>> other,
+			boolean preserveNull) {
+		if (!(function instanceof StatementMap) && !(other instanceof StatementMap))
+			return super.mkNewFunction(other, preserveNull);
+		if (other == null)
+			return preserveNull ? null : new StatementMap<>();
+		return new StatementMap<>(other);
+	}
+
 	@Override
 	public StatementStore<A, H, V, T> top() {
 		return new StatementStore<>(lattice.top());
@@ -261,7 +261,7 @@ public abstract class FunctionalLattice<F extends FunctionalLattice<F, K, V>, K,
 
 	@Override
 	public boolean lessOrEqualAux(F other) throws SemanticException {
-		for (K key : function.keySet())
+		for (K key : getKeys())
 			if (getState(key) != null && (!getState(key).lessOrEqual(other.getState(key))))
 				return false;
 
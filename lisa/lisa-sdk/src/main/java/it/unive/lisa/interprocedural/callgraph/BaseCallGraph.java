@@ -4,9 +4,12 @@ import it.unive.lisa.analysis.symbols.Aliases;
 import it.unive.lisa.analysis.symbols.NameSymbol;
 import it.unive.lisa.analysis.symbols.QualifiedNameSymbol;
 import it.unive.lisa.analysis.symbols.QualifierSymbol;
+import it.unive.lisa.analysis.symbols.Symbol;
 import it.unive.lisa.analysis.symbols.SymbolAliasing;
 import it.unive.lisa.program.Application;
 import it.unive.lisa.program.CompilationUnit;
+import it.unive.lisa.program.Program;
+import it.unive.lisa.program.Unit;
 import it.unive.lisa.program.cfg.AbstractCodeMember;
 import it.unive.lisa.program.cfg.CFG;
 import it.unive.lisa.program.cfg.CodeMember;
@@ -27,6 +30,7 @@ import it.unive.lisa.program.language.hierarchytraversal.HierarcyTraversalStrate
 import it.unive.lisa.program.language.resolution.ParameterMatchingStrategy;
 import it.unive.lisa.type.Type;
 import it.unive.lisa.util.datastructures.graph.BaseGraph;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
@@ -34,6 +38,7 @@ import java.util.HashSet;
 import java.util.IdentityHashMap;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.logging.log4j.LogManager;
@@ -45,7 +50,11 @@ import org.apache.logging.log4j.Logger;
  * <br>
  * The graph underlying this call graph is built lazily through each call to
  * resolve: querying for information about the graph before the completion of
- * the analysis might lead to wrong results.
+ * the analysis might lead to wrong results. All methods reading or modifying
+ * the graph (including the ones inherited from {@link BaseGraph}) are
+ * synchronized on this instance, so that instances can be shared by analyses
+ * that process several cfgs in parallel. Collections returned by such methods
+ * are snapshots that are not affected by later modifications of the graph.
  *
  * @author <a href="mailto:luca.negrini@unive.it">Luca Negrini</a> and
  *             <a href="mailto:pietro.ferrara@unive.it">Pietro Ferrara</a>
@@ -61,13 +70,47 @@ public abstract class BaseCallGraph extends BaseGraph<BaseCallGraph, CallGraphNo
 
 	private final Map<UnresolvedCall, Call> resolvedCache = new IdentityHashMap<>();
 
+	/**
+	 * The dispatch table of each unit, mapping names to the non-abstract
+	 * instance code members with that name that are defined in the unit or in
+	 * one of its ancestors, in the order the hierarchy is traversed. Tables of
+	 * the units of the application are computed by {@link #init(Application)},
+	 * while tables of other units are lazily computed. Tables are never
+	 * modified once computed, and the map is concurrent, so that it can be
+	 * shared by call graphs of the same application (see
+	 * {@link #init(Application, BaseCallGraph)}).
+	 */
+	private Map<CompilationUnit, Map<String, Collection<CodeMember>>> dispatchTables = new ConcurrentHashMap<>();
+
 	@Override
-	public void init(Application app) throws CallGraphConstructionException {
+	public synchronized void init(Application app) throws CallGraphConstructionException {
+		this.app = app;
+		Map<CompilationUnit, Map<String, Collection<CodeMember>>> tables = new ConcurrentHashMap<>();
+		for (Program program : app.getPrograms())
+			for (Unit unit : program.getUnits())
+				if (unit instanceof CompilationUnit)
+					tables.put((CompilationUnit) unit, computeDispatchTable((CompilationUnit) unit));
+		dispatchTables = tables;
+	}
+
+	/**
+	 * Initializes this call graph as {@link #init(Application)} does, but
+	 * reusing the dispatch tables of {@code other}, that must have been
+	 * initialized with the same application, instead of computing them again.
+	 * The tables are shared between the two call graphs, that can thus resolve
+	 * calls in different threads without flattening the hierarchy of each unit
+	 * twice.
+	 * 
+	 * @param app   the application
+	 * @param other the call graph whose dispatch tables are to be reused
+	 */
+	synchronized void init(Application app, BaseCallGraph other) {
 		this.app = app;
+		this.dispatchTables = other.dispatchTables;
 	}
 
 	@Override
-	public void registerCall(CFGCall call) {
+	public synchronized void registerCall(CFGCall call) {
 		if (call.getSource() != null)
 			// this call has been generated through the resolution of an
 			// UnresolvedCall, and that one has already been registered
@@ -89,7 +132,7 @@ public abstract class BaseCallGraph extends BaseGraph<BaseCallGraph, CallGraphNo
 
 	@Override
 	@SuppressWarnings("unchecked")
-	public Call resolve(UnresolvedCall call, Set<Type>[] types, SymbolAliasing aliasing)
+	public synchronized Call resolve(UnresolvedCall call, Set<Type>[] types, SymbolAliasing aliasing)
 			throws CallResolutionException {
 		Call cached = resolvedCache.get(call);
 		if (cached != null)
@@ -287,7 +330,11 @@ public abstract class BaseCallGraph extends BaseGraph<BaseCallGraph, CallGraphNo
 	}
 
 	/**
-	 * Resolves the given call as regular (non-instance) call.
+	 * Resolves the given call as regular (non-instance) call. Only the code
+	 * members that can be targeted by the call are inspected, that is, the ones
+	 * whose name is one of the
+	 * {@link #getTargetableNames(UnresolvedCall, SymbolAliasing) targetable
+	 * names}.
 	 * 
 	 * @param call     the call to resolve
 	 * @param types    the runtime types of the parameters of the call
@@ -305,12 +352,42 @@ public abstract class BaseCallGraph extends BaseGraph<BaseCallGraph, CallGraphNo
 	public void resolveNonInstance(UnresolvedCall call, Set<Type>[] types, Collection<CFG> targets,
 			Collection<NativeCFG> natives, SymbolAliasing aliasing)
 			throws CallResolutionException {
-		for (CodeMember cm : app.getAllCodeCodeMembers())
-			checkMember(call, types, targets, natives, aliasing, cm, false);
+		for (String name : getTargetableNames(call, aliasing))
+			for (CodeMember cm : app.getCodeMembersNamed(name))
+				checkMember(call, types, targets, natives, aliasing, cm, false);
+	}
+
+	/**
+	 * Yields the names that a code member must have to be a candidate target of
+	 * the given call: the name of the call's target, and the names of the code
+	 * members that are aliased. Aliasing a qualifier does not change the name
+	 * that the member must have.
+	 * 
+	 * @param call     the call to resolve
+	 * @param aliasing the symbol aliasing information
+	 * 
+	 * @return the names of the candidate targets
+	 */
+	protected Collection<String> getTargetableNames(UnresolvedCall call, SymbolAliasing aliasing) {
+		Collection<String> names = new HashSet<>();
+		names.add(call.getTargetName());
+		for (Symbol symbol : aliasing.getKeys())
+			if (symbol instanceof NameSymbol)
+				names.add(((NameSymbol) symbol).getName());
+			else if (symbol instanceof QualifiedNameSymbol)
+				names.add(((QualifiedNameSymbol) symbol).getName());
+		return names;
 	}
 
 	/**
-	 * Resolves the given call as an instance call.
+	 * Resolves the given call as an instance call. For each possible type of
+	 * the receiver, only the code members whose name is one of the
+	 * {@link #getTargetableNames(UnresolvedCall, SymbolAliasing) targetable
+	 * names} are inspected, retrieving them from the dispatch table of the
+	 * receiver's unit. The table flattens the hierarchy of the unit, as
+	 * traversed by the {@link HierarcyTraversalStrategy} of its program: all
+	 * matching members of the unit and of its ancestors are candidate targets,
+	 * and the {@link ParameterMatchingStrategy} selects among them.
 	 * 
 	 * @param call     the call to resolve
 	 * @param types    the runtime types of the parameters of the call
@@ -332,6 +409,7 @@ public abstract class BaseCallGraph extends BaseGraph<BaseCallGraph, CallGraphNo
 			throw new CallResolutionException(
 					"An instance call should have at least one parameter to be used as the receiver of the call");
 		Expression receiver = call.getParameters()[0];
+		Collection<String> names = getTargetableNames(call, aliasing);
 		for (Type recType : getPossibleTypesOfReceiver(receiver, types[0])) {
 			CompilationUnit unit;
 			if (recType.isUnitType())
@@ -341,16 +419,27 @@ public abstract class BaseCallGraph extends BaseGraph<BaseCallGraph, CallGraphNo
 			else
 				continue;
 
-			Set<CompilationUnit> seen = new HashSet<>();
-			HierarcyTraversalStrategy strategy = call.getProgram().getFeatures().getTraversalStrategy();
-			for (CompilationUnit cu : strategy.traverse(call, unit))
-				if (seen.add(cu))
-					// we inspect only the ones of the current unit
-					for (CodeMember cm : cu.getInstanceCodeMembers(false))
-						checkMember(call, types, targets, natives, aliasing, cm, true);
+			Map<String, Collection<CodeMember>> table = dispatchTables.computeIfAbsent(unit,
+					BaseCallGraph::computeDispatchTable);
+			for (String name : names)
+				for (CodeMember cm : table.getOrDefault(name, Collections.emptyList()))
+					checkMember(call, types, targets, natives, aliasing, cm, true);
 		}
 	}
 
+	private static Map<String, Collection<CodeMember>> computeDispatchTable(CompilationUnit unit) {
+		Map<String, Collection<CodeMember>> table = new HashMap<>();
+		Set<CompilationUnit> seen = new HashSet<>();
+		HierarcyTraversalStrategy strategy = unit.getProgram().getFeatures().getTraversalStrategy();
+		for (CompilationUnit cu : strategy.traverse(null, unit))
+			if (seen.add(cu))
+				// we inspect only the ones of the current unit
+				for (CodeMember cm : cu.getInstanceCodeMembers(false))
+					if (!(cm instanceof AbstractCodeMember))
+						table.computeIfAbsent(cm.getDescriptor().getName(), k -> new ArrayList<>()).add(cm);
+		return table;
+	}
+
 	/**
 	 * Checks if the given code member {@code cm} is a candidate target for the
 	 * given call, and proceeds to add it to the set of targets if it is.
@@ -465,19 +554,101 @@ public abstract class BaseCallGraph extends BaseGraph<BaseCallGraph, CallGraphNo
 			throws CallResolutionException;
 
 	@Override
-	public Collection<CodeMember> getCallees(CodeMember cm) {
+	public synchronized Collection<CodeMember> getCallees(CodeMember cm) {
 		return followersOf(new CallGraphNode(this, cm)).stream().map(CallGraphNode::getCodeMember)
 				.collect(Collectors.toList());
 	}
 
 	@Override
-	public Collection<CodeMember> getCallers(CodeMember cm) {
+	public synchronized Collection<CodeMember> getCallers(CodeMember cm) {
 		return predecessorsOf(new CallGraphNode(this, cm)).stream().map(CallGraphNode::getCodeMember)
 				.collect(Collectors.toList());
 	}
 
 	@Override
-	public Collection<Call> getCallSites(CodeMember cm) {
-		return callsites.getOrDefault(cm, Collections.emptyList());
+	public synchronized Collection<Call> getCallSites(CodeMember cm) {
+		Collection<Call> sites = callsites.get(cm);
+		return sites == null ? Collections.emptyList() : new ArrayList<>(sites);
+	}
+
+	@Override
+	public synchronized Collection<CallGraphNode> getEntrypoints() {
+		return new ArrayList<>(super.getEntrypoints());
+	}
+
+	@Override
+	public synchronized Collection<CallGraphNode> getNodes() {
+		return new ArrayList<>(super.getNodes());
+	}
+
+	@Override
+	public synchronized Collection<CallGraphEdge> getEdges() {
+		return new ArrayList<>(super.getEdges());
+	}
+
+	@Override
+	public synchronized void addNode(CallGraphNode node, boolean entrypoint) {
+		super.addNode(node, entrypoint);
+	}
+
+	@Override
+	public synchronized void addEdge(CallGraphEdge edge) {
+		super.addEdge(edge);
+	}
+
+	@Override
+	public synchronized int getNodesCount() {
+		return super.getNodes().size();
+	}
+
+	@Override
+	public synchronized int getEdgesCount() {
+		return super.getEdges().size();
+	}
+
+	@Override
+	public synchronized boolean containsNode(CallGraphNode node) {
+		return super.containsNode(node);
+	}
+
+	@Override
+	public synchronized boolean containsEdge(CallGraphEdge edge) {
+		return super.containsEdge(edge);
+	}
+
+	@Override
+	public synchronized CallGraphEdge getEdgeConnecting(CallGraphNode source, CallGraphNode destination) {
+		return super.getEdgeConnecting(source, destination);
+	}
+
+	@Override
+	public synchronized Collection<CallGraphEdge> getEdgesConnecting(CallGraphNode source,
+			CallGraphNode destination) {
+		return super.getEdgesConnecting(source, destination);
+	}
+
+	@Override
+	public synchronized Collection<CallGraphEdge> getIngoingEdges(CallGraphNode node) {
+		return new ArrayList<>(super.getIngoingEdges(node));
+	}
+
+	@Override
+	public synchronized Collection<CallGraphEdge> getOutgoingEdges(CallGraphNode node) {
+		return new ArrayList<>(super.getOutgoingEdges(node));
+	}
+
+	@Override
+	public synchronized Collection<CallGraphNode> followersOf(CallGraphNode node) {
+		return super.followersOf(node);
+	}
+
+	@Override
+	public synchronized Collection<CallGraphNode> predecessorsOf(CallGraphNode node) {
+		return super.predecessorsOf(node);
+	}
+
+	@Override
+	public synchronized String toString() {
+		return super.toString();
 	}
 }
\ No newline at end of file
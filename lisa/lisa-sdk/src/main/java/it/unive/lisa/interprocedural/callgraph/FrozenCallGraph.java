@@ -0,0 +1,350 @@
+package it.unive.lisa.interprocedural.callgraph;
+
+import it.unive.lisa.analysis.symbols.SymbolAliasing;
+import it.unive.lisa.program.Application;
+import it.unive.lisa.program.cfg.CFG;
+import it.unive.lisa.program.cfg.CodeMember;
+import it.unive.lisa.program.cfg.edge.Edge;
+import it.unive.lisa.program.cfg.statement.Expression;
+import it.unive.lisa.program.cfg.statement.Statement;
+import it.unive.lisa.program.cfg.statement.call.Call;
+import it.unive.lisa.program.cfg.statement.call.ResolvedCall;
+import it.unive.lisa.program.cfg.statement.call.UnresolvedCall;
+import it.unive.lisa.type.Type;
+import it.unive.lisa.util.datastructures.graph.GraphVisitor;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * An immutable call graph of an {@link Application}, built before the analysis
+ * starts by resolving all the calls of the application using only static
+ * information: each call is resolved considering all the instances of the
+ * static types of its parameters (as done by class hierarchy analysis), and
+ * without symbol aliasing. The result is thus an over-approximation of the
+ * calls that the {@link CallGraph} used during the analysis will resolve,
+ * except for calls that can be resolved only through aliasing.<br>
+ * <br>
+ * Besides the callers, callees and call sites of each {@link CodeMember}, this
+ * graph provides its strongly connected components in reverse topological
+ * order, that is, with the components of the callees preceding the ones of
+ * their callers. These can be used by interprocedural analyses to schedule the
+ * analysis of the code members bottom-up.
+ *
+ * @author <a href="mailto:luca.negrini@unive.it">Luca Negrini</a>
+ */
+public class FrozenCallGraph {
+
+	private static final Logger LOG = LogManager.getLogger(FrozenCallGraph.class);
+
+	private final Map<CodeMember, Collection<CodeMember>> callees;
+
+	private final Map<CodeMember, Collection<CodeMember>> callers;
+
+	private final Map<CodeMember, Collection<Call>> callSites;
+
+	private final List<Collection<CodeMember>> components;
+
+	private final Map<CodeMember, Integer> ranks;
+
+	private FrozenCallGraph(Collection<CodeMember> members, Map<Call, Collection<CodeMember>> calls) {
+		Map<CodeMember, Collection<CodeMember>> callees = new HashMap<>();
+		Map<CodeMember, Collection<CodeMember>> callers = new HashMap<>();
+		Map<CodeMember, Collection<Call>> callSites = new HashMap<>();
+		for (Map.Entry<Call, Collection<CodeMember>> call : calls.entrySet()) {
+			CFG caller = call.getKey().getCFG();
+			for (CodeMember target : call.getValue()) {
+				callees.computeIfAbsent(caller, cm -> new HashSet<>()).add(target);
+				callers.computeIfAbsent(target, cm -> new HashSet<>()).add(caller);
+				callSites.computeIfAbsent(target, cm -> new HashSet<>()).add(call.getKey());
+			}
+		}
+
+		callees.replaceAll((cm, targets) -> Collections.unmodifiableCollection(targets));
+		callers.replaceAll((cm, sources) -> Collections.unmodifiableCollection(sources));
+		callSites.replaceAll((cm, sites) -> Collections.unmodifiableCollection(sites));
+		this.callees = Collections.unmodifiableMap(callees);
+		this.callers = Collections.unmodifiableMap(callers);
+		this.callSites = Collections.unmodifiableMap(callSites);
+
+		Set<CodeMember> nodes = new LinkedHashSet<>(members);
+		callers.keySet().forEach(nodes::add);
+		this.components = Collections.unmodifiableList(new Tarjan().build(nodes));
+		this.ranks = new IdentityHashMap<>();
+		for (int i = 0; i < components.size(); i++)
+			for (CodeMember cm : components.get(i))
+				ranks.put(cm, i);
+	}
+
+	/**
+	 * Builds the call graph of the given application, resolving the calls of
+	 * its {@link CFG}s. If {@code parallelism} is greater than {@code 1}, the
+	 * calls of different cfgs are resolved in parallel using a
+	 * {@link ForkJoinPool} with that parallelism level. Calls that cannot be
+	 * resolved are ignored.
+	 *
+	 * @param app         the application
+	 * @param parallelism the number of threads to use
+	 *
+	 * @return the call graph
+	 *
+	 * @throws CallGraphConstructionException if an error happens while
+	 *                                            resolving the calls
+	 */
+	public static FrozenCallGraph build(Application app, int parallelism) throws CallGraphConstructionException {
+		Collection<CFG> cfgs = app.getAllCFGs();
+		Map<Call, Collection<CodeMember>> calls = new IdentityHashMap<>();
+		StaticResolver shared = new StaticResolver();
+		shared.init(app);
+
+		if (parallelism <= 1) {
+			for (CFG cfg : cfgs)
+				calls.putAll(resolveAll(cfg, shared));
+			return new FrozenCallGraph(app.getAllCodeCodeMembers(), calls);
+		}
+
+		// workers share the indexes of the application and the dispatch
+		// tables: these are built here once, instead of letting each worker
+		// compute them, while each worker has its own resolver since
+		// resolution is synchronized on the resolver
+		app.computeIndexes();
+		Collection<CodeMember> members = app.getAllCodeCodeMembers();
+		ThreadLocal<StaticResolver> resolvers = ThreadLocal.withInitial(() -> {
+			StaticResolver resolver = new StaticResolver();
+			resolver.init(app, shared);
+			return resolver;
+		});
+
+		ForkJoinPool pool = new ForkJoinPool(parallelism);
+		try {
+			List<Future<Map<Call, Collection<CodeMember>>>> tasks = new ArrayList<>(cfgs.size());
+			for (CFG cfg : cfgs)
+				tasks.add(pool.submit(() -> resolveAll(cfg, resolvers.get())));
+
+			for (Future<Map<Call, Collection<CodeMember>>> task : tasks)
+				calls.putAll(task.get());
+		} catch (ExecutionException e) {
+			throw new CallGraphConstructionException("Error while resolving calls in parallel", e.getCause());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new CallGraphConstructionException("Interrupted while resolving calls in parallel", e);
+		} finally {
+			pool.shutdownNow();
+		}
+
+		return new FrozenCallGraph(members, calls);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Map<Call, Collection<CodeMember>> resolveAll(CFG cfg, StaticResolver resolver) {
+		Collection<Call> found = new LinkedList<>();
+		cfg.accept(new CallCollector(), found);
+
+		Map<Call, Collection<CodeMember>> calls = new IdentityHashMap<>();
+		for (Call call : found)
+			if (call instanceof UnresolvedCall) {
+				UnresolvedCall unresolved = (UnresolvedCall) call;
+				Expression[] params = unresolved.getParameters();
+				Set<Type>[] types = new Set[params.length];
+				for (int i = 0; i < params.length; i++)
+					types[i] = params[i].getStaticType().allInstances(call.getProgram().getTypes());
+
+				try {
+					Call resolved = resolver.resolve(unresolved, types, new SymbolAliasing());
+					if (resolved instanceof ResolvedCall)
+						calls.put(call, ((ResolvedCall) resolved).getTargets());
+				} catch (CallResolutionException e) {
+					LOG.debug("Unable to statically resolve " + call + " [" + call.getLocation() + "]", e);
+				}
+			} else if (call instanceof ResolvedCall)
+				calls.put(call, ((ResolvedCall) call).getTargets());
+
+		return calls;
+	}
+
+	/**
+	 * Yields the code members that might be called by the given one.
+	 *
+	 * @param cm the code member
+	 *
+	 * @return the (unmodifiable) collection of callees
+	 */
+	public Collection<CodeMember> getCallees(CodeMember cm) {
+		return callees.getOrDefault(cm, Collections.emptySet());
+	}
+
+	/**
+	 * Yields the code members that might call the given one.
+	 *
+	 * @param cm the code member
+	 *
+	 * @return the (unmodifiable) collection of callers
+	 */
+	public Collection<CodeMember> getCallers(CodeMember cm) {
+		return callers.getOrDefault(cm, Collections.emptySet());
+	}
+
+	/**
+	 * Yields the calls that might target the given code member.
+	 *
+	 * @param cm the code member
+	 *
+	 * @return the (unmodifiable) collection of call sites
+	 */
+	public Collection<Call> getCallSites(CodeMember cm) {
+		return callSites.getOrDefault(cm, Collections.emptySet());
+	}
+
+	/**
+	 * Yields the strongly connected components of this call graph in reverse
+	 * topological order: if a code member of a component calls a code member of
+	 * a different component, the latter precedes the former.
+	 *
+	 * @return the (unmodifiable) list of components
+	 */
+	public List<Collection<CodeMember>> getStronglyConnectedComponents() {
+		return components;
+	}
+
+	/**
+	 * Yields the position of the strongly connected component containing the
+	 * given code member in {@link #getStronglyConnectedComponents()}, that can
+	 * be used to sort code members so that callees precede their callers. Code
+	 * members that are not part of this call graph have rank
+	 * {@link Integer#MAX_VALUE}.
+	 *
+	 * @param cm the code member
+	 *
+	 * @return the rank of the code member
+	 */
+	public int getRank(CodeMember cm) {
+		return ranks.getOrDefault(cm, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Yields {@code true} if and only if the given code member might call
+	 * itself, either directly or through other code members.
+	 *
+	 * @param cm the code member
+	 *
+	 * @return {@code true} if that condition holds
+	 */
+	public boolean isRecursive(CodeMember cm) {
+		Integer rank = ranks.get(cm);
+		return rank != null && (components.get(rank).size() > 1 || getCallees(cm).contains(cm));
+	}
+
+	private static class StaticResolver extends BaseCallGraph {
+
+		@Override
+		public Collection<Type> getPossibleTypesOfReceiver(Expression receiver, Set<Type> types) {
+			return receiver.getStaticType().allInstances(receiver.getProgram().getTypes());
+		}
+	}
+
+	private static class CallCollector implements GraphVisitor<CFG, Statement, Edge, Collection<Call>> {
+
+		@Override
+		public boolean visit(Collection<Call> tool, CFG graph) {
+			return true;
+		}
+
+		@Override
+		public boolean visit(Collection<Call> tool, CFG graph, Statement node) {
+			if (node instanceof Call)
+				tool.add((Call) node);
+			return true;
+		}
+
+		@Override
+		public boolean visit(Collection<Call> tool, CFG graph, Edge edge) {
+			return true;
+		}
+	}
+
+	/**
+	 * Tarjan's algorithm for strongly connected components, implemented
+	 * iteratively. Components are produced in reverse topological order.
+	 */
+	private class Tarjan {
+
+		private final Map<CodeMember, Integer> index = new IdentityHashMap<>();
+
+		private final Map<CodeMember, Integer> lowlink = new IdentityHashMap<>();
+
+		private final Deque<CodeMember> stack = new ArrayDeque<>();
+
+		private final Set<CodeMember> onStack = Collections.newSetFromMap(new IdentityHashMap<>());
+
+		private final List<Collection<CodeMember>> result = new ArrayList<>();
+
+		private List<Collection<CodeMember>> build(Collection<CodeMember> nodes) {
+			for (CodeMember node : nodes)
+				if (!index.containsKey(node))
+					visit(node);
+			return result;
+		}
+
+		private void visit(CodeMember root) {
+			Deque<Iterator<CodeMember>> iterators = new ArrayDeque<>();
+			Deque<CodeMember> path = new ArrayDeque<>();
+			enter(root);
+			path.push(root);
+			iterators.push(getCallees(root).iterator());
+
+			while (!path.isEmpty()) {
+				CodeMember node = path.peek();
+				Iterator<CodeMember> it = iterators.peek();
+				if (it.hasNext()) {
+					CodeMember callee = it.next();
+					if (!index.containsKey(callee)) {
+						enter(callee);
+						path.push(callee);
+						iterators.push(getCallees(callee).iterator());
+					} else if (onStack.contains(callee))
+						lowlink.put(node, Math.min(lowlink.get(node), index.get(callee)));
+					continue;
+				}
+
+				path.pop();
+				iterators.pop();
+				if (!path.isEmpty())
+					lowlink.put(path.peek(), Math.min(lowlink.get(path.peek()), lowlink.get(node)));
+
+				if (lowlink.get(node).equals(index.get(node))) {
+					Collection<CodeMember> component = new HashSet<>();
+					CodeMember member;
+					do {
+						member = stack.pop();
+						onStack.remove(member);
+						component.add(member);
+					} while (member != node);
+					result.add(Collections.unmodifiableCollection(component));
+				}
+			}
+		}
+
+		private void enter(CodeMember node) {
+			index.put(node, index.size());
+			lowlink.put(node, index.get(node));
+			stack.push(node);
+			onStack.add(node);
+		}
+	}
+}
@@ -0,0 +1,270 @@
+package it.unive.lisa.logging;
+
+import it.unive.lisa.outputs.serializableGraph.SerializableObject;
+import it.unive.lisa.outputs.serializableGraph.SerializableString;
+import it.unive.lisa.outputs.serializableGraph.SerializableValue;
+import it.unive.lisa.program.cfg.CFG;
+import it.unive.lisa.program.cfg.statement.Statement;
+import it.unive.lisa.util.datastructures.graph.algorithms.Fixpoint.FixpointProfiler;
+import java.util.Collections;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A collector of profiling information about the fixpoint computations over
+ * {@link CFG}s. For each {@link Statement} of each cfg, instances record how
+ * many times the statement has been evaluated, and how much time has been spent
+ * in each {@link Operation} involving it. Information is accumulated over all
+ * the fixpoint computations of each cfg (e.g., one for each context in which it
+ * has been analyzed). Instances can be updated concurrently.
+ *
+ * @author <a href="mailto:luca.negrini@unive.it">Luca Negrini</a>
+ */
+public class FixpointProfile {
+
+	/**
+	 * The operations whose execution time is profiled.
+	 *
+	 * @author <a href="mailto:luca.negrini@unive.it">Luca Negrini</a>
+	 */
+	public static enum Operation {
+
+		/**
+		 * The computation of the semantics of a statement. Note that the
+		 * semantics of statements containing calls also include the time spent
+		 * for analyzing their targets, if this happens on-demand.
+		 */
+		SEMANTICS("semantics"),
+
+		/**
+		 * The traversal of an edge, accounted to its destination.
+		 */
+		TRAVERSE("traverse"),
+
+		/**
+		 * The least upper bound between two states.
+		 */
+		LUB("lub"),
+
+		/**
+		 * The greatest lower bound between two states.
+		 */
+		GLB("glb"),
+
+		/**
+		 * The widening between two states.
+		 */
+		WIDENING("widening"),
+
+		/**
+		 * The narrowing between two states.
+		 */
+		NARROWING("narrowing"),
+
+		/**
+		 * The comparison between two states.
+		 */
+		LESS_OR_EQUAL("lessOrEqual");
+
+		private final String name;
+
+		private Operation(String name) {
+			this.name = name;
+		}
+
+		@Override
+		public String toString() {
+			return name;
+		}
+	}
+
+	/**
+	 * The profiling information of a single {@link Statement}.
+	 *
+	 * @author <a href="mailto:luca.negrini@unive.it">Luca Negrini</a>
+	 */
+	public static class StatementProfile {
+
+		private final AtomicLong visits = new AtomicLong();
+
+		private final AtomicLongArray times = new AtomicLongArray(Operation.values().length);
+
+		/**
+		 * Records a new evaluation of the statement.
+		 */
+		public void visit() {
+			visits.incrementAndGet();
+		}
+
+		/**
+		 * Records the execution of an operation.
+		 *
+		 * @param operation the operation
+		 * @param nanos     the time spent executing it, in nanoseconds
+		 */
+		public void record(Operation operation, long nanos) {
+			times.addAndGet(operation.ordinal(), nanos);
+		}
+
+		/**
+		 * Yields the number of times the statement has been evaluated.
+		 *
+		 * @return the number of evaluations
+		 */
+		public long getVisits() {
+			return visits.get();
+		}
+
+		/**
+		 * Yields the overall time spent executing the given operation.
+		 *
+		 * @param operation the operation
+		 *
+		 * @return the time, in nanoseconds
+		 */
+		public long getTime(Operation operation) {
+			return times.get(operation.ordinal());
+		}
+
+		/**
+		 * Yields a {@link SerializableValue} representing this profile, that
+		 * can be used as (part of) the description of the statement in graph
+		 * dumps.
+		 *
+		 * @return the serializable value
+		 */
+		public SerializableValue toSerializableValue() {
+			SortedMap<String, SerializableValue> fields = new TreeMap<>();
+			fields.put("visits", new SerializableString(new TreeMap<>(), String.valueOf(getVisits())));
+			for (Operation op : Operation.values()) {
+				long time = getTime(op);
+				if (time != 0)
+					fields.put(op.toString(),
+							new SerializableString(new TreeMap<>(), TimeFormat.UP_TO_MILLIS.format(time)));
+			}
+			return new SerializableObject(new TreeMap<>(), fields);
+		}
+
+		@Override
+		public String toString() {
+			StringBuilder res = new StringBuilder().append(getVisits()).append(" visits");
+			for (Operation op : Operation.values()) {
+				long time = getTime(op);
+				if (time != 0)
+					res.append(", ").append(op).append(": ").append(TimeFormat.UP_TO_MILLIS.format(time));
+			}
+			return res.toString();
+		}
+	}
+
+	private final Map<CFG, Map<Statement, StatementProfile>> profiles = new ConcurrentHashMap<>();
+
+	/**
+	 * Yields the profile of the given statement, creating it if it does not
+	 * exist yet.
+	 *
+	 * @param cfg the cfg containing the statement
+	 * @param st  the statement
+	 *
+	 * @return the profile of the statement
+	 */
+	public StatementProfile of(CFG cfg, Statement st) {
+		return profiles.computeIfAbsent(cfg, c -> new ConcurrentHashMap<>())
+				.computeIfAbsent(st, s -> new StatementProfile());
+	}
+
+	/**
+	 * Yields a {@link FixpointProfiler} for the fixpoint computations over the
+	 * given cfg, that records in this profile the evaluations of each
+	 * statement, together with the time spent computing their semantics
+	 * ({@link Operation#SEMANTICS}) and traversing the edges reaching them
+	 * ({@link Operation#TRAVERSE}).
+	 *
+	 * @param cfg the cfg
+	 *
+	 * @return the profiler
+	 */
+	public FixpointProfiler<Statement> profilerOf(CFG cfg) {
+		return new FixpointProfiler<Statement>() {
+
+			@Override
+			public void semantics(Statement node, long nanos) {
+				StatementProfile profile = of(cfg, node);
+				profile.visit();
+				profile.record(Operation.SEMANTICS, nanos);
+			}
+
+			@Override
+			public void traverse(Statement node, long nanos) {
+				of(cfg, node).record(Operation.TRAVERSE, nanos);
+			}
+		};
+	}
+
+	/**
+	 * Yields the profiles of all the statements of the given cfg that have been
+	 * evaluated at least once.
+	 *
+	 * @param cfg the cfg
+	 *
+	 * @return the profiles, indexed by statement
+	 */
+	public Map<Statement, StatementProfile> getProfiles(CFG cfg) {
+		Map<Statement, StatementProfile> profile = profiles.get(cfg);
+		return profile == null ? Collections.emptyMap() : Collections.unmodifiableMap(profile);
+	}
+
+	/**
+	 * Yields the overall number of statement evaluations, across all cfgs.
+	 *
+	 * @return the number of evaluations
+	 */
+	public long getVisits() {
+		long visits = 0;
+		for (Map<Statement, StatementProfile> profile : profiles.values())
+			for (StatementProfile st : profile.values())
+				visits += st.getVisits();
+		return visits;
+	}
+
+	/**
+	 * Yields the overall time spent executing the given operation, across all
+	 * cfgs.
+	 *
+	 * @param operation the operation
+	 *
+	 * @return the time, in nanoseconds
+	 */
+	public long getTime(Operation operation) {
+		long time = 0;
+		for (Map<Statement, StatementProfile> profile : profiles.values())
+			for (StatementProfile st : profile.values())
+				time += st.getTime(operation);
+		return time;
+	}
+
+	/**
+	 * Yields a summary of the time spent executing each {@link Operation},
+	 * across all cfgs.
+	 *
+	 * @return the summary
+	 */
+	public String getTimesSummary() {
+		StringBuilder res = new StringBuilder();
+		for (Operation op : Operation.values()) {
+			if (res.length() > 0)
+				res.append(", ");
+			res.append(op).append(": ").append(TimeFormat.UP_TO_MILLIS.format(getTime(op)));
+		}
+		return res.toString();
+	}
+
+	@Override
+	public String toString() {
+		return getVisits() + " visits, " + getTimesSummary();
+	}
+}
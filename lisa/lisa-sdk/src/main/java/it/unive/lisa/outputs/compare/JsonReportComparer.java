@@ -266,7 +266,7 @@ public class JsonReportComparer {
 				reporter, (key, fvalue, svalue) -> reporter.configurationDiff(key, fvalue, svalue), key -> false);
 	}
 
-	private static final Set<String> INFO_BLACKLIST = Set.of("duration", "start", "end", "version");
+	private static final Set<String> INFO_BLACKLIST = Set.of("duration", "start", "end", "version", "fixpointTimes");
 
 	private static boolean compareInfos(JsonReport first, JsonReport second,
 			DiffReporter reporter) {
@@ -3,12 +3,24 @@ package it.unive.lisa.program;
 import it.unive.lisa.program.cfg.CFG;
 import it.unive.lisa.program.cfg.CodeMember;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Map;
 
 /**
  * An complete application, collecting several {@link Program}s that need to be
  * analyzed together. While each program is built through a single programming
- * language, an application is a complete and possibly multilanguage system.
+ * language, an application is a complete and possibly multilanguage system.<br>
+ * <br>
+ * The collections of {@link CFG}s, entrypoints and {@link CodeMember}s of all
+ * programs, as well as the index of code members by name, are computed the
+ * first time they are requested, or when {@link #computeIndexes()} is invoked.
+ * They are safely published, so that they can be requested concurrently:
+ * concurrent requests might compute them more than once, but always observe
+ * complete collections. Since they reflect the programs at the moment they are
+ * computed, {@link #computeIndexes()} must be invoked if the programs are
+ * modified afterwards.
  * 
  * @author <a href="mailto:luca.negrini@unive.it">Luca Negrini</a>
  */
@@ -16,11 +28,13 @@ public class Application {
 
 	private final Program[] programs;
 
-	private Collection<CodeMember> members;
+	private volatile Collection<CodeMember> members;
 
-	private Collection<CFG> cfgs;
+	private volatile Collection<CFG> cfgs;
 
-	private Collection<CFG> entrypoints;
+	private volatile Collection<CFG> entrypoints;
+
+	private volatile Map<String, Collection<CodeMember>> membersByName;
 
 	/**
 	 * Builds the application.
@@ -40,6 +54,21 @@ public class Application {
 		return programs;
 	}
 
+	/**
+	 * (Re)computes all the collections and indexes of this application that are
+	 * otherwise lazily computed, discarding the ones computed before. This is
+	 * invoked by LiSA once all programs have been finalized, and must be
+	 * invoked whenever programs are modified after one of the collections has
+	 * been computed.
+	 */
+	public void computeIndexes() {
+		cfgs = collectCFGs();
+		entrypoints = collectEntryPoints();
+		Collection<CodeMember> members = collectCodeMembers();
+		this.members = members;
+		membersByName = indexByName(members);
+	}
+
 	/**
 	 * Yields the lazily computed collection of all {@link CFG}s defined in all
 	 * {@link Program}s of this application.
@@ -47,13 +76,16 @@ public class Application {
 	 * @return the cfgs
 	 */
 	public Collection<CFG> getAllCFGs() {
-		if (cfgs != null)
-			return cfgs;
+		Collection<CFG> cfgs = this.cfgs;
+		if (cfgs == null)
+			this.cfgs = cfgs = collectCFGs();
+		return cfgs;
+	}
 
-		cfgs = new HashSet<>();
+	private Collection<CFG> collectCFGs() {
+		Collection<CFG> cfgs = new HashSet<>();
 		for (Program p : programs)
 			cfgs.addAll(p.getAllCFGs());
-
 		return cfgs;
 	}
 
@@ -64,13 +96,16 @@ public class Application {
 	 * @return the entrypoints
 	 */
 	public Collection<CFG> getEntryPoints() {
-		if (entrypoints != null)
-			return entrypoints;
+		Collection<CFG> entrypoints = this.entrypoints;
+		if (entrypoints == null)
+			this.entrypoints = entrypoints = collectEntryPoints();
+		return entrypoints;
+	}
 
-		entrypoints = new HashSet<>();
+	private Collection<CFG> collectEntryPoints() {
+		Collection<CFG> entrypoints = new HashSet<>();
 		for (Program p : programs)
 			entrypoints.addAll(p.getEntryPoints());
-
 		return entrypoints;
 	}
 
@@ -81,13 +116,40 @@ public class Application {
 	 * @return the code members
 	 */
 	public Collection<CodeMember> getAllCodeCodeMembers() {
-		if (members != null)
-			return members;
+		Collection<CodeMember> members = this.members;
+		if (members == null)
+			this.members = members = collectCodeMembers();
+		return members;
+	}
 
-		members = new HashSet<>();
+	private Collection<CodeMember> collectCodeMembers() {
+		Collection<CodeMember> members = new HashSet<>();
 		for (Program p : programs)
 			members.addAll(p.getCodeMembersRecursively());
-
 		return members;
 	}
+
+	/**
+	 * Yields the {@link CodeMember}s defined in all {@link Program}s of this
+	 * application whose name is {@code name}. The members are indexed by name
+	 * the first time this method is invoked, making subsequent lookups
+	 * independent from the number of members of this application.
+	 * 
+	 * @param name the name of the code members
+	 * 
+	 * @return the code members with the given name
+	 */
+	public Collection<CodeMember> getCodeMembersNamed(String name) {
+		Map<String, Collection<CodeMember>> index = membersByName;
+		if (index == null)
+			membersByName = index = indexByName(getAllCodeCodeMembers());
+		return index.getOrDefault(name, Collections.emptySet());
+	}
+
+	private static Map<String, Collection<CodeMember>> indexByName(Collection<CodeMember> members) {
+		Map<String, Collection<CodeMember>> index = new HashMap<>();
+		for (CodeMember cm : members)
+			index.computeIfAbsent(cm.getDescriptor().getName(), k -> new HashSet<>()).add(cm);
+		return index;
+	}
 }
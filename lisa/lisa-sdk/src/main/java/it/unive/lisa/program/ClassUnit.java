@@ -76,6 +76,7 @@ public class ClassUnit extends CompilationUnit {
 	 *             result of the call
 	 */
 	public final boolean addSuperclass(ClassUnit unit) {
+		invalidateHierarchy();
 		return superclasses.add(unit);
 	}
 
@@ -88,15 +89,10 @@ public class ClassUnit extends CompilationUnit {
 	 *             of the call
 	 */
 	public final boolean addInterface(InterfaceUnit unit) {
+		invalidateHierarchy();
 		return interfaces.add(unit);
 	}
 
-	@Override
-	public boolean isInstanceOf(CompilationUnit unit) {
-		return this == unit || unit.instances.contains(this)
-				|| getImmediateAncestors().stream().anyMatch(u -> u.isInstanceOf(unit));
-	}
-
 	@Override
 	public void addInstance(Unit unit) throws ProgramValidationException {
 		if (superclasses.contains(unit) || interfaces.contains(unit))
@@ -118,6 +114,7 @@ public class ClassUnit extends CompilationUnit {
 
 	@Override
 	public boolean addAncestor(CompilationUnit unit) {
+		invalidateHierarchy();
 		if (unit instanceof ClassUnit)
 			return superclasses.add((ClassUnit) unit);
 		else
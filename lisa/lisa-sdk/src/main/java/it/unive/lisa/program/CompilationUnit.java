@@ -9,10 +9,13 @@ import it.unive.lisa.program.cfg.CodeMember;
 import it.unive.lisa.program.cfg.CodeMemberDescriptor;
 import it.unive.lisa.program.cfg.NativeCFG;
 import it.unive.lisa.program.language.validation.ProgramValidationLogic;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Map;
+import java.util.Set;
 import java.util.TreeMap;
 import java.util.function.Predicate;
 
@@ -23,6 +26,20 @@ import java.util.function.Predicate;
  */
 public abstract class CompilationUnit extends ProgramUnit {
 
+	/**
+	 * A dense id that uniquely identifies this unit among the ones of its
+	 * program, used as index in the ancestor sets of {@link Hierarchy}, or
+	 * {@code -1} if it has not been assigned yet
+	 */
+	private volatile int id = -1;
+
+	/**
+	 * The closure of the hierarchy of this unit, computed by
+	 * {@link #finalizeHierarchy()} and discarded whenever the hierarchy of this
+	 * unit or of one of its ancestors changes
+	 */
+	private volatile Hierarchy hierarchy;
+
 	/**
 	 * The instance globals defined in this unit, indexed by
 	 * {@link Global#getName()}
@@ -253,13 +270,87 @@ public abstract class CompilationUnit extends ProgramUnit {
 	 * one. This method works correctly even if
 	 * {@link ProgramValidationLogic#validateAndFinalize(Program)} has not been
 	 * invoked yet, and thus the if collection of instances of the given unit is
-	 * not yet available.
+	 * not yet available. After {@link #finalizeHierarchy()} has been invoked,
+	 * this is a constant-time lookup.
 	 * 
 	 * @param unit the other unit
 	 * 
 	 * @return {@code true} only if that condition holds
 	 */
-	public abstract boolean isInstanceOf(CompilationUnit unit);
+	public boolean isInstanceOf(CompilationUnit unit) {
+		Hierarchy h = hierarchy;
+		if (h != null) {
+			BitSet ancestors = h.ancestors.get(unit.getProgram());
+			return ancestors != null && ancestors.get(unit.getId());
+		}
+
+		return this == unit || unit.instances.contains(this)
+				|| getImmediateAncestors().stream().anyMatch(u -> u.isInstanceOf(unit));
+	}
+
+	/**
+	 * Computes the closure of the hierarchy of this unit, that is, the set of
+	 * its (direct and indirect) ancestors and the collection of all the
+	 * instance code members defined in them. These are then used by
+	 * {@link #isInstanceOf(CompilationUnit)} and by
+	 * {@link #searchCodeMembers(Predicate, boolean)} to avoid traversing the
+	 * hierarchy. This method is invoked by
+	 * {@link ProgramValidationLogic#validateAndFinalize(Program)} once this
+	 * unit has been validated. The closure is discarded if ancestors or
+	 * instance code members are added to this unit or to one of its ancestors
+	 * afterwards, until this method is invoked again.
+	 */
+	public void finalizeHierarchy() {
+		hierarchy = computeHierarchy();
+	}
+
+	private Hierarchy computeHierarchy() {
+		Hierarchy h = hierarchy;
+		if (h != null)
+			return h;
+
+		// ids are dense only among the units of the same program
+		Map<Program, BitSet> ancestors = new IdentityHashMap<>();
+		ancestors.computeIfAbsent(getProgram(), p -> new BitSet()).set(getId());
+		Collection<CodeMember> members = new HashSet<>(instanceCodeMembers.values());
+		for (CompilationUnit cu : getImmediateAncestors()) {
+			Hierarchy sup = cu.computeHierarchy();
+			sup.ancestors.forEach((p, ids) -> ancestors.computeIfAbsent(p, k -> new BitSet()).or(ids));
+			members.addAll(sup.members);
+		}
+		return new Hierarchy(ancestors, members);
+	}
+
+	/**
+	 * Yields the id of this unit, that is dense among the compilation units of
+	 * its program. Ids are assigned by {@link Program#addUnit(Unit)} in the
+	 * order units are added, and lazily to units that are not added to their
+	 * program.
+	 * 
+	 * @return the id of this unit
+	 */
+	int getId() {
+		int current = id;
+		if (current < 0)
+			synchronized (this) {
+				current = id;
+				if (current < 0)
+					id = current = getProgram().nextUnitId();
+			}
+		return current;
+	}
+
+	/**
+	 * Discards the closure of the hierarchy of this unit and of all its
+	 * instances. This should be invoked whenever the hierarchy of this unit
+	 * changes.
+	 */
+	protected void invalidateHierarchy() {
+		hierarchy = null;
+		for (Unit instance : instances)
+			if (instance instanceof CompilationUnit)
+				((CompilationUnit) instance).hierarchy = null;
+	}
 
 	/**
 	 * Searches among instance code members, returning a collection containing
@@ -279,6 +370,23 @@ public abstract class CompilationUnit extends ProgramUnit {
 			boolean traverseHierarchy) {
 		Collection<T> result = new HashSet<>();
 
+		Hierarchy h = hierarchy;
+		if (traverseHierarchy && h != null) {
+			Set<CodeMember> matching = new HashSet<>();
+			for (CodeMember member : h.members)
+				if (filter.test(member))
+					matching.add(member);
+
+			for (CodeMember member : matching)
+				if (member.getDescriptor().overriddenBy().stream().noneMatch(matching::contains))
+					// we skip the ones that are overridden by matching code
+					// members of the hierarchy, since they are "hidden" from
+					// the point of view of this unit
+					result.add((T) member);
+
+			return result;
+		}
+
 		for (CodeMember member : instanceCodeMembers.values())
 			if (filter.test(member))
 				result.add((T) member);
@@ -358,6 +466,8 @@ public abstract class CompilationUnit extends ProgramUnit {
 	 */
 	public boolean addInstanceCodeMember(CodeMember cm) {
 		CodeMember c = instanceCodeMembers.putIfAbsent(cm.getDescriptor().getSignature(), cm);
+		if (c == null)
+			invalidateHierarchy();
 		if (sealed)
 			if (c == null)
 				cm.getDescriptor().setOverridable(false);
@@ -433,4 +543,27 @@ public abstract class CompilationUnit extends ProgramUnit {
 			boolean traverseHierarchy) {
 		return searchCodeMembers(cm -> cm.getDescriptor().matchesSignature(signature), traverseHierarchy);
 	}
+
+	/**
+	 * The closure of the hierarchy of a unit.
+	 */
+	private static class Hierarchy {
+
+		/**
+		 * The ids of the unit and of all its ancestors, grouped by the program
+		 * defining them
+		 */
+		private final Map<Program, BitSet> ancestors;
+
+		/**
+		 * The instance code members defined in the unit and in all its
+		 * ancestors
+		 */
+		private final Collection<CodeMember> members;
+
+		private Hierarchy(Map<Program, BitSet> ancestors, Collection<CodeMember> members) {
+			this.ancestors = ancestors;
+			this.members = members;
+		}
+	}
 }
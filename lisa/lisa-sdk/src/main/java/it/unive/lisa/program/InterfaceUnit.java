@@ -48,6 +48,7 @@ public class InterfaceUnit extends CompilationUnit {
 	 * @return {@code true} only if the list has changed
 	 */
 	public boolean addSuperinterface(InterfaceUnit unit) {
+		invalidateHierarchy();
 		return superinterfaces.add(unit);
 	}
 
@@ -67,14 +68,9 @@ public class InterfaceUnit extends CompilationUnit {
 			sup.addInstance(unit);
 	}
 
-	@Override
-	public boolean isInstanceOf(CompilationUnit unit) {
-		return this == unit || unit.instances.contains(this)
-				|| superinterfaces.stream().anyMatch(u -> u.isInstanceOf(unit));
-	}
-
 	@Override
 	public boolean addAncestor(CompilationUnit unit) {
+		invalidateHierarchy();
 		if (unit instanceof InterfaceUnit)
 			return superinterfaces.add((InterfaceUnit) unit);
 		else
@@ -8,6 +8,7 @@ import java.util.Collection;
 import java.util.LinkedList;
 import java.util.Map;
 import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 /**
@@ -45,6 +46,11 @@ public class Program extends Unit {
 	 */
 	private final TypeSystem types;
 
+	/**
+	 * The source of the ids of the compilation units of this program
+	 */
+	private final AtomicInteger unitIds;
+
 	/**
 	 * Builds an empty program.
 	 * 
@@ -59,6 +65,7 @@ public class Program extends Unit {
 		this.types = types;
 		units = new TreeMap<>();
 		entrypoints = new LinkedList<>();
+		unitIds = new AtomicInteger();
 	}
 
 	/**
@@ -97,7 +104,22 @@ public class Program extends Unit {
 	public final boolean addUnit(Unit unit) {
 		if (unit instanceof Program)
 			throw new IllegalArgumentException("Cannot add a program to another one");
-		return units.putIfAbsent(unit.getName(), unit) == null;
+		if (units.putIfAbsent(unit.getName(), unit) != null)
+			return false;
+		if (unit instanceof CompilationUnit)
+			// ids are assigned in order of addition
+			((CompilationUnit) unit).getId();
+		return true;
+	}
+
+	/**
+	 * Yields a new id for a {@link CompilationUnit} of this program. Ids are
+	 * dense among the units of a program.
+	 * 
+	 * @return the id
+	 */
+	int nextUnitId() {
+		return unitIds.getAndIncrement();
 	}
 
 	/**
@@ -1,6 +1,8 @@
 package it.unive.lisa.program.cfg;
 
+import it.unive.lisa.FixpointConfiguration;
 import it.unive.lisa.LiSAConfiguration.DescendingPhaseType;
+import it.unive.lisa.LiSAConfiguration.FixpointStrategy;
 import it.unive.lisa.analysis.AbstractState;
 import it.unive.lisa.analysis.AnalysisState;
 import it.unive.lisa.analysis.CFGWithAnalysisResults;
@@ -11,6 +13,8 @@ import it.unive.lisa.analysis.heap.HeapDomain;
 import it.unive.lisa.analysis.value.TypeDomain;
 import it.unive.lisa.analysis.value.ValueDomain;
 import it.unive.lisa.interprocedural.InterproceduralAnalysis;
+import it.unive.lisa.logging.FixpointProfile;
+import it.unive.lisa.logging.FixpointProfile.Operation;
 import it.unive.lisa.outputs.serializableGraph.SerializableCFG;
 import it.unive.lisa.outputs.serializableGraph.SerializableGraph;
 import it.unive.lisa.outputs.serializableGraph.SerializableValue;
@@ -24,24 +28,34 @@ import it.unive.lisa.program.cfg.edge.SequentialEdge;
 import it.unive.lisa.program.cfg.statement.Expression;
 import it.unive.lisa.program.cfg.statement.NoOp;
 import it.unive.lisa.program.cfg.statement.Statement;
+import it.unive.lisa.program.cfg.statement.StatementMap;
 import it.unive.lisa.program.cfg.statement.call.Call;
 import it.unive.lisa.symbolic.SymbolicExpression;
 import it.unive.lisa.symbolic.value.Identifier;
+import it.unive.lisa.symbolic.value.Variable;
 import it.unive.lisa.util.collections.workset.WorkingSet;
 import it.unive.lisa.util.datastructures.graph.AdjacencyMatrix;
+import it.unive.lisa.util.datastructures.graph.CompactGraph;
+import it.unive.lisa.util.datastructures.graph.GraphVisitor;
+import it.unive.lisa.util.datastructures.graph.algorithms.BasicBlocks;
 import it.unive.lisa.util.datastructures.graph.algorithms.Fixpoint;
 import it.unive.lisa.util.datastructures.graph.algorithms.Fixpoint.FixpointImplementation;
 import it.unive.lisa.util.datastructures.graph.algorithms.FixpointException;
+import it.unive.lisa.util.datastructures.graph.algorithms.WeakTopologicalOrder;
 import it.unive.lisa.util.datastructures.graph.code.CodeGraph;
 import it.unive.lisa.util.datastructures.graph.code.NodeList;
+import it.unive.lisa.util.datastructures.graph.code.NodeListBuilder;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
@@ -67,6 +81,12 @@ public class CFG extends CodeGraph<CFG, Statement, Edge> implements CodeMember {
 	 */
 	private final CodeMemberDescriptor descriptor;
 
+	/**
+	 * The cfg this one is a view of, owning the structures that are lazily
+	 * computed from the graph, or {@code null} if this cfg is not a view
+	 */
+	private final CFG original;
+
 	/**
 	 * The control flow structures of this cfg
 	 */
@@ -76,7 +96,41 @@ public class CFG extends CodeGraph<CFG, Statement, Edge> implements CodeMember {
 	 * Whether or not an attempt at extracting control flow structures from the
 	 * cfg has already been performed
 	 */
-	private boolean cfsExtracted;
+	private volatile boolean cfsExtracted;
+
+	/**
+	 * The weak topological order of the statements reachable from the
+	 * entrypoints of this cfg, lazily computed and discarded whenever the
+	 * structure of the cfg changes
+	 */
+	private volatile WeakTopologicalOrder<CFG, Statement, Edge> wto;
+
+	/**
+	 * The basic blocks of this cfg, lazily computed and discarded whenever the
+	 * structure of the cfg changes
+	 */
+	private volatile BasicBlocks<CFG, Statement, Edge> blocks;
+
+	/**
+	 * The {@link CompactGraph} snapshot of this cfg, lazily computed and
+	 * discarded whenever the structure of the cfg changes
+	 */
+	private volatile CompactGraph<CFG, Statement, Edge> compact;
+
+	/**
+	 * The index of the variables of this cfg by their scope bounds, lazily
+	 * computed and discarded whenever the structure of the cfg changes (since
+	 * frontends move scope bounds to the statements they add) or new variables
+	 * are added to its descriptor, and kept up to date while shifting scopes
+	 * during simplifications
+	 */
+	private volatile VariableScopes scopes;
+
+	/**
+	 * The number of times nodes, edges or entrypoints have been added to this
+	 * cfg, or the cfg has been simplified
+	 */
+	private final AtomicInteger modifications = new AtomicInteger();
 
 	/**
 	 * Builds the control flow graph.
@@ -86,6 +140,7 @@ public class CFG extends CodeGraph<CFG, Statement, Edge> implements CodeMember {
 	public CFG(CodeMemberDescriptor descriptor) {
 		super(new SequentialEdge());
 		this.descriptor = descriptor;
+		this.original = null;
 		this.cfStructs = new LinkedList<>();
 		this.cfsExtracted = false;
 	}
@@ -103,18 +158,25 @@ public class CFG extends CodeGraph<CFG, Statement, Edge> implements CodeMember {
 			NodeList<CFG, Statement, Edge> list) {
 		super(entrypoints, list);
 		this.descriptor = descriptor;
+		this.original = null;
 		this.cfStructs = new LinkedList<>();
 		this.cfsExtracted = false;
 	}
 
 	/**
-	 * Clones the given control flow graph.
+	 * Builds a view of the given control flow graph. The view does not copy
+	 * {@code other}: it shares its statements, edges and control flow
+	 * structures, as well as the ones that are lazily computed from them (e.g.,
+	 * the {@link #getWeakTopologicalOrder() weak topological order}), that are
+	 * thus computed at most once regardless of the number of views. Building a
+	 * view of a view yields a view of the original cfg.
 	 * 
 	 * @param other the original cfg
 	 */
 	public CFG(CFG other) {
 		super(other.entrypoints, other.list);
 		this.descriptor = other.descriptor;
+		this.original = other.original == null ? other : other.original;
 		this.cfStructs = other.cfStructs;
 		this.cfsExtracted = other.cfsExtracted;
 	}
@@ -185,14 +247,153 @@ public class CFG extends CodeGraph<CFG, Statement, Edge> implements CodeMember {
 	 *             control flow structures of this method
 	 */
 	public Collection<ControlFlowStructure> getControlFlowStructures() {
-		if (cfStructs.isEmpty() && !cfsExtracted) {
-			new ControlFlowExtractor(this).extract().forEach(cfStructs::add);
-			cfsExtracted = true;
-		}
+		extractControlFlowStructures();
 
 		return cfStructs;
 	}
 
+	private void extractControlFlowStructures() {
+		if (original != null) {
+			// the structures are shared, but their extraction is tracked by
+			// the original cfg
+			original.extractControlFlowStructures();
+			return;
+		}
+
+		// synchronized since cfgs can be analyzed by several threads at once
+		synchronized (this) {
+			if (cfStructs.isEmpty() && !cfsExtracted) {
+				new ControlFlowExtractor(this).extract().forEach(cfStructs::add);
+				cfsExtracted = true;
+			}
+		}
+	}
+
+	/**
+	 * Yields the {@link WeakTopologicalOrder} of the statements of this cfg
+	 * that are reachable from its entrypoints. The order is computed once and
+	 * cached until nodes or edges are added to this cfg, or until it gets
+	 * simplified.
+	 * 
+	 * @return the weak topological order of this cfg
+	 */
+	public WeakTopologicalOrder<CFG, Statement, Edge> getWeakTopologicalOrder() {
+		if (original != null)
+			return original.getWeakTopologicalOrder();
+		if (wto == null)
+			wto = new WeakTopologicalOrder<>(this, entrypoints);
+		return wto;
+	}
+
+	private WeakTopologicalOrder<CFG, Statement, Edge> getWeakTopologicalOrder(Collection<Statement> roots) {
+		if (entrypoints.containsAll(roots))
+			return getWeakTopologicalOrder();
+		// custom starting points not reachable from the entrypoints
+		return new WeakTopologicalOrder<>(this, roots);
+	}
+
+	/**
+	 * Yields the {@link BasicBlocks} of this cfg, that is, its maximal
+	 * sequences of statements with a single entry and a single exit. Each
+	 * entrypoint of this cfg starts a new block. The blocks are computed once
+	 * and cached until nodes or edges are added to this cfg, or until it gets
+	 * simplified.
+	 * 
+	 * @return the basic blocks of this cfg
+	 */
+	public BasicBlocks<CFG, Statement, Edge> getBasicBlocks() {
+		if (original != null)
+			return original.getBasicBlocks();
+		if (blocks == null)
+			blocks = new BasicBlocks<>(this, entrypoints);
+		return blocks;
+	}
+
+	private BasicBlocks<CFG, Statement, Edge> getBasicBlocks(Collection<Statement> roots) {
+		if (entrypoints.containsAll(roots))
+			return getBasicBlocks();
+		// custom starting points that might be in the middle of a block
+		return new BasicBlocks<>(this, roots);
+	}
+
+	/**
+	 * Yields the {@link CompactGraph} snapshot of this cfg, used to traverse it
+	 * during fixpoint computations and structural analyses. The snapshot is
+	 * computed once, usually when the cfg gets finalized, and cached until
+	 * nodes or edges are added to this cfg, or until it gets simplified.
+	 * 
+	 * @return the snapshot of this cfg
+	 */
+	public CompactGraph<CFG, Statement, Edge> getCompactGraph() {
+		if (original != null)
+			return original.getCompactGraph();
+		CompactGraph<CFG, Statement, Edge> result = compact;
+		if (result == null)
+			compact = result = new CompactGraph<>(this);
+		return result;
+	}
+
+	/**
+	 * Yields the number of times the structure of this cfg (or of the cfg it is
+	 * a view of) changed, that is, the number of times nodes, edges or
+	 * entrypoints have been added to it or it has been simplified. Information
+	 * computed from the graph outside of this class (e.g., by the views of this
+	 * cfg) can store this number to detect when it becomes outdated.
+	 * 
+	 * @return the number of structural changes of this cfg
+	 */
+	public int getModificationCount() {
+		return (original == null ? this : original).modifications.get();
+	}
+
+	/**
+	 * Discards all the information cached on the structure of this cfg (or of
+	 * the cfg it is a view of), and records that the structure changed. This
+	 * must be invoked by every method that adds or removes nodes, edges or
+	 * entrypoints.
+	 */
+	private void structureChanged() {
+		CFG owner = original == null ? this : original;
+		owner.wto = null;
+		owner.blocks = null;
+		owner.compact = null;
+		owner.scopes = null;
+		owner.modifications.incrementAndGet();
+	}
+
+	@Override
+	public void addNode(Statement node, boolean entrypoint) {
+		super.addNode(node, entrypoint);
+		structureChanged();
+	}
+
+	@Override
+	public void addEdge(Edge edge) {
+		super.addEdge(edge);
+		structureChanged();
+	}
+
+	@Override
+	public void addAll(NodeListBuilder<CFG, Statement, Edge> builder) throws ProgramValidationException {
+		try {
+			super.addAll(builder);
+		} finally {
+			// the graph might have been partially modified before failing
+			structureChanged();
+		}
+	}
+
+	@Override
+	public Set<Statement> simplify(Class<? extends Statement> target, Collection<Edge> removedEdges,
+			Map<Pair<Edge, Edge>, Edge> replacedEdges) {
+		try {
+			return super.simplify(target, removedEdges, replacedEdges);
+		} finally {
+			// the graph might have been partially simplified before failing
+			structureChanged();
+		}
+	}
+
 	@Override
 	public String toString() {
 		return descriptor.toString();
@@ -490,38 +691,486 @@ public class CFG extends CodeGraph<CFG, Statement, Edge> implements CodeMember {
 					int widenAfter,
 					DescendingPhaseType descendingPhase,
 					int descendingGlbThreshold) throws FixpointException {
+		return fixpoint(singleton, startingPoints, interprocedural, ws,
+				new FixpointConfiguration(widenAfter, descendingPhase, descendingGlbThreshold,
+						FixpointStrategy.WORKLIST));
+	}
+
+	/**
+	 * Computes a fixpoint over this control flow graph. This method returns a
+	 * {@link CFGWithAnalysisResults} instance mapping each {@link Statement} to
+	 * the {@link AnalysisState} computed by this method. The computation starts
+	 * at the statements returned by {@link #getEntrypoints()}, using
+	 * {@code entryState} as entry state for all of them.
+	 * {@code interprocedural} will be invoked to get the approximation of all
+	 * invoked cfgs, while {@code ws} is used as working set for the statements
+	 * to process if {@link FixpointConfiguration#fixpointStrategy} is
+	 * {@link FixpointStrategy#WORKLIST}.
+	 * 
+	 * @param <A>             the type of {@link AbstractState} contained into
+	 *                            the analysis state
+	 * @param <H>             the type of {@link HeapDomain} contained into the
+	 *                            computed abstract state
+	 * @param <V>             the type of {@link ValueDomain} contained into the
+	 *                            computed abstract state
+	 * @param <T>             the type of {@link TypeDomain} contained into the
+	 *                            computed abstract state
+	 * @param entryState      the entry states to apply to each
+	 *                            {@link Statement} returned by
+	 *                            {@link #getEntrypoints()}
+	 * @param interprocedural the interprocedural analysis that can be queried
+	 *                            when a call towards an other cfg is
+	 *                            encountered
+	 * @param ws              the {@link WorkingSet} instance to use for this
+	 *                            computation
+	 * @param conf            the {@link FixpointConfiguration} containing the
+	 *                            parameters tuning fixpoint behavior
+	 * 
+	 * @return a {@link CFGWithAnalysisResults} instance that is equivalent to
+	 *             this control flow graph, and that stores for each
+	 *             {@link Statement} the result of the fixpoint computation
+	 * 
+	 * @throws FixpointException if an error occurs during the semantic
+	 *                               computation of a statement, or if some
+	 *                               unknown/invalid statement ends up in the
+	 *                               working set
+	 */
+	public <A extends AbstractState<A, H, V, T>,
+			H extends HeapDomain<H>,
+			V extends ValueDomain<V>,
+			T extends TypeDomain<T>> CFGWithAnalysisResults<A, H, V, T> fixpoint(
+					AnalysisState<A, H, V, T> entryState,
+					InterproceduralAnalysis<A, H, V, T> interprocedural,
+					WorkingSet<Statement> ws,
+					FixpointConfiguration conf) throws FixpointException {
+		Map<Statement, AnalysisState<A, H, V, T>> start = new HashMap<>();
+		entrypoints.forEach(e -> start.put(e, entryState));
+		return fixpoint(entryState, start, interprocedural, ws, conf);
+	}
+
+	/**
+	 * Computes a fixpoint over this control flow graph. This method returns a
+	 * {@link CFGWithAnalysisResults} instance mapping each {@link Statement} to
+	 * the {@link AnalysisState} computed by this method. The computation starts
+	 * at the statements in {@code startingPoints}, using as its entry state
+	 * their respective value. {@code interprocedural} will be invoked to get
+	 * the approximation of all invoked cfgs.<br>
+	 * <br>
+	 * Statements are processed according to
+	 * {@link FixpointConfiguration#fixpointStrategy}:
+	 * <ul>
+	 * <li>with {@link FixpointStrategy#WORKLIST}, {@code ws} is used as working
+	 * set for the statements to process, and the computation uses
+	 * {@link Lattice#lub(Lattice)} to compose results obtained at different
+	 * iterations, up to {@code wideningThreshold * predecessors_number} times,
+	 * where {@code predecessors_number} is the number of expressions that are
+	 * predecessors of the one being processed, and
+	 * {@link Lattice#widening(Lattice)} afterwards;</li>
+	 * <li>with {@link FixpointStrategy#WTO}, statements are processed following
+	 * the {@link #getWeakTopologicalOrder() weak topological order} of this
+	 * cfg, and results of different iterations are composed only at the heads
+	 * of loops, using {@link Lattice#lub(Lattice)} for
+	 * {@code wideningThreshold} iterations and
+	 * {@link Lattice#widening(Lattice)} afterwards;</li>
+	 * <li>with {@link FixpointStrategy#BASIC_BLOCKS}, {@code ws} is used as
+	 * working set for the {@link #getBasicBlocks() basic blocks} to process,
+	 * each processed in one step, and results of different iterations are
+	 * composed as in {@link FixpointStrategy#WORKLIST}, but only at the first
+	 * statement of each block.</li>
+	 * </ul>
+	 * If {@link FixpointConfiguration#descendingPhaseType} is not
+	 * {@link DescendingPhaseType#NONE}, a descending phase follows, starting
+	 * from the statements where {@link Lattice#widening(Lattice)} has been
+	 * applied and reaching only the statements whose results change. This phase
+	 * uses {@code ws} also with {@link FixpointStrategy#WTO}.<br>
+	 * <br>
+	 * The computation is bounded by
+	 * {@link FixpointConfiguration#iterationBudget},
+	 * {@link FixpointConfiguration#timeBudget}, and
+	 * {@link FixpointConfiguration#deadline}: once the iteration budget is
+	 * exhausted, {@link Lattice#widening(Lattice)} is used at every join, while
+	 * once the time budget is exhausted or the deadline has passed, joined
+	 * results are also given a top {@link HeapDomain} and {@link ValueDomain}.
+	 * In both cases, the descending phase is skipped and the returned results
+	 * are marked as {@link CFGWithAnalysisResults#isOverBudget() over budget}.
+	 * If {@link FixpointConfiguration#profile} is not {@code null}, the
+	 * evaluations of each statement and the time spent in the operations
+	 * involving it are recorded there: the {@link Fixpoint} algorithm records
+	 * evaluations and the time spent computing semantics and traversing edges,
+	 * while the lattice operations are recorded by this cfg, that is the only
+	 * one knowing whether a join is a lub or a widening.
+	 * 
+	 * @param <A>             the type of {@link AbstractState} contained into
+	 *                            the analysis state
+	 * @param <H>             the type of {@link HeapDomain} contained into the
+	 *                            computed abstract state
+	 * @param <V>             the type of {@link ValueDomain} contained into the
+	 *                            computed abstract state
+	 * @param <T>             the type of {@link TypeDomain} contained into the
+	 *                            computed abstract state
+	 * @param singleton       an instance of the {@link AnalysisState}
+	 *                            containing the abstract state of the analysis
+	 *                            to run, used to retrieve top and bottom values
+	 * @param startingPoints  a map between {@link Statement}s that to use as a
+	 *                            starting point of the computation (that must
+	 *                            be nodes of this cfg) and the entry states to
+	 *                            apply on it
+	 * @param interprocedural the callgraph that can be queried when a call
+	 *                            towards an other cfg is encountered
+	 * @param ws              the {@link WorkingSet} instance to use for this
+	 *                            computation
+	 * @param conf            the {@link FixpointConfiguration} containing the
+	 *                            parameters tuning fixpoint behavior
+	 * 
+	 * @return a {@link CFGWithAnalysisResults} instance that is equivalent to
+	 *             this control flow graph, and that stores for each
+	 *             {@link Statement} the result of the fixpoint computation
+	 * 
+	 * @throws FixpointException if an error occurs during the semantic
+	 *                               computation of a statement, or if some
+	 *                               unknown/invalid statement ends up in the
+	 *                               working set
+	 */
+	public <A extends AbstractState<A, H, V, T>,
+			H extends HeapDomain<H>,
+			V extends ValueDomain<V>,
+			T extends TypeDomain<T>> CFGWithAnalysisResults<A, H, V, T> fixpoint(
+					AnalysisState<A, H, V, T> singleton,
+					Map<Statement, AnalysisState<A, H, V, T>> startingPoints,
+					InterproceduralAnalysis<A, H, V, T> interprocedural,
+					WorkingSet<Statement> ws,
+					FixpointConfiguration conf) throws FixpointException {
+		boolean wto = conf.fixpointStrategy == FixpointStrategy.WTO;
+		boolean bb = conf.fixpointStrategy == FixpointStrategy.BASIC_BLOCKS;
+		WeakTopologicalOrder<CFG, Statement, Edge> order = wto ? getWeakTopologicalOrder(startingPoints.keySet())
+				: null;
+		BasicBlocks<CFG, Statement, Edge> bbs = bb ? getBasicBlocks(startingPoints.keySet()) : null;
 
 		Fixpoint<CFG, Statement, Edge,
-				Pair<AnalysisState<A, H, V, T>, StatementStore<A, H, V, T>>> fix = new Fixpoint<>(this);
-		Map<Statement, Pair<AnalysisState<A, H, V, T>, StatementStore<A, H, V, T>>> starting = new HashMap<>();
+				Pair<AnalysisState<A, H, V, T>, StatementStore<A, H, V, T>>> fix = new Fixpoint<>(this,
+						getCompactGraph(), conf.profile == null ? null : conf.profile.profilerOf(this));
+		Map<Statement, Pair<AnalysisState<A, H, V, T>, StatementStore<A, H, V, T>>> starting = new StatementMap<>();
 		startingPoints.forEach((st, state) -> starting.put(st, Pair.of(state, new StatementStore<>(state.bottom()))));
-		Map<Statement, Pair<AnalysisState<A, H, V, T>, StatementStore<A, H, V, T>>> ascendingResult = fix.fixpoint(
-				starting,
-				ws,
-				new CFGFixpoint<>(widenAfter, interprocedural, DescendingPhaseType.NONE));
+		// statements are keyed by offset, avoiding to hash them
+		int ids = list.getOffsetsCount();
+		FixpointBudget budget = new FixpointBudget(conf);
+		CFGFixpoint<A, H, V, T> ascending = new CFGFixpoint<>(conf.wideningThreshold, interprocedural,
+				DescendingPhaseType.NONE, wto, budget, conf.profile);
+		Map<Statement, Pair<AnalysisState<A, H, V, T>, StatementStore<A, H, V, T>>> ascendingResult;
+		if (wto)
+			ascendingResult = fix.recursiveFixpoint(starting, order, ascending, new StatementMap<>(ids));
+		else if (bb)
+			ascendingResult = fix.blockFixpoint(starting, bbs, ws, ascending, new StatementMap<>(ids));
+		else
+			ascendingResult = fix.fixpoint(starting, ws, ascending, new StatementMap<>(ids));
 
 		Map<Statement, Pair<AnalysisState<A, H, V, T>, StatementStore<A, H, V, T>>> fixpoint;
 
-		if (descendingPhase != DescendingPhaseType.NONE) {
-			this.getNodeList().forEach(ws::push);
+		if (conf.descendingPhaseType != DescendingPhaseType.NONE && !ascending.widened.isEmpty()
+				&& !budget.isExceeded()) {
 			starting.clear();
 			startingPoints.forEach((st, state) -> starting.put(st, ascendingResult.get(st)));
 
-			fixpoint = fix.fixpoint(starting,
-					ws,
-					new CFGFixpoint<>(descendingGlbThreshold, interprocedural, descendingPhase),
-					ascendingResult);
+			// results can be refined only where widening introduced an
+			// over-approximation: we start from there, and the fixpoint will
+			// propagate the refined states only where they change
+			CFGFixpoint<A, H, V, T> descending = new CFGFixpoint<>(conf.glbThreshold, interprocedural,
+					conf.descendingPhaseType, wto, budget, conf.profile);
+			ascending.widened.forEach(ws::push);
+			if (bb)
+				fixpoint = fix.blockFixpoint(starting, bbs, ws, descending, ascendingResult);
+			else
+				fixpoint = fix.fixpoint(starting, ws, descending, ascendingResult);
 		} else
 			fixpoint = ascendingResult;
 
-		HashMap<Statement, AnalysisState<A, H, V, T>> finalResults = new HashMap<>(fixpoint.size());
+		if (budget.isExceeded()) {
+			LOG.warn("Fixpoint over '{}' exceeded its {} budget after {} iterations: results are over-approximated",
+					this, budget.expired ? "time" : "iteration", budget.iterations);
+		}
+
+		Map<Statement, AnalysisState<A, H, V, T>> finalResults = new StatementMap<>(ids);
 		for (Entry<Statement, Pair<AnalysisState<A, H, V, T>, StatementStore<A, H, V, T>>> e : fixpoint.entrySet()) {
-			finalResults.put(e.getKey(), e.getValue().getLeft());
+			Statement st = e.getKey();
+			if (conf.sparseResults && !isSparseAnchor(st))
+				continue;
+			finalResults.put(st, e.getValue().getLeft());
+			if (conf.sparseResults && !containsCall(st) && hasReplayableEntry(st))
+				// inner expressions can be recomputed without
+				// querying the interprocedural analysis
+				continue;
 			for (Entry<Statement, AnalysisState<A, H, V, T>> ee : e.getValue().getRight())
 				finalResults.put(ee.getKey(), ee.getValue());
 		}
 
-		return new CFGWithAnalysisResults<>(this, singleton, startingPoints, finalResults);
+		CFGWithAnalysisResults<A, H, V, T> result = new CFGWithAnalysisResults<>(this, singleton, startingPoints,
+				finalResults, conf.sparseResults ? interprocedural : null);
+		result.setOverBudget(budget.isExceeded());
+		return result;
+	}
+
+	/**
+	 * Yields whether or not the result of the given statement is always stored
+	 * when a fixpoint is computed with
+	 * {@link FixpointConfiguration#sparseResults} set. This holds for
+	 * entrypoints, for statements that do not have exactly one predecessor
+	 * (i.e., join points and loop heads), for statements that end the execution
+	 * of this cfg, and for statements containing calls. The results of all
+	 * other statements can be recomputed by replaying the semantics of the
+	 * statements that precede them, up to the first one where this method
+	 * holds, without querying the interprocedural analysis.
+	 * 
+	 * @param st the statement
+	 * 
+	 * @return {@code true} if the result of the statement is always stored
+	 */
+	protected boolean isSparseAnchor(Statement st) {
+		return entrypoints.contains(st)
+				|| predecessorsOf(st).size() != 1
+				|| st.stopsExecution()
+				|| st.throwsError()
+				|| containsCall(st);
+	}
+
+	/**
+	 * Yields whether or not the entry state of the given statement can be
+	 * recomputed by replaying the results of its stored predecessors, that is,
+	 * if it is an entrypoint without predecessors or if it has exactly one
+	 * predecessor. Otherwise, the results of its inner expressions are always
+	 * stored when a fixpoint is computed with
+	 * {@link FixpointConfiguration#sparseResults} set.
+	 */
+	private boolean hasReplayableEntry(Statement st) {
+		int preds = predecessorsOf(st).size();
+		return entrypoints.contains(st) ? preds == 0 : preds == 1;
+	}
+
+	private static boolean containsCall(Statement st) {
+		CallFinder finder = new CallFinder();
+		st.accept(finder, null);
+		return finder.found;
+	}
+
+	private static class CallFinder implements GraphVisitor<CFG, Statement, Edge, Void> {
+
+		private boolean found = false;
+
+		@Override
+		public boolean visit(Void tool, CFG graph) {
+			return true;
+		}
+
+		@Override
+		public boolean visit(Void tool, CFG graph, Statement node) {
+			found |= node instanceof Call;
+			// no need to continue the visit if a call was found
+			return !found;
+		}
+
+		@Override
+		public boolean visit(Void tool, CFG graph, Edge edge) {
+			return true;
+		}
+	}
+
+	/**
+	 * Computes the semantics of the given statement as done during fixpoint
+	 * computations, forgetting the meta variables of the statement after it has
+	 * been evaluated.
+	 * 
+	 * @param <A>             the type of {@link AbstractState} contained into
+	 *                            the analysis state
+	 * @param <H>             the type of {@link HeapDomain} contained into the
+	 *                            computed abstract state
+	 * @param <V>             the type of {@link ValueDomain} contained into the
+	 *                            computed abstract state
+	 * @param <T>             the type of {@link TypeDomain} contained into the
+	 *                            computed abstract state
+	 * @param node            the statement to evaluate
+	 * @param entrystate      the state before the statement
+	 * @param interprocedural the interprocedural analysis that can be queried
+	 *                            when a call towards an other cfg is
+	 *                            encountered
+	 * @param expressions     the cache where analysis states of intermediate
+	 *                            expressions are stored
+	 * 
+	 * @return the state after the statement
+	 * 
+	 * @throws SemanticException if something goes wrong during the computation
+	 */
+	protected <A extends AbstractState<A, H, V, T>,
+			H extends HeapDomain<H>,
+			V extends ValueDomain<V>,
+			T extends TypeDomain<T>> AnalysisState<A, H, V, T> semanticsOf(
+					Statement node,
+					AnalysisState<A, H, V, T> entrystate,
+					InterproceduralAnalysis<A, H, V, T> interprocedural,
+					StatementStore<A, H, V, T> expressions) throws SemanticException {
+		AnalysisState<A, H, V, T> approx = node.semantics(entrystate, interprocedural, expressions);
+		if (node instanceof Expression)
+			approx = approx.forgetIdentifiers(((Expression) node).getMetaVariables());
+		return approx;
+	}
+
+	/**
+	 * Computes the state obtained by traversing the given edge as done during
+	 * fixpoint computations, forgetting the variables whose scope ends at the
+	 * source of the edge.
+	 * 
+	 * @param <A>        the type of {@link AbstractState} contained into the
+	 *                       analysis state
+	 * @param <H>        the type of {@link HeapDomain} contained into the
+	 *                       computed abstract state
+	 * @param <V>        the type of {@link ValueDomain} contained into the
+	 *                       computed abstract state
+	 * @param <T>        the type of {@link TypeDomain} contained into the
+	 *                       computed abstract state
+	 * @param edge       the edge to traverse
+	 * @param entrystate the state after the source of the edge
+	 * 
+	 * @return the state before the destination of the edge
+	 * 
+	 * @throws SemanticException if something goes wrong during the computation
+	 */
+	protected <A extends AbstractState<A, H, V, T>,
+			H extends HeapDomain<H>,
+			V extends ValueDomain<V>,
+			T extends TypeDomain<T>> AnalysisState<A, H, V, T> traverse(
+					Edge edge,
+					AnalysisState<A, H, V, T> entrystate) throws SemanticException {
+		AnalysisState<A, H, V, T> approx = edge.traverse(entrystate);
+
+		// we remove out of scope variables here
+		Collection<Variable> ending = getVariableScopes().variablesEndingAt(edge.getSource());
+		if (ending.isEmpty())
+			return approx;
+
+		Collection<Identifier> ids = new LinkedList<>();
+		for (Variable v : ending)
+			for (SymbolicExpression expr : approx.smallStepSemantics(v, edge.getSource()).getComputedExpressions())
+				ids.add((Identifier) expr);
+
+		if (!ids.isEmpty())
+			approx = approx.forgetIdentifiers(ids);
+
+		return approx;
+	}
+
+	private VariableScopes getVariableScopes() {
+		if (original != null)
+			return original.getVariableScopes();
+		VariableScopes current = scopes;
+		if (current == null || current.size != descriptor.getVariables().size())
+			scopes = current = new VariableScopes(this);
+		return current;
+	}
+
+	/**
+	 * An index of the {@link VariableTableEntry}s of a cfg by the statements
+	 * where their scope starts and ends. Statements are compared by identity,
+	 * as done when the scopes are shifted during simplifications. For each
+	 * statement ending the scope of some variables, the {@link Variable}s to
+	 * forget when leaving it are also computed once and cached.
+	 * 
+	 * @author <a href="mailto:luca.negrini@unive.it">Luca Negrini</a>
+	 */
+	private static class VariableScopes {
+
+		private final CFG cfg;
+
+		private final int size;
+
+		private final Map<Statement, List<VariableTableEntry>> starting;
+
+		private final Map<Statement, List<VariableTableEntry>> ending;
+
+		private final Map<Statement, Collection<Variable>> endingVariables;
+
+		private VariableScopes(CFG cfg) {
+			this.cfg = cfg;
+			this.starting = new IdentityHashMap<>();
+			this.ending = new IdentityHashMap<>();
+			this.endingVariables = new IdentityHashMap<>();
+			List<VariableTableEntry> variables = cfg.descriptor.getVariables();
+			this.size = variables.size();
+			for (VariableTableEntry entry : variables) {
+				if (entry.getScopeStart() != null)
+					starting.computeIfAbsent(entry.getScopeStart(), st -> new LinkedList<>()).add(entry);
+				if (entry.getScopeEnd() != null)
+					ending.computeIfAbsent(entry.getScopeEnd(), st -> new LinkedList<>()).add(entry);
+			}
+			ending.forEach(this::cacheVariables);
+		}
+
+		private void cacheVariables(Statement end, List<VariableTableEntry> entries) {
+			endingVariables.put(end, entries.stream().map(e -> e.createReference(cfg).getVariable())
+					.collect(Collectors.toList()));
+		}
+
+		private Collection<Variable> variablesEndingAt(Statement st) {
+			return endingVariables.getOrDefault(st, Collections.emptyList());
+		}
+
+		private List<VariableTableEntry> startingAt(Statement st) {
+			return starting.getOrDefault(st, Collections.emptyList());
+		}
+
+		private List<VariableTableEntry> endingAt(Statement st) {
+			return ending.getOrDefault(st, Collections.emptyList());
+		}
+
+		private void moveStart(Statement from, Statement to) {
+			List<VariableTableEntry> entries = starting.remove(from);
+			if (entries == null)
+				return;
+			entries.forEach(v -> v.setScopeStart(to));
+			if (to != null)
+				starting.computeIfAbsent(to, st -> new LinkedList<>()).addAll(entries);
+		}
+
+		private void moveEnd(Statement from, Statement to) {
+			List<VariableTableEntry> entries = ending.remove(from);
+			endingVariables.remove(from);
+			if (entries == null)
+				return;
+			entries.forEach(v -> v.setScopeEnd(to));
+			if (to != null) {
+				List<VariableTableEntry> target = ending.computeIfAbsent(to, st -> new LinkedList<>());
+				target.addAll(entries);
+				cacheVariables(to, target);
+			}
+		}
+	}
+
+	/**
+	 * The budget of a single fixpoint computation, shared between its ascending
+	 * and descending phases.
+	 */
+	private static class FixpointBudget {
+
+		private final int maxIterations;
+		private final long deadline;
+		private int iterations;
+		private boolean exhausted;
+		private boolean expired;
+
+		private FixpointBudget(FixpointConfiguration conf) {
+			this.maxIterations = conf.iterationBudget;
+			this.deadline = conf.timeBudget > 0 ? Math.min(conf.deadline, System.currentTimeMillis() + conf.timeBudget)
+					: conf.deadline;
+		}
+
+		private void tick() {
+			iterations++;
+			if (maxIterations > 0 && iterations > maxIterations)
+				exhausted = true;
+			if (deadline != Long.MAX_VALUE && System.currentTimeMillis() > deadline)
+				expired = true;
+		}
+
+		private boolean isExceeded() {
+			return exhausted || expired;
+		}
 	}
 
 	private class CFGFixpoint<A extends AbstractState<A, H, V, T>,
@@ -535,46 +1184,46 @@ public class CFG extends CodeGraph<CFG, Statement, Edge> implements CodeMember {
 		private final int threshold;
 		private final Map<Statement, Integer> counter;
 		private DescendingPhaseType descendingPhase;
+		private final boolean headsOnly;
+		private final Set<Statement> widened;
+		private final FixpointBudget budget;
+		private final FixpointProfile profile;
 
 		private CFGFixpoint(int threshold,
-				InterproceduralAnalysis<A, H, V, T> interprocedural, DescendingPhaseType descendingPhase) {
+				InterproceduralAnalysis<A, H, V, T> interprocedural, DescendingPhaseType descendingPhase,
+				boolean headsOnly, FixpointBudget budget, FixpointProfile profile) {
 			this.threshold = threshold;
 			this.interprocedural = interprocedural;
 			this.counter = new HashMap<>(CFG.this.getNodesCount());
 			this.descendingPhase = descendingPhase;
+			this.headsOnly = headsOnly;
+			this.widened = new HashSet<>();
+			this.budget = budget;
+			this.profile = profile;
+		}
+
+		private long start() {
+			return profile == null ? 0 : System.nanoTime();
+		}
+
+		private void record(Statement node, Operation operation, long start) {
+			if (profile != null)
+				profile.of(CFG.this, node).record(operation, System.nanoTime() - start);
 		}
 
 		@Override
 		public Pair<AnalysisState<A, H, V, T>, StatementStore<A, H, V, T>> semantics(Statement node,
 				Pair<AnalysisState<A, H, V, T>, StatementStore<A, H, V, T>> entrystate) throws SemanticException {
+			budget.tick();
 			StatementStore<A, H, V, T> expressions = new StatementStore<>(entrystate.getLeft().bottom());
-			AnalysisState<A, H, V, T> approx = node.semantics(entrystate.getLeft(), interprocedural, expressions);
-			if (node instanceof Expression)
-				approx = approx.forgetIdentifiers(((Expression) node).getMetaVariables());
+			AnalysisState<A, H, V, T> approx = semanticsOf(node, entrystate.getLeft(), interprocedural, expressions);
 			return Pair.of(approx, expressions);
 		}
 
 		@Override
 		public Pair<AnalysisState<A, H, V, T>, StatementStore<A, H, V, T>> traverse(Edge edge,
 				Pair<AnalysisState<A, H, V, T>, StatementStore<A, H, V, T>> entrystate) throws SemanticException {
-			AnalysisState<A, H, V, T> approx = edge.traverse(entrystate.getLeft());
-
-			// we remove out of scope variables here
-			List<VariableTableEntry> toRemove = new LinkedList<>();
-			for (VariableTableEntry entry : CFG.this.descriptor.getVariables())
-				if (entry.getScopeEnd() == edge.getSource())
-					toRemove.add(entry);
-
-			Collection<Identifier> ids = new LinkedList<>();
-			for (VariableTableEntry entry : toRemove) {
-				SymbolicExpression v = entry.createReference(CFG.this).getVariable();
-				for (SymbolicExpression expr : approx.smallStepSemantics(v, edge.getSource()).getComputedExpressions())
-					ids.add((Identifier) expr);
-			}
-
-			if (!ids.isEmpty())
-				approx = approx.forgetIdentifiers(ids);
-
+			AnalysisState<A, H, V, T> approx = CFG.this.traverse(edge, entrystate.getLeft());
 			return Pair.of(approx, new StatementStore<>(approx.bottom()));
 		}
 
@@ -582,7 +1231,11 @@ public class CFG extends CodeGraph<CFG, Statement, Edge> implements CodeMember {
 		public Pair<AnalysisState<A, H, V, T>, StatementStore<A, H, V, T>> union(Statement node,
 				Pair<AnalysisState<A, H, V, T>, StatementStore<A, H, V, T>> left,
 				Pair<AnalysisState<A, H, V, T>, StatementStore<A, H, V, T>> right) throws SemanticException {
-			return Pair.of(left.getLeft().lub(right.getLeft()), left.getRight().lub(right.getRight()));
+			long start = start();
+			Pair<AnalysisState<A, H, V, T>, StatementStore<A, H, V, T>> result = Pair.of(
+					left.getLeft().lub(right.getLeft()), left.getRight().lub(right.getRight()));
+			record(node, Operation.LUB, start);
+			return result;
 		}
 
 		@Override
@@ -599,45 +1252,77 @@ public class CFG extends CodeGraph<CFG, Statement, Edge> implements CodeMember {
 				Pair<AnalysisState<A, H, V, T>, StatementStore<A, H, V, T>> approx,
 				Pair<AnalysisState<A, H, V, T>, StatementStore<A, H, V, T>> old) throws SemanticException {
 
+			long start = start();
+			Operation operation = Operation.WIDENING;
 			AnalysisState<A, H, V, T> newApprox = approx.getLeft(), oldApprox = old.getLeft();
 			StatementStore<A, H, V, T> newIntermediate = approx.getRight(), oldIntermediate = old.getRight();
 
-			if (threshold == 0) {
+			if (budget.expired) {
+				newApprox = overApproximate(oldApprox.widening(newApprox));
+				StatementStore<A, H, V, T> joined = oldIntermediate.widening(newIntermediate);
+				newIntermediate = new StatementStore<>(newApprox.bottom());
+				for (Entry<Statement, AnalysisState<A, H, V, T>> e : joined)
+					newIntermediate.put(e.getKey(), overApproximate(e.getValue()));
+				widened.add(node);
+			} else if (budget.exhausted) {
+				newApprox = oldApprox.widening(newApprox);
+				newIntermediate = oldIntermediate.widening(newIntermediate);
+				widened.add(node);
+			} else if (threshold == 0) {
+				operation = Operation.LUB;
 				newApprox = newApprox.lub(oldApprox);
 				newIntermediate = newIntermediate.lub(oldIntermediate);
 			} else {
 				// we multiply by the number of predecessors since
 				// if we have more than one
-				// the threshold will be reached faster
-				int lub = counter.computeIfAbsent(node, st -> threshold * predecessorsOf(st).size());
+				// the threshold will be reached faster, unless
+				// this is only invoked once per loop iteration
+				int lub = counter.computeIfAbsent(node,
+						st -> headsOnly ? threshold : threshold * predecessorsOf(st).size());
 				if (lub > 0) {
+					operation = Operation.LUB;
 					newApprox = newApprox.lub(oldApprox);
 					newIntermediate = newIntermediate.lub(oldIntermediate);
 				} else {
 					newApprox = oldApprox.widening(newApprox);
 					newIntermediate = oldIntermediate.widening(newIntermediate);
+					widened.add(node);
 				}
 				counter.put(node, --lub);
 			}
 
+			record(node, operation, start);
 			return Pair.of(newApprox, newIntermediate);
 		}
 
+		private AnalysisState<A, H, V, T> overApproximate(AnalysisState<A, H, V, T> state) {
+			// types, aliasing, and computed expressions are kept since
+			// expressions cannot be evaluated without them: a top type
+			// environment would make every variable have no runtime type
+			return state.withTopHeap().withTopValue();
+		}
+
 		public Pair<AnalysisState<A, H, V, T>, StatementStore<A, H, V, T>> meet(Statement node,
 				Pair<AnalysisState<A, H, V, T>, StatementStore<A, H, V, T>> approx,
 				Pair<AnalysisState<A, H, V, T>, StatementStore<A, H, V, T>> old) throws SemanticException {
+			if (budget.isExceeded())
+				// results of the ascending phase are already sound
+				return old;
 
+			long start = start();
 			AnalysisState<A, H, V, T> newApprox = approx.getLeft(), oldApprox = old.getLeft();
 			StatementStore<A, H, V, T> newIntermediate = approx.getRight(), oldIntermediate = old.getRight();
 
 			if (this.descendingPhase == DescendingPhaseType.NARROWING) {
 				newApprox = oldApprox.narrowing(newApprox);
 				newIntermediate = oldIntermediate.narrowing(newIntermediate);
+				record(node, Operation.NARROWING, start);
 			} else if (this.descendingPhase == DescendingPhaseType.GLB) {
 				int glb = counter.computeIfAbsent(node, st -> threshold);
 				if (glb > 0) {
 					newApprox = newApprox.glb(oldApprox);
 					newIntermediate = newIntermediate.glb(oldIntermediate);
+					record(node, Operation.GLB, start);
 				} else {
 					newApprox = oldApprox;
 					newIntermediate = oldIntermediate;
@@ -647,13 +1332,24 @@ public class CFG extends CodeGraph<CFG, Statement, Edge> implements CodeMember {
 			return Pair.of(newApprox, newIntermediate);
 		}
 
+		@Override
+		public boolean isIncreasing() {
+			// during the ascending phase, results are always joined with the
+			// previous ones, unless only heads are joined
+			return descendingPhase == DescendingPhaseType.NONE && !headsOnly;
+		}
+
 		@Override
 		public boolean equality(Statement node, Pair<AnalysisState<A, H, V, T>, StatementStore<A, H, V, T>> approx,
 				Pair<AnalysisState<A, H, V, T>, StatementStore<A, H, V, T>> old) throws SemanticException {
+			long start = start();
+			boolean result;
 			if (descendingPhase == DescendingPhaseType.NONE)
-				return equalityAscending(node, approx, old);
+				result = equalityAscending(node, approx, old);
 			else
-				return equalityDescending(node, approx, old);
+				result = equalityDescending(node, approx, old);
+			record(node, Operation.LESS_OR_EQUAL, start);
+			return result;
 		}
 
 		public boolean equalityAscending(Statement node,
@@ -715,11 +1411,9 @@ public class CFG extends CodeGraph<CFG, Statement, Edge> implements CodeMember {
 	}
 
 	private void shiftVariableScopes(Statement node) {
-		Collection<
-				VariableTableEntry> starting = descriptor.getVariables().stream().filter(v -> v.getScopeStart() == node)
-						.collect(Collectors.toList());
-		Collection<VariableTableEntry> ending = descriptor.getVariables().stream().filter(v -> v.getScopeEnd() == node)
-				.collect(Collectors.toList());
+		VariableScopes scopes = getVariableScopes();
+		Collection<VariableTableEntry> starting = scopes.startingAt(node);
+		Collection<VariableTableEntry> ending = scopes.endingAt(node);
 		if (ending.isEmpty() && starting.isEmpty())
 			return;
 
@@ -729,8 +1423,8 @@ public class CFG extends CodeGraph<CFG, Statement, Edge> implements CodeMember {
 		if (predecessors.isEmpty() && followers.isEmpty()) {
 			LOG.warn("Simplifying the only statement of '{}': all variables will be made visible for the entire cfg",
 					this);
-			starting.forEach(v -> v.setScopeStart(null));
-			ending.forEach(v -> v.setScopeEnd(null));
+			scopes.moveStart(node, null);
+			scopes.moveEnd(node, null);
 			return;
 		}
 
@@ -746,7 +1440,7 @@ public class CFG extends CodeGraph<CFG, Statement, Edge> implements CodeMember {
 					follow = null;
 				} else
 					follow = followers.iterator().next();
-				starting.forEach(v -> v.setScopeStart(follow));
+				scopes.moveStart(node, follow);
 			} else {
 				// move the starting scope backward
 				Statement pred;
@@ -755,7 +1449,7 @@ public class CFG extends CodeGraph<CFG, Statement, Edge> implements CodeMember {
 					pred = null;
 				} else
 					pred = predecessors.iterator().next();
-				starting.forEach(v -> v.setScopeStart(pred));
+				scopes.moveStart(node, pred);
 			}
 
 		if (!ending.isEmpty())
@@ -768,7 +1462,7 @@ public class CFG extends CodeGraph<CFG, Statement, Edge> implements CodeMember {
 					pred = null;
 				} else
 					pred = predecessors.iterator().next();
-				ending.forEach(v -> v.setScopeEnd(pred));
+				scopes.moveEnd(node, pred);
 			} else {
 				// move the ending scope forward
 				Statement follow;
@@ -777,7 +1471,7 @@ public class CFG extends CodeGraph<CFG, Statement, Edge> implements CodeMember {
 					follow = null;
 				} else
 					follow = followers.iterator().next();
-				ending.forEach(v -> v.setScopeEnd(follow));
+				scopes.moveEnd(node, follow);
 			}
 	}
 
@@ -858,10 +1552,7 @@ public class CFG extends CodeGraph<CFG, Statement, Edge> implements CodeMember {
 	}
 
 	private Collection<ControlFlowStructure> getControlFlowsContaining(ProgramPoint pp) {
-		if (cfStructs.isEmpty() && !cfsExtracted) {
-			new ControlFlowExtractor(this).extract().forEach(cfStructs::add);
-			cfsExtracted = true;
-		}
+		extractControlFlowStructures();
 
 		if (!(pp instanceof Statement))
 			// synthetic pp
@@ -0,0 +1,313 @@
+package it.unive.lisa.program.cfg.statement;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+/**
+ * A {@link Map} from {@link Statement}s to values, backed by arrays indexed by
+ * the {@link Statement#getOffset() offsets} of the keys. Offsets are dense
+ * integers assigned to all statements of a cfg and to their inner expressions
+ * (see
+ * {@link it.unive.lisa.util.datastructures.graph.code.NodeList#getOffsetsCount()}),
+ * so that lookups and updates do not need to hash statements, whose
+ * {@link Statement#hashCode()} might be expensive to compute.<br>
+ * <br>
+ * <b>This class is not a general-purpose {@link Map} implementation</b>: as
+ * {@link IdentityHashMap}, it compares keys by reference. This is needed since
+ * {@link Statement#equals(Object)} only compares locations, and thus distinct
+ * statements (having distinct offsets) might be equal. Instances are meant to
+ * hold information about all the statements of a single cfg (e.g., the results
+ * of a fixpoint computation), where keys are always the statements of the cfg
+ * themselves: the arrays grow up to the greatest offset stored, and using this
+ * class for maps containing few statements of a large cfg wastes memory.<br>
+ * <br>
+ * A key is stored in the slot corresponding to its offset only if the offset is
+ * not negative and the slot is not occupied by a different statement (that can
+ * happen when keys come from different cfgs): in all other cases, the key is
+ * stored in a secondary {@link IdentityHashMap}. Iteration follows the order of
+ * offsets, and then the one of the secondary map. This map does not permit
+ * {@code null} keys.
+ *
+ * @author <a href="mailto:luca.negrini@unive.it">Luca Negrini</a>
+ *
+ * @param <V> the type of the values
+ */
+public class StatementMap<V> extends AbstractMap<Statement, V> {
+
+	private static final Statement[] EMPTY_KEYS = new Statement[0];
+
+	private static final Object[] EMPTY_VALUES = new Object[0];
+
+	private Statement[] keys;
+
+	private Object[] values;
+
+	/**
+	 * The number of keys stored in {@link #keys}.
+	 */
+	private int indexed;
+
+	/**
+	 * The keys that do not fit in {@link #keys}, lazily created.
+	 */
+	private Map<Statement, V> others;
+
+	/**
+	 * Builds an empty map.
+	 */
+	public StatementMap() {
+		this(0);
+	}
+
+	/**
+	 * Builds an empty map, able to store statements with offsets up to
+	 * {@code capacity} (exclusive) without resizing.
+	 *
+	 * @param capacity the initial capacity
+	 */
+	public StatementMap(int capacity) {
+		keys = capacity == 0 ? EMPTY_KEYS : new Statement[capacity];
+		values = capacity == 0 ? EMPTY_VALUES : new Object[capacity];
+	}
+
+	/**
+	 * Builds a map containing the same mappings of the given one.
+	 *
+	 * @param other the map to copy
+	 */
+	public StatementMap(Map<Statement, ? extends V> other) {
+		if (other instanceof StatementMap) {
+			StatementMap<? extends V> o = (StatementMap<? extends V>) other;
+			keys = o.keys.clone();
+			values = o.values.clone();
+			indexed = o.indexed;
+			others = o.others == null ? null : new IdentityHashMap<>(o.others);
+		} else {
+			keys = EMPTY_KEYS;
+			values = EMPTY_VALUES;
+			putAll(other);
+		}
+	}
+
+	private int slotOf(Object key) {
+		if (!(key instanceof Statement))
+			return -1;
+		Statement st = (Statement) key;
+		int offset = st.getOffset();
+		if (offset < 0 || offset >= keys.length)
+			return -1;
+		return keys[offset] == st ? offset : -1;
+	}
+
+	@Override
+	public int size() {
+		return indexed + (others == null ? 0 : others.size());
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return size() == 0;
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		return slotOf(key) != -1 || (others != null && others.containsKey(key));
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public V get(Object key) {
+		int slot = slotOf(key);
+		if (slot != -1)
+			return (V) values[slot];
+		return others == null ? null : others.get(key);
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public V put(Statement key, V value) {
+		if (key == null)
+			throw new NullPointerException();
+		int offset = key.getOffset();
+		if (offset >= 0) {
+			if (offset >= keys.length) {
+				int size = Math.max(offset + 1, keys.length * 2);
+				keys = Arrays.copyOf(keys, size);
+				values = Arrays.copyOf(values, size);
+			}
+
+			Statement k = keys[offset];
+			if (k == key) {
+				V previous = (V) values[offset];
+				values[offset] = value;
+				return previous;
+			}
+
+			if (k == null && (others == null || !others.containsKey(key))) {
+				keys[offset] = key;
+				values[offset] = value;
+				indexed++;
+				return null;
+			}
+		}
+
+		if (others == null)
+			others = new IdentityHashMap<>();
+		return others.put(key, value);
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public V remove(Object key) {
+		int slot = slotOf(key);
+		if (slot != -1) {
+			V previous = (V) values[slot];
+			keys[slot] = null;
+			values[slot] = null;
+			indexed--;
+			return previous;
+		}
+		return others == null ? null : others.remove(key);
+	}
+
+	@Override
+	public void clear() {
+		Arrays.fill(keys, null);
+		Arrays.fill(values, null);
+		indexed = 0;
+		others = null;
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public void forEach(BiConsumer<? super Statement, ? super V> action) {
+		for (int i = 0; i < keys.length; i++)
+			if (keys[i] != null)
+				action.accept(keys[i], (V) values[i]);
+		if (others != null)
+			others.forEach(action);
+	}
+
+	@Override
+	public Set<Entry<Statement, V>> entrySet() {
+		return new EntrySet();
+	}
+
+	private class EntrySet extends AbstractSet<Entry<Statement, V>> {
+
+		@Override
+		public int size() {
+			return StatementMap.this.size();
+		}
+
+		@Override
+		public boolean contains(Object o) {
+			if (!(o instanceof Entry))
+				return false;
+			Entry<?, ?> e = (Entry<?, ?>) o;
+			return containsKey(e.getKey()) && Objects.equals(get(e.getKey()), e.getValue());
+		}
+
+		@Override
+		public Iterator<Entry<Statement, V>> iterator() {
+			return new EntryIterator();
+		}
+	}
+
+	private class EntryIterator implements Iterator<Entry<Statement, V>> {
+
+		private int next = advance(0);
+
+		private int last = -1;
+
+		private Iterator<Entry<Statement, V>> rest;
+
+		private int advance(int from) {
+			while (from < keys.length && keys[from] == null)
+				from++;
+			return from;
+		}
+
+		@Override
+		public boolean hasNext() {
+			if (next < keys.length)
+				return true;
+			if (rest == null && others != null)
+				rest = others.entrySet().iterator();
+			return rest != null && rest.hasNext();
+		}
+
+		@Override
+		public Entry<Statement, V> next() {
+			if (!hasNext())
+				throw new NoSuchElementException();
+			if (next < keys.length) {
+				last = next;
+				next = advance(next + 1);
+				return new IndexedEntry(last);
+			}
+			last = -1;
+			// entries of identity maps hash keys by reference
+			return new OtherEntry(rest.next());
+		}
+
+		@Override
+		public void remove() {
+			if (last != -1) {
+				if (keys[last] == null)
+					throw new IllegalStateException();
+				keys[last] = null;
+				values[last] = null;
+				indexed--;
+			} else if (rest != null)
+				rest.remove();
+			else
+				throw new IllegalStateException();
+		}
+	}
+
+	private class OtherEntry extends SimpleEntry<Statement, V> {
+
+		private static final long serialVersionUID = 1L;
+
+		private final Entry<Statement, V> entry;
+
+		private OtherEntry(Entry<Statement, V> entry) {
+			super(entry);
+			this.entry = entry;
+		}
+
+		@Override
+		public V setValue(V value) {
+			entry.setValue(value);
+			return super.setValue(value);
+		}
+	}
+
+	private class IndexedEntry extends SimpleEntry<Statement, V> {
+
+		private static final long serialVersionUID = 1L;
+
+		private final int slot;
+
+		@SuppressWarnings("unchecked")
+		private IndexedEntry(int slot) {
+			super(keys[slot], (V) values[slot]);
+			this.slot = slot;
+		}
+
+		@Override
+		public V setValue(V value) {
+			values[slot] = value;
+			return super.setValue(value);
+		}
+	}
+}
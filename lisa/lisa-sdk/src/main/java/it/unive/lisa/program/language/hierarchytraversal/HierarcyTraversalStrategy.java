@@ -22,7 +22,10 @@ public interface HierarcyTraversalStrategy {
 	 * units in the order they should be visited for traversing a type hierarchy
 	 * to find targets of calls or global accesses.
 	 * 
-	 * @param st    the statement for which the traversal is requested
+	 * @param st    the statement for which the traversal is requested, or
+	 *                  {@code null} if the traversal does not refer to a
+	 *                  specific statement (e.g., when the traversal is used to
+	 *                  build dispatch tables shared by all calls)
 	 * @param start the unit where the traversal should start
 	 * 
 	 * @return an iterable that contains the units in order in which they must
@@ -293,8 +293,10 @@ public class BaseValidationLogic implements ProgramValidationLogic {
 	 * {@link CodeMemberDescriptor#overriddenBy()} and
 	 * {@link CodeMemberDescriptor#overrides()} and raising errors if
 	 * {@link AbstractCodeMember}s do not have an implementation in instantiable
-	 * ({@link CompilationUnit#canBeInstantiated()}) units. Lastly, annotations
-	 * are propagated along the inheritance hierarchy.
+	 * ({@link CompilationUnit#canBeInstantiated()}) units. Then, annotations
+	 * are propagated along the inheritance hierarchy. Lastly, the closure of
+	 * the hierarchy of the unit is computed through
+	 * {@link CompilationUnit#finalizeHierarchy()}.
 	 * 
 	 * @param unit the unit to validate
 	 * 
@@ -372,6 +374,7 @@ public class BaseValidationLogic implements ProgramValidationLogic {
 								args[i].addAnnotation(parAnn);
 				}
 
+		unit.finalizeHierarchy();
 		processedUnits.add(unit.getName());
 	}
 
@@ -381,7 +384,8 @@ public class BaseValidationLogic implements ProgramValidationLogic {
 	 * according to
 	 * {@link CodeMemberDescriptor#matchesSignature(CodeMemberDescriptor)}. This
 	 * avoids ambiguous call resolution. Moreover, this ensures that all
-	 * {@link CFG}s are valid, according to {@link CFG#validate()}.
+	 * {@link CFG}s are valid, according to {@link CFG#validate()}, and builds
+	 * their {@link CFG#getCompactGraph() snapshot}.
 	 * 
 	 * @param member   the code member to validate
 	 * @param instance if {@code true}, duplicates will be searched in instance
@@ -404,5 +408,8 @@ public class BaseValidationLogic implements ProgramValidationLogic {
 					format(DUPLICATE_MEMBER, member.getDescriptor().getSignature(), container));
 
 		member.validate();
+		if (member instanceof CFG)
+			// the cfg will not change anymore
+			((CFG) member).getCompactGraph();
 	}
 }
\ No newline at end of file
@@ -0,0 +1,152 @@
+package it.unive.lisa.util.collections.workset;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.NoSuchElementException;
+import java.util.TreeMap;
+import java.util.function.Supplier;
+
+/**
+ * A priority working set that yields elements following a given order,
+ * typically the reverse postorder of the nodes of a graph: this ensures that,
+ * when processing the nodes of an acyclic region of the graph, each node is
+ * processed only after all of its predecessors. The order can be specified
+ * through {@link #setOrder(List)}, or through {@link #setOrder(Supplier)} by
+ * the fixpoint algorithms that use this working set: elements that are not part
+ * of it are given lower priority than the ones that are, and are yielded in the
+ * order they were first pushed.<br>
+ * <br>
+ * Pushing an element that is already contained in this working set has no
+ * effect, as the element will be processed only once anyway. This
+ * implementation is <b>not</b> thread-safe.
+ *
+ * @author Luca Negrini
+ *
+ * @param <E> the type of the elements that this working set contains
+ */
+public final class ReversePostorderWorkingSet<E> implements WorkingSet<E> {
+
+	private final Map<E, Integer> priorities;
+
+	private final TreeMap<Integer, E> ws;
+
+	private int unordered;
+
+	private ReversePostorderWorkingSet() {
+		priorities = new HashMap<>();
+		ws = new TreeMap<>();
+		unordered = 0;
+	}
+
+	/**
+	 * Yields a new, empty working set.
+	 *
+	 * @param <E> the type of the elements that the returned working set
+	 *                contains
+	 *
+	 * @return the new working set
+	 */
+	public static <E> ReversePostorderWorkingSet<E> mk() {
+		return new ReversePostorderWorkingSet<>();
+	}
+
+	/**
+	 * Sets the order in which elements are to be yielded by this working set:
+	 * an element appearing earlier in {@code order} will always be popped
+	 * before an element appearing later. Elements already contained in this
+	 * working set are rearranged according to the new order.
+	 *
+	 * @param order the order of the elements, usually the reverse postorder of
+	 *                  the nodes of a graph
+	 */
+	public void setOrder(List<E> order) {
+		List<E> contents = new ArrayList<>(ws.values());
+		ws.clear();
+		priorities.clear();
+		for (E e : order)
+			if (!priorities.containsKey(e))
+				priorities.put(e, priorities.size());
+		unordered = priorities.size();
+		contents.forEach(this::push);
+	}
+
+	@Override
+	public void setOrder(Supplier<List<E>> order) {
+		setOrder(order.get());
+	}
+
+	@Override
+	public void push(E e) {
+		Integer priority = priorities.get(e);
+		if (priority == null) {
+			priority = unordered++;
+			priorities.put(e, priority);
+		}
+		ws.putIfAbsent(priority, e);
+	}
+
+	@Override
+	public E pop() {
+		Entry<Integer, E> first = ws.pollFirstEntry();
+		if (first == null)
+			throw new NoSuchElementException();
+		return first.getValue();
+	}
+
+	@Override
+	public E peek() {
+		return ws.isEmpty() ? null : ws.firstEntry().getValue();
+	}
+
+	@Override
+	public int size() {
+		return ws.size();
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return ws.isEmpty();
+	}
+
+	@Override
+	public String toString() {
+		return ws.values().toString();
+	}
+
+	@Override
+	public int hashCode() {
+		final int prime = 31;
+		int result = 1;
+		result = prime * result + ((priorities == null) ? 0 : priorities.hashCode());
+		result = prime * result + ((ws == null) ? 0 : ws.hashCode());
+		result = prime * result + unordered;
+		return result;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null)
+			return false;
+		if (getClass() != obj.getClass())
+			return false;
+		ReversePostorderWorkingSet<?> other = (ReversePostorderWorkingSet<?>) obj;
+		if (priorities == null) {
+			if (other.priorities != null)
+				return false;
+		} else if (!priorities.equals(other.priorities))
+			return false;
+		if (ws == null) {
+			if (other.ws != null)
+				return false;
+		} else if (!ws.equals(other.ws))
+			return false;
+		if (unordered != other.unordered)
+			return false;
+		return true;
+	}
+}
@@ -3,6 +3,8 @@ package it.unive.lisa.util.collections.workset;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.function.Supplier;
 
 /**
  * A working set that guarantees that each element will be added to this working
@@ -69,6 +71,11 @@ public final class VisitOnceWorkingSet<E> implements WorkingSet<E> {
 		return ws.isEmpty();
 	}
 
+	@Override
+	public void setOrder(Supplier<List<E>> order) {
+		ws.setOrder(order);
+	}
+
 	@Override
 	public String toString() {
 		return ws.toString();
@@ -2,6 +2,8 @@ package it.unive.lisa.util.collections.workset;
 
 import it.unive.lisa.AnalysisSetupException;
 import java.lang.reflect.InvocationTargetException;
+import java.util.List;
+import java.util.function.Supplier;
 
 /**
  * A working set, containing items to be processed.
@@ -73,4 +75,17 @@ public interface WorkingSet<E> {
 	 * @return {@code true} if that condition holds
 	 */
 	boolean isEmpty();
+
+	/**
+	 * Provides the order in which the elements that will be pushed into this
+	 * working set are expected to be processed, usually the reverse postorder
+	 * of the nodes of a graph. Working sets that do not prioritize elements
+	 * ignore it, and {@code order} is never invoked. This is the default
+	 * behavior.
+	 * 
+	 * @param order a supplier of the order of the elements, invoked only if the
+	 *                  order is needed
+	 */
+	default void setOrder(Supplier<List<E>> order) {
+	}
 }
@@ -0,0 +1,327 @@
+package it.unive.lisa.util.datastructures.graph;
+
+import it.unive.lisa.util.datastructures.graph.code.CodeNode;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * An immutable snapshot of the structure of a {@link Graph}, stored in
+ * compressed sparse row form. Each node is identified by an integer id between
+ * {@code 0} (inclusive) and {@link #getNodesCount()} (exclusive), following the
+ * iteration order of {@link Graph#getNodes()}. The followers of all nodes are
+ * stored in a single array, where the ones of the node with id {@code i} are in
+ * the positions between {@link #getSuccessorsStart(int)} (inclusive) and
+ * {@link #getSuccessorsEnd(int)} (exclusive), in the same order of
+ * {@link Graph#followersOf(Node)}. A parallel array stores, at each position,
+ * the edge connecting the node to that follower, as returned by
+ * {@link Graph#getEdgeConnecting(Node, Node)}. Predecessors are stored in the
+ * same way.<br>
+ * <br>
+ * The snapshot does not reflect changes made to the graph after its creation.
+ * If the nodes of the graph are {@link CodeNode}s with distinct
+ * {@link CodeNode#getOffset() offsets}, ids are retrieved through an array
+ * indexed by offset, without hashing nodes.
+ *
+ * @author <a href="mailto:luca.negrini@unive.it">Luca Negrini</a>
+ *
+ * @param <G> the type of the source {@link Graph}
+ * @param <N> the type of the {@link Node}s in the source graph
+ * @param <E> the type of the {@link Edge}s in the source graph
+ */
+public final class CompactGraph<G extends Graph<G, N, E>, N extends Node<G, N, E>, E extends Edge<G, N, E>> {
+
+	private final Object[] nodes;
+
+	private final Map<N, Integer> ids;
+
+	/**
+	 * The id of the node with each offset, or {@code null} if nodes are not
+	 * {@link CodeNode}s with distinct offsets
+	 */
+	private final int[] byOffset;
+
+	private final int[] entrypoints;
+
+	private final boolean[] isEntry;
+
+	private final int[] succOffsets;
+
+	private final int[] succs;
+
+	private final Object[] outgoing;
+
+	private final int[] predOffsets;
+
+	private final int[] preds;
+
+	private final Object[] ingoing;
+
+	/**
+	 * Builds the snapshot of the given graph.
+	 *
+	 * @param graph the graph
+	 */
+	public CompactGraph(Graph<G, N, E> graph) {
+		int count = graph.getNodesCount();
+		nodes = new Object[count];
+		ids = new IdentityHashMap<>(count * 4 / 3 + 1);
+		int id = 0;
+		for (N node : graph.getNodes()) {
+			nodes[id] = node;
+			ids.put(node, id++);
+		}
+		byOffset = indexOffsets();
+
+		Collection<N> entries = graph.getEntrypoints();
+		entrypoints = new int[entries.size()];
+		isEntry = new boolean[count];
+		int e = 0;
+		for (N entry : entries) {
+			int entryId = ids.get(entry);
+			entrypoints[e++] = entryId;
+			isEntry[entryId] = true;
+		}
+
+		succOffsets = new int[count + 1];
+		predOffsets = new int[count + 1];
+		int succCount = 0, predCount = 0;
+		for (int i = 0; i < count; i++) {
+			succOffsets[i] = succCount;
+			predOffsets[i] = predCount;
+			succCount += graph.followersOf(getNode(i)).size();
+			predCount += graph.predecessorsOf(getNode(i)).size();
+		}
+		succOffsets[count] = succCount;
+		predOffsets[count] = predCount;
+
+		succs = new int[succCount];
+		outgoing = new Object[succCount];
+		preds = new int[predCount];
+		ingoing = new Object[predCount];
+		for (int i = 0; i < count; i++) {
+			N node = getNode(i);
+			int k = succOffsets[i];
+			for (N follower : graph.followersOf(node)) {
+				succs[k] = ids.get(follower);
+				outgoing[k++] = graph.getEdgeConnecting(node, follower);
+			}
+			k = predOffsets[i];
+			for (N predecessor : graph.predecessorsOf(node)) {
+				preds[k] = ids.get(predecessor);
+				ingoing[k++] = graph.getEdgeConnecting(predecessor, node);
+			}
+		}
+	}
+
+	private int[] indexOffsets() {
+		int max = -1;
+		for (Object node : nodes) {
+			if (!(node instanceof CodeNode))
+				return null;
+			int offset = ((CodeNode<?, ?, ?>) node).getOffset();
+			if (offset < 0)
+				return null;
+			max = Math.max(max, offset);
+		}
+
+		int[] index = new int[max + 1];
+		Arrays.fill(index, -1);
+		for (int id = 0; id < nodes.length; id++) {
+			int offset = ((CodeNode<?, ?, ?>) nodes[id]).getOffset();
+			if (index[offset] != -1)
+				return null;
+			index[offset] = id;
+		}
+		return index;
+	}
+
+	/**
+	 * Yields the number of nodes in this graph.
+	 *
+	 * @return the number of nodes
+	 */
+	public int getNodesCount() {
+		return nodes.length;
+	}
+
+	/**
+	 * Yields the number of edges in this graph, where multiple edges connecting
+	 * the same nodes are counted once. This is also the number of positions
+	 * used for followers, and the one used for predecessors.
+	 *
+	 * @return the number of edges
+	 */
+	public int getEdgesCount() {
+		return succs.length;
+	}
+
+	/**
+	 * Yields the node with the given id.
+	 *
+	 * @param id the id of the node
+	 *
+	 * @return the node
+	 */
+	@SuppressWarnings("unchecked")
+	public N getNode(int id) {
+		return (N) nodes[id];
+	}
+
+	/**
+	 * Yields the id of the given node. Nodes are compared by identity, as done
+	 * by the offset-indexed maps of {@link CodeNode}s: a node that is only
+	 * equal to one of the nodes of the graph is not part of it.
+	 *
+	 * @param node the node
+	 *
+	 * @return the id of the node, or {@code -1} if the node is not part of this
+	 *             graph
+	 */
+	public int getId(N node) {
+		if (byOffset != null && node instanceof CodeNode) {
+			int offset = ((CodeNode<?, ?, ?>) node).getOffset();
+			if (offset >= 0 && offset < byOffset.length) {
+				int id = byOffset[offset];
+				if (id != -1 && nodes[id] == node)
+					return id;
+			}
+		}
+
+		Integer id = ids.get(node);
+		return id == null ? -1 : id;
+	}
+
+	/**
+	 * Yields the number of entrypoints of this graph.
+	 *
+	 * @return the number of entrypoints
+	 */
+	public int getEntrypointsCount() {
+		return entrypoints.length;
+	}
+
+	/**
+	 * Yields the id of the {@code i}-th entrypoint of this graph, following the
+	 * iteration order of {@link Graph#getEntrypoints()}.
+	 *
+	 * @param i the index of the entrypoint
+	 *
+	 * @return the id of the entrypoint
+	 */
+	public int getEntrypoint(int i) {
+		return entrypoints[i];
+	}
+
+	/**
+	 * Yields whether or not the node with the given id is an entrypoint of this
+	 * graph.
+	 *
+	 * @param id the id of the node
+	 *
+	 * @return {@code true} if that condition holds
+	 */
+	public boolean isEntrypoint(int id) {
+		return isEntry[id];
+	}
+
+	/**
+	 * Yields the first position of the followers of the node with the given id.
+	 *
+	 * @param id the id of the node
+	 *
+	 * @return the position, to be used with {@link #getSuccessor(int)} and
+	 *             {@link #getOutgoingEdge(int)}
+	 */
+	public int getSuccessorsStart(int id) {
+		return succOffsets[id];
+	}
+
+	/**
+	 * Yields the position after the last follower of the node with the given
+	 * id.
+	 *
+	 * @param id the id of the node
+	 *
+	 * @return the position
+	 */
+	public int getSuccessorsEnd(int id) {
+		return succOffsets[id + 1];
+	}
+
+	/**
+	 * Yields the id of the follower at the given position.
+	 *
+	 * @param position the position, between {@link #getSuccessorsStart(int)}
+	 *                     and {@link #getSuccessorsEnd(int)} of some node
+	 *
+	 * @return the id of the follower
+	 */
+	public int getSuccessor(int position) {
+		return succs[position];
+	}
+
+	/**
+	 * Yields the edge reaching the follower at the given position.
+	 *
+	 * @param position the position, between {@link #getSuccessorsStart(int)}
+	 *                     and {@link #getSuccessorsEnd(int)} of some node
+	 *
+	 * @return the edge
+	 */
+	@SuppressWarnings("unchecked")
+	public E getOutgoingEdge(int position) {
+		return (E) outgoing[position];
+	}
+
+	/**
+	 * Yields the first position of the predecessors of the node with the given
+	 * id.
+	 *
+	 * @param id the id of the node
+	 *
+	 * @return the position, to be used with {@link #getPredecessor(int)} and
+	 *             {@link #getIngoingEdge(int)}
+	 */
+	public int getPredecessorsStart(int id) {
+		return predOffsets[id];
+	}
+
+	/**
+	 * Yields the position after the last predecessor of the node with the given
+	 * id.
+	 *
+	 * @param id the id of the node
+	 *
+	 * @return the position
+	 */
+	public int getPredecessorsEnd(int id) {
+		return predOffsets[id + 1];
+	}
+
+	/**
+	 * Yields the id of the predecessor at the given position.
+	 *
+	 * @param position the position, between {@link #getPredecessorsStart(int)}
+	 *                     and {@link #getPredecessorsEnd(int)} of some node
+	 *
+	 * @return the id of the predecessor
+	 */
+	public int getPredecessor(int position) {
+		return preds[position];
+	}
+
+	/**
+	 * Yields the edge coming from the predecessor at the given position.
+	 *
+	 * @param position the position, between {@link #getPredecessorsStart(int)}
+	 *                     and {@link #getPredecessorsEnd(int)} of some node
+	 *
+	 * @return the edge
+	 */
+	@SuppressWarnings("unchecked")
+	public E getIngoingEdge(int position) {
+		return (E) ingoing[position];
+	}
+}
@@ -0,0 +1,143 @@
+package it.unive.lisa.util.datastructures.graph.algorithms;
+
+import it.unive.lisa.util.datastructures.graph.Edge;
+import it.unive.lisa.util.datastructures.graph.Graph;
+import it.unive.lisa.util.datastructures.graph.Node;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * A view of a {@link Graph} as a set of basic blocks, that is, maximal
+ * sequences of nodes with a single entry and a single exit. Each block starts
+ * with a <i>leader</i>, that is either one of the given roots, a node that does
+ * not have exactly one ingoing edge, or a node whose only predecessor does not
+ * have exactly one outgoing edge. All other nodes are appended to the block of
+ * their (only) predecessor. Consequently, every edge of the graph either
+ * connects two consecutive nodes of the same block, or goes from the last node
+ * of a block to the leader of another (possibly the same) block. <br>
+ * <br>
+ * Nodes that are part of cycles with no leader are not part of any block: since
+ * such cycles cannot be entered from outside, those nodes are never reachable
+ * from the roots.
+ *
+ * @author <a href="mailto:luca.negrini@unive.it">Luca Negrini</a>
+ *
+ * @param <G> the type of the source {@link Graph}
+ * @param <N> the type of the {@link Node}s in the source graph
+ * @param <E> the type of the {@link Edge}s in the source graph
+ */
+public class BasicBlocks<G extends Graph<G, N, E>, N extends Node<G, N, E>, E extends Edge<G, N, E>> {
+
+	private final Map<N, List<N>> blocks;
+
+	private final Map<N, N> leaders;
+
+	/**
+	 * Builds the basic blocks of {@code graph}. Roots are always leaders of
+	 * their block.
+	 *
+	 * @param graph the graph
+	 * @param roots the nodes that must start a block, usually the entrypoints
+	 *                  of the graph
+	 */
+	public BasicBlocks(Graph<G, N, E> graph, Collection<N> roots) {
+		this.blocks = new LinkedHashMap<>();
+		this.leaders = new HashMap<>(graph.getNodesCount());
+
+		for (N node : graph.getNodes())
+			if (isLeader(graph, roots, node))
+				blocks.put(node, null);
+
+		for (N leader : blocks.keySet()) {
+			List<N> block = new ArrayList<>();
+			N current = leader;
+			while (true) {
+				block.add(current);
+				leaders.put(current, leader);
+				Collection<E> outs = graph.getOutgoingEdges(current);
+				if (outs.size() != 1)
+					break;
+				N next = outs.iterator().next().getDestination();
+				if (blocks.containsKey(next))
+					break;
+				current = next;
+			}
+			blocks.put(leader, Collections.unmodifiableList(block));
+		}
+	}
+
+	private boolean isLeader(Graph<G, N, E> graph, Collection<N> roots, N node) {
+		if (roots.contains(node))
+			return true;
+		Collection<E> ins = graph.getIngoingEdges(node);
+		if (ins.size() != 1)
+			return true;
+		return graph.getOutgoingEdges(ins.iterator().next().getSource()).size() != 1;
+	}
+
+	/**
+	 * Yields the leaders of all blocks, following the order in which they
+	 * appear in {@link Graph#getNodes()}.
+	 *
+	 * @return the leaders
+	 */
+	public Collection<N> getLeaders() {
+		return Collections.unmodifiableSet(blocks.keySet());
+	}
+
+	/**
+	 * Yields the block starting at the given leader, as the list of its nodes
+	 * in execution order.
+	 *
+	 * @param leader the leader of the block
+	 *
+	 * @return the block, or {@code null} if {@code leader} is not a leader
+	 */
+	public List<N> getBlock(N leader) {
+		return blocks.get(leader);
+	}
+
+	/**
+	 * Yields the leader of the block containing the given node.
+	 *
+	 * @param node the node
+	 *
+	 * @return the leader, or {@code null} if the node is not part of any block
+	 */
+	public N getLeaderOf(N node) {
+		return leaders.get(node);
+	}
+
+	/**
+	 * Yields whether or not the given node is the leader of a block.
+	 *
+	 * @param node the node
+	 *
+	 * @return {@code true} if that condition holds
+	 */
+	public boolean isLeader(N node) {
+		return blocks.containsKey(node);
+	}
+
+	/**
+	 * Yields the number of blocks.
+	 *
+	 * @return the number of blocks
+	 */
+	public int size() {
+		return blocks.size();
+	}
+
+	@Override
+	public String toString() {
+		return blocks.values().stream()
+				.map(b -> b.stream().map(String::valueOf).collect(Collectors.joining(" ", "[", "]")))
+				.collect(Collectors.joining(" "));
+	}
+}
@@ -0,0 +1,263 @@
+package it.unive.lisa.util.datastructures.graph.algorithms;
+
+import it.unive.lisa.util.datastructures.graph.CompactGraph;
+import it.unive.lisa.util.datastructures.graph.Edge;
+import it.unive.lisa.util.datastructures.graph.Graph;
+import it.unive.lisa.util.datastructures.graph.Node;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * The dominator tree of a graph, where the parent of each node is its immediate
+ * dominator. A node {@code d} dominates a node {@code n} if every path from an
+ * entry node to {@code n} must go through {@code d}. By definition, every node
+ * dominates itself. Only nodes reachable from the entrypoints of the graph are
+ * part of the tree, and each entrypoint is dominated only by itself.<br>
+ * <br>
+ * Immediate dominators are computed with the iterative algorithm by Cooper,
+ * Harvey and Kennedy, that processes nodes in reverse postorder and intersects
+ * the paths to the root of the tree built so far. The tree is then visited once
+ * to number its nodes, so that dominance queries take constant time.
+ *
+ * @author <a href="mailto:luca.negrini@unive.it">Luca Negrini</a>
+ *
+ * @param <G> the type of the target {@link Graph}s
+ * @param <N> the type of {@link Node}s in the target graphs
+ * @param <E> the type of {@link Edge}s in the target graphs
+ *
+ * @see <a href=
+ *          "https://www.cs.tufts.edu/comp/150FP/archive/keith-cooper/dom14.pdf">A
+ *          Simple, Fast Dominance Algorithm</a>
+ */
+public class DominatorTree<G extends Graph<G, N, E>, N extends Node<G, N, E>, E extends Edge<G, N, E>> {
+
+	private static final int UNDEFINED = -1;
+
+	private final CompactGraph<G, N, E> graph;
+
+	/**
+	 * The position of each node (by id) in the reverse postorder of the graph,
+	 * starting from {@code 1}, or {@link #UNDEFINED} for unreachable nodes.
+	 * Position {@code 0} is taken by a virtual root preceding all entrypoints.
+	 */
+	private final int[] order;
+
+	/**
+	 * The id of the node at each position of the reverse postorder.
+	 */
+	private final int[] nodes;
+
+	/**
+	 * The position of the immediate dominator of the node at each position of
+	 * the reverse postorder, where {@code 0} stands for the virtual root.
+	 */
+	private final int[] idom;
+
+	/**
+	 * The preorder and postorder numbers of the node at each position of the
+	 * reverse postorder in a visit of the tree.
+	 */
+	private final int[] pre, post;
+
+	/**
+	 * Builds the dominator tree of the given graph.
+	 *
+	 * @param graph the graph
+	 */
+	public DominatorTree(G graph) {
+		this(new CompactGraph<>(graph));
+	}
+
+	/**
+	 * Builds the dominator tree of the graph whose snapshot is given.
+	 *
+	 * @param graph the snapshot of the graph
+	 */
+	public DominatorTree(CompactGraph<G, N, E> graph) {
+		this.graph = graph;
+		int count = graph.getNodesCount();
+		order = new int[count];
+		Arrays.fill(order, UNDEFINED);
+		int reachable = reversePostorder();
+		nodes = new int[reachable + 1];
+		for (int id = 0; id < count; id++)
+			if (order[id] != UNDEFINED)
+				nodes[order[id]] = id;
+
+		idom = new int[reachable + 1];
+		Arrays.fill(idom, UNDEFINED);
+		idom[0] = 0;
+		boolean changed = true;
+		while (changed) {
+			changed = false;
+			for (int b = 1; b <= reachable; b++) {
+				int id = nodes[b];
+				int newIdom = graph.isEntrypoint(id) ? 0 : UNDEFINED;
+				for (int k = graph.getPredecessorsStart(id); k < graph.getPredecessorsEnd(id); k++) {
+					int p = order[graph.getPredecessor(k)];
+					if (p == UNDEFINED || idom[p] == UNDEFINED)
+						// unreachable or not processed yet
+						continue;
+					newIdom = newIdom == UNDEFINED ? p : intersect(p, newIdom);
+				}
+
+				if (idom[b] != newIdom) {
+					idom[b] = newIdom;
+					changed = true;
+				}
+			}
+		}
+
+		pre = new int[reachable + 1];
+		post = new int[reachable + 1];
+		number(reachable);
+	}
+
+	private int reversePostorder() {
+		int count = graph.getNodesCount();
+		boolean[] visited = new boolean[count];
+		int[] postorder = new int[count];
+		int reached = 0;
+		// each stack entry holds a node and the position of its next follower
+		int[] stack = new int[count];
+		int[] positions = new int[count];
+		for (int i = 0; i < graph.getEntrypointsCount(); i++) {
+			int root = graph.getEntrypoint(i);
+			if (visited[root])
+				continue;
+			visited[root] = true;
+			int top = 0;
+			stack[0] = root;
+			positions[0] = graph.getSuccessorsStart(root);
+			while (top >= 0) {
+				int node = stack[top];
+				if (positions[top] < graph.getSuccessorsEnd(node)) {
+					int next = graph.getSuccessor(positions[top]++);
+					if (!visited[next]) {
+						visited[next] = true;
+						stack[++top] = next;
+						positions[top] = graph.getSuccessorsStart(next);
+					}
+				} else {
+					postorder[reached++] = node;
+					top--;
+				}
+			}
+		}
+
+		for (int i = 0; i < reached; i++)
+			order[postorder[i]] = reached - i;
+		return reached;
+	}
+
+	private int intersect(int b1, int b2) {
+		// positions closer to the root are smaller
+		while (b1 != b2) {
+			while (b1 > b2)
+				b1 = idom[b1];
+			while (b2 > b1)
+				b2 = idom[b2];
+		}
+		return b1;
+	}
+
+	private void number(int reachable) {
+		// children of each position, stored in compressed sparse row form
+		int[] offsets = new int[reachable + 2];
+		for (int b = 1; b <= reachable; b++)
+			offsets[idom[b] + 1]++;
+		for (int b = 0; b <= reachable; b++)
+			offsets[b + 1] += offsets[b];
+		int[] children = new int[reachable];
+		int[] fill = Arrays.copyOf(offsets, reachable + 1);
+		for (int b = 1; b <= reachable; b++)
+			children[fill[idom[b]]++] = b;
+
+		int[] stack = new int[reachable + 1];
+		int[] positions = new int[reachable + 1];
+		int counter = 0, top = 0;
+		stack[0] = 0;
+		positions[0] = offsets[0];
+		pre[0] = counter++;
+		while (top >= 0) {
+			int b = stack[top];
+			if (positions[top] < offsets[b + 1]) {
+				int child = children[positions[top]++];
+				pre[child] = counter++;
+				stack[++top] = child;
+				positions[top] = offsets[child];
+			} else {
+				post[b] = counter++;
+				top--;
+			}
+		}
+	}
+
+	/**
+	 * Yields whether or not the given node is reachable from the entrypoints of
+	 * the graph, and is thus part of this tree.
+	 *
+	 * @param node the node
+	 *
+	 * @return {@code true} if that condition holds
+	 */
+	public boolean isReachable(N node) {
+		int id = graph.getId(node);
+		return id != -1 && order[id] != UNDEFINED;
+	}
+
+	/**
+	 * Yields the immediate dominator of the given node, that is, its parent in
+	 * this tree.
+	 *
+	 * @param node the node
+	 *
+	 * @return the immediate dominator, or {@code null} if the node is an
+	 *             entrypoint or it is not reachable
+	 */
+	public N getImmediateDominator(N node) {
+		int id = graph.getId(node);
+		if (id == -1 || order[id] == UNDEFINED)
+			return null;
+		int parent = idom[order[id]];
+		return parent == 0 ? null : graph.getNode(nodes[parent]);
+	}
+
+	/**
+	 * Yields whether or not {@code dominator} dominates {@code node}. This
+	 * takes constant time.
+	 *
+	 * @param dominator the candidate dominator
+	 * @param node      the node
+	 *
+	 * @return {@code true} if both nodes are reachable and {@code dominator}
+	 *             dominates {@code node}
+	 */
+	public boolean dominates(N dominator, N node) {
+		int d = graph.getId(dominator), n = graph.getId(node);
+		if (d == -1 || n == -1 || order[d] == UNDEFINED || order[n] == UNDEFINED)
+			return false;
+		d = order[d];
+		n = order[n];
+		return pre[d] <= pre[n] && post[n] <= post[d];
+	}
+
+	/**
+	 * Yields all the dominators of the given node, that is, the nodes on the
+	 * path from the root of this tree to the node, including the node itself.
+	 *
+	 * @param node the node
+	 *
+	 * @return the set of dominators, empty if the node is not reachable
+	 */
+	public Set<N> getDominators(N node) {
+		Set<N> result = new HashSet<>();
+		int id = graph.getId(node);
+		if (id == -1 || order[id] == UNDEFINED)
+			return result;
+		for (int b = order[id]; b != 0; b = idom[b])
+			result.add(graph.getNode(nodes[b]));
+		return result;
+	}
+}
@@ -1,13 +1,9 @@
 package it.unive.lisa.util.datastructures.graph.algorithms;
 
-import it.unive.lisa.util.collections.workset.FIFOWorkingSet;
-import it.unive.lisa.util.collections.workset.WorkingSet;
+import it.unive.lisa.util.datastructures.graph.CompactGraph;
 import it.unive.lisa.util.datastructures.graph.Edge;
 import it.unive.lisa.util.datastructures.graph.Graph;
 import it.unive.lisa.util.datastructures.graph.Node;
-import java.util.Collection;
-import java.util.Collections;
-import java.util.HashSet;
 import java.util.IdentityHashMap;
 import java.util.Map;
 import java.util.Set;
@@ -63,47 +59,32 @@ public class Dominators<G extends Graph<G, N, E>, N extends Node<G, N, E>, E ext
 	 *             that dominates it
 	 */
 	public Map<N, Set<N>> build(G graph) {
-		dominators.clear();
-		Collection<N> entries = graph.getEntrypoints();
-		WorkingSet<N> ws = FIFOWorkingSet.mk();
-		entries.forEach(ws::push);
-		while (!ws.isEmpty()) {
-			N current = ws.pop();
-
-			Set<N> res;
-			if (entries.contains(current))
-				res = new HashSet<>();
-			else
-				res = intersect(graph.predecessorsOf(current));
-			res.add(current);
-
-			if (!res.equals(dominators.get(current))) {
-				dominators.put(current, res);
-				graph.followersOf(current).forEach(ws::push);
-			}
-		}
-
-		return dominators;
+		return build(new CompactGraph<>(graph));
 	}
 
-	private Set<N> intersect(Collection<N> nodes) {
-		if (nodes == null || nodes.isEmpty())
-			return Collections.emptySet();
-
-		Set<N> res = null;
-		for (N node : nodes) {
-			Set<N> doms = dominators.get(node);
-			// might not have been processed yet
-			if (doms != null)
-				if (res == null)
-					res = new HashSet<>(doms);
-				else
-					res.retainAll(doms);
-			if (res != null && res.isEmpty())
-				// nothing more to do
-				break;
+	/**
+	 * Builds the dominators for the graph whose snapshot is given. The returned
+	 * value, that can also be accessed later through {@link #getDominators()},
+	 * is a map going from each node of the graph reachable from its entrypoints
+	 * to the set of nodes that dominates it. The sets are extracted from the
+	 * {@link DominatorTree} of the graph: when only dominance queries are
+	 * needed, using the tree directly is cheaper.
+	 * 
+	 * @param graph the snapshot of the graph whose dominators are to be
+	 *                  computed
+	 * 
+	 * @return a map containing, for each node of the graph, the set of nodes
+	 *             that dominates it
+	 */
+	public Map<N, Set<N>> build(CompactGraph<G, N, E> graph) {
+		dominators.clear();
+		DominatorTree<G, N, E> tree = new DominatorTree<>(graph);
+		for (int id = 0; id < graph.getNodesCount(); id++) {
+			N node = graph.getNode(id);
+			if (tree.isReachable(node))
+				dominators.put(node, tree.getDominators(node));
 		}
 
-		return res == null ? new HashSet<>() : res;
+		return dominators;
 	}
 }
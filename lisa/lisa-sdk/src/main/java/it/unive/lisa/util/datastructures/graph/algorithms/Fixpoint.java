@@ -3,12 +3,15 @@ package it.unive.lisa.util.datastructures.graph.algorithms;
 import static java.lang.String.format;
 
 import it.unive.lisa.util.collections.workset.WorkingSet;
+import it.unive.lisa.util.datastructures.graph.CompactGraph;
 import it.unive.lisa.util.datastructures.graph.Edge;
 import it.unive.lisa.util.datastructures.graph.Graph;
 import it.unive.lisa.util.datastructures.graph.Node;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 
@@ -29,16 +32,83 @@ public class Fixpoint<G extends Graph<G, N, E>, N extends Node<G, N, E>, E exten
 
 	private final Graph<G, N, E> graph;
 
+	/**
+	 * The snapshot of {@link #graph} used to traverse it, where nodes are
+	 * identified by their id
+	 */
+	private final CompactGraph<G, N, E> compact;
+
 	private Map<N, T> result;
 
 	/**
-	 * Builds a fixpoint for the given {@link Graph}.
+	 * The number of times the result of each node has been updated since the
+	 * fixpoint started, indexed by node id, used to detect which cached states
+	 * are outdated
+	 */
+	private final int[] versions;
+
+	/**
+	 * The cached states obtained by traversing each ingoing edge, indexed by
+	 * its predecessor position in {@link #compact}, together with the version
+	 * of the result of the source they have been computed from
+	 */
+	private final CachedState<T>[] edgeStates;
+
+	/**
+	 * The cached entry state of each node, indexed by node id
+	 */
+	private final Object[] entryStates;
+
+	/**
+	 * The profiler notified of the computations performed by this fixpoint, or
+	 * {@code null} if no profiling should happen
+	 */
+	private final FixpointProfiler<N> profiler;
+
+	/**
+	 * Builds a fixpoint for the given {@link Graph}, taking a
+	 * {@link CompactGraph} snapshot of it.
 	 * 
 	 * @param graph the source graph
 	 */
 	public Fixpoint(Graph<G, N, E> graph) {
+		this(graph, new CompactGraph<>(graph));
+	}
+
+	/**
+	 * Builds a fixpoint for the given {@link Graph}, traversing it through the
+	 * given snapshot. The snapshot must reflect the current structure of the
+	 * graph.
+	 * 
+	 * @param graph   the source graph
+	 * @param compact the snapshot of the source graph
+	 */
+	public Fixpoint(Graph<G, N, E> graph, CompactGraph<G, N, E> compact) {
+		this(graph, compact, null);
+	}
+
+	/**
+	 * Builds a fixpoint for the given {@link Graph}, traversing it through the
+	 * given snapshot. The snapshot must reflect the current structure of the
+	 * graph. If {@code profiler} is not {@code null}, it is notified of each
+	 * evaluation of {@link FixpointImplementation#semantics(Object, Object)}
+	 * and {@link FixpointImplementation#traverse(Object, Object)}.
+	 * 
+	 * @param graph    the source graph
+	 * @param compact  the snapshot of the source graph
+	 * @param profiler the {@link FixpointProfiler} to notify of the
+	 *                     computations performed by the fixpoint (might be
+	 *                     {@code null})
+	 */
+	@SuppressWarnings("unchecked")
+	public Fixpoint(Graph<G, N, E> graph, CompactGraph<G, N, E> compact, FixpointProfiler<N> profiler) {
 		this.graph = graph;
+		this.compact = compact;
+		this.profiler = profiler;
 		result = new HashMap<>(graph.getNodesCount());
+		versions = new int[compact.getNodesCount()];
+		edgeStates = new CachedState[compact.getEdgesCount()];
+		entryStates = new Object[compact.getNodesCount()];
 	}
 
 	/**
@@ -146,6 +216,54 @@ public class Fixpoint<G extends Graph<G, N, E>, N extends Node<G, N, E>, E exten
 		 * @throws Exception if something goes wrong during the computation
 		 */
 		boolean equality(N node, T approx, T old) throws Exception;
+
+		/**
+		 * Yields whether or not the results computed by the fixpoint can only
+		 * grow across iterations, that is, if the result stored for a node is
+		 * always greater or equal than the one it replaces (e.g., if
+		 * {@link #operation(Object, Object, Object)} is a least upper bound or
+		 * a widening). If this holds, the entry state of a node is updated by
+		 * applying {@link #union(Object, Object, Object)} to the previous entry
+		 * state and the states coming from the edges whose source has changed,
+		 * instead of recomputing it from all the ingoing edges.<br>
+		 * <br>
+		 * Defaults to {@code false}.
+		 * 
+		 * @return {@code true} if results can only grow
+		 */
+		default boolean isIncreasing() {
+			return false;
+		}
+	}
+
+	/**
+	 * A profiler of fixpoint computations, that is notified of the time spent
+	 * computing the semantics of each node and traversing the edges reaching
+	 * it.
+	 * 
+	 * @author <a href="mailto:luca.negrini@unive.it">Luca Negrini</a>
+	 * 
+	 * @param <N> the type of the {@link Node}s in the source graph
+	 */
+	public interface FixpointProfiler<N> {
+
+		/**
+		 * Records an evaluation of
+		 * {@link FixpointImplementation#semantics(Object, Object)}.
+		 * 
+		 * @param node  the node whose semantics has been computed
+		 * @param nanos the time spent computing it, in nanoseconds
+		 */
+		void semantics(N node, long nanos);
+
+		/**
+		 * Records an evaluation of
+		 * {@link FixpointImplementation#traverse(Object, Object)}.
+		 * 
+		 * @param node  the destination of the traversed edge
+		 * @param nanos the time spent traversing it, in nanoseconds
+		 */
+		void traverse(N node, long nanos);
 	}
 
 	/**
@@ -174,7 +292,10 @@ public class Fixpoint<G extends Graph<G, N, E>, N extends Node<G, N, E>, E exten
 
 	/**
 	 * Runs the fixpoint. Invoking this method effectively recomputes the
-	 * result: no caching on previous runs is executed.
+	 * result: no caching on previous runs is executed. The reverse postorder of
+	 * the nodes reachable from {@code startingPoints} is offered to {@code ws}
+	 * through {@link WorkingSet#setOrder(java.util.function.Supplier)}, and
+	 * computed only if {@code ws} needs it.
 	 * 
 	 * @param startingPoints a map containing all the nodes to start the
 	 *                           fixpoint at, each mapped to its entry state.
@@ -195,7 +316,8 @@ public class Fixpoint<G extends Graph<G, N, E>, N extends Node<G, N, E>, E exten
 			FixpointImplementation<N, E, T> implementation, Map<N, T> initialResult)
 			throws FixpointException {
 
-		result = initialResult;
+		reset(initialResult);
+		ws.setOrder(() -> reversePostorder(startingPoints.keySet()));
 		startingPoints.keySet().forEach(ws::push);
 
 		T newApprox;
@@ -204,15 +326,16 @@ public class Fixpoint<G extends Graph<G, N, E>, N extends Node<G, N, E>, E exten
 
 			if (current == null)
 				throw new FixpointException("null node encountered during fixpoint in '" + graph + "'");
-			if (!graph.containsNode(current))
+			int id = compact.getId(current);
+			if (id == -1)
 				throw new FixpointException("'" + current + "' is not part of '" + graph + "'");
 
-			T entrystate = getEntryState(current, startingPoints.get(current), implementation);
+			T entrystate = getEntryState(id, current, startingPoints.get(current), implementation);
 			if (entrystate == null)
 				throw new FixpointException("'" + current + "' does not have an entry state");
 
 			try {
-				newApprox = implementation.semantics(current, entrystate);
+				newApprox = semantics(current, entrystate, implementation);
 			} catch (Exception e) {
 				throw new FixpointException(format(ERROR, "computing semantics", current, graph), e);
 			}
@@ -226,9 +349,8 @@ public class Fixpoint<G extends Graph<G, N, E>, N extends Node<G, N, E>, E exten
 				}
 			try {
 				if (oldApprox == null || !implementation.equality(current, newApprox, oldApprox)) {
-					result.put(current, newApprox);
-					for (N instr : graph.followersOf(current))
-						ws.push(instr);
+					store(id, current, newApprox);
+					pushFollowers(id, ws);
 				}
 			} catch (Exception e) {
 				throw new FixpointException(format(ERROR, "updating result", current, graph), e);
@@ -238,23 +360,339 @@ public class Fixpoint<G extends Graph<G, N, E>, N extends Node<G, N, E>, E exten
 		return result;
 	}
 
-	private T getEntryState(N current, T startstate, FixpointImplementation<N, E, T> implementation)
+	/**
+	 * Runs the fixpoint following Bourdoncle's recursive iteration strategy
+	 * over the given {@link WeakTopologicalOrder}. Invoking this method
+	 * effectively recomputes the result: no caching on previous runs is
+	 * executed. It starts with empty result.
+	 * 
+	 * @param startingPoints a map containing all the nodes to start the
+	 *                           fixpoint at, each mapped to its entry state.
+	 * @param wto            the {@link WeakTopologicalOrder} of the nodes of
+	 *                           the source graph
+	 * @param implementation the {@link FixpointImplementation} to use for
+	 *                           running the fixpoint
+	 * 
+	 * @return a mapping from each (reachable) node of the source graph to the
+	 *             fixpoint result computed at that node
+	 * 
+	 * @throws FixpointException if something goes wrong during the fixpoint
+	 *                               execution
+	 * 
+	 * @see #recursiveFixpoint(Map, WeakTopologicalOrder,
+	 *          FixpointImplementation, Map)
+	 */
+	public Map<N, T> recursiveFixpoint(Map<N, T> startingPoints, WeakTopologicalOrder<G, N, E> wto,
+			FixpointImplementation<N, E, T> implementation)
+			throws FixpointException {
+		return recursiveFixpoint(startingPoints, wto, implementation, new HashMap<>(graph.getNodesCount()));
+	}
+
+	/**
+	 * Runs the fixpoint following Bourdoncle's recursive iteration strategy
+	 * over the given {@link WeakTopologicalOrder}. Invoking this method
+	 * effectively recomputes the result: no caching on previous runs is
+	 * executed.<br>
+	 * <br>
+	 * Elements of the order are processed in sequence. Components are
+	 * stabilized before moving past them, by repeatedly processing their head
+	 * and then their body until the head's result does not change. Since every
+	 * cycle of the graph passes through a head,
+	 * {@link FixpointImplementation#operation(Object, Object, Object)} and
+	 * {@link FixpointImplementation#equality(Object, Object, Object)} are only
+	 * invoked on heads: the result of any other node is overwritten with the
+	 * one computed by {@link FixpointImplementation#semantics(Object, Object)}.
+	 * Nodes without an entry state (i.e., whose predecessors have not been
+	 * computed yet and that are not starting points) are skipped.
+	 * 
+	 * @param startingPoints a map containing all the nodes to start the
+	 *                           fixpoint at, each mapped to its entry state.
+	 * @param wto            the {@link WeakTopologicalOrder} of the nodes of
+	 *                           the source graph
+	 * @param implementation the {@link FixpointImplementation} to use for
+	 *                           running the fixpoint
+	 * @param initialResult  the map of initial result to use for running the
+	 *                           fixpoint
+	 * 
+	 * @return a mapping from each (reachable) node of the source graph to the
+	 *             fixpoint result computed at that node
+	 * 
+	 * @throws FixpointException if something goes wrong during the fixpoint
+	 *                               execution
+	 */
+	public Map<N, T> recursiveFixpoint(Map<N, T> startingPoints, WeakTopologicalOrder<G, N, E> wto,
+			FixpointImplementation<N, E, T> implementation, Map<N, T> initialResult)
+			throws FixpointException {
+		reset(initialResult);
+		for (WeakTopologicalOrder.Element<N> element : wto.getElements())
+			process(element, startingPoints, implementation);
+		return result;
+	}
+
+	/**
+	 * Runs the fixpoint over the given {@link BasicBlocks} of the source graph.
+	 * Invoking this method effectively recomputes the result: no caching on
+	 * previous runs is executed. It starts with empty result.
+	 * 
+	 * @param startingPoints a map containing all the nodes to start the
+	 *                           fixpoint at, each mapped to its entry state.
+	 *                           All of them must be leaders of a block
+	 * @param blocks         the {@link BasicBlocks} of the source graph
+	 * @param ws             the instance of {@link WorkingSet} to use for the
+	 *                           fixpoint
+	 * @param implementation the {@link FixpointImplementation} to use for
+	 *                           running the fixpoint
+	 * 
+	 * @return a mapping from each (reachable) node of the source graph to the
+	 *             fixpoint result computed at that node
+	 * 
+	 * @throws FixpointException if something goes wrong during the fixpoint
+	 *                               execution
+	 * 
+	 * @see #blockFixpoint(Map, BasicBlocks, WorkingSet, FixpointImplementation,
+	 *          Map)
+	 */
+	public Map<N, T> blockFixpoint(Map<N, T> startingPoints, BasicBlocks<G, N, E> blocks, WorkingSet<N> ws,
+			FixpointImplementation<N, E, T> implementation)
+			throws FixpointException {
+		return blockFixpoint(startingPoints, blocks, ws, implementation, new HashMap<>(graph.getNodesCount()));
+	}
+
+	/**
+	 * Runs the fixpoint over the given {@link BasicBlocks} of the source graph.
+	 * Invoking this method effectively recomputes the result: no caching on
+	 * previous runs is executed.<br>
+	 * <br>
+	 * Only the leaders of the blocks are added to {@code ws}, and processing a
+	 * leader means processing its whole block in one step. Since every edge
+	 * reaching the middle of a block comes from the previous node of the same
+	 * block, {@link FixpointImplementation#operation(Object, Object, Object)}
+	 * and {@link FixpointImplementation#equality(Object, Object, Object)} are
+	 * only invoked on leaders: if the result of the leader does not change, the
+	 * rest of the block is skipped, otherwise the results of the other nodes of
+	 * the block are overwritten with the ones computed by
+	 * {@link FixpointImplementation#semantics(Object, Object)}, and the
+	 * followers of the last node of the block are added to {@code ws}. The
+	 * reverse postorder of the nodes reachable from {@code startingPoints} is
+	 * offered to {@code ws} through
+	 * {@link WorkingSet#setOrder(java.util.function.Supplier)}, and computed
+	 * only if {@code ws} needs it.
+	 * 
+	 * @param startingPoints a map containing all the nodes to start the
+	 *                           fixpoint at, each mapped to its entry state.
+	 *                           All of them must be leaders of a block
+	 * @param blocks         the {@link BasicBlocks} of the source graph
+	 * @param ws             the instance of {@link WorkingSet} to use for the
+	 *                           fixpoint
+	 * @param implementation the {@link FixpointImplementation} to use for
+	 *                           running the fixpoint
+	 * @param initialResult  the map of initial result to use for running the
+	 *                           fixpoint
+	 * 
+	 * @return a mapping from each (reachable) node of the source graph to the
+	 *             fixpoint result computed at that node
+	 * 
+	 * @throws FixpointException if something goes wrong during the fixpoint
+	 *                               execution
+	 */
+	public Map<N, T> blockFixpoint(Map<N, T> startingPoints, BasicBlocks<G, N, E> blocks, WorkingSet<N> ws,
+			FixpointImplementation<N, E, T> implementation, Map<N, T> initialResult)
+			throws FixpointException {
+
+		reset(initialResult);
+		for (N start : startingPoints.keySet())
+			if (!blocks.isLeader(start))
+				throw new FixpointException("'" + start + "' is not the leader of a block of '" + graph + "'");
+		ws.setOrder(() -> reversePostorder(startingPoints.keySet()));
+		startingPoints.keySet().forEach(ws::push);
+
+		while (!ws.isEmpty()) {
+			N leader = ws.pop();
+			List<N> block = blocks.getBlock(leader);
+			if (block == null)
+				throw new FixpointException("'" + leader + "' is not the leader of a block of '" + graph + "'");
+
+			if (!update(leader, startingPoints, implementation, true))
+				continue;
+			for (int i = 1; i < block.size(); i++)
+				update(block.get(i), startingPoints, implementation, false);
+
+			pushFollowers(compact.getId(block.get(block.size() - 1)), ws);
+		}
+
+		return result;
+	}
+
+	private void process(WeakTopologicalOrder.Element<N> element, Map<N, T> startingPoints,
+			FixpointImplementation<N, E, T> implementation) throws FixpointException {
+		if (!element.isComponent()) {
+			update(element.getHead(), startingPoints, implementation, false);
+			return;
+		}
+
+		boolean first = true;
+		// the body is always processed at least once, since the head
+		// might already be stable if an initial result was provided
+		while (update(element.getHead(), startingPoints, implementation, true) || first) {
+			for (WeakTopologicalOrder.Element<N> inner : element.getBody())
+				process(inner, startingPoints, implementation);
+			first = false;
+		}
+	}
+
+	private boolean update(N current, Map<N, T> startingPoints, FixpointImplementation<N, E, T> implementation,
+			boolean head) throws FixpointException {
+		if (current == null)
+			throw new FixpointException("null node encountered during fixpoint in '" + graph + "'");
+		int id = compact.getId(current);
+		if (id == -1)
+			throw new FixpointException("'" + current + "' is not part of '" + graph + "'");
+
+		T entrystate = getEntryState(id, current, startingPoints.get(current), implementation);
+		if (entrystate == null)
+			// not reachable yet
+			return false;
+
+		T newApprox;
+		try {
+			newApprox = semantics(current, entrystate, implementation);
+		} catch (Exception e) {
+			throw new FixpointException(format(ERROR, "computing semantics", current, graph), e);
+		}
+
+		T oldApprox = result.get(current);
+		if (!head || oldApprox == null) {
+			store(id, current, newApprox);
+			return true;
+		}
+
+		try {
+			newApprox = implementation.operation(current, newApprox, oldApprox);
+		} catch (Exception e) {
+			throw new FixpointException(format(ERROR, "joining states", current, graph), e);
+		}
+
+		try {
+			if (implementation.equality(current, newApprox, oldApprox))
+				return false;
+		} catch (Exception e) {
+			throw new FixpointException(format(ERROR, "updating result", current, graph), e);
+		}
+
+		store(id, current, newApprox);
+		return true;
+	}
+
+	private T semantics(N node, T entrystate, FixpointImplementation<N, E, T> implementation) throws Exception {
+		if (profiler == null)
+			return implementation.semantics(node, entrystate);
+		long start = System.nanoTime();
+		T result = implementation.semantics(node, entrystate);
+		profiler.semantics(node, System.nanoTime() - start);
+		return result;
+	}
+
+	private T traverse(N node, E edge, T entrystate, FixpointImplementation<N, E, T> implementation)
+			throws Exception {
+		if (profiler == null)
+			return implementation.traverse(edge, entrystate);
+		long start = System.nanoTime();
+		T result = implementation.traverse(edge, entrystate);
+		profiler.traverse(node, System.nanoTime() - start);
+		return result;
+	}
+
+	private void pushFollowers(int id, WorkingSet<N> ws) {
+		for (int k = compact.getSuccessorsStart(id); k < compact.getSuccessorsEnd(id); k++)
+			ws.push(compact.getNode(compact.getSuccessor(k)));
+	}
+
+	private List<N> reversePostorder(Collection<N> roots) {
+		LinkedList<N> order = new LinkedList<>();
+		int count = compact.getNodesCount();
+		boolean[] visited = new boolean[count];
+		// each stack entry holds a node and the position of its next follower
+		int[] nodes = new int[count];
+		int[] positions = new int[count];
+		for (int root = 0; root < count; root++)
+			if (!visited[root] && roots.contains(compact.getNode(root))) {
+				visited[root] = true;
+				int top = 0;
+				nodes[0] = root;
+				positions[0] = compact.getSuccessorsStart(root);
+				while (top >= 0) {
+					int node = nodes[top];
+					if (positions[top] < compact.getSuccessorsEnd(node)) {
+						int next = compact.getSuccessor(positions[top]++);
+						if (!visited[next]) {
+							visited[next] = true;
+							nodes[++top] = next;
+							positions[top] = compact.getSuccessorsStart(next);
+						}
+					} else {
+						// nodes are added in postorder, and
+						// prepending them reverses it
+						order.addFirst(compact.getNode(node));
+						top--;
+					}
+				}
+			}
+		return order;
+	}
+
+	private void reset(Map<N, T> initialResult) {
+		result = initialResult;
+		Arrays.fill(versions, 0);
+		Arrays.fill(edgeStates, null);
+		Arrays.fill(entryStates, null);
+	}
+
+	private void store(int id, N node, T approx) {
+		result.put(node, approx);
+		versions[id]++;
+	}
+
+	@SuppressWarnings("unchecked")
+	private T getEntryState(int id, N current, T startstate, FixpointImplementation<N, E, T> implementation)
 			throws FixpointException {
-		Collection<N> preds = graph.predecessorsOf(current);
-		List<T> states = new ArrayList<>(preds.size());
+		int start = compact.getPredecessorsStart(id), end = compact.getPredecessorsEnd(id);
+		List<T> states = new ArrayList<>(end - start);
+		List<T> changed = new ArrayList<>(end - start);
 
-		for (N pred : preds)
-			if (result.containsKey(pred)) {
+		for (int k = start; k < end; k++) {
+			int pred = compact.getPredecessor(k);
+			N predNode = compact.getNode(pred);
+			if (result.containsKey(predNode)) {
 				// this might not have been computed yet
-				E edge = graph.getEdgeConnecting(pred, current);
-				try {
-					states.add(implementation.traverse(edge, result.get(pred)));
-				} catch (Exception e) {
-					throw new FixpointException(format(ERROR, "computing edge semantics", edge, graph), e);
+				E edge = compact.getIngoingEdge(k);
+				int version = versions[pred];
+				CachedState<T> cached = edgeStates[k];
+				if (cached == null || cached.version != version) {
+					// the source changed since the last traversal
+					try {
+						cached = new CachedState<>(version, traverse(current, edge, result.get(predNode),
+								implementation));
+					} catch (Exception e) {
+						throw new FixpointException(format(ERROR, "computing edge semantics", edge, graph), e);
+					}
+					edgeStates[k] = cached;
+					changed.add(cached.state);
 				}
+				states.add(cached.state);
 			}
+		}
+
+		T previous = (T) entryStates[id];
+		if (previous != null && changed.isEmpty())
+			return previous;
+
+		T entrystate;
+		if (previous != null && implementation.isIncreasing()) {
+			entrystate = previous;
+			states = changed;
+		} else
+			entrystate = startstate;
 
-		T entrystate = startstate;
 		try {
 			for (T s : states)
 				if (entrystate == null)
@@ -265,6 +703,20 @@ public class Fixpoint<G extends Graph<G, N, E>, N extends Node<G, N, E>, E exten
 			throw new FixpointException(format(ERROR, "creating entry state", current, graph), e);
 		}
 
+		if (entrystate != null)
+			entryStates[id] = entrystate;
 		return entrystate;
 	}
+
+	private static class CachedState<T> {
+
+		private final int version;
+
+		private final T state;
+
+		private CachedState(int version, T state) {
+			this.version = version;
+			this.state = state;
+		}
+	}
 }
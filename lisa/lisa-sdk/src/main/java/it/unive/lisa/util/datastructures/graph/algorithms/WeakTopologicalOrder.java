@@ -0,0 +1,301 @@
+package it.unive.lisa.util.datastructures.graph.algorithms;
+
+import it.unive.lisa.util.datastructures.graph.Edge;
+import it.unive.lisa.util.datastructures.graph.Graph;
+import it.unive.lisa.util.datastructures.graph.Node;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * A weak topological order of a {@link Graph}, computed through Bourdoncle's
+ * algorithm (<i>F. Bourdoncle, Efficient chaotic iteration strategies with
+ * widenings, FMPA 1993</i>). The order is a hierarchical partition of the nodes
+ * reachable from a set of roots into {@link Element}s: each element is either a
+ * single node, or a component formed by a <i>head</i> and a body of nested
+ * elements. Every cycle of the graph contains at least one head, making heads
+ * the only places where widening is needed to ensure termination of a fixpoint
+ * computation. Moreover, every edge that does not target a head of an enclosing
+ * component goes forward in the order.<br>
+ * <br>
+ * The visit is implemented iteratively, and does not recurse on the structure
+ * of the graph.
+ *
+ * @author <a href="mailto:luca.negrini@unive.it">Luca Negrini</a>
+ *
+ * @param <G> the type of the source {@link Graph}
+ * @param <N> the type of the {@link Node}s in the source graph
+ * @param <E> the type of the {@link Edge}s in the source graph
+ */
+public class WeakTopologicalOrder<G extends Graph<G, N, E>, N extends Node<G, N, E>, E extends Edge<G, N, E>> {
+
+	private static final int INF = Integer.MAX_VALUE;
+
+	private final List<Element<N>> elements;
+
+	private final Set<N> heads;
+
+	/**
+	 * Builds the weak topological order of the nodes of {@code graph} that are
+	 * reachable from {@code roots}. Roots are visited following the order in
+	 * which they appear in {@link Graph#getNodes()}.
+	 *
+	 * @param graph the graph
+	 * @param roots the nodes where the visit starts
+	 */
+	public WeakTopologicalOrder(Graph<G, N, E> graph, Collection<N> roots) {
+		this.heads = new HashSet<>();
+		this.elements = new Builder(graph).build(roots);
+	}
+
+	/**
+	 * Yields the top-level elements of this order, in the order they need to be
+	 * processed.
+	 *
+	 * @return the top-level elements
+	 */
+	public List<Element<N>> getElements() {
+		return elements;
+	}
+
+	/**
+	 * Yields the heads of all the components of this order, at any nesting
+	 * level.
+	 *
+	 * @return the heads
+	 */
+	public Collection<N> getHeads() {
+		return Collections.unmodifiableSet(heads);
+	}
+
+	/**
+	 * Yields whether or not the given node is the head of a component of this
+	 * order.
+	 *
+	 * @param node the node
+	 *
+	 * @return {@code true} if that condition holds
+	 */
+	public boolean isHead(N node) {
+		return heads.contains(node);
+	}
+
+	@Override
+	public String toString() {
+		return elements.stream().map(Element::toString).collect(Collectors.joining(" "));
+	}
+
+	/**
+	 * An element of a {@link WeakTopologicalOrder}: either a single node, or a
+	 * component made of a head and a (possibly empty) body of nested elements.
+	 *
+	 * @author <a href="mailto:luca.negrini@unive.it">Luca Negrini</a>
+	 *
+	 * @param <N> the type of the nodes
+	 */
+	public static class Element<N> {
+
+		private final N head;
+
+		private final List<Element<N>> body;
+
+		private Element(N head, List<Element<N>> body) {
+			this.head = head;
+			this.body = body;
+		}
+
+		/**
+		 * Yields the node of this element, that is the head of the component if
+		 * {@link #isComponent()} holds.
+		 *
+		 * @return the node
+		 */
+		public N getHead() {
+			return head;
+		}
+
+		/**
+		 * Yields the elements nested in this component, in the order they need
+		 * to be processed. This is always empty if {@link #isComponent()} does
+		 * not hold.
+		 *
+		 * @return the body of the component
+		 */
+		public List<Element<N>> getBody() {
+			return body == null ? Collections.emptyList() : body;
+		}
+
+		/**
+		 * Yields whether or not this element is a component, that is, if its
+		 * head is part of a cycle.
+		 *
+		 * @return {@code true} if that condition holds
+		 */
+		public boolean isComponent() {
+			return body != null;
+		}
+
+		@Override
+		public String toString() {
+			if (body == null)
+				return String.valueOf(head);
+			StringBuilder res = new StringBuilder("(").append(head);
+			for (Element<N> e : body)
+				res.append(" ").append(e);
+			return res.append(")").toString();
+		}
+	}
+
+	private class Builder {
+
+		private final Graph<G, N, E> graph;
+
+		private final Map<N, Integer> dfn;
+
+		private final Deque<N> stack;
+
+		private final Deque<Frame> frames;
+
+		private int num;
+
+		private int returned;
+
+		private Builder(Graph<G, N, E> graph) {
+			this.graph = graph;
+			this.dfn = new IdentityHashMap<>(graph.getNodesCount());
+			this.stack = new ArrayDeque<>();
+			this.frames = new ArrayDeque<>();
+			this.num = 0;
+		}
+
+		private List<Element<N>> build(Collection<N> roots) {
+			LinkedList<Element<N>> partition = new LinkedList<>();
+			for (N node : graph.getNodes())
+				if (roots.contains(node) && dfn(node) == 0) {
+					frames.push(new Visit(node, partition));
+					run();
+				}
+			return partition;
+		}
+
+		private int dfn(N node) {
+			return dfn.getOrDefault(node, 0);
+		}
+
+		private void run() {
+			while (!frames.isEmpty())
+				frames.peek().step();
+		}
+
+		private abstract class Frame {
+			protected final N node;
+			protected final LinkedList<Element<N>> partition;
+			protected Iterator<N> successors;
+
+			private Frame(N node, LinkedList<Element<N>> partition) {
+				this.node = node;
+				this.partition = partition;
+			}
+
+			protected abstract void step();
+		}
+
+		private class Visit extends Frame {
+			private int head;
+			private boolean loop;
+			private boolean waiting;
+
+			private Visit(N node, LinkedList<Element<N>> partition) {
+				super(node, partition);
+			}
+
+			@Override
+			protected void step() {
+				if (successors == null) {
+					stack.push(node);
+					dfn.put(node, ++num);
+					head = num;
+					loop = false;
+					successors = graph.followersOf(node).iterator();
+				} else if (waiting) {
+					waiting = false;
+					update(returned);
+				}
+
+				while (successors.hasNext()) {
+					N succ = successors.next();
+					int min = dfn(succ);
+					if (min == 0) {
+						waiting = true;
+						frames.push(new Visit(succ, partition));
+						return;
+					}
+					update(min);
+				}
+
+				frames.pop();
+				returned = head;
+				if (head != dfn(node))
+					return;
+
+				dfn.put(node, INF);
+				N element = stack.pop();
+				if (!loop) {
+					partition.addFirst(new Element<>(node, null));
+					return;
+				}
+
+				while (element != node) {
+					dfn.put(element, 0);
+					element = stack.pop();
+				}
+				heads.add(node);
+				frames.push(new Component(node, partition, head));
+			}
+
+			private void update(int min) {
+				if (min <= head) {
+					head = min;
+					loop = true;
+				}
+			}
+		}
+
+		private class Component extends Frame {
+			private final LinkedList<Element<N>> body;
+			private final int result;
+
+			private Component(N node, LinkedList<Element<N>> partition, int result) {
+				super(node, partition);
+				this.body = new LinkedList<>();
+				this.result = result;
+				this.successors = graph.followersOf(node).iterator();
+			}
+
+			@Override
+			protected void step() {
+				while (successors.hasNext()) {
+					N succ = successors.next();
+					if (dfn(succ) == 0) {
+						frames.push(new Visit(succ, body));
+						return;
+					}
+				}
+
+				frames.pop();
+				partition.addFirst(new Element<>(node, body));
+				// inner visits overwrite the value returned to the caller
+				returned = result;
+			}
+		}
+	}
+}
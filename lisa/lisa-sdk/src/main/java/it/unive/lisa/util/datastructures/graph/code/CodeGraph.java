@@ -2,6 +2,7 @@ package it.unive.lisa.util.datastructures.graph.code;
 
 import it.unive.lisa.outputs.serializableGraph.SerializableGraph;
 import it.unive.lisa.outputs.serializableGraph.SerializableValue;
+import it.unive.lisa.program.ProgramValidationException;
 import it.unive.lisa.util.datastructures.graph.Graph;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -118,6 +119,23 @@ public abstract class CodeGraph<G extends CodeGraph<G, N, E>, N extends CodeNode
 		list.addEdge(edge);
 	}
 
+	/**
+	 * Adds all the nodes and edges collected by the given builder to this
+	 * graph, marking as entrypoints the ones that were added to the builder as
+	 * such. This has the same effect of adding each node and then each edge one
+	 * at a time, but the backing {@link NodeList} is updated in a single pass.
+	 * 
+	 * @param builder the builder holding the nodes and edges to add
+	 * 
+	 * @throws ProgramValidationException if one of the edges is connected to a
+	 *                                        node that is not part of this
+	 *                                        graph nor of the builder
+	 */
+	public void addAll(NodeListBuilder<G, N, E> builder) throws ProgramValidationException {
+		list.addAll(builder.getNodes(), builder.getEdges());
+		entrypoints.addAll(builder.getEntrypoints());
+	}
+
 	@Override
 	public int getNodesCount() {
 		return getNodes().size();
@@ -3,6 +3,7 @@ package it.unive.lisa.util.datastructures.graph.code;
 import it.unive.lisa.program.ProgramValidationException;
 import it.unive.lisa.util.datastructures.graph.Edge;
 import it.unive.lisa.util.datastructures.graph.Node;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
@@ -44,6 +45,25 @@ public class NodeList<G extends CodeGraph<G, N, E>, N extends CodeNode<G, N, E>,
 	 */
 	private final List<N> nodes;
 
+	/**
+	 * Mapping from each node to its position in {@link #nodes}.
+	 */
+	private final Map<N, Integer> positions;
+
+	/**
+	 * The followers of each node, indexed by position in {@link #nodes} and
+	 * lazily computed. This is {@code null} if no follower has been computed
+	 * since the last modification of this list.
+	 */
+	private volatile Collection<N>[] followers;
+
+	/**
+	 * The predecessors of each node, indexed by position in {@link #nodes} and
+	 * lazily computed. This is {@code null} if no predecessor has been computed
+	 * since the last modification of this list.
+	 */
+	private volatile Collection<N>[] predecessors;
+
 	/**
 	 * The list of indexes of the nodes that are cutoff points for sequential
 	 * execution, meaning that its follower in {@link #nodes} is not a follower
@@ -99,7 +119,8 @@ public class NodeList<G extends CodeGraph<G, N, E>, N extends CodeNode<G, N, E>,
 	 */
 	public NodeList(E sequentialSingleton, boolean computeOffsets) {
 		this.sequentialSingleton = sequentialSingleton;
-		nodes = new LinkedList<>();
+		nodes = new ArrayList<>();
+		positions = new HashMap<>();
 		cutoff = new HashSet<>();
 		extraEdges = new TreeMap<>();
 		nextOffset = 0;
@@ -113,7 +134,8 @@ public class NodeList<G extends CodeGraph<G, N, E>, N extends CodeNode<G, N, E>,
 	 */
 	public NodeList(NodeList<G, N, E> other) {
 		sequentialSingleton = other.sequentialSingleton;
-		nodes = new LinkedList<>(other.nodes);
+		nodes = new ArrayList<>(other.nodes);
+		positions = new HashMap<>(other.positions);
 		cutoff = new HashSet<>(other.cutoff);
 		extraEdges = new TreeMap<>();
 		for (Entry<N, NodeEdges<G, N, E>> entry : other.extraEdges.entrySet())
@@ -142,6 +164,8 @@ public class NodeList<G extends CodeGraph<G, N, E>, N extends CodeNode<G, N, E>,
 		if (size != 0)
 			cutoff.add(size - 1);
 		nodes.add(node);
+		positions.put(node, size);
+		invalidateAdjacency();
 		if (computeOffsets)
 			nextOffset = node.setOffset(nextOffset) + 1;
 	}
@@ -158,7 +182,7 @@ public class NodeList<G extends CodeGraph<G, N, E>, N extends CodeNode<G, N, E>,
 		if (!containsNode(node))
 			return;
 
-		int target = nodes.indexOf(node);
+		int target = indexOf(node);
 		NodeEdges<G, N, E> edges = extraEdges.get(node);
 		if (edges != null) {
 			Set<E> union = new HashSet<>(edges.ingoing);
@@ -167,7 +191,11 @@ public class NodeList<G extends CodeGraph<G, N, E>, N extends CodeNode<G, N, E>,
 			cutoff.remove(target);
 		}
 
-		nodes.remove(node);
+		nodes.remove(target);
+		positions.remove(node);
+		for (int i = target; i < nodes.size(); i++)
+			positions.put(nodes.get(i), i);
+		invalidateAdjacency();
 		// need to shift all successive cutoff back by one
 		List<Integer> interesting = cutoff.stream().filter(i -> i >= target).sorted().collect(Collectors.toList());
 		cutoff.removeAll(interesting);
@@ -194,6 +222,29 @@ public class NodeList<G extends CodeGraph<G, N, E>, N extends CodeNode<G, N, E>,
 		recomputeOffsets();
 	}
 
+	private int indexOf(N node) {
+		Integer idx = positions.get(node);
+		return idx == null ? -1 : idx;
+	}
+
+	private void invalidateAdjacency() {
+		followers = null;
+		predecessors = null;
+	}
+
+	/**
+	 * Yields the number of offsets assigned by this list to its nodes and to
+	 * the ones nested inside them. Offsets are dense: they range from {@code 0}
+	 * (inclusive) to the returned value (exclusive), and can thus be used as
+	 * indexes of arrays holding information about nodes.
+	 * 
+	 * @return the number of offsets, or {@code 0} if this list does not compute
+	 *             offsets
+	 */
+	public int getOffsetsCount() {
+		return computeOffsets ? nextOffset : 0;
+	}
+
 	private void recomputeOffsets() {
 		if (!computeOffsets)
 			return;
@@ -222,14 +273,16 @@ public class NodeList<G extends CodeGraph<G, N, E>, N extends CodeNode<G, N, E>,
 	 *                                           this list
 	 */
 	public void addEdge(E e) {
-		int src = nodes.indexOf(e.getSource());
+		int src = indexOf(e.getSource());
 		if (src == -1)
 			throw new UnsupportedOperationException("The source node is not in the graph");
 
-		int dest = nodes.indexOf(e.getDestination());
+		int dest = indexOf(e.getDestination());
 		if (dest == -1)
 			throw new UnsupportedOperationException("The destination node is not in the graph");
 
+		invalidateAdjacency();
+
 		if (e.isUnconditional() && src == dest - 1)
 			// just remove the cutoff
 			cutoff.remove(src);
@@ -245,11 +298,13 @@ public class NodeList<G extends CodeGraph<G, N, E>, N extends CodeNode<G, N, E>,
 	 * @param e the edge to remove
 	 */
 	public void removeEdge(E e) {
-		int src = nodes.indexOf(e.getSource());
-		int dest = nodes.indexOf(e.getDestination());
+		int src = indexOf(e.getSource());
+		int dest = indexOf(e.getDestination());
 		if (src == -1 || dest == -1)
 			return;
 
+		invalidateAdjacency();
+
 		if (e.isUnconditional() && src == dest - 1)
 			// just add the cutoff
 			cutoff.add(src);
@@ -282,8 +337,8 @@ public class NodeList<G extends CodeGraph<G, N, E>, N extends CodeNode<G, N, E>,
 	 *             {@code null}
 	 */
 	public final E getEdgeConnecting(N source, N destination) {
-		int src = nodes.indexOf(source);
-		int dest = nodes.indexOf(destination);
+		int src = indexOf(source);
+		int dest = indexOf(destination);
 		if (src == -1 || dest == -1)
 			return null;
 
@@ -311,8 +366,8 @@ public class NodeList<G extends CodeGraph<G, N, E>, N extends CodeNode<G, N, E>,
 	 * @return the edges connecting {@code source} to {@code destination}
 	 */
 	public Collection<E> getEdgesConnecting(N source, N destination) {
-		int src = nodes.indexOf(source);
-		int dest = nodes.indexOf(destination);
+		int src = indexOf(source);
+		int dest = indexOf(destination);
 		if (src == -1 || dest == -1)
 			return Collections.emptySet();
 
@@ -337,7 +392,7 @@ public class NodeList<G extends CodeGraph<G, N, E>, N extends CodeNode<G, N, E>,
 	 * @return the collection of ingoing edges
 	 */
 	public final Collection<E> getIngoingEdges(N node) {
-		int src = nodes.indexOf(node);
+		int src = indexOf(node);
 		if (src == -1)
 			return Collections.emptySet();
 
@@ -360,7 +415,7 @@ public class NodeList<G extends CodeGraph<G, N, E>, N extends CodeNode<G, N, E>,
 	 * @return the collection of outgoing edges
 	 */
 	public final Collection<E> getOutgoingEdges(N node) {
-		int src = nodes.indexOf(node);
+		int src = indexOf(node);
 		if (src == -1)
 			return Collections.emptySet();
 
@@ -403,19 +458,28 @@ public class NodeList<G extends CodeGraph<G, N, E>, N extends CodeNode<G, N, E>,
 	 * @throws IllegalArgumentException if the node is not in the graph
 	 */
 	public final Collection<N> followersOf(N node) {
-		int src = nodes.indexOf(node);
+		int src = indexOf(node);
 		if (src == -1)
 			throw new IllegalArgumentException("'" + node + "' is not in the graph");
 
-		SortedSet<N> result = new TreeSet<>();
-		if (src != nodes.size() - 1 && !cutoff.contains(src))
-			result.add(nodes.get(src + 1));
+		Collection<N>[] cache = followers;
+		if (cache == null)
+			followers = cache = newAdjacencyCache();
+		Collection<N> result = cache[src];
+		if (result == null) {
+			SortedSet<N> found = new TreeSet<>();
+			if (src != nodes.size() - 1 && !cutoff.contains(src))
+				found.add(nodes.get(src + 1));
 
-		NodeEdges<G, N, E> edges = extraEdges.get(node);
-		if (edges != null)
-			result.addAll(edges.outgoing.stream().map(Edge::getDestination).collect(Collectors.toSet()));
+			NodeEdges<G, N, E> edges = extraEdges.get(node);
+			if (edges != null)
+				for (E e : edges.outgoing)
+					found.add(e.getDestination());
 
-		return result.isEmpty() ? Collections.emptySet() : result;
+			cache[src] = result = freeze(found);
+		}
+
+		return result;
 	}
 
 	/**
@@ -430,19 +494,39 @@ public class NodeList<G extends CodeGraph<G, N, E>, N extends CodeNode<G, N, E>,
 	 * @throws IllegalArgumentException if the node is not in the graph
 	 */
 	public final Collection<N> predecessorsOf(N node) {
-		int src = nodes.indexOf(node);
+		int src = indexOf(node);
 		if (src == -1)
 			throw new IllegalArgumentException("'" + node + "' is not in the graph");
 
-		SortedSet<N> result = new TreeSet<>();
-		if (src != 0 && !cutoff.contains(src - 1))
-			result.add(nodes.get(src - 1));
+		Collection<N>[] cache = predecessors;
+		if (cache == null)
+			predecessors = cache = newAdjacencyCache();
+		Collection<N> result = cache[src];
+		if (result == null) {
+			SortedSet<N> found = new TreeSet<>();
+			if (src != 0 && !cutoff.contains(src - 1))
+				found.add(nodes.get(src - 1));
 
-		NodeEdges<G, N, E> edges = extraEdges.get(node);
-		if (edges != null)
-			result.addAll(edges.ingoing.stream().map(Edge::getSource).collect(Collectors.toSet()));
+			NodeEdges<G, N, E> edges = extraEdges.get(node);
+			if (edges != null)
+				for (E e : edges.ingoing)
+					found.add(e.getSource());
 
-		return result.isEmpty() ? Collections.emptySet() : result;
+			cache[src] = result = freeze(found);
+		}
+
+		return result;
+	}
+
+	@SuppressWarnings("unchecked")
+	private Collection<N>[] newAdjacencyCache() {
+		return new Collection[nodes.size()];
+	}
+
+	private Collection<N> freeze(SortedSet<N> found) {
+		if (found.isEmpty())
+			return Collections.emptyList();
+		return Collections.unmodifiableList(new ArrayList<>(found));
 	}
 
 	/**
@@ -537,7 +621,7 @@ public class NodeList<G extends CodeGraph<G, N, E>, N extends CodeNode<G, N, E>,
 	 * @return {@code true} if the node is in this list
 	 */
 	public boolean containsNode(N node) {
-		return nodes.contains(node);
+		return positions.containsKey(node);
 	}
 
 	/**
@@ -548,8 +632,8 @@ public class NodeList<G extends CodeGraph<G, N, E>, N extends CodeNode<G, N, E>,
 	 * @return {@code true} if the edge is in this list
 	 */
 	public boolean containsEdge(E edge) {
-		int src = nodes.indexOf(edge.getSource());
-		int dest = nodes.indexOf(edge.getDestination());
+		int src = indexOf(edge.getSource());
+		int dest = indexOf(edge.getDestination());
 		if (src == -1 || dest == -1)
 			return false;
 
@@ -748,11 +832,72 @@ public class NodeList<G extends CodeGraph<G, N, E>, N extends CodeNode<G, N, E>,
 	 * @param other the list to merge into this one
 	 */
 	public void mergeWith(NodeList<G, N, E> other) {
-		for (N node : other.getNodes())
-			addNode(node);
+		// edges of other are connected to nodes of other
+		append(other.getNodes(), other.getEdges());
+	}
+
+	/**
+	 * Adds all the given nodes and edges to this list, with the same effect of
+	 * invoking {@link #addNode(CodeNode)} on each node (in iteration order) and
+	 * then {@link #addEdge(CodeEdge)} on each edge. Edges are validated once
+	 * before modifying this list, and the list is then updated in a single pass
+	 * over the given collections, assigning offsets only to the new nodes.
+	 * 
+	 * @param nodes the nodes to add
+	 * @param edges the edges to add, connecting nodes that are either already
+	 *                  in this list or in {@code nodes}
+	 * 
+	 * @throws ProgramValidationException if one of the edges is connected to a
+	 *                                        node that is not part of this list
+	 *                                        nor of {@code nodes}
+	 */
+	public void addAll(Collection<N> nodes, Collection<E> edges) throws ProgramValidationException {
+		Set<N> added = new HashSet<>(nodes);
+		for (E edge : edges)
+			if (!containsNode(edge.getSource()) && !added.contains(edge.getSource()))
+				throw new ProgramValidationException("Invalid edge: '" + edge
+						+ "' originates in a node that is not part of the graph");
+			else if (!containsNode(edge.getDestination()) && !added.contains(edge.getDestination()))
+				throw new ProgramValidationException("Invalid edge: '" + edge
+						+ "' reaches a node that is not part of the graph");
+		append(nodes, edges);
+	}
+
+	private void append(Collection<N> added, Collection<E> edges) {
+		int start = nodes.size();
+		for (N node : added)
+			if (positions.putIfAbsent(node, nodes.size()) == null) {
+				nodes.add(node);
+				if (computeOffsets)
+					nextOffset = node.setOffset(nextOffset) + 1;
+			}
+		int end = nodes.size();
+
+		// each new node introduces a cutoff with its predecessor in the list,
+		// unless a sequential edge connects them
+		int first = start == 0 ? 0 : start - 1;
+		boolean[] sequential = new boolean[end > start ? end - first : 0];
+		for (E e : edges) {
+			int src = indexOf(e.getSource());
+			int dest = indexOf(e.getDestination());
+			if (e.isUnconditional() && src == dest - 1)
+				if (end > start && src >= first)
+					sequential[src - first] = true;
+				else
+					cutoff.remove(src);
+			else {
+				extraEdges.computeIfAbsent(e.getSource(), n -> new NodeEdges<>()).outgoing.add(e);
+				extraEdges.computeIfAbsent(e.getDestination(), n -> new NodeEdges<>()).ingoing.add(e);
+			}
+		}
+
+		for (int i = first; i < end - 1; i++)
+			if (sequential[i - first])
+				cutoff.remove(i);
+			else
+				cutoff.add(i);
 
-		for (E edge : other.getEdges())
-			addEdge(edge);
+		invalidateAdjacency();
 	}
 
 	/**
@@ -780,13 +925,13 @@ public class NodeList<G extends CodeGraph<G, N, E>, N extends CodeNode<G, N, E>,
 				continue;
 
 			for (E in : edges.ingoing)
-				validateEdge(nodes, in);
+				validateEdge(in);
 
 			for (E out : edges.outgoing)
-				validateEdge(nodes, out);
+				validateEdge(out);
 
 			// no deadcode
-			int idx = nodes.indexOf(node);
+			int idx = indexOf(node);
 			if (edges.ingoing.isEmpty()
 					&& (idx == 0 || cutoff.contains(idx - 1))
 					&& !entrypoints.contains(node))
@@ -795,11 +940,11 @@ public class NodeList<G extends CodeGraph<G, N, E>, N extends CodeNode<G, N, E>,
 		}
 	}
 
-	private void validateEdge(Collection<N> nodes, E edge) throws ProgramValidationException {
-		if (!nodes.contains(edge.getSource()))
+	private void validateEdge(E edge) throws ProgramValidationException {
+		if (!containsNode(edge.getSource()))
 			throw new ProgramValidationException("Invalid edge: '" + edge
 					+ "' originates in a node that is not part of the graph");
-		else if (!nodes.contains(edge.getDestination()))
+		else if (!containsNode(edge.getDestination()))
 			throw new ProgramValidationException("Invalid edge: '" + edge
 					+ "' reaches a node that is not part of the graph");
 	}
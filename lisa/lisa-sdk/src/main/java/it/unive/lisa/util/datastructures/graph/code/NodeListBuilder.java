@@ -0,0 +1,146 @@
+package it.unive.lisa.util.datastructures.graph.code;
+
+import it.unive.lisa.program.ProgramValidationException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A builder of {@link NodeList}s, that collects nodes and edges without
+ * maintaining any of the structures of the list. The list is then produced by
+ * {@link #build()} or filled by {@link CodeGraph#addAll(NodeListBuilder)} in a
+ * single pass, validating all edges once. This is meant for frontends that
+ * generate large graphs, where adding nodes and edges one at a time to a
+ * {@link CodeGraph} is expensive.<br>
+ * <br>
+ * Nodes are added to the list in the order they are added to the builder, and
+ * all edges are added after all nodes: edges can thus be added to the builder
+ * before their endpoints.
+ *
+ * @author <a href="mailto:luca.negrini@unive.it">Luca Negrini</a>
+ *
+ * @param <G> the type of the {@link CodeGraph}s the built list can be used in
+ * @param <N> the type of the {@link CodeNode}s in the built list
+ * @param <E> the type of the {@link CodeEdge}s in the built list
+ */
+public class NodeListBuilder<G extends CodeGraph<G, N, E>, N extends CodeNode<G, N, E>, E extends CodeEdge<G, N, E>> {
+
+	/**
+	 * A singleton to be used for creating sequential edges.
+	 */
+	private final E sequentialSingleton;
+
+	private final List<N> nodes;
+
+	private final List<E> edges;
+
+	private final Set<N> entrypoints;
+
+	/**
+	 * Builds an empty builder.
+	 *
+	 * @param sequentialSingleton an instance of an edge of the built list that
+	 *                                can be used to invoke
+	 *                                {@link CodeEdge#newInstance(CodeNode, CodeNode)}
+	 *                                to obtain instances of sequential edges
+	 */
+	public NodeListBuilder(E sequentialSingleton) {
+		this.sequentialSingleton = sequentialSingleton;
+		nodes = new ArrayList<>();
+		edges = new ArrayList<>();
+		entrypoints = new LinkedHashSet<>();
+	}
+
+	/**
+	 * Adds the given node to this builder. Nodes already added are ignored when
+	 * the list is built.
+	 *
+	 * @param node the node to add
+	 */
+	public void addNode(N node) {
+		nodes.add(node);
+	}
+
+	/**
+	 * Adds the given node to this builder, marking it as an entrypoint of the
+	 * {@link CodeGraph} filled with {@link CodeGraph#addAll(NodeListBuilder)}
+	 * if {@code entrypoint} is {@code true}.
+	 *
+	 * @param node       the node to add
+	 * @param entrypoint whether or not the node is an entrypoint
+	 */
+	public void addNode(N node, boolean entrypoint) {
+		nodes.add(node);
+		if (entrypoint)
+			entrypoints.add(node);
+	}
+
+	/**
+	 * Adds the given edge to this builder. Its endpoints must be added to the
+	 * builder (or be already part of the filled {@link CodeGraph}) before the
+	 * list is built.
+	 *
+	 * @param edge the edge to add
+	 */
+	public void addEdge(E edge) {
+		edges.add(edge);
+	}
+
+	/**
+	 * Adds all the nodes, edges and entrypoints of the given builder to this
+	 * one, appending its nodes after the ones of this builder.
+	 *
+	 * @param other the builder to merge into this one
+	 */
+	public void mergeWith(NodeListBuilder<G, N, E> other) {
+		nodes.addAll(other.nodes);
+		edges.addAll(other.edges);
+		entrypoints.addAll(other.entrypoints);
+	}
+
+	/**
+	 * Yields the nodes added to this builder, in insertion order.
+	 *
+	 * @return the nodes
+	 */
+	public Collection<N> getNodes() {
+		return Collections.unmodifiableList(nodes);
+	}
+
+	/**
+	 * Yields the edges added to this builder, in insertion order.
+	 *
+	 * @return the edges
+	 */
+	public Collection<E> getEdges() {
+		return Collections.unmodifiableList(edges);
+	}
+
+	/**
+	 * Yields the nodes added to this builder as entrypoints.
+	 *
+	 * @return the entrypoints
+	 */
+	public Collection<N> getEntrypoints() {
+		return Collections.unmodifiableSet(entrypoints);
+	}
+
+	/**
+	 * Builds a new {@link NodeList} containing all the nodes and edges of this
+	 * builder. The builder can be reused afterwards.
+	 *
+	 * @return the list
+	 *
+	 * @throws ProgramValidationException if one of the edges is connected to a
+	 *                                        node that is not part of this
+	 *                                        builder
+	 */
+	public NodeList<G, N, E> build() throws ProgramValidationException {
+		NodeList<G, N, E> list = new NodeList<>(sequentialSingleton);
+		list.addAll(nodes, edges);
+		return list;
+	}
+}
@@ -1,6 +1,8 @@
 package it.unive.lisa.analysis;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 
 import it.unive.lisa.TestAbstractState;
 import it.unive.lisa.TestHeapDomain;
@@ -15,10 +17,17 @@ import it.unive.lisa.program.Program;
 import it.unive.lisa.program.SourceCodeLocation;
 import it.unive.lisa.program.cfg.CFG;
 import it.unive.lisa.program.cfg.CodeMemberDescriptor;
+import it.unive.lisa.program.cfg.edge.Edge;
+import it.unive.lisa.program.cfg.edge.SequentialEdge;
+import it.unive.lisa.program.cfg.statement.NoOp;
+import it.unive.lisa.program.cfg.statement.Ret;
 import it.unive.lisa.program.cfg.statement.Statement;
 import it.unive.lisa.program.cfg.statement.VariableRef;
 import it.unive.lisa.program.cfg.statement.call.Call.CallType;
 import it.unive.lisa.program.cfg.statement.call.OpenCall;
+import it.unive.lisa.symbolic.value.Variable;
+import it.unive.lisa.type.Untyped;
+import it.unive.lisa.util.datastructures.graph.algorithms.WeakTopologicalOrder;
 import java.util.Map;
 import org.junit.Test;
 
@@ -54,4 +63,129 @@ public class CFGWithAnalysisResultsTest {
 		assertEquals(state, res.getAnalysisStateAfter(x));
 		assertEquals(state, res.getAnalysisStateBefore(x));
 	}
+
+	@Test
+	public void testResultsDoNotCopyTheGraph() throws SemanticException {
+		SourceCodeLocation unknown = new SourceCodeLocation("unknown", 0, 0);
+		CFG cfg = new CFG(new CodeMemberDescriptor(unknown, unit, false, "view"));
+		NoOp first = new NoOp(cfg, new SourceCodeLocation("unknown", 1, 0));
+		NoOp second = new NoOp(cfg, new SourceCodeLocation("unknown", 2, 0));
+		cfg.addNode(first, true);
+		cfg.addNode(second);
+		cfg.addEdge(new SequentialEdge(first, second));
+
+		AnalysisState<TestAbstractState, TestHeapDomain,
+				TestValueDomain,
+				TestTypeDomain> state = new AnalysisState<>(
+						new TestAbstractState(),
+						new ExpressionSet<>(), new SymbolAliasing());
+
+		CFGWithAnalysisResults<TestAbstractState, TestHeapDomain,
+				TestValueDomain, TestTypeDomain> res = new CFGWithAnalysisResults<>(cfg, state,
+						Map.of(first, state), Map.of(first, state, second, state));
+		CFGWithAnalysisResults<TestAbstractState, TestHeapDomain,
+				TestValueDomain, TestTypeDomain> lub = res.lub(res.bottom());
+
+		assertSame("The graph has been copied", cfg.getNodeList(), res.getNodeList());
+		assertSame("The graph has been copied", cfg.getNodeList(), lub.getNodeList());
+		assertSame("Lazy structures are not shared", cfg.getWeakTopologicalOrder(), lub.getWeakTopologicalOrder());
+		assertSame("Lazy structures are not shared", cfg.getBasicBlocks(), res.getBasicBlocks());
+		assertSame("Lazy structures are not shared", cfg.getControlFlowStructures(),
+				lub.getControlFlowStructures());
+
+		WeakTopologicalOrder<CFG, Statement, Edge> before = cfg.getWeakTopologicalOrder();
+		NoOp third = new NoOp(cfg, new SourceCodeLocation("unknown", 3, 0));
+		res.addNode(third);
+		res.addEdge(new SequentialEdge(second, third));
+		assertNotSame("Lazy structures have not been invalidated", before, cfg.getWeakTopologicalOrder());
+		assertSame("Lazy structures are not shared", cfg.getWeakTopologicalOrder(), lub.getWeakTopologicalOrder());
+		assertEquals(3, lub.getNodesCount());
+	}
+
+	@Test
+	public void testCachedStates() throws SemanticException {
+		SourceCodeLocation unknown = new SourceCodeLocation("unknown", 0, 0);
+		CFG cfg = new CFG(new CodeMemberDescriptor(unknown, unit, false, "cached"));
+		NoOp first = new NoOp(cfg, new SourceCodeLocation("unknown", 1, 0));
+		NoOp second = new NoOp(cfg, new SourceCodeLocation("unknown", 2, 0));
+		Ret ret = new Ret(cfg, new SourceCodeLocation("unknown", 3, 0));
+		cfg.addNode(first, true);
+		cfg.addNode(second);
+		cfg.addNode(ret);
+		cfg.addEdge(new SequentialEdge(first, ret));
+		cfg.addEdge(new SequentialEdge(second, ret));
+
+		AnalysisState<TestAbstractState, TestHeapDomain,
+				TestValueDomain,
+				TestTypeDomain> state = new AnalysisState<>(
+						new TestAbstractState(),
+						new ExpressionSet<>(), new SymbolAliasing());
+
+		CFGWithAnalysisResults<TestAbstractState, TestHeapDomain,
+				TestValueDomain, TestTypeDomain> res = new CFGWithAnalysisResults<>(cfg, state,
+						Map.of(first, state), Map.of(first, state, second, state, ret, state));
+
+		assertEquals(state, res.getAnalysisStateBefore(ret));
+		assertSame("State before not cached", res.getAnalysisStateBefore(ret), res.getAnalysisStateBefore(ret));
+		assertEquals(state, res.getEntryState());
+		assertSame("Entry state not cached", res.getEntryState(), res.getEntryState());
+		assertEquals(state, res.getExitState());
+		assertSame("Exit state not cached", res.getExitState(), res.getExitState());
+	}
+
+	@Test
+	public void testCachedStatesFollowTheGraph() throws SemanticException {
+		SourceCodeLocation unknown = new SourceCodeLocation("unknown", 0, 0);
+		CFG cfg = new CFG(new CodeMemberDescriptor(unknown, unit, false, "stale"));
+		NoOp first = new NoOp(cfg, new SourceCodeLocation("unknown", 1, 0));
+		NoOp second = new NoOp(cfg, new SourceCodeLocation("unknown", 2, 0));
+		Ret ret = new Ret(cfg, new SourceCodeLocation("unknown", 3, 0));
+		Ret other = new Ret(cfg, new SourceCodeLocation("unknown", 4, 0));
+		cfg.addNode(first, true);
+		cfg.addNode(ret);
+		cfg.addEdge(new SequentialEdge(first, ret));
+
+		AnalysisState<TestAbstractState, TestHeapDomain,
+				TestValueDomain,
+				TestTypeDomain> x = new AnalysisState<>(
+						new TestAbstractState(),
+						new ExpressionSet<>(new Variable(Untyped.INSTANCE, "x", unknown)), new SymbolAliasing());
+		AnalysisState<TestAbstractState, TestHeapDomain,
+				TestValueDomain,
+				TestTypeDomain> y = new AnalysisState<>(
+						new TestAbstractState(),
+						new ExpressionSet<>(new Variable(Untyped.INSTANCE, "y", unknown)), new SymbolAliasing());
+		AnalysisState<TestAbstractState, TestHeapDomain,
+				TestValueDomain,
+				TestTypeDomain> xy = x.lub(y);
+
+		CFGWithAnalysisResults<TestAbstractState, TestHeapDomain,
+				TestValueDomain, TestTypeDomain> res = new CFGWithAnalysisResults<>(cfg, x,
+						Map.of(first, x, second, y), Map.of(first, x, second, y, ret, x, other, y));
+		CFGWithAnalysisResults<TestAbstractState, TestHeapDomain,
+				TestValueDomain, TestTypeDomain> lub = res.lub(res);
+
+		assertEquals(x, res.getEntryState());
+		assertEquals(x, res.getExitState());
+		assertEquals(x, res.getAnalysisStateBefore(ret));
+		assertEquals(x, lub.getAnalysisStateBefore(ret));
+
+		// the graph is shared: changes made through the original cfg or
+		// through any of its views must be reflected by all of them
+		cfg.addNode(second, true);
+		assertEquals(xy, res.getEntryState());
+		assertEquals(x, res.getAnalysisStateBefore(ret));
+		lub.addEdge(new SequentialEdge(second, ret));
+		assertEquals(xy, res.getAnalysisStateBefore(ret));
+		assertEquals(xy, lub.getAnalysisStateBefore(ret));
+		assertEquals(x, res.getExitState());
+		res.addNode(other);
+		assertEquals(xy, res.getExitState());
+		assertEquals(xy, lub.getExitState());
+
+		// no change, no recomputation
+		assertSame("Entry state not cached", res.getEntryState(), res.getEntryState());
+		assertSame("Exit state not cached", res.getExitState(), res.getExitState());
+		assertSame("State before not cached", res.getAnalysisStateBefore(ret), res.getAnalysisStateBefore(ret));
+	}
 }
@@ -0,0 +1,52 @@
+package it.unive.lisa.analysis.lattices;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import it.unive.lisa.analysis.SemanticException;
+import it.unive.lisa.program.SyntheticLocation;
+import it.unive.lisa.symbolic.value.Variable;
+import it.unive.lisa.type.Untyped;
+import java.util.Map;
+import org.junit.Test;
+
+public class FunctionalLatticeTest {
+
+	private static class Function extends FunctionalLattice<Function, String, ExpressionSet<Variable>> {
+
+		private Function(ExpressionSet<Variable> lattice, Map<String, ExpressionSet<Variable>> function) {
+			super(lattice, function);
+		}
+
+		@Override
+		public Function top() {
+			return new Function(lattice.top(), null);
+		}
+
+		@Override
+		public Function bottom() {
+			return new Function(lattice.bottom(), null);
+		}
+
+		@Override
+		public Function mk(ExpressionSet<Variable> lattice, Map<String, ExpressionSet<Variable>> function) {
+			return new Function(lattice, function);
+		}
+	}
+
+	private static ExpressionSet<Variable> set(String name) {
+		return new ExpressionSet<>(new Variable(Untyped.INSTANCE, name, SyntheticLocation.INSTANCE));
+	}
+
+	@Test
+	public void testLessOrEqualWithoutFunction() throws SemanticException {
+		// neither top nor bottom, but with no mapping
+		Function x = new Function(set("x"), null);
+		Function y = new Function(set("y"), null);
+		Function mapped = y.putState("a", set("a"));
+
+		assertTrue(x.lessOrEqual(y));
+		assertTrue(x.lessOrEqual(mapped));
+		assertFalse(mapped.lessOrEqual(y));
+	}
+}
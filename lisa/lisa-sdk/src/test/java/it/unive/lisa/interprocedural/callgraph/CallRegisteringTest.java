@@ -6,6 +6,7 @@ import static org.junit.Assert.assertTrue;
 
 import it.unive.lisa.TestLanguageFeatures;
 import it.unive.lisa.TestTypeSystem;
+import it.unive.lisa.analysis.symbols.NameSymbol;
 import it.unive.lisa.analysis.symbols.SymbolAliasing;
 import it.unive.lisa.program.Application;
 import it.unive.lisa.program.Program;
@@ -22,8 +23,14 @@ import it.unive.lisa.program.cfg.statement.call.Call;
 import it.unive.lisa.program.cfg.statement.call.Call.CallType;
 import it.unive.lisa.program.cfg.statement.call.UnresolvedCall;
 import it.unive.lisa.type.Type;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import org.junit.Test;
 
 public class CallRegisteringTest {
@@ -81,4 +88,113 @@ public class CallRegisteringTest {
 		assertSame(call, callSites.iterator().next());
 		assertTrue(cg.getCallSites(cfg1).isEmpty());
 	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void testStaticResolution()
+			throws CallResolutionException, ProgramValidationException, CallGraphConstructionException {
+		CallGraph cg = new BaseCallGraph() {
+
+			@Override
+			public Collection<Type> getPossibleTypesOfReceiver(Expression receiver, Set<Type> types)
+					throws CallResolutionException {
+				return receiver.getStaticType().allInstances(receiver.getProgram().getTypes());
+			}
+
+		};
+
+		Program p = new Program(new TestLanguageFeatures(), new TestTypeSystem());
+
+		CFG main = new CFG(new CodeMemberDescriptor(new SourceCodeLocation("fake", 0, 0), p, false, "main"));
+		UnresolvedCall direct = new UnresolvedCall(main, new SourceCodeLocation("fake", 1, 0), CallType.STATIC,
+				p.getName(), "foo");
+		UnresolvedCall aliased = new UnresolvedCall(main, new SourceCodeLocation("fake", 2, 0), CallType.STATIC,
+				p.getName(), "bar");
+		Ret ret = new Ret(main, new SourceCodeLocation("fake", 3, 0));
+		main.addNode(direct, true);
+		main.addNode(aliased);
+		main.addNode(ret);
+		main.addEdge(new SequentialEdge(direct, aliased));
+		main.addEdge(new SequentialEdge(aliased, ret));
+
+		CFG foo = new CFG(new CodeMemberDescriptor(new SourceCodeLocation("fake", 4, 0), p, false, "foo"));
+		foo.addNode(new Ret(foo, new SourceCodeLocation("fake", 5, 0)), true);
+		CFG other = new CFG(new CodeMemberDescriptor(new SourceCodeLocation("fake", 6, 0), p, false, "other"));
+		other.addNode(new Ret(other, new SourceCodeLocation("fake", 7, 0)), true);
+
+		p.addCodeMember(main);
+		p.addCodeMember(foo);
+		p.addCodeMember(other);
+		p.getFeatures().getProgramValidationLogic().validateAndFinalize(p);
+		cg.init(new Application(p));
+
+		SymbolAliasing aliasing = new SymbolAliasing().putState(new NameSymbol("foo"), new NameSymbol("bar"));
+		CFGCall resolved = (CFGCall) cg.resolve(direct, new Set[0], new SymbolAliasing());
+		assertEquals(Set.of(foo), Set.copyOf(resolved.getTargetedCFGs()));
+		resolved = (CFGCall) cg.resolve(aliased, new Set[0], aliasing);
+		assertEquals(Set.of(foo), Set.copyOf(resolved.getTargetedCFGs()));
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void testConcurrentResolution() throws Exception {
+		CallGraph cg = new BaseCallGraph() {
+
+			@Override
+			public Collection<Type> getPossibleTypesOfReceiver(Expression receiver, Set<Type> types)
+					throws CallResolutionException {
+				return receiver.getStaticType().allInstances(receiver.getProgram().getTypes());
+			}
+
+		};
+
+		Program p = new Program(new TestLanguageFeatures(), new TestTypeSystem());
+		CFG target = new CFG(new CodeMemberDescriptor(new SourceCodeLocation("target", 0, 0), p, false, "target"));
+		target.addNode(new Ret(target, new SourceCodeLocation("target", 1, 0)), true);
+		p.addCodeMember(target);
+
+		List<UnresolvedCall> calls = new ArrayList<>();
+		for (int i = 0; i < 200; i++) {
+			CFG caller = new CFG(new CodeMemberDescriptor(new SourceCodeLocation("c" + i, 0, 0), p, false, "c" + i));
+			UnresolvedCall call = new UnresolvedCall(caller, new SourceCodeLocation("c" + i, 1, 0),
+					CallType.STATIC, p.getName(), "target");
+			Ret ret = new Ret(caller, new SourceCodeLocation("c" + i, 2, 0));
+			caller.addNode(call, true);
+			caller.addNode(ret);
+			caller.addEdge(new SequentialEdge(call, ret));
+			p.addCodeMember(caller);
+			calls.add(call);
+		}
+		p.getFeatures().getProgramValidationLogic().validateAndFinalize(p);
+		cg.init(new Application(p));
+
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		try {
+			List<Future<Void>> tasks = new ArrayList<>();
+			for (int t = 0; t < 8; t++) {
+				int first = t;
+				tasks.add(executor.submit(() -> {
+					for (int i = first; i < calls.size(); i += 8) {
+						cg.resolve(calls.get(i), new Set[0], new SymbolAliasing());
+						// queries interleaved with modifications of the graph
+						for (Call site : cg.getCallSites(target))
+							assertTrue(calls.contains(site));
+						assertTrue(cg.getCallers(target).size() <= calls.size());
+					}
+					return null;
+				}));
+			}
+			for (Future<Void> task : tasks)
+				task.get();
+		} finally {
+			executor.shutdownNow();
+		}
+
+		Set<CodeMember> expected = new HashSet<>();
+		for (UnresolvedCall call : calls)
+			expected.add(call.getCFG());
+		assertEquals(expected, Set.copyOf(cg.getCallers(target)));
+		assertEquals(calls.size(), cg.getCallSites(target).size());
+		assertEquals(calls.size(), cg.getCallers(target).size());
+	}
 }
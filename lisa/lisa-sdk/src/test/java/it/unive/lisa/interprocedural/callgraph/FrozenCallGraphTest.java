@@ -0,0 +1,104 @@
+package it.unive.lisa.interprocedural.callgraph;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import it.unive.lisa.TestLanguageFeatures;
+import it.unive.lisa.TestTypeSystem;
+import it.unive.lisa.program.Application;
+import it.unive.lisa.program.Program;
+import it.unive.lisa.program.ProgramValidationException;
+import it.unive.lisa.program.SourceCodeLocation;
+import it.unive.lisa.program.cfg.CFG;
+import it.unive.lisa.program.cfg.CodeMember;
+import it.unive.lisa.program.cfg.CodeMemberDescriptor;
+import it.unive.lisa.program.cfg.edge.SequentialEdge;
+import it.unive.lisa.program.cfg.statement.Ret;
+import it.unive.lisa.program.cfg.statement.Statement;
+import it.unive.lisa.program.cfg.statement.call.Call.CallType;
+import it.unive.lisa.program.cfg.statement.call.UnresolvedCall;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import org.junit.Test;
+
+public class FrozenCallGraphTest {
+
+	private static CFG mkCFG(Program p, String name, String... callees) {
+		CFG cfg = new CFG(new CodeMemberDescriptor(new SourceCodeLocation(name, 0, 0), p, false, name));
+		Statement prev = null;
+		int line = 1;
+		for (String callee : callees) {
+			UnresolvedCall call = new UnresolvedCall(cfg, new SourceCodeLocation(name, line++, 0), CallType.STATIC,
+					p.getName(), callee);
+			cfg.addNode(call, prev == null);
+			if (prev != null)
+				cfg.addEdge(new SequentialEdge(prev, call));
+			prev = call;
+		}
+		Ret ret = new Ret(cfg, new SourceCodeLocation(name, line, 0));
+		cfg.addNode(ret, prev == null);
+		if (prev != null)
+			cfg.addEdge(new SequentialEdge(prev, ret));
+		p.addCodeMember(cfg);
+		return cfg;
+	}
+
+	@Test
+	public void testRecursiveProgram() throws ProgramValidationException, CallGraphConstructionException {
+		Program p = new Program(new TestLanguageFeatures(), new TestTypeSystem());
+		CFG main = mkCFG(p, "main", "a", "missing");
+		CFG a = mkCFG(p, "a", "b", "leaf");
+		CFG b = mkCFG(p, "b", "a");
+		CFG leaf = mkCFG(p, "leaf");
+		CFG self = mkCFG(p, "self", "self");
+		p.getFeatures().getProgramValidationLogic().validateAndFinalize(p);
+		Application app = new Application(p);
+
+		for (int parallelism : new int[] { 1, 4 }) {
+			FrozenCallGraph cg = FrozenCallGraph.build(app, parallelism);
+
+			assertEquals(Set.of(a), Set.copyOf(cg.getCallees(main)));
+			assertEquals(Set.of(b, leaf), Set.copyOf(cg.getCallees(a)));
+			assertEquals(Set.of(main, b), Set.copyOf(cg.getCallers(a)));
+			assertTrue(cg.getCallers(main).isEmpty());
+			assertEquals(1, cg.getCallSites(leaf).size());
+
+			List<Collection<CodeMember>> components = cg.getStronglyConnectedComponents();
+			assertEquals(4, components.size());
+			assertEquals(Set.of(a, b), Set.copyOf(components.get(cg.getRank(a))));
+			assertEquals(cg.getRank(a), cg.getRank(b));
+			assertTrue("Callee after its caller", cg.getRank(leaf) < cg.getRank(a));
+			assertTrue("Callee after its caller", cg.getRank(a) < cg.getRank(main));
+
+			assertTrue(cg.isRecursive(a));
+			assertTrue(cg.isRecursive(self));
+			assertFalse(cg.isRecursive(main));
+			assertFalse(cg.isRecursive(leaf));
+		}
+	}
+
+	@Test
+	public void testParallelBuildFromColdApplication()
+			throws ProgramValidationException, CallGraphConstructionException {
+		Program p = new Program(new TestLanguageFeatures(), new TestTypeSystem());
+		int count = 500;
+		for (int i = 0; i < count; i++)
+			mkCFG(p, "m" + i, "m" + ((i + 1) % count), "m" + (i * 7 % count), "missing");
+		p.getFeatures().getProgramValidationLogic().validateAndFinalize(p);
+
+		FrozenCallGraph sequential = FrozenCallGraph.build(new Application(p), 1);
+		for (int run = 0; run < 10; run++) {
+			// a fresh application, whose indexes have not been computed yet
+			FrozenCallGraph parallel = FrozenCallGraph.build(new Application(p), 8);
+			for (CFG cfg : p.getAllCFGs()) {
+				assertEquals(Set.copyOf(sequential.getCallees(cfg)), Set.copyOf(parallel.getCallees(cfg)));
+				assertEquals(Set.copyOf(sequential.getCallers(cfg)), Set.copyOf(parallel.getCallers(cfg)));
+				assertEquals(sequential.getCallSites(cfg).size(), parallel.getCallSites(cfg).size());
+			}
+			assertEquals(sequential.getStronglyConnectedComponents().size(),
+					parallel.getStronglyConnectedComponents().size());
+		}
+	}
+}
@@ -0,0 +1,66 @@
+package it.unive.lisa.logging;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import it.unive.lisa.TestLanguageFeatures;
+import it.unive.lisa.TestTypeSystem;
+import it.unive.lisa.logging.FixpointProfile.Operation;
+import it.unive.lisa.logging.FixpointProfile.StatementProfile;
+import it.unive.lisa.outputs.serializableGraph.SerializableObject;
+import it.unive.lisa.program.Program;
+import it.unive.lisa.program.SourceCodeLocation;
+import it.unive.lisa.program.cfg.CFG;
+import it.unive.lisa.program.cfg.CodeMemberDescriptor;
+import it.unive.lisa.program.cfg.statement.NoOp;
+import java.util.Set;
+import org.junit.Test;
+
+public class FixpointProfileTest {
+
+	private static final Program program = new Program(new TestLanguageFeatures(), new TestTypeSystem());
+
+	private static CFG mkCFG(String name) {
+		return new CFG(new CodeMemberDescriptor(new SourceCodeLocation("fake", 1, 0), program, false, name));
+	}
+
+	@Test
+	public void testAggregation() {
+		CFG first = mkCFG("first"), second = mkCFG("second");
+		NoOp a = new NoOp(first, new SourceCodeLocation("fake", 2, 0));
+		NoOp b = new NoOp(first, new SourceCodeLocation("fake", 3, 0));
+		NoOp c = new NoOp(second, new SourceCodeLocation("fake", 4, 0));
+
+		FixpointProfile profile = new FixpointProfile();
+		assertTrue("Non-empty profile", profile.getProfiles(first).isEmpty());
+
+		profile.of(first, a).visit();
+		profile.of(first, a).visit();
+		profile.of(first, a).record(Operation.SEMANTICS, 10);
+		profile.of(first, b).visit();
+		profile.of(first, b).record(Operation.LUB, 5);
+		profile.of(second, c).visit();
+		profile.of(second, c).record(Operation.SEMANTICS, 7);
+
+		assertSame("Profile not reused", profile.of(first, a), profile.getProfiles(first).get(a));
+		assertEquals("Wrong statements", Set.of(a, b), profile.getProfiles(first).keySet());
+		assertEquals("Wrong visits", 2, profile.of(first, a).getVisits());
+		assertEquals("Wrong time", 10, profile.of(first, a).getTime(Operation.SEMANTICS));
+		assertEquals("Wrong time", 0, profile.of(first, a).getTime(Operation.LUB));
+		assertEquals("Wrong total visits", 4, profile.getVisits());
+		assertEquals("Wrong total time", 17, profile.getTime(Operation.SEMANTICS));
+		assertEquals("Wrong total time", 5, profile.getTime(Operation.LUB));
+	}
+
+	@Test
+	public void testSerialization() {
+		CFG cfg = mkCFG("cfg");
+		StatementProfile profile = new FixpointProfile().of(cfg, new NoOp(cfg, new SourceCodeLocation("fake", 2, 0)));
+		profile.visit();
+		profile.record(Operation.WIDENING, 3);
+
+		SerializableObject value = (SerializableObject) profile.toSerializableValue();
+		assertEquals("Wrong fields", Set.of("visits", "widening"), value.getFields().keySet());
+	}
+}
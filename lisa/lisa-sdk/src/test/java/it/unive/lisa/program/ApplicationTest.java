@@ -0,0 +1,83 @@
+package it.unive.lisa.program;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import it.unive.lisa.TestLanguageFeatures;
+import it.unive.lisa.TestTypeSystem;
+import it.unive.lisa.program.cfg.CFG;
+import it.unive.lisa.program.cfg.CodeMember;
+import it.unive.lisa.program.cfg.CodeMemberDescriptor;
+import it.unive.lisa.program.cfg.statement.Ret;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.Test;
+
+public class ApplicationTest {
+
+	private static CFG mkCFG(Program p, String name, int line) {
+		CFG cfg = new CFG(new CodeMemberDescriptor(new SourceCodeLocation(name, line, 0), p, false, name));
+		cfg.addNode(new Ret(cfg, new SourceCodeLocation(name, line, 1)), true);
+		p.addCodeMember(cfg);
+		return cfg;
+	}
+
+	@Test
+	public void testIndexes() {
+		Program p = new Program(new TestLanguageFeatures(), new TestTypeSystem());
+		CFG foo = mkCFG(p, "foo", 0);
+		CFG bar = mkCFG(p, "bar", 1);
+		Application app = new Application(p);
+
+		assertEquals(Set.of(foo, bar), app.getAllCFGs());
+		assertEquals(Set.of(foo), app.getCodeMembersNamed("foo"));
+		assertTrue(app.getCodeMembersNamed("baz").isEmpty());
+
+		// lazily computed collections do not see new members...
+		CFG baz = mkCFG(p, "baz", 2);
+		assertTrue(app.getCodeMembersNamed("baz").isEmpty());
+
+		// ...until they are recomputed
+		app.computeIndexes();
+		assertEquals(Set.of(foo, bar, baz), app.getAllCFGs());
+		assertEquals(Set.of(foo, bar, baz), app.getAllCodeCodeMembers());
+		assertEquals(Set.of(baz), app.getCodeMembersNamed("baz"));
+	}
+
+	@Test
+	public void testConcurrentIndexing() throws Exception {
+		Program p = new Program(new TestLanguageFeatures(), new TestTypeSystem());
+		Set<CodeMember> expected = new HashSet<>();
+		for (int i = 0; i < 1000; i++)
+			expected.add(mkCFG(p, "m" + i, i));
+
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		try {
+			for (int run = 0; run < 10; run++) {
+				// a fresh application has no index yet
+				Application app = new Application(p);
+				List<Future<Set<CodeMember>>> tasks = new ArrayList<>();
+				for (int t = 0; t < 8; t++)
+					tasks.add(executor.submit(() -> {
+						Set<CodeMember> found = new HashSet<>();
+						for (int i = 0; i < 1000; i++)
+							found.addAll(app.getCodeMembersNamed("m" + i));
+						return found;
+					}));
+
+				for (Future<Set<CodeMember>> task : tasks)
+					assertEquals(expected, task.get());
+				Collection<CodeMember> members = app.getAllCodeCodeMembers();
+				assertEquals(expected, new HashSet<>(members));
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+}
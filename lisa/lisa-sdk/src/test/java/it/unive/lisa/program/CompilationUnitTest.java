@@ -0,0 +1,69 @@
+package it.unive.lisa.program;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import it.unive.lisa.TestLanguageFeatures;
+import it.unive.lisa.TestTypeSystem;
+import org.junit.Test;
+
+public class CompilationUnitTest {
+
+	private static ClassUnit mkUnit(Program p, String name, int line) {
+		ClassUnit unit = new ClassUnit(new SourceCodeLocation(name, line, 0), p, name, false);
+		p.addUnit(unit);
+		return unit;
+	}
+
+	@Test
+	public void testIdsAreDensePerProgram() {
+		// units of other programs do not consume ids
+		for (int i = 0; i < 100; i++)
+			mkUnit(new Program(new TestLanguageFeatures(), new TestTypeSystem()), "other" + i, i);
+
+		Program p = new Program(new TestLanguageFeatures(), new TestTypeSystem());
+		ClassUnit first = mkUnit(p, "first", 0);
+		// units not added to their program get an id when first needed
+		ClassUnit detached = new ClassUnit(new SourceCodeLocation("detached", 1, 0), p, "detached", false);
+		ClassUnit second = mkUnit(p, "second", 2);
+		assertEquals(0, first.getId());
+		assertEquals(1, second.getId());
+		assertEquals(2, detached.getId());
+		assertEquals(2, detached.getId());
+
+		// units discarded by the program do not consume ids
+		mkUnit(p, "first", 3);
+		assertEquals(3, mkUnit(p, "third", 4).getId());
+	}
+
+	@Test
+	public void testHierarchiesAcrossPrograms() {
+		Program lib = new Program(new TestLanguageFeatures(), new TestTypeSystem());
+		ClassUnit a = mkUnit(lib, "A", 0);
+		ClassUnit b = mkUnit(lib, "B", 1);
+		b.addAncestor(a);
+
+		Program p = new Program(new TestLanguageFeatures(), new TestTypeSystem());
+		// same ids of A and B, but in a different program
+		ClassUnit c = mkUnit(p, "C", 2);
+		ClassUnit d = mkUnit(p, "D", 3);
+		c.addAncestor(b);
+		d.addAncestor(c);
+
+		for (ClassUnit unit : new ClassUnit[] { a, b, c, d })
+			unit.finalizeHierarchy();
+
+		assertTrue(d.isInstanceOf(d));
+		assertTrue(d.isInstanceOf(c));
+		assertTrue(d.isInstanceOf(b));
+		assertTrue(d.isInstanceOf(a));
+		assertTrue(c.isInstanceOf(b));
+		assertTrue(c.isInstanceOf(a));
+		assertTrue(b.isInstanceOf(a));
+		assertFalse(c.isInstanceOf(d));
+		assertFalse(a.isInstanceOf(c));
+		assertFalse(b.isInstanceOf(d));
+		assertFalse(a.isInstanceOf(b));
+	}
+}
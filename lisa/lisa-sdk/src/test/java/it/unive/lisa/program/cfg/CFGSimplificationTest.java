@@ -352,4 +352,38 @@ public class CFGSimplificationTest {
 		first.simplify();
 		first.validate();
 	}
+
+	@Test
+	public void testScopesAfterSimplification() throws ProgramValidationException {
+		SourceCodeLocation unknownLocation = new SourceCodeLocation("fake", 0, 0);
+		ClassUnit unit = new ClassUnit(unknownLocation, new Program(new TestLanguageFeatures(), new TestTypeSystem()),
+				"foo", false);
+		CodeMemberDescriptor descriptor = new CodeMemberDescriptor(unknownLocation, unit, true, "foo");
+		CFG first = new CFG(descriptor);
+		Assignment assign = new Assignment(first, unknownLocation, new VariableRef(first, unknownLocation, "x"),
+				new VariableRef(first, unknownLocation, "a"));
+		NoOp noop = new NoOp(first, unknownLocation);
+		Return ret = new Return(first, unknownLocation, new VariableRef(first, unknownLocation, "x"));
+		first.addNode(assign, true);
+		first.addNode(noop);
+		first.addNode(ret);
+		first.addEdge(new SequentialEdge(assign, noop));
+		first.addEdge(new SequentialEdge(noop, ret));
+
+		VariableTableEntry y = new VariableTableEntry(unknownLocation, 0, noop, noop, "y");
+		VariableTableEntry z = new VariableTableEntry(unknownLocation, 0, assign, noop, "z");
+		VariableTableEntry w = new VariableTableEntry(unknownLocation, 0, null, assign, "w");
+		descriptor.addVariable(y);
+		descriptor.addVariable(z);
+		descriptor.addVariable(w);
+
+		first.simplify();
+		first.validate();
+		assertEquals("Wrong scope start", assign, y.getScopeStart());
+		assertEquals("Wrong scope end", ret, y.getScopeEnd());
+		assertEquals("Wrong scope start", assign, z.getScopeStart());
+		assertEquals("Wrong scope end", ret, z.getScopeEnd());
+		assertEquals("Wrong scope start", null, w.getScopeStart());
+		assertEquals("Wrong scope end", assign, w.getScopeEnd());
+	}
 }
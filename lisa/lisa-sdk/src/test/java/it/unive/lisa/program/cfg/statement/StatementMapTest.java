@@ -0,0 +1,97 @@
+package it.unive.lisa.program.cfg.statement;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import it.unive.lisa.TestLanguageFeatures;
+import it.unive.lisa.TestTypeSystem;
+import it.unive.lisa.program.ClassUnit;
+import it.unive.lisa.program.Program;
+import it.unive.lisa.program.SourceCodeLocation;
+import it.unive.lisa.program.cfg.CFG;
+import it.unive.lisa.program.cfg.CodeMemberDescriptor;
+import it.unive.lisa.program.cfg.edge.SequentialEdge;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import org.junit.Test;
+
+public class StatementMapTest {
+
+	@Test
+	public void testOffsets() {
+		SourceCodeLocation unknown = new SourceCodeLocation("unknown", 0, 0);
+		ClassUnit unit = new ClassUnit(unknown, new Program(new TestLanguageFeatures(), new TestTypeSystem()), "foo",
+				false);
+		CFG cfg = new CFG(new CodeMemberDescriptor(unknown, unit, true, "foo"));
+		VariableRef x = new VariableRef(cfg, new SourceCodeLocation("unknown", 1, 0), "x");
+		VariableRef a = new VariableRef(cfg, new SourceCodeLocation("unknown", 1, 1), "a");
+		Assignment assign = new Assignment(cfg, new SourceCodeLocation("unknown", 1, 2), x, a);
+		Return ret = new Return(cfg, new SourceCodeLocation("unknown", 2, 0),
+				new VariableRef(cfg, new SourceCodeLocation("unknown", 2, 1), "x"));
+		cfg.addNode(assign, true);
+		cfg.addNode(ret);
+		cfg.addEdge(new SequentialEdge(assign, ret));
+
+		assertEquals(5, cfg.getNodeList().getOffsetsCount());
+		assertEquals(0, assign.getOffset());
+		assertEquals(1, x.getOffset());
+		assertEquals(2, a.getOffset());
+		assertEquals(3, ret.getOffset());
+		assertEquals(1, cfg.getCompactGraph().getId(ret));
+		assertEquals(-1, cfg.getCompactGraph().getId(x));
+
+		StatementMap<String> map = new StatementMap<>(cfg.getNodeList().getOffsetsCount());
+		Map<Statement, String> expected = new HashMap<>();
+		for (Statement st : List.of(assign, x, a, ret)) {
+			assertNull(map.put(st, st.toString()));
+			expected.put(st, st.toString());
+		}
+
+		// not part of the cfg, and with the same offset of an existing key
+		NoOp unlisted = new NoOp(cfg, new SourceCodeLocation("unknown", 3, 0));
+		NoOp clash = new NoOp(cfg, new SourceCodeLocation("unknown", 4, 0));
+		clash.setOffset(ret.getOffset());
+		for (Statement st : List.of(unlisted, clash)) {
+			assertNull(map.put(st, st.toString()));
+			expected.put(st, st.toString());
+		}
+
+		assertEquals(expected, map);
+		assertEquals(expected.hashCode(), map.hashCode());
+		assertTrue(map.containsKey(clash));
+		assertEquals(clash.toString(), map.get(clash));
+		assertEquals(ret.toString(), map.put(ret, "ret"));
+		assertEquals("ret", map.get(ret));
+
+		// keys are compared by reference: statements at the same location
+		// are equal, but they are distinct keys
+		NoOp twin = new NoOp(cfg, new SourceCodeLocation("unknown", 3, 0));
+		twin.setOffset(10);
+		assertEquals(unlisted, twin);
+		assertFalse(map.containsKey(twin));
+		assertNull(map.put(twin, "twin"));
+		assertEquals(unlisted.toString(), map.get(unlisted));
+		assertEquals("twin", map.get(twin));
+		assertEquals(expected.size() + 1, map.size());
+		assertEquals("twin", map.remove(twin));
+
+		List<Statement> order = new ArrayList<>(map.keySet());
+		assertEquals(List.of(assign, x, a, ret), order.subList(0, 4));
+
+		StatementMap<String> copy = new StatementMap<>(map);
+		assertEquals(map, copy);
+		assertEquals(a.toString(), copy.remove(a));
+		assertFalse(copy.containsKey(a));
+		assertTrue(map.containsKey(a));
+		for (Iterator<Entry<Statement, String>> it = copy.entrySet().iterator(); it.hasNext();)
+			if (it.next().getKey() != x)
+				it.remove();
+		assertEquals(Map.of(x, x.toString()), copy);
+	}
+}
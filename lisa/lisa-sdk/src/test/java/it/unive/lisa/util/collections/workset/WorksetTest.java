@@ -166,4 +166,50 @@ public class WorksetTest {
 		unique(ConcurrentLIFOWorkingSet.mk(), true, (ws, lifo, el) -> random(ws, lifo, false, el), "a", "b", "c", "d",
 				"d", "f", "a", "b", "i");
 	}
+
+	@Test
+	public void ReversePostorderWsTest() {
+		// without an order, elements are yielded in the order they are first
+		// pushed, ignoring duplicates
+		linear(ReversePostorderWorkingSet.mk(), false, false, "a", "b", "c", "d", "d", "f", "a", "b", "i");
+		linear(ReversePostorderWorkingSet.mk(), false, false, "a", null, "c", "d", "d", "f", "a", "b", null, "i");
+		random(ReversePostorderWorkingSet.mk(), false, false, "a", "b", "c", "d", "d", "f", "a", "b", "i");
+
+		ReversePostorderWorkingSet<String> ws = ReversePostorderWorkingSet.mk();
+		ws.push("z");
+		ws.push("c");
+		ws.setOrder(List.of("a", "b", "c"));
+		ws.push("b");
+		ws.push("y");
+		ws.push("a");
+		ws.push("c");
+		assertEquals("Incorrect size after pushing duplicates", 5, ws.size());
+		List<String> popped = new ArrayList<>();
+		while (!ws.isEmpty())
+			popped.add(ws.pop());
+		assertEquals("Elements have not been popped following the order", List.of("a", "b", "c", "z", "y"), popped);
+	}
+
+	@Test
+	public void OrderTest() {
+		// working sets that do not prioritize elements never compute the order
+		for (WorkingSet<String> ws : List.<WorkingSet<String>>of(FIFOWorkingSet.mk(), LIFOWorkingSet.mk(),
+				ConcurrentFIFOWorkingSet.mk(), ConcurrentLIFOWorkingSet.mk(),
+				VisitOnceWorkingSet.mk(FIFOWorkingSet.mk())))
+			ws.setOrder(() -> {
+				throw new AssertionError("The order has been computed by " + ws.getClass().getSimpleName());
+			});
+
+		// wrapped working sets receive the order
+		WorkingSet<String> ws = VisitOnceWorkingSet.mk(ReversePostorderWorkingSet.mk());
+		ws.push("c");
+		ws.push("b");
+		ws.setOrder(() -> List.of("a", "b", "c"));
+		ws.push("a");
+		ws.push("c");
+		List<String> popped = new ArrayList<>();
+		while (!ws.isEmpty())
+			popped.add(ws.pop());
+		assertEquals("Elements have not been popped following the order", List.of("a", "b", "c"), popped);
+	}
 }
@@ -0,0 +1,66 @@
+package it.unive.lisa.util.datastructures.graph;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import it.unive.lisa.util.datastructures.graph.TestGraph.TestEdge;
+import it.unive.lisa.util.datastructures.graph.TestGraph.TestNode;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+
+public class CompactGraphTest {
+
+	@Test
+	public void testSnapshot() {
+		TestGraph graph = new TestGraph();
+		TestNode one = new TestNode(1);
+		TestNode two = new TestNode(2);
+		TestNode three = new TestNode(3);
+		TestNode four = new TestNode(4);
+		graph.addNode(one, true);
+		graph.addNode(two);
+		graph.addNode(three);
+		graph.addNode(four);
+		graph.addEdge(new TestEdge(one, two));
+		graph.addEdge(new TestEdge(one, three));
+		graph.addEdge(new TestEdge(two, four));
+		graph.addEdge(new TestEdge(three, four));
+		graph.addEdge(new TestEdge(four, one));
+
+		CompactGraph<TestGraph, TestNode, TestEdge> compact = new CompactGraph<>(graph);
+		assertEquals(4, compact.getNodesCount());
+		assertEquals(5, compact.getEdgesCount());
+		assertEquals(1, compact.getEntrypointsCount());
+		assertEquals(one, compact.getNode(compact.getEntrypoint(0)));
+		assertEquals(-1, compact.getId(new TestNode(5)));
+
+		for (TestNode node : graph.getNodes()) {
+			int id = compact.getId(node);
+			assertEquals(node, compact.getNode(id));
+			assertEquals(graph.getEntrypoints().contains(node), compact.isEntrypoint(id));
+
+			List<TestNode> followers = new ArrayList<>();
+			for (int k = compact.getSuccessorsStart(id); k < compact.getSuccessorsEnd(id); k++) {
+				TestNode follower = compact.getNode(compact.getSuccessor(k));
+				followers.add(follower);
+				assertEquals(graph.getEdgeConnecting(node, follower), compact.getOutgoingEdge(k));
+			}
+			assertEquals(new ArrayList<>(graph.followersOf(node)), followers);
+
+			List<TestNode> predecessors = new ArrayList<>();
+			for (int k = compact.getPredecessorsStart(id); k < compact.getPredecessorsEnd(id); k++) {
+				TestNode predecessor = compact.getNode(compact.getPredecessor(k));
+				predecessors.add(predecessor);
+				assertEquals(graph.getEdgeConnecting(predecessor, node), compact.getIngoingEdge(k));
+			}
+			assertEquals(new ArrayList<>(graph.predecessorsOf(node)), predecessors);
+		}
+
+		// later changes are not reflected
+		graph.addNode(new TestNode(5));
+		assertEquals(4, compact.getNodesCount());
+		assertFalse(compact.isEntrypoint(compact.getId(two)));
+		assertEquals(-1, compact.getId(new TestNode(5)));
+	}
+}
@@ -0,0 +1,122 @@
+package it.unive.lisa.util.datastructures.graph.algorithms;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import it.unive.lisa.util.datastructures.graph.TestGraph;
+import it.unive.lisa.util.datastructures.graph.TestGraph.TestEdge;
+import it.unive.lisa.util.datastructures.graph.TestGraph.TestNode;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.junit.Test;
+
+public class BasicBlocksTest {
+
+	@Test
+	public void testEmptyGraph() {
+		TestGraph graph = new TestGraph();
+		BasicBlocks<TestGraph, TestNode, TestEdge> blocks = new BasicBlocks<>(graph, graph.getEntrypoints());
+		assertEquals("Wrong blocks", 0, blocks.size());
+		assertTrue("Wrong leaders", blocks.getLeaders().isEmpty());
+	}
+
+	@Test
+	public void testLinearGraph() {
+		TestGraph graph = new TestGraph();
+		TestNode source = new TestNode(1);
+		TestNode middle = new TestNode(2);
+		TestNode end = new TestNode(3);
+		graph.addNode(source, true);
+		graph.addNode(middle);
+		graph.addNode(end);
+		graph.addEdge(new TestEdge(source, middle));
+		graph.addEdge(new TestEdge(middle, end));
+
+		BasicBlocks<TestGraph, TestNode, TestEdge> blocks = new BasicBlocks<>(graph, graph.getEntrypoints());
+		assertEquals("Wrong blocks", 1, blocks.size());
+		assertEquals("Wrong block", List.of(source, middle, end), blocks.getBlock(source));
+		assertSame("Wrong leader", source, blocks.getLeaderOf(end));
+		assertNull("Wrong block", blocks.getBlock(middle));
+	}
+
+	@Test
+	public void testBranchingGraph() {
+		TestGraph graph = new TestGraph();
+		TestNode source = new TestNode(1);
+		TestNode left = new TestNode(2);
+		TestNode leftEnd = new TestNode(3);
+		TestNode right = new TestNode(4);
+		TestNode join = new TestNode(5);
+		TestNode end = new TestNode(6);
+		graph.addNode(source, true);
+		graph.addNode(left);
+		graph.addNode(leftEnd);
+		graph.addNode(right);
+		graph.addNode(join);
+		graph.addNode(end);
+		graph.addEdge(new TestEdge(source, left));
+		graph.addEdge(new TestEdge(left, leftEnd));
+		graph.addEdge(new TestEdge(source, right));
+		graph.addEdge(new TestEdge(leftEnd, join));
+		graph.addEdge(new TestEdge(right, join));
+		graph.addEdge(new TestEdge(join, end));
+
+		BasicBlocks<TestGraph, TestNode, TestEdge> blocks = new BasicBlocks<>(graph, graph.getEntrypoints());
+		assertEquals("Wrong blocks", 4, blocks.size());
+		assertEquals("Wrong leaders", Set.of(source, left, right, join), new HashSet<>(blocks.getLeaders()));
+		assertEquals("Wrong block", List.of(source), blocks.getBlock(source));
+		assertEquals("Wrong block", List.of(left, leftEnd), blocks.getBlock(left));
+		assertEquals("Wrong block", List.of(right), blocks.getBlock(right));
+		assertEquals("Wrong block", List.of(join, end), blocks.getBlock(join));
+	}
+
+	@Test
+	public void testCyclicGraph() {
+		TestGraph graph = new TestGraph();
+		TestNode source = new TestNode(1);
+		TestNode head = new TestNode(2);
+		TestNode first = new TestNode(3);
+		TestNode second = new TestNode(4);
+		TestNode end = new TestNode(5);
+		graph.addNode(source, true);
+		graph.addNode(head);
+		graph.addNode(first);
+		graph.addNode(second);
+		graph.addNode(end);
+		graph.addEdge(new TestEdge(source, head));
+		graph.addEdge(new TestEdge(head, first));
+		graph.addEdge(new TestEdge(first, second));
+		graph.addEdge(new TestEdge(second, head));
+		graph.addEdge(new TestEdge(head, end));
+
+		BasicBlocks<TestGraph, TestNode, TestEdge> blocks = new BasicBlocks<>(graph, graph.getEntrypoints());
+		assertEquals("Wrong leaders", Set.of(source, head, first, end), new HashSet<>(blocks.getLeaders()));
+		assertEquals("Wrong block", List.of(source), blocks.getBlock(source));
+		assertEquals("Wrong block", List.of(head), blocks.getBlock(head));
+		assertEquals("Wrong block", List.of(first, second), blocks.getBlock(first));
+		assertEquals("Wrong block", List.of(end), blocks.getBlock(end));
+	}
+
+	@Test
+	public void testRoots() {
+		TestGraph graph = new TestGraph();
+		TestNode source = new TestNode(1);
+		TestNode middle = new TestNode(2);
+		TestNode end = new TestNode(3);
+		graph.addNode(source, true);
+		graph.addNode(middle);
+		graph.addNode(end);
+		graph.addEdge(new TestEdge(source, middle));
+		graph.addEdge(new TestEdge(middle, end));
+
+		BasicBlocks<TestGraph, TestNode, TestEdge> blocks = new BasicBlocks<>(graph, Set.of(source, middle));
+		assertEquals("Wrong block", List.of(source), blocks.getBlock(source));
+		assertEquals("Wrong block", List.of(middle, end), blocks.getBlock(middle));
+		assertTrue("Wrong leaders", blocks.isLeader(middle));
+		assertFalse("Wrong leaders", blocks.isLeader(end));
+	}
+}
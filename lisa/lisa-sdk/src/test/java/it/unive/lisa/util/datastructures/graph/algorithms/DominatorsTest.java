@@ -1,6 +1,9 @@
 package it.unive.lisa.util.datastructures.graph.algorithms;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
 import it.unive.lisa.util.datastructures.graph.TestGraph;
 import it.unive.lisa.util.datastructures.graph.TestGraph.TestEdge;
@@ -116,4 +119,44 @@ public class DominatorsTest {
 		assertEquals("Fixpoint returned wrong result", exp, res);
 	}
 
+	@Test
+	public void testTree() {
+		TestGraph graph = new TestGraph();
+		TestNode one = new TestNode(1);
+		TestNode two = new TestNode(2);
+		TestNode three = new TestNode(3);
+		TestNode four = new TestNode(4);
+		TestNode five = new TestNode(5);
+		TestNode unreachable = new TestNode(6);
+		graph.addNode(one, true);
+		graph.addNode(two);
+		graph.addNode(three);
+		graph.addNode(four);
+		graph.addNode(five, true);
+		graph.addNode(unreachable);
+		graph.addEdge(new TestEdge(one, two));
+		graph.addEdge(new TestEdge(two, three));
+		graph.addEdge(new TestEdge(two, four));
+		graph.addEdge(new TestEdge(three, four));
+		graph.addEdge(new TestEdge(four, two));
+		graph.addEdge(new TestEdge(five, four));
+		graph.addEdge(new TestEdge(unreachable, one));
+
+		DominatorTree<TestGraph, TestNode, TestEdge> tree = new DominatorTree<>(graph);
+		assertNull(tree.getImmediateDominator(one));
+		assertNull(tree.getImmediateDominator(five));
+		// reachable from both entrypoints
+		assertNull(tree.getImmediateDominator(two));
+		assertNull(tree.getImmediateDominator(four));
+		assertEquals(two, tree.getImmediateDominator(three));
+		assertEquals(Set.of(two, three), tree.getDominators(three));
+
+		assertTrue(tree.dominates(two, three));
+		assertTrue(tree.dominates(three, three));
+		assertFalse(tree.dominates(one, three));
+		assertFalse(tree.dominates(two, four));
+		assertFalse(tree.dominates(three, two));
+		assertFalse(tree.isReachable(unreachable));
+		assertFalse(tree.dominates(unreachable, one));
+	}
 }
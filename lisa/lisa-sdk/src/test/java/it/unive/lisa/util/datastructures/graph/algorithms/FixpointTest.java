@@ -3,16 +3,22 @@ package it.unive.lisa.util.datastructures.graph.algorithms;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import it.unive.lisa.util.collections.workset.FIFOWorkingSet;
+import it.unive.lisa.util.collections.workset.ReversePostorderWorkingSet;
+import it.unive.lisa.util.datastructures.graph.CompactGraph;
 import it.unive.lisa.util.datastructures.graph.TestGraph;
 import it.unive.lisa.util.datastructures.graph.TestGraph.TestEdge;
 import it.unive.lisa.util.datastructures.graph.TestGraph.TestNode;
 import it.unive.lisa.util.datastructures.graph.algorithms.Fixpoint.FixpointImplementation;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import org.apache.commons.collections4.SetUtils;
@@ -138,6 +144,56 @@ public class FixpointTest {
 				res);
 	}
 
+	@Test
+	public void testReversePostorderBranchingGraph() {
+		TestGraph graph = new TestGraph();
+		TestNode source = new TestNode(1);
+		TestNode left = new TestNode(2);
+		TestNode right = new TestNode(3);
+		TestNode join = new TestNode(4);
+		TestNode end = new TestNode(5);
+		graph.addNode(source, true);
+		graph.addNode(left);
+		graph.addNode(right);
+		graph.addNode(join);
+		graph.addNode(end);
+		graph.addEdge(new TestEdge(source, left));
+		graph.addEdge(new TestEdge(source, right));
+		graph.addEdge(new TestEdge(left, join));
+		graph.addEdge(new TestEdge(right, join));
+		graph.addEdge(new TestEdge(join, end));
+
+		Map<TestNode, Integer> visits = new HashMap<>();
+		Map<TestNode, Set<TestNode>> res = null;
+		try {
+			res = new Fixpoint<TestGraph, TestNode, TestEdge, Set<TestNode>>(graph).fixpoint(
+					Map.of(source, Set.of()),
+					ReversePostorderWorkingSet.mk(),
+					new FixpointTester() {
+						@Override
+						public Set<TestNode> semantics(TestNode node, Set<TestNode> entrystate) throws Exception {
+							visits.merge(node, 1, Integer::sum);
+							return super.semantics(node, entrystate);
+						}
+					});
+		} catch (FixpointException e) {
+			e.printStackTrace(System.err);
+			fail("The fixpoint computation has thrown an exception");
+		}
+
+		assertNotNull("Fixpoint failed", res);
+		assertEquals("Fixpoint returned wrong result",
+				Map.of(source, Set.of(source),
+						left, Set.of(source, left),
+						right, Set.of(source, right),
+						join, Set.of(source, left, right, join),
+						end, Set.of(source, left, right, join, end)),
+				res);
+		assertEquals("Nodes have been processed more than once",
+				Map.of(source, 1, left, 1, right, 1, join, 1, end, 1),
+				visits);
+	}
+
 	@Test
 	public void testCyclicGraph() {
 		TestGraph graph = new TestGraph();
@@ -178,6 +234,260 @@ public class FixpointTest {
 				res);
 	}
 
+	@Test
+	public void testRecursiveCyclicGraph() {
+		TestGraph graph = new TestGraph();
+		TestNode source = new TestNode(1);
+		TestNode first = new TestNode(2);
+		TestNode second = new TestNode(3);
+		TestNode join = new TestNode(4);
+		TestNode end = new TestNode(5);
+		graph.addNode(source, true);
+		graph.addNode(first);
+		graph.addNode(second);
+		graph.addNode(join);
+		graph.addNode(end);
+		graph.addEdge(new TestEdge(source, join));
+		graph.addEdge(new TestEdge(join, first));
+		graph.addEdge(new TestEdge(first, second));
+		graph.addEdge(new TestEdge(second, join));
+		graph.addEdge(new TestEdge(join, end));
+
+		Map<TestNode, Set<TestNode>> res = null;
+		try {
+			res = new Fixpoint<TestGraph, TestNode, TestEdge, Set<TestNode>>(graph).recursiveFixpoint(
+					Map.of(source, Set.of()),
+					new WeakTopologicalOrder<>(graph, graph.getEntrypoints()),
+					new FixpointTester());
+		} catch (FixpointException e) {
+			e.printStackTrace(System.err);
+			fail("The fixpoint computation has thrown an exception");
+		}
+
+		assertNotNull("Fixpoint failed", res);
+		assertEquals("Fixpoint returned wrong result",
+				Map.of(source, Set.of(source),
+						join, Set.of(source, join, first, second),
+						first, Set.of(source, join, first, second),
+						second, Set.of(source, join, first, second),
+						end, Set.of(source, join, first, second, end)),
+				res);
+	}
+
+	@Test
+	public void testBlockCyclicGraph() {
+		TestGraph graph = new TestGraph();
+		TestNode source = new TestNode(1);
+		TestNode first = new TestNode(2);
+		TestNode second = new TestNode(3);
+		TestNode join = new TestNode(4);
+		TestNode end = new TestNode(5);
+		graph.addNode(source, true);
+		graph.addNode(first);
+		graph.addNode(second);
+		graph.addNode(join);
+		graph.addNode(end);
+		graph.addEdge(new TestEdge(source, join));
+		graph.addEdge(new TestEdge(join, first));
+		graph.addEdge(new TestEdge(first, second));
+		graph.addEdge(new TestEdge(second, join));
+		graph.addEdge(new TestEdge(join, end));
+
+		Set<TestNode> compared = new HashSet<>();
+		Map<TestNode, Set<TestNode>> res = null;
+		try {
+			res = new Fixpoint<TestGraph, TestNode, TestEdge, Set<TestNode>>(graph).blockFixpoint(
+					Map.of(source, Set.of()),
+					new BasicBlocks<>(graph, graph.getEntrypoints()),
+					FIFOWorkingSet.mk(),
+					new FixpointTester() {
+						@Override
+						public boolean equality(TestNode node, Set<TestNode> approx, Set<TestNode> old)
+								throws Exception {
+							compared.add(node);
+							return super.equality(node, approx, old);
+						}
+					});
+		} catch (FixpointException e) {
+			e.printStackTrace(System.err);
+			fail("The fixpoint computation has thrown an exception");
+		}
+
+		assertNotNull("Fixpoint failed", res);
+		assertEquals("Fixpoint returned wrong result",
+				Map.of(source, Set.of(source),
+						join, Set.of(source, join, first, second),
+						first, Set.of(source, join, first, second),
+						second, Set.of(source, join, first, second),
+						end, Set.of(source, join, first, second, end)),
+				res);
+		assertTrue("Results have been compared in the middle of a block", !compared.contains(second));
+	}
+
+	@Test
+	public void testRecursiveNestedLoops() {
+		TestGraph graph = new TestGraph();
+		TestNode source = new TestNode(1);
+		TestNode outer = new TestNode(2);
+		TestNode inner = new TestNode(3);
+		TestNode body = new TestNode(4);
+		TestNode latch = new TestNode(5);
+		TestNode end = new TestNode(6);
+		graph.addNode(source, true);
+		graph.addNode(outer);
+		graph.addNode(inner);
+		graph.addNode(body);
+		graph.addNode(latch);
+		graph.addNode(end);
+		graph.addEdge(new TestEdge(source, outer));
+		graph.addEdge(new TestEdge(outer, inner));
+		graph.addEdge(new TestEdge(inner, body));
+		graph.addEdge(new TestEdge(body, inner));
+		graph.addEdge(new TestEdge(inner, latch));
+		graph.addEdge(new TestEdge(latch, outer));
+		graph.addEdge(new TestEdge(outer, end));
+
+		Map<TestNode, Set<TestNode>> res = null;
+		Map<TestNode, Set<TestNode>> expected = null;
+		try {
+			res = new Fixpoint<TestGraph, TestNode, TestEdge, Set<TestNode>>(graph).recursiveFixpoint(
+					Map.of(source, Set.of()),
+					new WeakTopologicalOrder<>(graph, graph.getEntrypoints()),
+					new FixpointTester());
+			expected = new Fixpoint<TestGraph, TestNode, TestEdge, Set<TestNode>>(graph).fixpoint(
+					Map.of(source, Set.of()),
+					FIFOWorkingSet.mk(),
+					new FixpointTester());
+		} catch (FixpointException e) {
+			e.printStackTrace(System.err);
+			fail("The fixpoint computation has thrown an exception");
+		}
+
+		assertNotNull("Fixpoint failed", res);
+		assertEquals("Recursive and worklist fixpoints returned different results", expected, res);
+		assertEquals("Fixpoint returned wrong result",
+				Set.of(source, outer, inner, body, latch, end),
+				res.get(end));
+	}
+
+	private static class CountingTester extends FixpointTester {
+
+		private final boolean increasing;
+
+		private final Map<TestEdge, Integer> traversals = new HashMap<>();
+
+		private final Map<TestNode, Integer> unions = new HashMap<>();
+
+		private final Map<TestNode, List<Set<TestNode>>> entries = new HashMap<>();
+
+		private CountingTester(boolean increasing) {
+			this.increasing = increasing;
+		}
+
+		@Override
+		public Set<TestNode> semantics(TestNode node, Set<TestNode> entrystate) throws Exception {
+			entries.computeIfAbsent(node, n -> new ArrayList<>()).add(entrystate);
+			return super.semantics(node, entrystate);
+		}
+
+		@Override
+		public Set<TestNode> traverse(TestEdge edge, Set<TestNode> entrystate) throws Exception {
+			traversals.merge(edge, 1, Integer::sum);
+			return super.traverse(edge, entrystate);
+		}
+
+		@Override
+		public Set<TestNode> union(TestNode node, Set<TestNode> left, Set<TestNode> right) throws Exception {
+			unions.merge(node, 1, Integer::sum);
+			return super.union(node, left, right);
+		}
+
+		@Override
+		public boolean isIncreasing() {
+			return increasing;
+		}
+	}
+
+	@Test
+	public void testEdgeAndEntryStatesAreCached() throws FixpointException {
+		TestGraph graph = new TestGraph();
+		TestNode source = new TestNode(1);
+		TestNode left = new TestNode(2);
+		TestNode right = new TestNode(3);
+		TestNode join = new TestNode(4);
+		graph.addNode(source, true);
+		graph.addNode(left);
+		graph.addNode(right);
+		graph.addNode(join);
+		graph.addEdge(new TestEdge(source, left));
+		graph.addEdge(new TestEdge(source, right));
+		TestEdge fromLeft = new TestEdge(left, join);
+		TestEdge fromRight = new TestEdge(right, join);
+		graph.addEdge(fromLeft);
+		graph.addEdge(fromRight);
+
+		// both left and right push join into the fifo working set, so join
+		// is processed twice, the second time with no predecessor changed
+		CountingTester tester = new CountingTester(false);
+		Map<TestNode, Set<TestNode>> res = new Fixpoint<TestGraph, TestNode, TestEdge, Set<TestNode>>(graph)
+				.fixpoint(Map.of(source, Set.of()), FIFOWorkingSet.mk(), tester);
+
+		assertEquals("Fixpoint returned wrong result", Set.of(source, left, right, join), res.get(join));
+		List<Set<TestNode>> entries = tester.entries.get(join);
+		assertEquals("Wrong number of visits", 2, entries.size());
+		assertSame("Unchanged entry state recomputed", entries.get(0), entries.get(1));
+		assertEquals("Unchanged edges traversed again", 1, (int) tester.traversals.get(fromLeft));
+		assertEquals("Unchanged edges traversed again", 1, (int) tester.traversals.get(fromRight));
+		assertEquals("Unchanged entry state recomputed", 1, (int) tester.unions.get(join));
+	}
+
+	private static Map<TestNode, Set<TestNode>> loopWithJoin(CountingTester tester, TestNode join,
+			TestEdge fromLeft, TestEdge fromRight) throws FixpointException {
+		// source -> left, right -> join <-> latch, where latch changes after
+		// join has been first computed from left and right
+		TestGraph graph = new TestGraph();
+		TestNode source = new TestNode(1);
+		TestNode latch = new TestNode(5);
+		graph.addNode(source, true);
+		graph.addNode(fromLeft.getSource());
+		graph.addNode(fromRight.getSource());
+		graph.addNode(join);
+		graph.addNode(latch);
+		graph.addEdge(new TestEdge(source, fromLeft.getSource()));
+		graph.addEdge(new TestEdge(source, fromRight.getSource()));
+		graph.addEdge(fromLeft);
+		graph.addEdge(fromRight);
+		graph.addEdge(new TestEdge(join, latch));
+		graph.addEdge(new TestEdge(latch, join));
+		return new Fixpoint<TestGraph, TestNode, TestEdge, Set<TestNode>>(graph)
+				.fixpoint(Map.of(source, Set.of()), FIFOWorkingSet.mk(), tester);
+	}
+
+	@Test
+	public void testIncreasingEntryStates() throws FixpointException {
+		TestNode left = new TestNode(2);
+		TestNode right = new TestNode(3);
+		TestNode join = new TestNode(4);
+		TestEdge fromLeft = new TestEdge(left, join);
+		TestEdge fromRight = new TestEdge(right, join);
+
+		CountingTester plain = new CountingTester(false);
+		Map<TestNode, Set<TestNode>> expected = loopWithJoin(plain, join, fromLeft, fromRight);
+		CountingTester increasing = new CountingTester(true);
+		Map<TestNode, Set<TestNode>> res = loopWithJoin(increasing, join, fromLeft, fromRight);
+
+		assertEquals("Increasing fixpoint returned a different result", expected, res);
+		assertEquals("Wrong number of visits", 3, increasing.entries.get(join).size());
+		// only left and right are joined at the first visit, the second visit
+		// reuses the entry state, and the third one needs all three edge
+		// states to be joined again, unless the previous entry state is
+		// joined with the one coming from latch only
+		assertEquals("Wrong number of unions", 3, (int) plain.unions.get(join));
+		assertEquals("Unchanged edge states joined again", 2, (int) increasing.unions.get(join));
+		assertEquals("Unchanged edges traversed again", 1, (int) increasing.traversals.get(fromLeft));
+		assertEquals("Unchanged edges traversed again", 1, (int) increasing.traversals.get(fromRight));
+	}
+
 	private static class ExceptionalTester implements FixpointImplementation<TestNode, TestEdge, Set<TestNode>> {
 
 		private final int type;
@@ -318,4 +628,62 @@ public class FixpointTest {
 			fail("The fixpoint computation hasn't thrown an exception");
 		assertNull("Fixpoint failed", res);
 	}
-}
\ No newline at end of file
+
+	@Test
+	public void testProfiler() throws FixpointException {
+		TestGraph graph = new TestGraph();
+		TestNode source = new TestNode(1);
+		TestNode head = new TestNode(2);
+		TestNode body = new TestNode(3);
+		TestNode end = new TestNode(4);
+		graph.addNode(source, true);
+		graph.addNode(head);
+		graph.addNode(body);
+		graph.addNode(end);
+		graph.addEdge(new TestEdge(source, head));
+		graph.addEdge(new TestEdge(head, body));
+		graph.addEdge(new TestEdge(body, head));
+		graph.addEdge(new TestEdge(head, end));
+
+		Map<TestNode, Integer> semantics = new HashMap<>(), traversals = new HashMap<>();
+		FixpointTester tester = new FixpointTester() {
+			@Override
+			public Set<TestNode> semantics(TestNode node, Set<TestNode> entrystate) throws Exception {
+				semantics.merge(node, 1, Integer::sum);
+				return super.semantics(node, entrystate);
+			}
+
+			@Override
+			public Set<TestNode> traverse(TestEdge edge, Set<TestNode> entrystate) throws Exception {
+				traversals.merge(edge.getDestination(), 1, Integer::sum);
+				return super.traverse(edge, entrystate);
+			}
+		};
+
+		Map<TestNode, Integer> profiledSemantics = new HashMap<>(), profiledTraversals = new HashMap<>();
+		Fixpoint.FixpointProfiler<TestNode> profiler = new Fixpoint.FixpointProfiler<TestNode>() {
+			@Override
+			public void semantics(TestNode node, long nanos) {
+				assertTrue("Negative time", nanos >= 0);
+				profiledSemantics.merge(node, 1, Integer::sum);
+			}
+
+			@Override
+			public void traverse(TestNode node, long nanos) {
+				assertTrue("Negative time", nanos >= 0);
+				profiledTraversals.merge(node, 1, Integer::sum);
+			}
+		};
+
+		Map<TestNode, Set<TestNode>> res = new Fixpoint<TestGraph, TestNode, TestEdge, Set<TestNode>>(graph,
+				new CompactGraph<>(graph), profiler).fixpoint(Map.of(source, Set.of()), FIFOWorkingSet.mk(), tester);
+
+		assertEquals("Fixpoint returned wrong result",
+				new Fixpoint<TestGraph, TestNode, TestEdge, Set<TestNode>>(graph).fixpoint(
+						Map.of(source, Set.of()), FIFOWorkingSet.mk(), new FixpointTester()),
+				res);
+		assertEquals("Wrong profiled semantics", semantics, profiledSemantics);
+		assertEquals("Wrong profiled traversals", traversals, profiledTraversals);
+		assertEquals("Wrong profiled nodes", new HashSet<>(graph.getNodes()), profiledSemantics.keySet());
+	}
+}
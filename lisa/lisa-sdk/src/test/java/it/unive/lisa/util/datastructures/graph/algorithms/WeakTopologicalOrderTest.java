@@ -0,0 +1,133 @@
+package it.unive.lisa.util.datastructures.graph.algorithms;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import it.unive.lisa.util.datastructures.graph.TestGraph;
+import it.unive.lisa.util.datastructures.graph.TestGraph.TestEdge;
+import it.unive.lisa.util.datastructures.graph.TestGraph.TestNode;
+import java.util.HashSet;
+import java.util.Set;
+import org.junit.Test;
+
+public class WeakTopologicalOrderTest {
+
+	@Test
+	public void testEmptyGraph() {
+		TestGraph graph = new TestGraph();
+		WeakTopologicalOrder<TestGraph, TestNode, TestEdge> wto = new WeakTopologicalOrder<>(graph,
+				graph.getEntrypoints());
+		assertTrue("Wrong order", wto.getElements().isEmpty());
+		assertTrue("Wrong heads", wto.getHeads().isEmpty());
+	}
+
+	@Test
+	public void testLinearGraph() {
+		TestGraph graph = new TestGraph();
+		TestNode source = new TestNode(1);
+		TestNode middle = new TestNode(2);
+		TestNode end = new TestNode(3);
+		graph.addNode(source, true);
+		graph.addNode(middle);
+		graph.addNode(end);
+		graph.addEdge(new TestEdge(source, middle));
+		graph.addEdge(new TestEdge(middle, end));
+
+		WeakTopologicalOrder<TestGraph, TestNode, TestEdge> wto = new WeakTopologicalOrder<>(graph,
+				graph.getEntrypoints());
+		assertEquals("Wrong order", "1 2 3", wto.toString());
+		assertTrue("Wrong heads", wto.getHeads().isEmpty());
+	}
+
+	@Test
+	public void testCyclicGraph() {
+		TestGraph graph = new TestGraph();
+		TestNode source = new TestNode(1);
+		TestNode first = new TestNode(2);
+		TestNode second = new TestNode(3);
+		TestNode join = new TestNode(4);
+		TestNode end = new TestNode(5);
+		graph.addNode(source, true);
+		graph.addNode(first);
+		graph.addNode(second);
+		graph.addNode(join);
+		graph.addNode(end);
+		graph.addEdge(new TestEdge(source, join));
+		graph.addEdge(new TestEdge(join, first));
+		graph.addEdge(new TestEdge(first, second));
+		graph.addEdge(new TestEdge(second, join));
+		graph.addEdge(new TestEdge(join, end));
+
+		WeakTopologicalOrder<TestGraph, TestNode, TestEdge> wto = new WeakTopologicalOrder<>(graph,
+				graph.getEntrypoints());
+		assertEquals("Wrong order", "1 (4 2 3) 5", wto.toString());
+		assertEquals("Wrong heads", Set.of(join), new HashSet<>(wto.getHeads()));
+	}
+
+	@Test
+	public void testNestedLoops() {
+		TestGraph graph = new TestGraph();
+		TestNode source = new TestNode(1);
+		TestNode outer = new TestNode(2);
+		TestNode inner = new TestNode(3);
+		TestNode body = new TestNode(4);
+		TestNode latch = new TestNode(5);
+		TestNode end = new TestNode(6);
+		graph.addNode(source, true);
+		graph.addNode(outer);
+		graph.addNode(inner);
+		graph.addNode(body);
+		graph.addNode(latch);
+		graph.addNode(end);
+		graph.addEdge(new TestEdge(source, outer));
+		graph.addEdge(new TestEdge(outer, inner));
+		graph.addEdge(new TestEdge(inner, body));
+		graph.addEdge(new TestEdge(body, inner));
+		graph.addEdge(new TestEdge(inner, latch));
+		graph.addEdge(new TestEdge(latch, outer));
+		graph.addEdge(new TestEdge(outer, end));
+
+		WeakTopologicalOrder<TestGraph, TestNode, TestEdge> wto = new WeakTopologicalOrder<>(graph,
+				graph.getEntrypoints());
+		assertEquals("Wrong order", "1 (2 (3 4) 5) 6", wto.toString());
+		assertEquals("Wrong heads", Set.of(outer, inner), new HashSet<>(wto.getHeads()));
+		assertTrue("Wrong heads", wto.isHead(inner));
+		assertTrue("Wrong heads", !wto.isHead(body));
+	}
+
+	@Test
+	public void testSelfLoop() {
+		TestGraph graph = new TestGraph();
+		TestNode source = new TestNode(1);
+		TestNode loop = new TestNode(2);
+		TestNode end = new TestNode(3);
+		graph.addNode(source, true);
+		graph.addNode(loop);
+		graph.addNode(end);
+		graph.addEdge(new TestEdge(source, loop));
+		graph.addEdge(new TestEdge(loop, loop));
+		graph.addEdge(new TestEdge(loop, end));
+
+		WeakTopologicalOrder<TestGraph, TestNode, TestEdge> wto = new WeakTopologicalOrder<>(graph,
+				graph.getEntrypoints());
+		assertEquals("Wrong order", "1 (2) 3", wto.toString());
+		assertEquals("Wrong heads", Set.of(loop), new HashSet<>(wto.getHeads()));
+	}
+
+	@Test
+	public void testUnreachableNodes() {
+		TestGraph graph = new TestGraph();
+		TestNode source = new TestNode(1);
+		TestNode end = new TestNode(2);
+		TestNode dead = new TestNode(3);
+		graph.addNode(source, true);
+		graph.addNode(end);
+		graph.addNode(dead);
+		graph.addEdge(new TestEdge(source, end));
+		graph.addEdge(new TestEdge(dead, end));
+
+		WeakTopologicalOrder<TestGraph, TestNode, TestEdge> wto = new WeakTopologicalOrder<>(graph,
+				graph.getEntrypoints());
+		assertEquals("Wrong order", "1 2", wto.toString());
+	}
+}
@@ -6,6 +6,7 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
+import it.unive.lisa.program.ProgramValidationException;
 import it.unive.lisa.util.datastructures.graph.Edge;
 import it.unive.lisa.util.datastructures.graph.code.TestCodeGraph.TestCodeEdge;
 import it.unive.lisa.util.datastructures.graph.code.TestCodeGraph.TestCodeNode;
@@ -593,4 +594,84 @@ public class NodeListTest {
 
 		verify(adj, nodes, edges, matrix, entries, exits, "after removing " + removed.toString());
 	}
+
+	@Test
+	public void testAdjacencyAfterModifications() {
+		NodeList<TestCodeGraph, TestCodeNode, TestCodeEdge> matrix = new NodeList<>(new TestCodeEdge(null, null));
+		TestCodeNode a = new TestCodeNode(1), b = new TestCodeNode(2), c = new TestCodeNode(3);
+		matrix.addNode(a);
+		matrix.addNode(b);
+		matrix.addNode(c);
+		matrix.addEdge(new TestCodeEdge(a, b));
+		matrix.addEdge(new TestCodeEdge(b, c));
+		matrix.addEdge(new TestCodeEdge(a, c));
+
+		assertTrue(isEqualCollection(List.of(b, c), matrix.followersOf(a)));
+		assertTrue(isEqualCollection(List.of(a, b), matrix.predecessorsOf(c)));
+
+		matrix.removeEdge(new TestCodeEdge(a, c));
+		assertTrue(isEqualCollection(List.of(b), matrix.followersOf(a)));
+		assertTrue(isEqualCollection(List.of(b), matrix.predecessorsOf(c)));
+
+		matrix.removeNode(b);
+		assertTrue(matrix.followersOf(a).isEmpty());
+		assertTrue(matrix.predecessorsOf(c).isEmpty());
+		assertFalse(matrix.containsNode(b));
+
+		matrix.addEdge(new TestCodeEdge(a, c));
+		assertTrue(isEqualCollection(List.of(c), matrix.followersOf(a)));
+		assertTrue(isEqualCollection(List.of(a), matrix.predecessorsOf(c)));
+		assertEquals(1, matrix.distance(a, c));
+	}
+
+	@Test
+	public void testBulkAddition() throws ProgramValidationException {
+		for (int round = 0; round < 50; round++) {
+			List<TestCodeNode> nodes = new ArrayList<>();
+			int count = 1 + rand.nextInt(30);
+			for (int i = 0; i < count; i++)
+				nodes.add(new TestCodeNode(i));
+			List<TestCodeEdge> edges = new ArrayList<>();
+			for (int i = 0; i < count * 2; i++) {
+				// favour edges that can be encoded sequentially
+				int src = rand.nextInt(count);
+				int dest = rand.nextBoolean() && src < count - 1 ? src + 1 : rand.nextInt(count);
+				edges.add(new TestCodeEdge(nodes.get(src), nodes.get(dest)));
+			}
+
+			NodeList<TestCodeGraph, TestCodeNode, TestCodeEdge> expected = new NodeList<>(
+					new TestCodeEdge(null, null));
+			nodes.forEach(expected::addNode);
+			edges.forEach(expected::addEdge);
+
+			// some nodes are already in the list, and some are added twice
+			int existing = rand.nextInt(count);
+			NodeList<TestCodeGraph, TestCodeNode, TestCodeEdge> actual = new NodeList<>(
+					new TestCodeEdge(null, null));
+			nodes.subList(0, existing).forEach(actual::addNode);
+			NodeListBuilder<TestCodeGraph, TestCodeNode, TestCodeEdge> builder = new NodeListBuilder<>(
+					new TestCodeEdge(null, null));
+			NodeListBuilder<TestCodeGraph, TestCodeNode, TestCodeEdge> other = new NodeListBuilder<>(
+					new TestCodeEdge(null, null));
+			builder.addNode(nodes.get(existing / 2));
+			nodes.subList(existing, count).forEach(builder::addNode);
+			edges.forEach(other::addEdge);
+			builder.mergeWith(other);
+			actual.addAll(builder.getNodes(), builder.getEdges());
+
+			assertEquals("Bulk addition differs from incremental one", expected, actual);
+			if (existing == 0)
+				assertEquals("Built list differs from incremental one", expected, builder.build());
+		}
+	}
+
+	@Test(expected = ProgramValidationException.class)
+	public void testBulkAdditionWithInvalidEdge() throws ProgramValidationException {
+		NodeListBuilder<TestCodeGraph, TestCodeNode, TestCodeEdge> builder = new NodeListBuilder<>(
+				new TestCodeEdge(null, null));
+		TestCodeNode a = new TestCodeNode(1);
+		builder.addNode(a);
+		builder.addEdge(new TestCodeEdge(a, new TestCodeNode(2)));
+		builder.build();
+	}
 }